@@ -1,14 +1,57 @@
 package de.csmath.QT;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 /**
  * The AvcCAtom class represents the QuickTime File Type Atom ('avcC').
  * It is an extension of the Video Sample Description of the 'stsd' atom.
+ * The AVC decoder configuration record is parsed into its header fields
+ * and the positions of its sequence and picture parameter sets.
  * @author lpfeiler
  */
 public final class AvcCAtom extends QTAtom {
 
+    /**
+     * The configuration version.
+     */
+    private int configVersion;
+
+    /**
+     * The profile.
+     */
+    private int profile;
+
+    /**
+     * The profile compatibility flags.
+     */
+    private int profileCompatibility;
+
+    /**
+     * The level.
+     */
+    private int level;
+
+    /**
+     * The size of the NAL unit length fields of the samples in bytes.
+     */
+    private int nalLengthSize;
+
+    /**
+     * The offsets and lengths of the sequence parameter sets in the record.
+     */
+    private int[] sps = new int[0];
+
+    /**
+     * The offsets and lengths of the picture parameter sets in the record.
+     */
+    private int[] pps = new int[0];
+
+    /**
+     * The parsed first sequence parameter set, if already parsed.
+     */
+    private AvcSps parsedSps;
+
     /**
      * Constructs an AvcCAtom.
      * @param size size of the atom in the file
@@ -17,6 +60,7 @@ public final class AvcCAtom extends QTAtom {
      */
     public AvcCAtom(int size, int type, byte[] decConfRecord) {
         super(size, type, decConfRecord);
+        parseRecord();
     }
 
     /**
@@ -26,4 +70,133 @@ public final class AvcCAtom extends QTAtom {
     public Iterator<Byte> getDecConfRecIterator() {
         return getContentsIterator();
     }
+
+    /**
+     * Returns the configuration version (1).
+     * @return the configuration version
+     */
+    public int getConfigVersion() {
+        return configVersion;
+    }
+
+    /**
+     * Returns the profile (e.g. 66 Baseline, 77 Main, 100 High).
+     * @return the profile
+     */
+    public int getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns the profile compatibility flags.
+     * @return the profile compatibility flags
+     */
+    public int getProfileCompatibility() {
+        return profileCompatibility;
+    }
+
+    /**
+     * Returns the level multiplied by 10 (e.g. 40 for level 4.0).
+     * @return the level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the size of the NAL unit length fields of the samples in bytes.
+     * @return the size of the NAL unit length fields
+     */
+    public int getNalLengthSize() {
+        return nalLengthSize;
+    }
+
+    /**
+     * Returns the number of sequence parameter sets.
+     * @return the number of sequence parameter sets
+     */
+    public int getNumSps() {
+        return sps.length / 2;
+    }
+
+    /**
+     * Returns a copy of a sequence parameter set NAL unit.
+     * @param index the index of the sequence parameter set
+     * @return the sequence parameter set NAL unit
+     */
+    public byte[] getSps(int index) {
+        return Arrays.copyOfRange(getContents(), sps[2 * index], sps[2 * index] + sps[2 * index + 1]);
+    }
+
+    /**
+     * Returns the number of picture parameter sets.
+     * @return the number of picture parameter sets
+     */
+    public int getNumPps() {
+        return pps.length / 2;
+    }
+
+    /**
+     * Returns a copy of a picture parameter set NAL unit.
+     * @param index the index of the picture parameter set
+     * @return the picture parameter set NAL unit
+     */
+    public byte[] getPps(int index) {
+        return Arrays.copyOfRange(getContents(), pps[2 * index], pps[2 * index] + pps[2 * index + 1]);
+    }
+
+    /**
+     * Returns the parsed first sequence parameter set.
+     * It is parsed directly from the record on the first call.
+     * @return the first sequence parameter set, or null if there is none
+     *         or it is truncated
+     */
+    public AvcSps getSequenceParameterSet() {
+        if (parsedSps == null && sps.length > 0) {
+            parsedSps = AvcSps.parse(getContents(), sps[0], sps[1]);
+        }
+        return parsedSps;
+    }
+
+    /**
+     * Parses the header fields and the parameter set positions of the record.
+     * A truncated record keeps the parameter sets read so far.
+     */
+    private void parseRecord() {
+        byte[] record = getContents();
+        if (record.length < 6) return;
+        configVersion = record[0] & 0xFF;
+        profile = record[1] & 0xFF;
+        profileCompatibility = record[2] & 0xFF;
+        level = record[3] & 0xFF;
+        nalLengthSize = (record[4] & 0x03) + 1;
+        int pos = 5;
+        sps = readParamSets(record, record[pos] & 0x1F, pos + 1);
+        pos = sps.length > 0 ? sps[sps.length - 2] + sps[sps.length - 1] : pos + 1;
+        if (pos < record.length && (record[5] & 0x1F) == getNumSps()) {
+            pps = readParamSets(record, record[pos] & 0xFF, pos + 1);
+        }
+    }
+
+    /**
+     * Reads the offsets and lengths of a sequence of parameter sets,
+     * each preceded by a 16-bit length.
+     * @param record the decoder configuration record
+     * @param count the number of parameter sets
+     * @param pos the position of the first length field
+     * @return the offsets and lengths of the complete parameter sets
+     */
+    private static int[] readParamSets(byte[] record, int count, int pos) {
+        int[] sets = new int[2 * count];
+        int n = 0;
+        for (int i=0; i < count && pos + 2 <= record.length; i++) {
+            int len = (record[pos] & 0xFF) << 8 | (record[pos + 1] & 0xFF);
+            pos += 2;
+            if (pos + len > record.length) break;
+            sets[n++] = pos;
+            sets[n++] = len;
+            pos += len;
+        }
+        return n == sets.length ? sets : Arrays.copyOf(sets, n);
+    }
 }
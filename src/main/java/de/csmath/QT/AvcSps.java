@@ -0,0 +1,307 @@
+package de.csmath.QT;
+
+/**
+ * This class represents an H.264 sequence parameter set.
+ * Only the fields that describe the coded pictures are kept: profile,
+ * level, chroma format, bit depth, picture size, cropping and the VUI.
+ * @author lpfeiler
+ */
+public final class AvcSps {
+
+    /**
+     * The NAL unit type of a sequence parameter set.
+     */
+    public static final int NAL_TYPE_SPS = 7;
+
+    /**
+     * The profile.
+     */
+    private int profileIdc;
+
+    /**
+     * The constraint set flags.
+     */
+    private int constraintFlags;
+
+    /**
+     * The level.
+     */
+    private int levelIdc;
+
+    /**
+     * The ID of the sequence parameter set.
+     */
+    private int spsId;
+
+    /**
+     * The chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     */
+    private int chromaFormatIdc = 1;
+
+    /**
+     * True iff the color planes of 4:4:4 video are coded separately.
+     */
+    private boolean separateColourPlane;
+
+    /**
+     * The bit depth of luma samples.
+     */
+    private int bitDepthLuma = 8;
+
+    /**
+     * The bit depth of chroma samples.
+     */
+    private int bitDepthChroma = 8;
+
+    /**
+     * The coded width in pixels.
+     */
+    private int codedWidth;
+
+    /**
+     * The coded height in pixels.
+     */
+    private int codedHeight;
+
+    /**
+     * True iff all pictures are coded as frames.
+     */
+    private boolean frameMbsOnly;
+
+    /**
+     * The cropping in pixels (left, right, top, bottom).
+     */
+    private final int[] crop = new int[4];
+
+    /**
+     * The video usability information.
+     */
+    private VuiParameters vui;
+
+    /**
+     * Constructs an AvcSps from the given reader.
+     * @param r the reader positioned after the NAL unit header
+     */
+    private AvcSps(NalBitReader r) {
+        profileIdc = r.readBits(8);
+        constraintFlags = r.readBits(8);
+        levelIdc = r.readBits(8);
+        spsId = r.readUE();
+        if (hasChromaInfo(profileIdc)) {
+            chromaFormatIdc = r.readUE();
+            if (chromaFormatIdc == 3) separateColourPlane = r.readFlag();
+            bitDepthLuma = 8 + r.readUE();
+            bitDepthChroma = 8 + r.readUE();
+            r.readBit();                     //qpprime_y_zero_transform_bypass_flag
+            if (r.readFlag()) {
+                int lists = chromaFormatIdc != 3 ? 8 : 12;
+                for (int i=0; i < lists; i++) {
+                    if (r.readFlag()) skipScalingList(r, i < 6 ? 16 : 64);
+                }
+            }
+        }
+        r.readUE();                          //log2_max_frame_num_minus4
+        int picOrderCntType = r.readUE();
+        if (picOrderCntType == 0) {
+            r.readUE();                      //log2_max_pic_order_cnt_lsb_minus4
+        } else if (picOrderCntType == 1) {
+            r.readBit();                     //delta_pic_order_always_zero_flag
+            r.readSE();                      //offset_for_non_ref_pic
+            r.readSE();                      //offset_for_top_to_bottom_field
+            int cycle = r.readUE();
+            for (int i=0; i < cycle && !r.isOverrun(); i++) {
+                r.readSE();                  //offset_for_ref_frame
+            }
+        }
+        r.readUE();                          //max_num_ref_frames
+        r.readBit();                         //gaps_in_frame_num_value_allowed_flag
+        int widthInMbs = r.readUE() + 1;
+        int heightInMapUnits = r.readUE() + 1;
+        frameMbsOnly = r.readFlag();
+        if (!frameMbsOnly) r.readBit();      //mb_adaptive_frame_field_flag
+        r.readBit();                         //direct_8x8_inference_flag
+        codedWidth = widthInMbs * 16;
+        codedHeight = (frameMbsOnly ? 1 : 2) * heightInMapUnits * 16;
+        if (r.readFlag()) {
+            int cropUnitX = 1;
+            int cropUnitY = frameMbsOnly ? 1 : 2;
+            if (chromaFormatIdc != 0 && !separateColourPlane) {
+                cropUnitX *= chromaFormatIdc == 3 ? 1 : 2;
+                cropUnitY *= chromaFormatIdc == 1 ? 2 : 1;
+            }
+            crop[0] = r.readUE() * cropUnitX;
+            crop[1] = r.readUE() * cropUnitX;
+            crop[2] = r.readUE() * cropUnitY;
+            crop[3] = r.readUE() * cropUnitY;
+        }
+        vui = r.readFlag() ? new VuiParameters(r, false) : new VuiParameters();
+    }
+
+    /**
+     * Parses a sequence parameter set NAL unit.
+     * @param buf the buffer with the NAL unit (including its header byte)
+     * @param off the start of the NAL unit
+     * @param len the length of the NAL unit
+     * @return the sequence parameter set, or null if the NAL unit is
+     *         no sequence parameter set or truncated
+     */
+    public static AvcSps parse(byte[] buf, int off, int len) {
+        if (len < 4 || (buf[off] & 0x1F) != NAL_TYPE_SPS) return null;
+        NalBitReader r = new NalBitReader(buf, off + 1, len - 1);
+        AvcSps sps = new AvcSps(r);
+        return r.isOverrun() ? null : sps;
+    }
+
+    /**
+     * Returns the profile (e.g. 66 Baseline, 77 Main, 100 High).
+     * @return the profile
+     */
+    public int getProfileIdc() {
+        return profileIdc;
+    }
+
+    /**
+     * Returns the constraint set flags.
+     * @return the constraint set flags
+     */
+    public int getConstraintFlags() {
+        return constraintFlags;
+    }
+
+    /**
+     * Returns the level multiplied by 10 (e.g. 40 for level 4.0).
+     * @return the level
+     */
+    public int getLevelIdc() {
+        return levelIdc;
+    }
+
+    /**
+     * Returns the ID of the sequence parameter set.
+     * @return the ID of the sequence parameter set
+     */
+    public int getSpsId() {
+        return spsId;
+    }
+
+    /**
+     * Returns the chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     * @return the chroma format
+     */
+    public int getChromaFormatIdc() {
+        return chromaFormatIdc;
+    }
+
+    /**
+     * Returns the bit depth of luma samples.
+     * @return the bit depth of luma samples
+     */
+    public int getBitDepthLuma() {
+        return bitDepthLuma;
+    }
+
+    /**
+     * Returns the bit depth of chroma samples.
+     * @return the bit depth of chroma samples
+     */
+    public int getBitDepthChroma() {
+        return bitDepthChroma;
+    }
+
+    /**
+     * Returns the coded width in pixels, before cropping.
+     * @return the coded width
+     */
+    public int getCodedWidth() {
+        return codedWidth;
+    }
+
+    /**
+     * Returns the coded height in pixels, before cropping.
+     * @return the coded height
+     */
+    public int getCodedHeight() {
+        return codedHeight;
+    }
+
+    /**
+     * Returns the width of the pictures in pixels, after cropping.
+     * @return the width of the pictures
+     */
+    public int getWidth() {
+        return codedWidth - crop[0] - crop[1];
+    }
+
+    /**
+     * Returns the height of the pictures in pixels, after cropping.
+     * @return the height of the pictures
+     */
+    public int getHeight() {
+        return codedHeight - crop[2] - crop[3];
+    }
+
+    /**
+     * Returns the cropping in pixels: left, right, top and bottom.
+     * @return a copy of the cropping
+     */
+    public int[] getCrop() {
+        return crop.clone();
+    }
+
+    /**
+     * Returns true iff all pictures are coded as frames (progressive).
+     * @return true iff all pictures are coded as frames
+     */
+    public boolean isFrameMbsOnly() {
+        return frameMbsOnly;
+    }
+
+    /**
+     * Returns the video usability information.
+     * @return the video usability information
+     */
+    public VuiParameters getVui() {
+        return vui;
+    }
+
+    /**
+     * Returns the frame rate of the VUI timing information.
+     * @return the frame rate, or 0 if there is no timing information
+     */
+    public double getFrameRate() {
+        if (!vui.isTimingInfoPresent() || vui.getNumUnitsInTick() == 0) return 0;
+        return vui.getTimeScale() / (2.0 * vui.getNumUnitsInTick());
+    }
+
+    /**
+     * Returns true iff sequence parameter sets of the given profile carry
+     * chroma format, bit depth and scaling matrices.
+     * @param profileIdc the profile
+     * @return true iff the profile carries chroma information
+     */
+    private static boolean hasChromaInfo(int profileIdc) {
+        switch (profileIdc) {
+            case 100: case 110: case 122: case 244: case 44: case 83:
+            case 86: case 118: case 128: case 138: case 139: case 134: case 135:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Skips a scaling list.
+     * @param r the reader
+     * @param size the size of the scaling list
+     */
+    private static void skipScalingList(NalBitReader r, int size) {
+        int lastScale = 8;
+        int nextScale = 8;
+        for (int j=0; j < size; j++) {
+            if (nextScale != 0) {
+                nextScale = (lastScale + r.readSE() + 256) % 256;
+            }
+            lastScale = nextScale == 0 ? lastScale : nextScale;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package de.csmath.QT;
+
+/**
+ * The BtrtAtom class represents the Bit Rate Atom ('btrt').
+ * It is an extension of a Sample Description of the 'stsd' atom.
+ * @author lpfeiler
+ */
+public final class BtrtAtom extends QTAtom {
+
+    /**
+     * The size of the decoding buffer in bytes.
+     */
+    private final int bufferSize;
+
+    /**
+     * The maximal bitrate in bits per second.
+     */
+    private final int maxBitrate;
+
+    /**
+     * The average bitrate in bits per second.
+     */
+    private final int avgBitrate;
+
+    /**
+     * Constructs a BtrtAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'btrt'
+     * @param bufferSize the size of the decoding buffer
+     * @param maxBitrate the maximal bitrate
+     * @param avgBitrate the average bitrate
+     */
+    public BtrtAtom(int size, int type, int bufferSize, int maxBitrate, int avgBitrate) {
+        super(size, type);
+        this.bufferSize = bufferSize;
+        this.maxBitrate = maxBitrate;
+        this.avgBitrate = avgBitrate;
+    }
+
+    /**
+     * Returns the size of the decoding buffer in bytes.
+     * @return the size of the decoding buffer
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the maximal bitrate in bits per second.
+     * @return the maximal bitrate
+     */
+    public int getMaxBitrate() {
+        return maxBitrate;
+    }
+
+    /**
+     * Returns the average bitrate in bits per second.
+     * @return the average bitrate
+     */
+    public int getAvgBitrate() {
+        return avgBitrate;
+    }
+}
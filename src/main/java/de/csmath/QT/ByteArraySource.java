@@ -0,0 +1,49 @@
+package de.csmath.QT;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A RandomAccessSource of a file in memory: a byte array or a ByteBuffer,
+ * e.g. a memory-mapped file. The bytes are not copied.
+ * @author lpfeiler
+ */
+public final class ByteArraySource implements RandomAccessSource {
+
+    /**
+     * The bytes of the file from position 0 to the limit.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Constructs a ByteArraySource of a byte array.
+     * @param data the bytes of the file
+     */
+    public ByteArraySource(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Constructs a ByteArraySource of the remaining bytes of a ByteBuffer.
+     * @param data the bytes of the file
+     */
+    public ByteArraySource(ByteBuffer data) {
+        this.data = data.slice();
+    }
+
+    @Override
+    public int read(long offset, int length, ByteBuffer dst) {
+        if (offset < 0) throw new IllegalArgumentException("negative offset");
+        if (offset >= data.limit()) return -1;
+        int n = (int) Math.min(Math.min(length, dst.remaining()), data.limit() - offset);
+        ByteBuffer src = data.duplicate();
+        src.position((int) offset);
+        src.limit((int) offset + n);
+        dst.put(src);
+        return n;
+    }
+
+    @Override
+    public long size() {
+        return data.limit();
+    }
+}
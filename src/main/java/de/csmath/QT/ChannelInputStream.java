@@ -0,0 +1,233 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An InputStream over a FileChannel or another {@link RandomAccessSource},
+ * which reads with positional reads. The position of a channel is not
+ * changed, so several streams may read the same source. Skipping only
+ * moves the position of the stream and does not read the skipped bytes,
+ * unless the stream reads through: then the file is read sequentially in
+ * large blocks, which is cheaper than seeking on sources with a high
+ * latency per request. With a {@link ReadAhead}, e.g. a
+ * {@link ReadScheduler} or a {@link Prefetcher}, the reads are served by
+ * the bytes read ahead and go to the source only on a miss.
+ * @author lpfeiler
+ */
+final class ChannelInputStream extends InputStream {
+
+    /**
+     * The size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /**
+     * The size of the read buffer of a stream, which reads through.
+     */
+    private static final int READ_THROUGH_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The source to read from.
+     */
+    private final RandomAccessSource source;
+
+    /**
+     * The read buffer.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * True iff skipped bytes are read.
+     */
+    private final boolean readThrough;
+
+    /**
+     * The bytes read ahead, or null.
+     */
+    private final ReadAhead readAhead;
+
+    /**
+     * The guard of the limits of the read, or null.
+     */
+    private final ReadGuard guard;
+
+    /**
+     * The file offset of the first byte of the buffer.
+     */
+    private long bufferStart;
+
+    /**
+     * The file offset of the next byte.
+     */
+    private long position;
+
+    /**
+     * The marked file offset.
+     */
+    private long mark;
+
+    /**
+     * Constructs a ChannelInputStream over a FileChannel.
+     * @param channel the channel to read from
+     * @param position the file offset of the first byte to read
+     */
+    ChannelInputStream(FileChannel channel, long position) {
+        this(new FileChannelSource(channel), position, false, null, null);
+    }
+
+    /**
+     * Constructs a ChannelInputStream.
+     * @param source the source to read from
+     * @param position the file offset of the first byte to read
+     */
+    ChannelInputStream(RandomAccessSource source, long position) {
+        this(source, position, false, null, null);
+    }
+
+    /**
+     * Constructs a ChannelInputStream, which serves its reads from bytes
+     * read ahead from the same source and checks its reads from the
+     * source against the limits of a read.
+     * @param source the source to read from
+     * @param position the file offset of the first byte to read
+     * @param readThrough true iff skipped bytes are read
+     * @param readAhead the bytes read ahead, or null
+     * @param guard the guard of the limits of the read, or null
+     */
+    ChannelInputStream(RandomAccessSource source, long position, boolean readThrough,
+                       ReadAhead readAhead, ReadGuard guard) {
+        this.source = source;
+        this.position = position;
+        this.readThrough = readThrough;
+        this.readAhead = readAhead;
+        this.guard = guard;
+        buffer = ByteBuffer.allocate(readThrough ? READ_THROUGH_BUFFER_SIZE : BUFFER_SIZE);
+        buffer.limit(0);
+    }
+
+    /**
+     * Returns the file offset of the next byte.
+     * @return the file offset of the next byte
+     */
+    long getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the file offset of the next byte.
+     * @param position the file offset of the next byte
+     */
+    void seek(long position) {
+        if (position < 0)
+            throw new IllegalArgumentException("negative position");
+        this.position = position;
+    }
+
+    /**
+     * Gives a hint, that the reader entered a container.
+     * @param offset the file offset of the container
+     * @param end the end offset of the container
+     */
+    void hint(long offset, long end) {
+        if (readAhead != null) readAhead.hint(offset, end);
+    }
+
+    /**
+     * Checks the limits of the read at an atom boundary.
+     * @throws java.io.InterruptedIOException if a limit was hit
+     */
+    void check() throws IOException {
+        if (guard != null) guard.check();
+    }
+
+    /**
+     * Returns the source of this stream.
+     * @return the source
+     */
+    RandomAccessSource getSource() {
+        return source;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        int b = buffer.get((int) (position - bufferStart)) & 0xFF;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (len >= buffer.capacity() && readAhead == null) {
+            if (guard != null) len = guard.allow(len);
+            int n = source.read(position, len, ByteBuffer.wrap(b, off, len));
+            if (guard != null) guard.count(n);
+            if (n > 0) position += n;
+            return n;
+        }
+        if (!fill()) return -1;
+        int index = (int) (position - bufferStart);
+        int n = Math.min(len, buffer.limit() - index);
+        for (int i=0; i < n; i++) {
+            b[off + i] = buffer.get(index + i);
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        if (!readThrough) {
+            position += n;
+            return n;
+        }
+        long start = position;
+        long target = position + n;
+        while (position < target && fill()) {
+            position = Math.min(target, bufferStart + buffer.limit());
+        }
+        return position - start;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public void reset() {
+        position = mark;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, source.size() - position));
+    }
+
+    /**
+     * Makes sure that the buffer holds the byte at the current position.
+     * @return false at the end of the file
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        if (position >= bufferStart && position < bufferStart + buffer.limit()) return true;
+        buffer.clear();
+        bufferStart = position;
+        if (readAhead != null && readAhead.fill(buffer, position)) return true;
+        int len = guard == null ? buffer.remaining() : guard.allow(buffer.remaining());
+        int n = source.read(position, len, buffer);
+        if (guard != null) guard.count(n);
+        buffer.flip();
+        return n > 0;
+    }
+}
@@ -0,0 +1,76 @@
+package de.csmath.QT;
+
+/**
+ * The ClapAtom class represents the Clean Aperture Atom ('clap').
+ * It is an extension of the Video Sample Description of the 'stsd' atom.
+ * All values are fractions of a numerator and a denominator.
+ * @author lpfeiler
+ */
+public final class ClapAtom extends QTAtom {
+
+    /**
+     * The number of values in the atom.
+     */
+    public static final int NUM_VALUES = 8;
+
+    /**
+     * The numerators and denominators of width, height,
+     * horizontal offset and vertical offset.
+     */
+    private final int[] values = new int[NUM_VALUES];
+
+    /**
+     * Constructs a ClapAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'clap'
+     * @param values the numerators and denominators of width, height,
+     *               horizontal offset and vertical offset
+     */
+    public ClapAtom(int size, int type, int[] values) {
+        super(size, type);
+        for (int i=0; i < values.length && i < this.values.length; i++) {
+            this.values[i] = values[i];
+        }
+    }
+
+    /**
+     * Returns the width of the clean aperture in pixels.
+     * @return the width of the clean aperture
+     */
+    public double getWidth() {
+        return fraction(0);
+    }
+
+    /**
+     * Returns the height of the clean aperture in pixels.
+     * @return the height of the clean aperture
+     */
+    public double getHeight() {
+        return fraction(2);
+    }
+
+    /**
+     * Returns the horizontal offset of the clean aperture center.
+     * @return the horizontal offset
+     */
+    public double getHorzOffset() {
+        return fraction(4);
+    }
+
+    /**
+     * Returns the vertical offset of the clean aperture center.
+     * @return the vertical offset
+     */
+    public double getVertOffset() {
+        return fraction(6);
+    }
+
+    /**
+     * Returns the value of a fraction.
+     * @param index the index of the numerator
+     * @return the value of the fraction
+     */
+    private double fraction(int index) {
+        return values[index + 1] == 0 ? 0 : (double) values[index] / (values[index + 1] & 0xFFFFFFFFL);
+    }
+}
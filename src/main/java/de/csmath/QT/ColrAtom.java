@@ -7,6 +7,16 @@ package de.csmath.QT;
  */
 public final class ColrAtom extends QTAtom {
 
+    /**
+     * The color parameter type 'nclc' of QuickTime.
+     */
+    public static final int NCLC = 0x6E636C63; //'nclc'
+
+    /**
+     * The color parameter type 'nclx' of ISO/IEC 14496-12.
+     */
+    public static final int NCLX = 0x6E636C78; //'nclx'
+
     /**
      * The color parameter type
      */
@@ -0,0 +1,46 @@
+package de.csmath.QT;
+
+/**
+ * The CttsAtom class represents the QuickTime Composition Offset Atom ('ctts').
+ * It maps the decoding time of samples to their composition time.
+ * @author lpfeiler
+ */
+public final class CttsAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 8;
+
+    /**
+     * Constructs a CttsAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'ctts')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the entries (sample count, composition offset)
+     */
+    public CttsAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.CTTS)
+            throw new IllegalArgumentException("no ctts type");
+    }
+
+    /**
+     * Returns the number of consecutive samples of an entry.
+     * @param index the index of the entry
+     * @return the number of consecutive samples with the same offset
+     */
+    public int getSampleCount(int index) {
+        return getTable().getInt(index, 0);
+    }
+
+    /**
+     * Returns the composition offset of an entry.
+     * @param index the index of the entry
+     * @return the composition offset in media time scale units
+     */
+    public int getSampleOffset(int index) {
+        return getTable().getInt(index, 1);
+    }
+}
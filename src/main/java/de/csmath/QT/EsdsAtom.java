@@ -0,0 +1,255 @@
+package de.csmath.QT;
+
+/**
+ * The EsdsAtom class represents the MPEG-4 Elementary Stream Descriptor
+ * Atom ('esds').
+ * It is an extension of the Sound Sample Description of the 'stsd' atom
+ * and holds the decoder configuration of the stream, e.g. the
+ * AudioSpecificConfig of AAC.
+ * @author lpfeiler
+ */
+public final class EsdsAtom extends QTAtom {
+
+    /**
+     * The tag of an ES_Descriptor.
+     */
+    private static final int ES_DESCR_TAG = 0x03;
+
+    /**
+     * The tag of a DecoderConfigDescriptor.
+     */
+    private static final int DEC_CONFIG_DESCR_TAG = 0x04;
+
+    /**
+     * The tag of a DecoderSpecificInfo.
+     */
+    private static final int DEC_SPECIFIC_INFO_TAG = 0x05;
+
+    /**
+     * The object type indication of MPEG-4 audio.
+     */
+    public static final int OBJECT_TYPE_MPEG4_AUDIO = 0x40;
+
+    /**
+     * The sampling frequencies of the sampling frequency indices.
+     */
+    private static final int[] SAMPLING_FREQUENCIES = {
+            96000, 88200, 64000, 48000, 44100, 32000, 24000,
+            22050, 16000, 12000, 11025, 8000, 7350 };
+
+    /**
+     * The object type indication of the stream.
+     */
+    private int objectType;
+
+    /**
+     * The stream type.
+     */
+    private int streamType;
+
+    /**
+     * The size of the decoding buffer in bytes.
+     */
+    private int bufferSize;
+
+    /**
+     * The maximal bitrate of the stream.
+     */
+    private int maxBitrate;
+
+    /**
+     * The average bitrate of the stream.
+     */
+    private int avgBitrate;
+
+    /**
+     * The decoder specific info (e.g. the AudioSpecificConfig).
+     */
+    private byte[] decSpecificInfo = new byte[0];
+
+    /**
+     * The audio object type of the AudioSpecificConfig.
+     */
+    private int audioObjectType;
+
+    /**
+     * The sampling frequency of the AudioSpecificConfig.
+     */
+    private int samplingFrequency;
+
+    /**
+     * The channel configuration of the AudioSpecificConfig.
+     */
+    private int channelConfig;
+
+    /**
+     * Constructs an EsdsAtom.
+     * @param size size of the atom in the file
+     * @param type type of the atom, should be set to 'esds'
+     * @param contents the contents of the atom (version, flags and descriptors)
+     */
+    public EsdsAtom(int size, int type, byte[] contents) {
+        super(size, type, contents);
+        parseDescriptors(contents, 4, contents.length);
+    }
+
+    /**
+     * Returns the object type indication of the stream (0x40 for MPEG-4 audio).
+     * @return the object type indication
+     */
+    public int getObjectType() {
+        return objectType;
+    }
+
+    /**
+     * Returns the stream type.
+     * @return the stream type
+     */
+    public int getStreamType() {
+        return streamType;
+    }
+
+    /**
+     * Returns the size of the decoding buffer in bytes.
+     * @return the size of the decoding buffer
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the maximal bitrate of the stream.
+     * @return the maximal bitrate
+     */
+    public int getMaxBitrate() {
+        return maxBitrate;
+    }
+
+    /**
+     * Returns the average bitrate of the stream.
+     * @return the average bitrate
+     */
+    public int getAvgBitrate() {
+        return avgBitrate;
+    }
+
+    /**
+     * Returns a copy of the decoder specific info.
+     * @return the decoder specific info
+     */
+    public byte[] getDecSpecificInfo() {
+        return decSpecificInfo.clone();
+    }
+
+    /**
+     * Returns the audio object type of the AudioSpecificConfig
+     * (e.g. 2 for AAC LC), or 0 if there is none.
+     * @return the audio object type
+     */
+    public int getAudioObjectType() {
+        return audioObjectType;
+    }
+
+    /**
+     * Returns the sampling frequency of the AudioSpecificConfig,
+     * or 0 if there is none.
+     * @return the sampling frequency
+     */
+    public int getSamplingFrequency() {
+        return samplingFrequency;
+    }
+
+    /**
+     * Returns the channel configuration of the AudioSpecificConfig,
+     * or 0 if there is none.
+     * @return the channel configuration
+     */
+    public int getChannelConfig() {
+        return channelConfig;
+    }
+
+    /**
+     * Parses a sequence of descriptors.
+     * @param buf the contents of the atom
+     * @param pos the start of the descriptors
+     * @param end the end of the descriptors
+     */
+    private void parseDescriptors(byte[] buf, int pos, int end) {
+        while (pos + 2 <= end) {
+            int tag = buf[pos++] & 0xFF;
+            int len = 0;
+            int b;
+            int count = 0;
+            do {
+                b = buf[pos++] & 0xFF;
+                len = (len << 7) | (b & 0x7F);
+            } while ((b & 0x80) != 0 && pos < end && ++count < 4);
+            int next = Math.min(end, pos + len);
+            switch (tag) {
+                case ES_DESCR_TAG:
+                    if (pos + 3 > next) return;
+                    int esFlags = buf[pos + 2] & 0xFF;
+                    int p = pos + 3;
+                    if ((esFlags & 0x80) != 0) p += 2;
+                    if ((esFlags & 0x40) != 0 && p < next) p += 1 + (buf[p] & 0xFF);
+                    if ((esFlags & 0x20) != 0) p += 2;
+                    parseDescriptors(buf, p, next);
+                    break;
+                case DEC_CONFIG_DESCR_TAG:
+                    if (pos + 13 > next) return;
+                    objectType = buf[pos] & 0xFF;
+                    streamType = (buf[pos + 1] & 0xFF) >>> 2;
+                    bufferSize = getInt(buf, pos + 1) & 0xFFFFFF;
+                    maxBitrate = getInt(buf, pos + 5);
+                    avgBitrate = getInt(buf, pos + 9);
+                    parseDescriptors(buf, pos + 13, next);
+                    break;
+                case DEC_SPECIFIC_INFO_TAG:
+                    decSpecificInfo = new byte[next - pos];
+                    System.arraycopy(buf, pos, decSpecificInfo, 0, decSpecificInfo.length);
+                    if (objectType == OBJECT_TYPE_MPEG4_AUDIO) parseAudioSpecificConfig();
+                    break;
+                default:
+            }
+            pos = next;
+        }
+    }
+
+    /**
+     * Parses the AudioSpecificConfig of the decoder specific info.
+     */
+    private void parseAudioSpecificConfig() {
+        long bits = 0;
+        for (int i=0; i < 8; i++) {
+            bits <<= 8;
+            if (i < decSpecificInfo.length) bits |= decSpecificInfo[i] & 0xFF;
+        }
+        int pos = 0;
+        audioObjectType = (int) (bits >>> (59 - pos)) & 0x1F;
+        pos += 5;
+        if (audioObjectType == 31) {
+            audioObjectType = 32 + ((int) (bits >>> (58 - pos)) & 0x3F);
+            pos += 6;
+        }
+        int freqIndex = (int) (bits >>> (60 - pos)) & 0xF;
+        pos += 4;
+        if (freqIndex == 0xF) {
+            samplingFrequency = (int) (bits >>> (40 - pos)) & 0xFFFFFF;
+            pos += 24;
+        } else if (freqIndex < SAMPLING_FREQUENCIES.length) {
+            samplingFrequency = SAMPLING_FREQUENCIES[freqIndex];
+        }
+        channelConfig = (int) (bits >>> (60 - pos)) & 0xF;
+    }
+
+    /**
+     * Returns the big-endian 32-bit integer at the given position.
+     * @param buf the byte array
+     * @param pos the position of the integer
+     * @return the integer
+     */
+    private static int getInt(byte[] buf, int pos) {
+        return (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16
+                | (buf[pos + 2] & 0xFF) << 8 | (buf[pos + 3] & 0xFF);
+    }
+}
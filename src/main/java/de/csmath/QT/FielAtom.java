@@ -0,0 +1,56 @@
+package de.csmath.QT;
+
+/**
+ * The FielAtom class represents the Field Handling Atom ('fiel').
+ * It is an extension of the Video Sample Description of the 'stsd' atom.
+ * @author lpfeiler
+ */
+public final class FielAtom extends QTAtom {
+
+    /**
+     * The number of fields per frame (1 for progressive, 2 for interlaced).
+     */
+    private final int fieldCount;
+
+    /**
+     * The ordering of the fields.
+     */
+    private final int fieldOrdering;
+
+    /**
+     * Constructs a FielAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'fiel'
+     * @param fieldCount the number of fields per frame
+     * @param fieldOrdering the ordering of the fields
+     */
+    public FielAtom(int size, int type, int fieldCount, int fieldOrdering) {
+        super(size, type);
+        this.fieldCount = fieldCount;
+        this.fieldOrdering = fieldOrdering;
+    }
+
+    /**
+     * Returns the number of fields per frame.
+     * @return the number of fields per frame
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the ordering of the fields.
+     * @return the ordering of the fields
+     */
+    public int getFieldOrdering() {
+        return fieldOrdering;
+    }
+
+    /**
+     * Returns true iff the video is interlaced.
+     * @return true iff the video is interlaced
+     */
+    public boolean isInterlaced() {
+        return fieldCount == 2;
+    }
+}
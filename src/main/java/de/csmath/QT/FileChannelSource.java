@@ -0,0 +1,51 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A RandomAccessSource, which reads a FileChannel with positional reads.
+ * The position of the channel is not changed.
+ * @author lpfeiler
+ */
+public final class FileChannelSource implements RandomAccessSource {
+
+    /**
+     * The channel to read from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Constructs a FileChannelSource.
+     * @param channel the channel to read from
+     */
+    public FileChannelSource(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public int read(long offset, int length, ByteBuffer dst) throws IOException {
+        int limit = dst.limit();
+        dst.limit(dst.position() + Math.min(length, dst.remaining()));
+        try {
+            return channel.read(dst, offset);
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Closes the channel.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
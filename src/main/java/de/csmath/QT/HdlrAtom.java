@@ -0,0 +1,130 @@
+package de.csmath.QT;
+
+/**
+ * The HdlrAtom class represents the QuickTime Handler Reference Atom ('hdlr').
+ * It specifies the handler of a media, e.g. 'vide' for video media.
+ * @author lpfeiler
+ */
+public final class HdlrAtom extends QTAtom {
+
+    /**
+     * The number of bytes for future flags.
+     */
+    public static final int FLAGS_SIZE = 3;
+
+    /**
+     * The handler type of video media.
+     */
+    public static final int VIDE = 0x76696465; //'vide'
+
+    /**
+     * The handler type of sound media.
+     */
+    public static final int SOUN = 0x736F756E; //'soun'
+
+    /**
+     * The handler type of timecode media.
+     */
+    public static final int TMCD = 0x746D6364; //'tmcd'
+
+    /**
+     * The handler type of timed metadata.
+     */
+    public static final int META = 0x6D657461; //'meta'
+
+    /**
+     * The version of the atom.
+     */
+    private final byte version;
+
+    /**
+     * Flags (for future purpose)
+     */
+    private final byte[] flags = new byte[FLAGS_SIZE];
+
+    /**
+     * The component type ('mhlr' for media handlers, 'dhlr' for data handlers).
+     */
+    private final int compType;
+
+    /**
+     * The component subtype, i.e. the type of the media or data handler.
+     */
+    private final int compSubtype;
+
+    /**
+     * The manufacturer of the component.
+     */
+    private final int manufacturer;
+
+    /**
+     * The name of the component.
+     */
+    private final String compName;
+
+    /**
+     * Constructs a HdlrAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'hdlr'
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param compType the component type
+     * @param compSubtype the component subtype
+     * @param manufacturer the manufacturer of the component
+     * @param compName the name of the component
+     */
+    public HdlrAtom(int size, int type, byte version, byte[] flags, int compType,
+                    int compSubtype, int manufacturer, String compName) {
+        super(size, type);
+        if (type != QTAtom.HDLR)
+            throw new IllegalArgumentException("no hdlr type");
+        this.version = version;
+        for (int i=0; i < flags.length && i < this.flags.length; i++) {
+            this.flags[i] = flags[i];
+        }
+        this.compType = compType;
+        this.compSubtype = compSubtype;
+        this.manufacturer = manufacturer;
+        this.compName = compName;
+    }
+
+    /**
+     * Returns the version of the atom.
+     * @return the version of the atom
+     */
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the component type.
+     * @return the component type
+     */
+    public int getCompType() {
+        return compType;
+    }
+
+    /**
+     * Returns the component subtype, e.g. 'vide' or 'soun' for media handlers.
+     * @return the component subtype
+     */
+    public int getCompSubtype() {
+        return compSubtype;
+    }
+
+    /**
+     * Returns the manufacturer of the component.
+     * @return the manufacturer of the component
+     */
+    public int getManufacturer() {
+        return manufacturer;
+    }
+
+    /**
+     * Returns the name of the component.
+     * @return the name of the component
+     */
+    public String getCompName() {
+        return compName;
+    }
+}
@@ -0,0 +1,116 @@
+package de.csmath.QT;
+
+/**
+ * This class builds a HdlrAtom from given parameters.
+ * @author lpfeiler
+ */
+public class HdlrAtomBuilder extends QTAtomBuilder {
+
+    /**
+     * @see HdlrAtom#version
+     */
+    private byte version;
+
+    /**
+     * @see HdlrAtom#flags
+     */
+    private byte[] flags = new byte[HdlrAtom.FLAGS_SIZE];
+
+    /**
+     * @see HdlrAtom#compType
+     */
+    private int compType;
+
+    /**
+     * @see HdlrAtom#compSubtype
+     */
+    private int compSubtype;
+
+    /**
+     * @see HdlrAtom#manufacturer
+     */
+    private int manufacturer;
+
+    /**
+     * @see HdlrAtom#compName
+     */
+    private String compName;
+
+    /**
+     * Constructs a HdlrAtomBuilder
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'hdlr'
+     */
+    public HdlrAtomBuilder(int size, int type) {
+        super(size, type);
+    }
+
+    /**
+     * Builds a new HdlrAtom.
+     * @return a new HdlrAtom
+     */
+    public HdlrAtom build() {
+        return new HdlrAtom(size, type, version, flags, compType,
+                compSubtype, manufacturer, compName);
+    }
+
+    /**
+     * Sets the version of the atom.
+     * @param version the version of the atom
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withVersion(byte version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Sets the flags.
+     * @param flags the flags
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withFlags(byte[] flags) {
+        this.flags = flags;
+        return this;
+    }
+
+    /**
+     * Sets the component type.
+     * @param compType the component type
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withCompType(int compType) {
+        this.compType = compType;
+        return this;
+    }
+
+    /**
+     * Sets the component subtype.
+     * @param compSubtype the component subtype
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withCompSubtype(int compSubtype) {
+        this.compSubtype = compSubtype;
+        return this;
+    }
+
+    /**
+     * Sets the manufacturer of the component.
+     * @param manufacturer the manufacturer of the component
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withManufacturer(int manufacturer) {
+        this.manufacturer = manufacturer;
+        return this;
+    }
+
+    /**
+     * Sets the name of the component.
+     * @param compName the name of the component
+     * @return a reference to this object
+     */
+    public HdlrAtomBuilder withCompName(String compName) {
+        this.compName = compName;
+        return this;
+    }
+}
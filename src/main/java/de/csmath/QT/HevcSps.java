@@ -0,0 +1,430 @@
+package de.csmath.QT;
+
+/**
+ * This class represents an H.265 sequence parameter set.
+ * Only the fields that describe the coded pictures are kept: profile,
+ * tier, level, chroma format, bit depth, picture size, conformance window
+ * and the VUI.
+ * @author lpfeiler
+ */
+public final class HevcSps {
+
+    /**
+     * The NAL unit type of a sequence parameter set.
+     */
+    public static final int NAL_TYPE_SPS = 33;
+
+    /**
+     * The maximal number of short-term reference picture sets.
+     */
+    private static final int MAX_ST_REF_PIC_SETS = 64;
+
+    /**
+     * The ID of the referenced video parameter set.
+     */
+    private int vpsId;
+
+    /**
+     * The maximal number of temporal sub-layers.
+     */
+    private int maxSubLayers;
+
+    /**
+     * The profile space.
+     */
+    private int profileSpace;
+
+    /**
+     * True iff the stream conforms to the high tier.
+     */
+    private boolean highTier;
+
+    /**
+     * The profile.
+     */
+    private int profileIdc;
+
+    /**
+     * The profile compatibility flags.
+     */
+    private int profileCompatibility;
+
+    /**
+     * True iff the source is flagged as progressive.
+     */
+    private boolean progressiveSource;
+
+    /**
+     * True iff the source is flagged as interlaced.
+     */
+    private boolean interlacedSource;
+
+    /**
+     * The level multiplied by 30.
+     */
+    private int levelIdc;
+
+    /**
+     * The ID of the sequence parameter set.
+     */
+    private int spsId;
+
+    /**
+     * The chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     */
+    private int chromaFormatIdc;
+
+    /**
+     * The coded width in pixels.
+     */
+    private int codedWidth;
+
+    /**
+     * The coded height in pixels.
+     */
+    private int codedHeight;
+
+    /**
+     * The conformance window in pixels (left, right, top, bottom).
+     */
+    private final int[] window = new int[4];
+
+    /**
+     * The bit depth of luma samples.
+     */
+    private int bitDepthLuma;
+
+    /**
+     * The bit depth of chroma samples.
+     */
+    private int bitDepthChroma;
+
+    /**
+     * The video usability information.
+     */
+    private VuiParameters vui;
+
+    /**
+     * Constructs a HevcSps from the given reader.
+     * @param r the reader positioned after the NAL unit header
+     */
+    private HevcSps(NalBitReader r) {
+        vpsId = r.readBits(4);
+        maxSubLayers = r.readBits(3) + 1;
+        r.readBit();                         //sps_temporal_id_nesting_flag
+        readProfileTierLevel(r);
+        spsId = r.readUE();
+        chromaFormatIdc = r.readUE();
+        boolean separateColourPlane = chromaFormatIdc == 3 && r.readFlag();
+        codedWidth = r.readUE();
+        codedHeight = r.readUE();
+        if (r.readFlag()) {
+            int subWidth = 1;
+            int subHeight = 1;
+            if (!separateColourPlane && chromaFormatIdc != 0) {
+                subWidth = chromaFormatIdc == 3 ? 1 : 2;
+                subHeight = chromaFormatIdc == 1 ? 2 : 1;
+            }
+            window[0] = r.readUE() * subWidth;
+            window[1] = r.readUE() * subWidth;
+            window[2] = r.readUE() * subHeight;
+            window[3] = r.readUE() * subHeight;
+        }
+        bitDepthLuma = 8 + r.readUE();
+        bitDepthChroma = 8 + r.readUE();
+        int log2MaxPocLsb = r.readUE() + 4;
+        boolean subLayerOrderingInfo = r.readFlag();
+        for (int i = subLayerOrderingInfo ? 0 : maxSubLayers - 1; i < maxSubLayers; i++) {
+            r.readUE();                      //sps_max_dec_pic_buffering_minus1
+            r.readUE();                      //sps_max_num_reorder_pics
+            r.readUE();                      //sps_max_latency_increase_plus1
+        }
+        for (int i=0; i < 6; i++) {
+            r.readUE();                      //coding and transform block sizes, depths
+        }
+        if (r.readFlag() && r.readFlag()) {
+            skipScalingListData(r);
+        }
+        r.readBit();                         //amp_enabled_flag
+        r.readBit();                         //sample_adaptive_offset_enabled_flag
+        if (r.readFlag()) {
+            r.readBits(8);                   //pcm sample bit depths
+            r.readUE();                      //log2_min_pcm_luma_coding_block_size_minus3
+            r.readUE();                      //log2_diff_max_min_pcm_luma_coding_block_size
+            r.readBit();                     //pcm_loop_filter_disabled_flag
+        }
+        int numStRefPicSets = r.readUE();
+        if (numStRefPicSets > MAX_ST_REF_PIC_SETS) {
+            vui = new VuiParameters();
+            r.invalidate();
+            return;
+        }
+        skipStRefPicSets(r, numStRefPicSets);
+        if (r.readFlag()) {
+            int numLongTermRefPics = r.readUE();
+            for (int i=0; i < numLongTermRefPics && !r.isOverrun(); i++) {
+                r.readBits(log2MaxPocLsb);   //lt_ref_pic_poc_lsb_sps
+                r.readBit();                 //used_by_curr_pic_lt_sps_flag
+            }
+        }
+        r.readBit();                         //sps_temporal_mvp_enabled_flag
+        r.readBit();                         //strong_intra_smoothing_enabled_flag
+        vui = r.readFlag() ? new VuiParameters(r, true) : new VuiParameters();
+    }
+
+    /**
+     * Parses a sequence parameter set NAL unit.
+     * @param buf the buffer with the NAL unit (including its 2 byte header)
+     * @param off the start of the NAL unit
+     * @param len the length of the NAL unit
+     * @return the sequence parameter set, or null if the NAL unit is
+     *         no sequence parameter set or truncated
+     */
+    public static HevcSps parse(byte[] buf, int off, int len) {
+        if (len < 3 || ((buf[off] >>> 1) & 0x3F) != NAL_TYPE_SPS) return null;
+        NalBitReader r = new NalBitReader(buf, off + 2, len - 2);
+        HevcSps sps = new HevcSps(r);
+        return r.isOverrun() ? null : sps;
+    }
+
+    /**
+     * Returns the ID of the referenced video parameter set.
+     * @return the ID of the video parameter set
+     */
+    public int getVpsId() {
+        return vpsId;
+    }
+
+    /**
+     * Returns the maximal number of temporal sub-layers.
+     * @return the maximal number of temporal sub-layers
+     */
+    public int getMaxSubLayers() {
+        return maxSubLayers;
+    }
+
+    /**
+     * Returns the profile space.
+     * @return the profile space
+     */
+    public int getProfileSpace() {
+        return profileSpace;
+    }
+
+    /**
+     * Returns true iff the stream conforms to the high tier.
+     * @return true iff the stream conforms to the high tier
+     */
+    public boolean isHighTier() {
+        return highTier;
+    }
+
+    /**
+     * Returns the profile (1 Main, 2 Main 10, 3 Main Still Picture, 4 range extensions).
+     * @return the profile
+     */
+    public int getProfileIdc() {
+        return profileIdc;
+    }
+
+    /**
+     * Returns the profile compatibility flags.
+     * @return the profile compatibility flags
+     */
+    public int getProfileCompatibility() {
+        return profileCompatibility;
+    }
+
+    /**
+     * Returns true iff the source is flagged as progressive.
+     * @return true iff the source is progressive
+     */
+    public boolean isProgressiveSource() {
+        return progressiveSource;
+    }
+
+    /**
+     * Returns true iff the source is flagged as interlaced.
+     * @return true iff the source is interlaced
+     */
+    public boolean isInterlacedSource() {
+        return interlacedSource;
+    }
+
+    /**
+     * Returns the level multiplied by 30 (e.g. 123 for level 4.1).
+     * @return the level
+     */
+    public int getLevelIdc() {
+        return levelIdc;
+    }
+
+    /**
+     * Returns the ID of the sequence parameter set.
+     * @return the ID of the sequence parameter set
+     */
+    public int getSpsId() {
+        return spsId;
+    }
+
+    /**
+     * Returns the chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     * @return the chroma format
+     */
+    public int getChromaFormatIdc() {
+        return chromaFormatIdc;
+    }
+
+    /**
+     * Returns the bit depth of luma samples.
+     * @return the bit depth of luma samples
+     */
+    public int getBitDepthLuma() {
+        return bitDepthLuma;
+    }
+
+    /**
+     * Returns the bit depth of chroma samples.
+     * @return the bit depth of chroma samples
+     */
+    public int getBitDepthChroma() {
+        return bitDepthChroma;
+    }
+
+    /**
+     * Returns the coded width in pixels, before cropping.
+     * @return the coded width
+     */
+    public int getCodedWidth() {
+        return codedWidth;
+    }
+
+    /**
+     * Returns the coded height in pixels, before cropping.
+     * @return the coded height
+     */
+    public int getCodedHeight() {
+        return codedHeight;
+    }
+
+    /**
+     * Returns the width of the conformance window in pixels.
+     * @return the width of the pictures
+     */
+    public int getWidth() {
+        return codedWidth - window[0] - window[1];
+    }
+
+    /**
+     * Returns the height of the conformance window in pixels.
+     * @return the height of the pictures
+     */
+    public int getHeight() {
+        return codedHeight - window[2] - window[3];
+    }
+
+    /**
+     * Returns the conformance window offsets in pixels: left, right, top and bottom.
+     * @return a copy of the conformance window offsets
+     */
+    public int[] getConformanceWindow() {
+        return window.clone();
+    }
+
+    /**
+     * Returns the video usability information.
+     * @return the video usability information
+     */
+    public VuiParameters getVui() {
+        return vui;
+    }
+
+    /**
+     * Returns the frame rate of the VUI timing information.
+     * @return the frame rate, or 0 if there is no timing information
+     */
+    public double getFrameRate() {
+        if (!vui.isTimingInfoPresent() || vui.getNumUnitsInTick() == 0) return 0;
+        return (double) vui.getTimeScale() / vui.getNumUnitsInTick();
+    }
+
+    /**
+     * Reads the general profile, tier and level and skips the sub-layer ones.
+     * @param r the reader
+     */
+    private void readProfileTierLevel(NalBitReader r) {
+        profileSpace = r.readBits(2);
+        highTier = r.readFlag();
+        profileIdc = r.readBits(5);
+        profileCompatibility = r.readBits(32);
+        progressiveSource = r.readFlag();
+        interlacedSource = r.readFlag();
+        r.skipBits(46);                      //non_packed, frame_only, constraint flags
+        levelIdc = r.readBits(8);
+        int subLayers = maxSubLayers - 1;
+        int profilePresent = 0;
+        int levelPresent = 0;
+        for (int i=0; i < subLayers; i++) {
+            profilePresent = (profilePresent << 1) | r.readBit();
+            levelPresent = (levelPresent << 1) | r.readBit();
+        }
+        if (subLayers > 0) r.skipBits(2 * (8 - subLayers));
+        for (int i = subLayers - 1; i >= 0; i--) {
+            if (((profilePresent >>> i) & 1) != 0) r.skipBits(88);
+            if (((levelPresent >>> i) & 1) != 0) r.skipBits(8);
+        }
+    }
+
+    /**
+     * Skips the scaling_list_data().
+     * @param r the reader
+     */
+    private static void skipScalingListData(NalBitReader r) {
+        for (int sizeId=0; sizeId < 4; sizeId++) {
+            for (int matrixId=0; matrixId < 6; matrixId += sizeId == 3 ? 3 : 1) {
+                if (!r.readFlag()) {
+                    r.readUE();              //scaling_list_pred_matrix_id_delta
+                } else {
+                    int coefNum = Math.min(64, 1 << (4 + (sizeId << 1)));
+                    if (sizeId > 1) r.readSE();
+                    for (int i=0; i < coefNum; i++) {
+                        r.readSE();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips the short-term reference picture sets.
+     * @param r the reader
+     * @param num the number of short-term reference picture sets
+     */
+    private static void skipStRefPicSets(NalBitReader r, int num) {
+        int[] numDeltaPocs = new int[num];
+        for (int idx=0; idx < num && !r.isOverrun(); idx++) {
+            if (idx != 0 && r.readFlag()) {
+                r.readBit();                 //delta_rps_sign
+                r.readUE();                  //abs_delta_rps_minus1
+                int count = 0;
+                for (int j=0; j <= numDeltaPocs[idx - 1]; j++) {
+                    boolean used = r.readFlag();
+                    if (used || r.readFlag()) count++;
+                }
+                numDeltaPocs[idx] = count;
+            } else {
+                int numNegative = r.readUE();
+                int numPositive = r.readUE();
+                if (numNegative > 16 || numPositive > 16) {
+                    r.invalidate();
+                    return;
+                }
+                for (int i=0; i < numNegative + numPositive; i++) {
+                    r.readUE();              //delta_poc_minus1
+                    r.readBit();             //used_by_curr_pic_flag
+                }
+                numDeltaPocs[idx] = numNegative + numPositive;
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A RandomAccessSource of a remote file, e.g. in an object store, which is
+ * read with HTTP range requests. Every read is one request of the bytes
+ * it reads, so a probe of a file transfers the few kilobytes of its atom
+ * headers and read atoms instead of the whole file. The server must answer
+ * range requests with 206 (Partial Content). The bodies of the responses
+ * are read completely and closed without disconnecting, so HttpURLConnection
+ * keeps the connection alive for the next request.
+ * @author lpfeiler
+ */
+public final class HttpRangeSource implements RandomAccessSource {
+
+    /**
+     * The default connect and read timeout in milliseconds.
+     */
+    public static final int DEFAULT_TIMEOUT = 10_000;
+
+    /**
+     * The URL of the file.
+     */
+    private final URL url;
+
+    /**
+     * The connect and read timeout in milliseconds.
+     */
+    private final int timeout;
+
+    /**
+     * The size of the file, or -1 if not known yet.
+     */
+    private volatile long size = -1;
+
+    /**
+     * The number of requests.
+     */
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The number of bytes transferred.
+     */
+    private final AtomicLong bytesTransferred = new AtomicLong();
+
+    /**
+     * Constructs an HttpRangeSource with the default timeout.
+     * @param url the URL of the file
+     */
+    public HttpRangeSource(URL url) {
+        this(url, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructs an HttpRangeSource.
+     * @param url the URL of the file
+     * @param timeout the connect and read timeout in milliseconds
+     */
+    public HttpRangeSource(URL url, int timeout) {
+        if (timeout < 0) throw new IllegalArgumentException("negative timeout");
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the number of requests sent so far.
+     * @return the number of requests
+     */
+    public long getNumRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of bytes of the file transferred so far.
+     * @return the number of bytes transferred
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred.get();
+    }
+
+    /**
+     * Returns the size of the file, which is taken from the Content-Range
+     * of the first response, or of a request of its first byte.
+     * @return the number of bytes of the file
+     * @throws IOException
+     */
+    @Override
+    public long size() throws IOException {
+        if (size < 0) {
+            HttpURLConnection con = request(0, 0);
+            if (con.getResponseCode() == 416) {
+                discard(con);
+            } else {
+                readBody(con, ByteBuffer.allocate(1), 0, 1);
+            }
+            size = totalSize(con.getHeaderField("Content-Range"));
+        }
+        return size;
+    }
+
+    @Override
+    public int read(long offset, int length, ByteBuffer dst) throws IOException {
+        if (offset < 0) throw new IllegalArgumentException("negative offset");
+        int n = Math.min(length, dst.remaining());
+        if (size >= 0 && offset >= size) return -1;
+        if (n == 0) return 0;
+        long last = offset + n - 1;
+        if (size >= 0) last = Math.min(last, size - 1);
+        HttpURLConnection con = request(offset, last);
+        if (con.getResponseCode() == 416) {
+            discard(con);
+            return -1;
+        }
+        int r = readBody(con, dst, offset, (int) (last - offset + 1));
+        if (size < 0) size = totalSize(con.getHeaderField("Content-Range"));
+        return r;
+    }
+
+    /**
+     * Sends a range request.
+     * @param first the offset of the first byte
+     * @param last the offset of the last byte
+     * @return the connection
+     * @throws IOException
+     */
+    private HttpURLConnection request(long first, long last) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) url.openConnection();
+        con.setConnectTimeout(timeout);
+        con.setReadTimeout(timeout);
+        con.setRequestProperty("Range", "bytes=" + first + "-" + last);
+        requests.incrementAndGet();
+        return con;
+    }
+
+    /**
+     * Reads the body of a partial response into a buffer.
+     * @param con the connection
+     * @param dst the buffer
+     * @param offset the file offset of the first byte requested
+     * @param n the number of bytes requested
+     * @return the number of bytes read
+     * @throws IOException if the response is no partial response of the
+     *                     requested range
+     */
+    private int readBody(HttpURLConnection con, ByteBuffer dst, long offset, int n) throws IOException {
+        int code = con.getResponseCode();
+        if (code == HttpURLConnection.HTTP_OK) {
+            con.disconnect();
+            throw new IOException("range requests not supported");
+        }
+        if (code != HttpURLConnection.HTTP_PARTIAL) {
+            discard(con);
+            throw new IOException("HTTP status " + code);
+        }
+        if (rangeStart(con.getHeaderField("Content-Range")) != offset) {
+            con.disconnect();
+            throw new IOException("unexpected content range");
+        }
+        byte[] buf = new byte[Math.min(n, 1 << 16)];
+        int total = 0;
+        try (InputStream in = con.getInputStream()) {
+            while (total < n) {
+                int r = in.read(buf, 0, Math.min(buf.length, n - total));
+                if (r < 0) break;
+                dst.put(buf, 0, r);
+                total += r;
+            }
+        }
+        bytesTransferred.addAndGet(total);
+        return total;
+    }
+
+    /**
+     * Reads and closes the body of an error response, so the connection
+     * is reused.
+     * @param con the connection
+     * @throws IOException
+     */
+    private static void discard(HttpURLConnection con) throws IOException {
+        try (InputStream in = con.getErrorStream()) {
+            if (in == null) return;
+            byte[] buf = new byte[512];
+            while (in.read(buf) >= 0) {
+                //discard
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the first byte of a Content-Range header,
+     * e.g. 'bytes 100-199/1234'.
+     * @param contentRange the value of the header
+     * @return the offset of the first byte, or -1 if the header is missing or has no range
+     */
+    private static long rangeStart(String contentRange) {
+        int dash = contentRange == null ? -1 : contentRange.indexOf('-');
+        try {
+            if (dash > 6 && contentRange.startsWith("bytes "))
+                return Long.parseLong(contentRange.substring(6, dash).trim());
+        } catch (NumberFormatException e) {
+            //fall through
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the total size of a Content-Range header, e.g. 'bytes 0-0/1234'.
+     * @param contentRange the value of the header
+     * @return the total size
+     * @throws IOException if the header is missing or has no total size
+     */
+    private static long totalSize(String contentRange) throws IOException {
+        int slash = contentRange == null ? -1 : contentRange.lastIndexOf('/');
+        try {
+            if (slash >= 0) return Long.parseLong(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            //fall through
+        }
+        throw new IOException("unknown size");
+    }
+
+    @Override
+    public String toString() {
+        return "HttpRangeSource[" + url + "]";
+    }
+}
@@ -0,0 +1,336 @@
+package de.csmath.QT;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The HvcCAtom class represents the HEVC Configuration Atom ('hvcC').
+ * It is an extension of the Video Sample Description of the 'stsd' atom.
+ * The HEVC decoder configuration record is parsed into its header fields
+ * and the positions of the NAL units of its arrays (VPS, SPS, PPS, SEI).
+ * @author lpfeiler
+ */
+public final class HvcCAtom extends QTAtom {
+
+    /**
+     * The NAL unit type of a video parameter set.
+     */
+    public static final int NAL_TYPE_VPS = 32;
+
+    /**
+     * The NAL unit type of a sequence parameter set.
+     */
+    public static final int NAL_TYPE_SPS = HevcSps.NAL_TYPE_SPS;
+
+    /**
+     * The NAL unit type of a picture parameter set.
+     */
+    public static final int NAL_TYPE_PPS = 34;
+
+    /**
+     * The size of the record header before the NAL unit arrays.
+     */
+    private static final int HEADER_SIZE = 23;
+
+    /**
+     * The configuration version.
+     */
+    private int configVersion;
+
+    /**
+     * The general profile space.
+     */
+    private int profileSpace;
+
+    /**
+     * True iff the stream conforms to the high tier.
+     */
+    private boolean highTier;
+
+    /**
+     * The general profile.
+     */
+    private int profileIdc;
+
+    /**
+     * The general profile compatibility flags.
+     */
+    private int profileCompatibility;
+
+    /**
+     * The general level multiplied by 30.
+     */
+    private int levelIdc;
+
+    /**
+     * The chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     */
+    private int chromaFormat;
+
+    /**
+     * The bit depth of luma samples.
+     */
+    private int bitDepthLuma;
+
+    /**
+     * The bit depth of chroma samples.
+     */
+    private int bitDepthChroma;
+
+    /**
+     * The average frame rate in frames per 256 seconds, 0 if unspecified.
+     */
+    private int avgFrameRate;
+
+    /**
+     * The number of temporal layers.
+     */
+    private int numTemporalLayers;
+
+    /**
+     * The size of the NAL unit length fields of the samples in bytes.
+     */
+    private int nalLengthSize;
+
+    /**
+     * The NAL unit type, offset and length of each NAL unit in the record.
+     */
+    private int[] nalUnits = new int[0];
+
+    /**
+     * The parsed first sequence parameter set, if already parsed.
+     */
+    private HevcSps parsedSps;
+
+    /**
+     * Constructs an HvcCAtom.
+     * @param size size of the atom in the file
+     * @param type type of the atom, should be set to 'hvcC'
+     * @param decConfRecord the byte-Array with the HEVC decoder configuration record.
+     */
+    public HvcCAtom(int size, int type, byte[] decConfRecord) {
+        super(size, type, decConfRecord);
+        parseRecord();
+    }
+
+    /**
+     * Returns a byte iterator of the HEVC decoder configuration record.
+     * @return a byte iterator of the HEVC decoder configuration record
+     */
+    public Iterator<Byte> getDecConfRecIterator() {
+        return getContentsIterator();
+    }
+
+    /**
+     * Returns the configuration version (1).
+     * @return the configuration version
+     */
+    public int getConfigVersion() {
+        return configVersion;
+    }
+
+    /**
+     * Returns the general profile space.
+     * @return the general profile space
+     */
+    public int getProfileSpace() {
+        return profileSpace;
+    }
+
+    /**
+     * Returns true iff the stream conforms to the high tier.
+     * @return true iff the stream conforms to the high tier
+     */
+    public boolean isHighTier() {
+        return highTier;
+    }
+
+    /**
+     * Returns the general profile (1 Main, 2 Main 10, 4 range extensions).
+     * @return the general profile
+     */
+    public int getProfileIdc() {
+        return profileIdc;
+    }
+
+    /**
+     * Returns the general profile compatibility flags.
+     * @return the general profile compatibility flags
+     */
+    public int getProfileCompatibility() {
+        return profileCompatibility;
+    }
+
+    /**
+     * Returns the general level multiplied by 30 (e.g. 123 for level 4.1).
+     * @return the general level
+     */
+    public int getLevelIdc() {
+        return levelIdc;
+    }
+
+    /**
+     * Returns the chroma format (0 monochrome, 1 4:2:0, 2 4:2:2, 3 4:4:4).
+     * @return the chroma format
+     */
+    public int getChromaFormat() {
+        return chromaFormat;
+    }
+
+    /**
+     * Returns the bit depth of luma samples.
+     * @return the bit depth of luma samples
+     */
+    public int getBitDepthLuma() {
+        return bitDepthLuma;
+    }
+
+    /**
+     * Returns the bit depth of chroma samples.
+     * @return the bit depth of chroma samples
+     */
+    public int getBitDepthChroma() {
+        return bitDepthChroma;
+    }
+
+    /**
+     * Returns the average frame rate in frames per 256 seconds.
+     * @return the average frame rate, 0 if unspecified
+     */
+    public int getAvgFrameRate() {
+        return avgFrameRate;
+    }
+
+    /**
+     * Returns the number of temporal layers.
+     * @return the number of temporal layers
+     */
+    public int getNumTemporalLayers() {
+        return numTemporalLayers;
+    }
+
+    /**
+     * Returns the size of the NAL unit length fields of the samples in bytes.
+     * @return the size of the NAL unit length fields
+     */
+    public int getNalLengthSize() {
+        return nalLengthSize;
+    }
+
+    /**
+     * Returns the number of NAL units of the given type in the record.
+     * @param nalType the NAL unit type, e.g. NAL_TYPE_SPS
+     * @return the number of NAL units of the given type
+     */
+    public int getNumNalUnits(int nalType) {
+        int count = 0;
+        for (int i=0; i < nalUnits.length; i += 3) {
+            if (nalUnits[i] == nalType) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a copy of a NAL unit of the given type.
+     * @param nalType the NAL unit type, e.g. NAL_TYPE_SPS
+     * @param index the index among the NAL units of the given type
+     * @return the NAL unit
+     */
+    public byte[] getNalUnit(int nalType, int index) {
+        int i = find(nalType, index);
+        if (i < 0)
+            throw new IndexOutOfBoundsException("no such NAL unit");
+        return Arrays.copyOfRange(getContents(), nalUnits[i + 1], nalUnits[i + 1] + nalUnits[i + 2]);
+    }
+
+    /**
+     * Returns the parsed first sequence parameter set.
+     * It is parsed directly from the record on the first call.
+     * @return the first sequence parameter set, or null if there is none
+     *         or it is truncated
+     */
+    public HevcSps getSequenceParameterSet() {
+        int i = find(NAL_TYPE_SPS, 0);
+        if (parsedSps == null && i >= 0) {
+            parsedSps = HevcSps.parse(getContents(), nalUnits[i + 1], nalUnits[i + 2]);
+        }
+        return parsedSps;
+    }
+
+    /**
+     * Returns true iff the first sequence parameter set signals a PQ or
+     * HLG transfer function.
+     * @return true iff the stream is high dynamic range
+     */
+    public boolean isHdr() {
+        HevcSps sps = getSequenceParameterSet();
+        return sps != null && sps.getVui().isHdr();
+    }
+
+    /**
+     * Returns the position of a NAL unit in the table of NAL units.
+     * @param nalType the NAL unit type
+     * @param index the index among the NAL units of the given type
+     * @return the position in the table, or -1
+     */
+    private int find(int nalType, int index) {
+        for (int i=0; i < nalUnits.length; i += 3) {
+            if (nalUnits[i] == nalType && index-- == 0) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the header fields and the NAL unit arrays of the record.
+     * A truncated record keeps the NAL units read so far.
+     */
+    private void parseRecord() {
+        byte[] record = getContents();
+        if (record.length < HEADER_SIZE) return;
+        configVersion = record[0] & 0xFF;
+        profileSpace = (record[1] & 0xC0) >>> 6;
+        highTier = (record[1] & 0x20) != 0;
+        profileIdc = record[1] & 0x1F;
+        profileCompatibility = getShort(record, 2) << 16 | getShort(record, 4);
+        levelIdc = record[12] & 0xFF;
+        chromaFormat = record[16] & 0x03;
+        bitDepthLuma = 8 + (record[17] & 0x07);
+        bitDepthChroma = 8 + (record[18] & 0x07);
+        avgFrameRate = getShort(record, 19);
+        numTemporalLayers = (record[21] & 0x38) >>> 3;
+        nalLengthSize = (record[21] & 0x03) + 1;
+        int numArrays = record[22] & 0xFF;
+        int pos = HEADER_SIZE;
+        int[] units = new int[3 * 8];
+        int n = 0;
+        for (int a=0; a < numArrays && pos + 3 <= record.length; a++) {
+            int nalType = record[pos] & 0x3F;
+            int numNalus = getShort(record, pos + 1);
+            pos += 3;
+            for (int i=0; i < numNalus && pos + 2 <= record.length; i++) {
+                int len = getShort(record, pos);
+                pos += 2;
+                if (pos + len > record.length) {
+                    pos = record.length;
+                    break;
+                }
+                if (n == units.length) units = Arrays.copyOf(units, 2 * n);
+                units[n++] = nalType;
+                units[n++] = pos;
+                units[n++] = len;
+                pos += len;
+            }
+        }
+        nalUnits = Arrays.copyOf(units, n);
+    }
+
+    /**
+     * Returns the big-endian 16-bit value at the given position.
+     * @param record the decoder configuration record
+     * @param pos the position in the record
+     * @return the unsigned value
+     */
+    private static int getShort(byte[] record, int pos) {
+        return (record[pos] & 0xFF) << 8 | (record[pos + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,353 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class learns the layouts of the files a plan reads and speculates
+ * on the layout of the next file. Files of the same camera or encoder
+ * have the same 'ftyp' atom and almost always the same layout: the 'moov'
+ * atom right after the 'ftyp' atom or at the end of the file, and of a
+ * similar size. For every signature, i.e. the contents of the 'ftyp'
+ * atom, the learner keeps the extent of the first container the plan
+ * entered, usually 'moov', measured from the start or from the end of
+ * the file. A new file is read with one small read of its head, which
+ * yields its signature and size, and, for a known signature, whose
+ * container does not fit into the head, one speculative read of the
+ * predicted window, so a remote probe takes one or two round trips.
+ * Bytes outside of the window are read from the source as usual, so a
+ * wrong prediction costs reads, but never results.
+ * A learner is thread-safe and shared by the readers of one plan.
+ * @author lpfeiler
+ */
+public final class LayoutLearner {
+
+    /**
+     * The default size of the read of the head of a file.
+     */
+    public static final int DEFAULT_HEAD_SIZE = 1 << 14;
+
+    /**
+     * The default maximal size of a speculative read.
+     */
+    public static final int DEFAULT_MAX_WINDOW = 1 << 24;
+
+    /**
+     * The maximal number of signatures learned.
+     */
+    private static final int MAX_SIGNATURES = 1 << 10;
+
+    /**
+     * The minimal number of bytes added to a predicted window.
+     */
+    private static final int SLACK = 1 << 12;
+
+    /**
+     * The size of the read of the head of a file.
+     */
+    private final int headSize;
+
+    /**
+     * The maximal size of a speculative read.
+     */
+    private final int maxWindow;
+
+    /**
+     * The learned layouts by signature.
+     */
+    private final ConcurrentHashMap<String, Layout> layouts = new ConcurrentHashMap<>();
+
+    /**
+     * The number of files, whose container was read speculatively.
+     */
+    private final AtomicInteger hits = new AtomicInteger();
+
+    /**
+     * The number of files, whose container was not read speculatively.
+     */
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Constructs a LayoutLearner with the default sizes.
+     */
+    public LayoutLearner() {
+        this(DEFAULT_HEAD_SIZE, DEFAULT_MAX_WINDOW);
+    }
+
+    /**
+     * Constructs a LayoutLearner.
+     * @param headSize the size of the read of the head of a file
+     * @param maxWindow the maximal size of a speculative read
+     * @throws IllegalArgumentException if a size is not positive or the
+     *                                  head is larger than the window
+     */
+    public LayoutLearner(int headSize, int maxWindow) {
+        if (headSize <= 0) throw new IllegalArgumentException("head size not positive");
+        if (maxWindow < headSize) throw new IllegalArgumentException("window smaller than head");
+        this.headSize = headSize;
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Returns the number of files, whose first entered container was
+     * covered by the speculative reads.
+     * @return the number of hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of files, whose first entered container was
+     * not covered by the speculative reads, e.g. of unknown signatures.
+     * @return the number of misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of signatures learned.
+     * @return the number of signatures
+     */
+    public int getNumSignatures() {
+        return layouts.size();
+    }
+
+    /**
+     * Reads the head of a file and, for a known signature, the predicted
+     * window of its first entered container.
+     * @param source the source to read the file from
+     * @return the speculation, which serves the reads of the file
+     * @throws IOException
+     */
+    Speculation speculate(RandomAccessSource source) throws IOException {
+        ByteBuffer headBytes = read(source, 0, headSize);
+        Speculation speculation = new Speculation(signature(headBytes), source.size(), headBytes);
+        Layout layout = speculation.signature == null ? null : layouts.get(speculation.signature);
+        if (layout != null) {
+            long window = Math.min(maxWindow, widen(layout.extent));
+            long start = layout.tail ? Math.max(0, speculation.fileSize - window) : 0;
+            long end = Math.min(speculation.fileSize, start + window);
+            start = Math.max(start, headBytes.limit());
+            if (start < end) speculation.window(start, read(source, start, (int) (end - start)));
+        }
+        return speculation;
+    }
+
+    /**
+     * Learns the layout of a file after its read.
+     * @param speculation the speculation, which served the read
+     */
+    void learn(Speculation speculation) {
+        if (speculation.hintOffset < 0) return;
+        if (speculation.covers(speculation.hintOffset, speculation.hintEnd)) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        if (speculation.signature == null) return;
+        long fileSize = speculation.fileSize;
+        boolean tail = speculation.hintOffset > fileSize - speculation.hintEnd;
+        Layout layout = new Layout(tail, tail ? fileSize - speculation.hintOffset : speculation.hintEnd);
+        if (layouts.size() >= MAX_SIGNATURES && !layouts.containsKey(speculation.signature)) return;
+        layouts.merge(speculation.signature, layout, Layout::merge);
+    }
+
+    /**
+     * Returns an extent with slack for files of a similar layout.
+     * @param extent the learned extent
+     * @return the extent with slack
+     */
+    private static long widen(long extent) {
+        return extent + extent / 4 + SLACK;
+    }
+
+    /**
+     * Returns the signature of a file, i.e. the contents of its 'ftyp' atom.
+     * @param head the bytes of the head of the file
+     * @return the signature, or null if the head holds no 'ftyp' atom
+     */
+    private static String signature(ByteBuffer head) {
+        if (head.limit() < 8 || head.getInt(4) != QTAtom.FTYP) return null;
+        int size = head.getInt(0);
+        if (size < 8 || size > head.limit()) return null;
+        return new String(head.array(), 8, size - 8, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Reads a range of a source.
+     * @param source the source to read from
+     * @param start the file offset of the range
+     * @param length the size of the range
+     * @return the contents of the range, which end early at the end of the file
+     * @throws IOException
+     */
+    private static ByteBuffer read(RandomAccessSource source, long start, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (source.read(start + buf.position(), buf.remaining(), buf) < 0) break;
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * The learned layout of the files of a signature.
+     */
+    private static final class Layout {
+
+        /**
+         * True iff the container is at the end of the files.
+         */
+        private final boolean tail;
+
+        /**
+         * The largest extent of the container from the start of the
+         * files or, at the end of the files, from their end.
+         */
+        private final long extent;
+
+        /**
+         * Constructs a Layout.
+         * @param tail true iff the container is at the end of the file
+         * @param extent the extent of the container from the start or the end of the file
+         */
+        private Layout(boolean tail, long extent) {
+            this.tail = tail;
+            this.extent = extent;
+        }
+
+        /**
+         * Merges the layout of another file. A changed layout replaces
+         * the learned one.
+         * @param other the layout of another file
+         * @return the merged layout
+         */
+        private Layout merge(Layout other) {
+            if (tail != other.tail) return other;
+            return extent >= other.extent ? this : other;
+        }
+    }
+
+    /**
+     * This class serves the reads of one file from the head and the
+     * speculative window, and records the first container the reader
+     * entered.
+     */
+    static final class Speculation implements ReadAhead {
+
+        /**
+         * The signature of the file, or null.
+         */
+        private final String signature;
+
+        /**
+         * The size of the file.
+         */
+        private final long fileSize;
+
+        /**
+         * The bytes of the head of the file.
+         */
+        private final ByteBuffer head;
+
+        /**
+         * The file offset of the window.
+         */
+        private long windowStart;
+
+        /**
+         * The bytes of the window, or null.
+         */
+        private ByteBuffer window;
+
+        /**
+         * The file offset of the first entered container, or -1.
+         */
+        private long hintOffset = -1;
+
+        /**
+         * The end offset of the first entered container.
+         */
+        private long hintEnd;
+
+        /**
+         * Constructs a Speculation.
+         * @param signature the signature of the file, or null
+         * @param fileSize the size of the file
+         * @param head the bytes of the head of the file
+         */
+        private Speculation(String signature, long fileSize, ByteBuffer head) {
+            this.signature = signature;
+            this.fileSize = fileSize;
+            this.head = head;
+        }
+
+        /**
+         * Sets the speculative window.
+         * @param start the file offset of the window
+         * @param bytes the bytes of the window
+         */
+        private void window(long start, ByteBuffer bytes) {
+            windowStart = start;
+            window = bytes;
+        }
+
+        /**
+         * Returns the number of bytes read from the source.
+         * @return the sizes of the head and the window
+         */
+        long getBytesRead() {
+            return head.limit() + (window == null ? 0 : window.limit());
+        }
+
+        /**
+         * Tests, whether a range was read.
+         * @param offset the file offset of the range
+         * @param end the end offset of the range
+         * @return true iff the range lies in the head or the window
+         */
+        private boolean covers(long offset, long end) {
+            end = Math.min(end, fileSize);
+            if (end <= head.limit()) return true;
+            if (window == null) return false;
+            return Math.max(offset, head.limit()) >= windowStart && end <= windowStart + window.limit();
+        }
+
+        @Override
+        public boolean fill(ByteBuffer dst, long position) {
+            if (position < head.limit()) return copy(head, (int) position, dst);
+            if (window != null && position >= windowStart && position < windowStart + window.limit())
+                return copy(window, (int) (position - windowStart), dst);
+            return false;
+        }
+
+        @Override
+        public void hint(long offset, long end) {
+            if (hintOffset < 0) {
+                hintOffset = offset;
+                hintEnd = end;
+            }
+        }
+
+        /**
+         * Copies bytes read ahead into the buffer of the reader.
+         * @param src the bytes read ahead
+         * @param off the index of the first byte
+         * @param dst the cleared buffer of the reader
+         * @return true
+         */
+        private static boolean copy(ByteBuffer src, int off, ByteBuffer dst) {
+            ByteBuffer bytes = src.duplicate();
+            bytes.position(off);
+            bytes.limit(off + Math.min(dst.remaining(), src.limit() - off));
+            dst.put(bytes);
+            dst.flip();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The LazyAtom class represents an atom, whose contents are larger than
+ * the maximal atom size of the reader, e.g. 'mdat', or which has a 64-bit
+ * size. Instead of loading the contents into an array, the reader skips
+ * them and returns a handle of their offset, size and source, from which
+ * the contents are read in chunks into buffers of the caller while the
+ * source is open. An atom read from a plain InputStream has no source;
+ * its contents are skipped and cannot be read.
+ * @author lpfeiler
+ */
+public final class LazyAtom extends QTAtom {
+
+    /**
+     * The file offset of the contents.
+     */
+    private final long offset;
+
+    /**
+     * The number of bytes of the contents.
+     */
+    private final long contentSize;
+
+    /**
+     * The source of the file, or null.
+     */
+    private final RandomAccessSource source;
+
+    /**
+     * Constructs a LazyAtom.
+     * @param size the 32-bit size of the atom in the file
+     * @param type the type of the atom
+     * @param offset the file offset of the contents, or -1 if unknown
+     * @param contentSize the number of bytes of the contents
+     * @param source the source of the file, or null
+     */
+    public LazyAtom(int size, int type, long offset, long contentSize, RandomAccessSource source) {
+        super(size, type);
+        if (contentSize < 0) throw new IllegalArgumentException("negative content size");
+        if (source != null && offset < 0) throw new IllegalArgumentException("negative offset");
+        this.offset = offset;
+        this.contentSize = contentSize;
+        this.source = source;
+    }
+
+    /**
+     * Returns the file offset of the contents.
+     * @return the file offset, or -1 if unknown
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of bytes of the contents.
+     * @return the size of the contents
+     */
+    public long getContentSize() {
+        return contentSize;
+    }
+
+    /**
+     * Returns the source of the file.
+     * @return the source, or null
+     */
+    public RandomAccessSource getSource() {
+        return source;
+    }
+
+    /**
+     * Tests, whether the contents can be read.
+     * @return true iff the atom has a source
+     */
+    public boolean isReadable() {
+        return source != null;
+    }
+
+    /**
+     * Reads contents from a position on into a buffer, at most up to the
+     * end of the contents.
+     * @param position the position in the contents
+     * @param dst the buffer of the caller
+     * @return the number of bytes read, or -1 at the end of the contents
+     * @throws IOException if the atom has no source or the read failed
+     * @throws IllegalArgumentException if the position is negative
+     */
+    public int read(long position, ByteBuffer dst) throws IOException {
+        if (position < 0) throw new IllegalArgumentException("negative position");
+        if (source == null) throw new IOException("contents not readable");
+        if (position >= contentSize) return -1;
+        int n = (int) Math.min(dst.remaining(), contentSize - position);
+        return source.read(offset + position, n, dst);
+    }
+
+    /**
+     * Reads contents from a position on into an array.
+     * @param position the position in the contents
+     * @param b the array of the caller
+     * @param off the start offset in the array
+     * @param len the maximal number of bytes to read
+     * @return the number of bytes read, or -1 at the end of the contents
+     * @throws IOException if the atom has no source or the read failed
+     */
+    public int read(long position, byte[] b, int off, int len) throws IOException {
+        return read(position, ByteBuffer.wrap(b, off, len));
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " [" + offset + "+" + contentSize + "]";
+    }
+}
@@ -0,0 +1,54 @@
+package de.csmath.QT;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream, which checks the limits of a read with a
+ * {@link ReadGuard}: long reads and skips are split into chunks, which
+ * are checked one by one. Skipped bytes count against the byte budget,
+ * since a stream, e.g. of a socket, reads and discards them.
+ * @author lpfeiler
+ */
+final class LimitedInputStream extends FilterInputStream {
+
+    /**
+     * The guard of the read.
+     */
+    private final ReadGuard guard;
+
+    /**
+     * Constructs a LimitedInputStream.
+     * @param in the stream to read from
+     * @param guard the guard of the read
+     */
+    LimitedInputStream(InputStream in, ReadGuard guard) {
+        super(in);
+        this.guard = guard;
+    }
+
+    @Override
+    public int read() throws IOException {
+        guard.allowByte();
+        int b = in.read();
+        if (b >= 0) guard.count(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int n = in.read(b, off, guard.allow(len));
+        guard.count(n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long skipped = in.skip(guard.allow((int) Math.min(n, ReadGuard.CHUNK_SIZE)));
+        guard.count((int) skipped);
+        return skipped;
+    }
+}
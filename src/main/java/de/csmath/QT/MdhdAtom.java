@@ -0,0 +1,155 @@
+package de.csmath.QT;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * The MdhdAtom class represents the QuickTime Media Header Atom ('mdhd').
+ * It specifies the characteristics of a media, like its time scale and
+ * duration.
+ * @author lpfeiler
+ */
+public final class MdhdAtom extends QTAtom {
+
+    /**
+     * The number of bytes for future flags.
+     */
+    public static final int FLAGS_SIZE = 3;
+
+    /**
+     * The version of this media header atom.
+     */
+    private final byte version;
+
+    /**
+     * Flags (for future purpose)
+     */
+    private final byte[] flags = new byte[FLAGS_SIZE];
+
+    /**
+     * The creation time in seconds since 1904-01-01 0:00 (UTC).
+     */
+    private final long creationTime;
+
+    /**
+     * The modification time in seconds since 1904-01-01 0:00 (UTC).
+     */
+    private final long modificationTime;
+
+    /**
+     * The number of time units that pass per second in the media.
+     */
+    private final int timeScale;
+
+    /**
+     * The duration of the media in media time scale units.
+     */
+    private final long duration;
+
+    /**
+     * The language code of the media.
+     */
+    private final short language;
+
+    /**
+     * The playback quality of the media.
+     */
+    private final short quality;
+
+    /**
+     * Constructs a MdhdAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'mdhd'
+     * @param version the version of this media header atom
+     * @param flags the flags
+     * @param creationTime the creation time
+     * @param modificationTime the modification time
+     * @param timeScale the time scale of the media
+     * @param duration the duration of the media
+     * @param language the language code
+     * @param quality the playback quality
+     */
+    public MdhdAtom(int size, int type, byte version, byte[] flags, long creationTime,
+                    long modificationTime, int timeScale, long duration,
+                    short language, short quality) {
+        super(size, type);
+        if (type != QTAtom.MDHD)
+            throw new IllegalArgumentException("no mdhd type");
+        this.version = version;
+        for (int i=0; i < flags.length && i < this.flags.length; i++) {
+            this.flags[i] = flags[i];
+        }
+        this.creationTime = creationTime;
+        this.modificationTime = modificationTime;
+        this.timeScale = timeScale;
+        this.duration = duration;
+        this.language = language;
+        this.quality = quality;
+    }
+
+    /**
+     * Returns the version of the media header atom.
+     * @return the version of the media header atom
+     */
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the creation date and time of the media.
+     * @return the creation date and time of the media
+     */
+    public ZonedDateTime getCreationTime() {
+        return convertToDate(creationTime);
+    }
+
+    /**
+     * Returns the modification date and time of the media.
+     * @return the modification date and time of the media
+     */
+    public ZonedDateTime getModificationTime() {
+        return convertToDate(modificationTime);
+    }
+
+    /**
+     * Returns the time scale of the media.
+     * @return the time scale of the media
+     */
+    public int getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Returns the duration of the media in media time scale units.
+     * @return the duration of the media
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the language code of the media.
+     * @return the language code of the media
+     */
+    public short getLanguage() {
+        return language;
+    }
+
+    /**
+     * Returns the playback quality of the media.
+     * @return the playback quality of the media
+     */
+    public short getQuality() {
+        return quality;
+    }
+
+    /**
+     * Converts a date/time value of the file (in seconds since 1904-01-01 0:00)
+     * into a ZonedDateTime.
+     * @param time date/time value (in seconds since 1904-01-01 0:00)
+     * @return the date/time value as ZonedDateTime
+     */
+    private static ZonedDateTime convertToDate(long time) {
+        return ZonedDateTime.of(1904,1,1,0,0,0,0,ZoneId.of("UTC")).plusSeconds(time);
+    }
+}
@@ -0,0 +1,146 @@
+package de.csmath.QT;
+
+/**
+ * This class builds a MdhdAtom from given parameters.
+ * @author lpfeiler
+ */
+public class MdhdAtomBuilder extends QTAtomBuilder {
+
+    /**
+     * @see MdhdAtom#version
+     */
+    private byte version;
+
+    /**
+     * @see MdhdAtom#flags
+     */
+    private byte[] flags = new byte[MdhdAtom.FLAGS_SIZE];
+
+    /**
+     * @see MdhdAtom#creationTime
+     */
+    private long creationTime;
+
+    /**
+     * @see MdhdAtom#modificationTime
+     */
+    private long modificationTime;
+
+    /**
+     * @see MdhdAtom#timeScale
+     */
+    private int timeScale;
+
+    /**
+     * @see MdhdAtom#duration
+     */
+    private long duration;
+
+    /**
+     * @see MdhdAtom#language
+     */
+    private short language;
+
+    /**
+     * @see MdhdAtom#quality
+     */
+    private short quality;
+
+    /**
+     * Constructs a MdhdAtomBuilder
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'mdhd'
+     */
+    public MdhdAtomBuilder(int size, int type) {
+        super(size, type);
+    }
+
+    /**
+     * Builds a new MdhdAtom.
+     * @return a new MdhdAtom
+     */
+    public MdhdAtom build() {
+        return new MdhdAtom(size, type, version, flags, creationTime,
+                modificationTime, timeScale, duration, language, quality);
+    }
+
+    /**
+     * Sets the version of the atom.
+     * @param version the version of the atom
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withVersion(byte version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Sets the flags.
+     * @param flags the flags
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withFlags(byte[] flags) {
+        this.flags = flags;
+        return this;
+    }
+
+    /**
+     * Sets the creation time.
+     * @param creationTime the creation time
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+        return this;
+    }
+
+    /**
+     * Sets the modification time.
+     * @param modificationTime the modification time
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withModificationTime(long modificationTime) {
+        this.modificationTime = modificationTime;
+        return this;
+    }
+
+    /**
+     * Sets the time scale of the media.
+     * @param timeScale the time scale of the media
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withTimeScale(int timeScale) {
+        this.timeScale = timeScale;
+        return this;
+    }
+
+    /**
+     * Sets the duration of the media.
+     * @param duration the duration of the media
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withDuration(long duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Sets the language code.
+     * @param language the language code
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withLanguage(short language) {
+        this.language = language;
+        return this;
+    }
+
+    /**
+     * Sets the playback quality.
+     * @param quality the playback quality
+     * @return a reference to this object
+     */
+    public MdhdAtomBuilder withQuality(short quality) {
+        this.quality = quality;
+        return this;
+    }
+}
@@ -0,0 +1,34 @@
+package de.csmath.QT;
+
+/**
+ * The MfhdAtom class represents the Movie Fragment Header Atom ('mfhd').
+ * @author lpfeiler
+ */
+public final class MfhdAtom extends QTAtom {
+
+    /**
+     * The sequence number of the fragment.
+     */
+    private final int sequenceNumber;
+
+    /**
+     * Constructs a MfhdAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'mfhd'
+     * @param sequenceNumber the sequence number of the fragment
+     */
+    public MfhdAtom(int size, int type, int sequenceNumber) {
+        super(size, type);
+        if (type != QTAtom.MFHD)
+            throw new IllegalArgumentException("no mfhd type");
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    /**
+     * Returns the sequence number of the fragment.
+     * @return the sequence number of the fragment
+     */
+    public int getSequenceNumber() {
+        return sequenceNumber;
+    }
+}
@@ -0,0 +1,191 @@
+package de.csmath.QT;
+
+/**
+ * A bit reader over the payload of an H.264/H.265 NAL unit.
+ * It reads directly from the given buffer and drops the emulation
+ * prevention bytes (0x000003) on the fly, so no unescaped copy of the
+ * NAL unit is made. Reads past the end of the buffer return zero bits and
+ * mark the reader as overrun.
+ * A reader can be reused for several NAL units with {@link #reset}.
+ * @author lpfeiler
+ */
+public final class NalBitReader {
+
+    /**
+     * The buffer with the NAL unit.
+     */
+    private byte[] buf;
+
+    /**
+     * The position of the next byte in the buffer.
+     */
+    private int pos;
+
+    /**
+     * The end of the NAL unit in the buffer.
+     */
+    private int end;
+
+    /**
+     * The current byte.
+     */
+    private int current;
+
+    /**
+     * The number of unread bits of the current byte.
+     */
+    private int bitsLeft;
+
+    /**
+     * The number of consecutive zero bytes before the next byte.
+     */
+    private int zeros;
+
+    /**
+     * True iff a read went past the end of the NAL unit.
+     */
+    private boolean overrun;
+
+    /**
+     * Constructs a NalBitReader over the given part of a buffer.
+     * @param buf the buffer with the NAL unit
+     * @param off the start of the NAL unit in the buffer
+     * @param len the length of the NAL unit
+     */
+    public NalBitReader(byte[] buf, int off, int len) {
+        reset(buf, off, len);
+    }
+
+    /**
+     * Resets this reader to the given part of a buffer.
+     * @param buf the buffer with the NAL unit
+     * @param off the start of the NAL unit in the buffer
+     * @param len the length of the NAL unit
+     * @return this reader
+     */
+    public NalBitReader reset(byte[] buf, int off, int len) {
+        if (off < 0 || len < 0 || off + len > buf.length)
+            throw new IllegalArgumentException("invalid range");
+        this.buf = buf;
+        this.pos = off;
+        this.end = off + len;
+        this.bitsLeft = 0;
+        this.zeros = 0;
+        this.overrun = false;
+        return this;
+    }
+
+    /**
+     * Reads one bit.
+     * @return the bit
+     */
+    public int readBit() {
+        if (bitsLeft == 0) nextByte();
+        bitsLeft--;
+        return (current >>> bitsLeft) & 1;
+    }
+
+    /**
+     * Reads one bit as flag.
+     * @return true iff the bit is set
+     */
+    public boolean readFlag() {
+        return readBit() != 0;
+    }
+
+    /**
+     * Reads an unsigned value of the given number of bits (u(n)).
+     * @param n the number of bits (at most 32)
+     * @return the value, values of 32 bits may be negative
+     */
+    public int readBits(int n) {
+        if (n < 0 || n > 32)
+            throw new IllegalArgumentException("invalid number of bits");
+        int value = 0;
+        while (n > 0) {
+            if (bitsLeft == 0) nextByte();
+            int take = Math.min(n, bitsLeft);
+            bitsLeft -= take;
+            value = (value << take) | ((current >>> bitsLeft) & ((1 << take) - 1));
+            n -= take;
+        }
+        return value;
+    }
+
+    /**
+     * Skips the given number of bits.
+     * @param n the number of bits
+     */
+    public void skipBits(int n) {
+        while (n > 0) {
+            int take = Math.min(n, 32);
+            readBits(take);
+            n -= take;
+        }
+    }
+
+    /**
+     * Reads an unsigned Exp-Golomb coded value (ue(v)).
+     * @return the value
+     */
+    public int readUE() {
+        int leadingZeros = 0;
+        while (readBit() == 0) {
+            if (overrun || ++leadingZeros > 31) {
+                overrun = true;
+                return 0;
+            }
+        }
+        if (leadingZeros == 0) return 0;
+        return (int) ((1L << leadingZeros) - 1 + (readBits(leadingZeros) & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Reads a signed Exp-Golomb coded value (se(v)).
+     * @return the value
+     */
+    public int readSE() {
+        int k = readUE();
+        return (k & 1) != 0 ? (k >>> 1) + 1 : -(k >>> 1);
+    }
+
+    /**
+     * Returns true iff a read went past the end of the NAL unit.
+     * @return true iff a read went past the end of the NAL unit
+     */
+    public boolean isOverrun() {
+        return overrun;
+    }
+
+    /**
+     * Marks the NAL unit as invalid, as if a read went past its end.
+     */
+    void invalidate() {
+        overrun = true;
+    }
+
+    /**
+     * Loads the next byte of the payload, skipping an emulation
+     * prevention byte.
+     */
+    private void nextByte() {
+        bitsLeft = 8;
+        if (pos >= end) {
+            overrun = true;
+            current = 0;
+            return;
+        }
+        int b = buf[pos++] & 0xFF;
+        if (zeros >= 2 && b == 3) {
+            zeros = 0;
+            if (pos >= end) {
+                overrun = true;
+                current = 0;
+                return;
+            }
+            b = buf[pos++] & 0xFF;
+        }
+        zeros = b == 0 ? zeros + 1 : 0;
+        current = b;
+    }
+}
@@ -0,0 +1,48 @@
+package de.csmath.QT;
+
+/**
+ * The PaspAtom class represents the Pixel Aspect Ratio Atom ('pasp').
+ * It is an extension of the Video Sample Description of the 'stsd' atom.
+ * @author lpfeiler
+ */
+public final class PaspAtom extends QTAtom {
+
+    /**
+     * The horizontal spacing of pixels.
+     */
+    private final int hSpacing;
+
+    /**
+     * The vertical spacing of pixels.
+     */
+    private final int vSpacing;
+
+    /**
+     * Constructs a PaspAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'pasp'
+     * @param hSpacing the horizontal spacing of pixels
+     * @param vSpacing the vertical spacing of pixels
+     */
+    public PaspAtom(int size, int type, int hSpacing, int vSpacing) {
+        super(size, type);
+        this.hSpacing = hSpacing;
+        this.vSpacing = vSpacing;
+    }
+
+    /**
+     * Returns the horizontal spacing of pixels.
+     * @return the horizontal spacing of pixels
+     */
+    public int getHSpacing() {
+        return hSpacing;
+    }
+
+    /**
+     * Returns the vertical spacing of pixels.
+     * @return the vertical spacing of pixels
+     */
+    public int getVSpacing() {
+        return vSpacing;
+    }
+}
@@ -0,0 +1,337 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class reads ahead of a QTReader, which executes a plan. When the
+ * plan steps into a container, e.g. 'moov', the reader knows the range it
+ * reads next: the remaining children of the container, like the 'trak'
+ * atoms and their sample tables. The prefetcher reads this range in blocks
+ * with asynchronous reads on an Executor, while the reader decodes the
+ * current atom, and holds at most a budget of bytes in flight or unread.
+ * A block is released as soon as the reader has passed it, which lets the
+ * next block be read; a jump of the reader beyond the read blocks restarts
+ * the read-ahead at the new position. A released block, whose read is
+ * still running, counts against the budget until the read is done; a
+ * reader, which runs out of blocks, waits for such reads to restart, and
+ * the read of a file finishes only after all of its reads are done.
+ * A prefetcher holds the state of one read and is not thread-safe; it is
+ * reused for the next file.
+ * @author lpfeiler
+ */
+public final class Prefetcher implements ReadAhead {
+
+    /**
+     * The default size of the blocks read ahead.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * The executor of the asynchronous reads.
+     */
+    private final Executor executor;
+
+    /**
+     * The maximal number of bytes of the blocks read ahead.
+     */
+    private final int budget;
+
+    /**
+     * The size of the blocks read ahead.
+     */
+    private final int blockSize;
+
+    /**
+     * The source to read from.
+     */
+    private RandomAccessSource source;
+
+    /**
+     * The blocks read ahead in file order.
+     */
+    private final ArrayDeque<Block> blocks = new ArrayDeque<>();
+
+    /**
+     * The released blocks, whose reads may still be running.
+     */
+    private final ArrayDeque<Block> released = new ArrayDeque<>();
+
+    /**
+     * The number of bytes of the blocks read ahead or being read.
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * The file offset of the next block.
+     */
+    private long next;
+
+    /**
+     * The end offset of the range to read ahead.
+     */
+    private long end;
+
+    /**
+     * The number of fills served by blocks read ahead.
+     */
+    private int hits;
+
+    /**
+     * The number of fills, which were not served by blocks read ahead.
+     */
+    private int misses;
+
+    /**
+     * Constructs a Prefetcher with the default block size.
+     * @param executor the executor of the asynchronous reads
+     * @param budget the maximal number of bytes read ahead
+     */
+    public Prefetcher(Executor executor, int budget) {
+        this(executor, budget, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a Prefetcher.
+     * @param executor the executor of the asynchronous reads
+     * @param budget the maximal number of bytes read ahead
+     * @param blockSize the size of the blocks read ahead
+     * @throws IllegalArgumentException if the budget or block size is not positive
+     */
+    public Prefetcher(Executor executor, int budget, int blockSize) {
+        if (budget <= 0) throw new IllegalArgumentException("budget not positive");
+        if (blockSize <= 0) throw new IllegalArgumentException("block size not positive");
+        this.executor = executor;
+        this.budget = budget;
+        this.blockSize = Math.min(blockSize, budget);
+    }
+
+    /**
+     * Returns the number of fills of the reader served by blocks read ahead.
+     * @return the number of hits
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of fills of the reader, which went to the source.
+     * @return the number of misses
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of bytes of the blocks read ahead or being read.
+     * @return the number of bytes held, at most the budget
+     */
+    public long getBytesHeld() {
+        return bytes.get();
+    }
+
+    /**
+     * Starts the read of a file.
+     * @param source the source to read from
+     */
+    void start(RandomAccessSource source) {
+        finish();
+        this.source = source;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Finishes the read of a file: releases all blocks and waits for the
+     * reads, which are still running, so the source may be closed.
+     */
+    void finish() {
+        reset();
+        while (!released.isEmpty()) {
+            released.pollFirst().done.join();
+        }
+    }
+
+    /**
+     * Releases all blocks and stops the read-ahead.
+     */
+    private void reset() {
+        while (!blocks.isEmpty()) {
+            release();
+        }
+        next = 0;
+        end = 0;
+    }
+
+    @Override
+    public void hint(long offset, long end) {
+        Block first = blocks.peekFirst();
+        if (first != null && offset >= first.start && end <= this.end) return;
+        reset();
+        next = offset;
+        this.end = end;
+        issue();
+    }
+
+    @Override
+    public boolean fill(ByteBuffer dst, long position) throws IOException {
+        while (!blocks.isEmpty() && blocks.peekFirst().end <= position) {
+            release();
+        }
+        if (blocks.isEmpty() && position >= next && position < end) {
+            next = position;
+            while (!released.isEmpty() && bytes.get() + blockSize > budget) {
+                released.pollFirst().done.join();
+            }
+            issue();
+        }
+        Block block = blocks.peekFirst();
+        if (block == null || position < block.start) {
+            misses++;
+            return false;
+        }
+        ByteBuffer data = block.get();
+        int off = (int) (position - block.start);
+        int n = Math.min(dst.remaining(), data.limit() - off);
+        if (n <= 0) {
+            misses++;
+            return false;
+        }
+        ByteBuffer src = data.duplicate();
+        src.position(off);
+        src.limit(off + n);
+        dst.put(src);
+        dst.flip();
+        hits++;
+        issue();
+        return true;
+    }
+
+    /**
+     * Issues asynchronous reads of the next blocks within the budget.
+     */
+    private void issue() {
+        released.removeIf(block -> block.done.isDone());
+        while (next < end) {
+            int len = (int) Math.min(blockSize, end - next);
+            if (bytes.get() + len > budget) return;
+            bytes.addAndGet(len);
+            blocks.addLast(new Block(next, len));
+            next += len;
+        }
+    }
+
+    /**
+     * Releases the first block. A read, which has not started yet, is
+     * skipped; the bytes of the block are held until its read is done.
+     */
+    private void release() {
+        Block block = blocks.pollFirst();
+        block.data.cancel(false);
+        block.unref();
+        if (!block.done.isDone()) released.addLast(block);
+    }
+
+    /**
+     * A block, which is read ahead.
+     */
+    private final class Block {
+
+        /**
+         * The file offset of the block.
+         */
+        private final long start;
+
+        /**
+         * The end offset of the block.
+         */
+        private final long end;
+
+        /**
+         * The contents of the block, which are read asynchronously.
+         */
+        private final CompletableFuture<ByteBuffer> data = new CompletableFuture<>();
+
+        /**
+         * Completed, when the read of the block is done or skipped.
+         */
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        /**
+         * The number of holders of the bytes of the block: the deque of
+         * blocks and the running read.
+         */
+        private final AtomicInteger refs = new AtomicInteger(2);
+
+        /**
+         * Constructs a Block and issues its read.
+         * @param start the file offset of the block
+         * @param length the size of the block
+         */
+        private Block(long start, int length) {
+            this.start = start;
+            this.end = start + length;
+            RandomAccessSource src = source;
+            executor.execute(() -> {
+                try {
+                    if (!data.isDone()) data.complete(read(src, start, length));
+                } catch (IOException | RuntimeException e) {
+                    data.completeExceptionally(e);
+                } finally {
+                    unref();
+                    done.complete(null);
+                }
+            });
+        }
+
+        /**
+         * Drops a holder of the bytes of the block and returns the bytes
+         * to the budget after the last one.
+         */
+        private void unref() {
+            if (refs.decrementAndGet() == 0) bytes.addAndGet(start - end);
+        }
+
+        /**
+         * Waits for the contents of the block.
+         * @return the contents, which end early at the end of the file
+         * @throws IOException if the read failed or the thread was interrupted
+         */
+        private ByteBuffer get() throws IOException {
+            try {
+                return data.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * Reads a block of a source.
+     * @param source the source to read from
+     * @param start the file offset of the block
+     * @param length the size of the block
+     * @return the contents of the block, which end early at the end of the file
+     * @throws IOException
+     */
+    private static ByteBuffer read(RandomAccessSource source, long start, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            if (source.read(start + buf.position(), buf.remaining(), buf) < 0) break;
+        }
+        buf.flip();
+        return buf;
+    }
+}
@@ -0,0 +1,74 @@
+package de.csmath.QT;
+
+/**
+ * The ProjectedAtom class represents the projected fields of an atom,
+ * which were read by a command with a projection, e.g.
+ * {@code read mvhd(timescale,duration)}. It holds the values as primitive
+ * numbers instead of the decoded atom.
+ * @see QTProjection
+ * @author lpfeiler
+ */
+public final class ProjectedAtom extends QTAtom {
+
+    /**
+     * The projection of the command.
+     */
+    private final QTProjection projection;
+
+    /**
+     * The values of the projected fields.
+     */
+    private final long[] values;
+
+    /**
+     * Constructs a ProjectedAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param projection the projection of the command
+     * @param values the values of the projected fields
+     */
+    public ProjectedAtom(int size, int type, QTProjection projection, long[] values) {
+        super(size, type);
+        if (values.length != projection.getNumFields())
+            throw new IllegalArgumentException("number of values mismatch");
+        this.projection = projection;
+        this.values = values.clone();
+    }
+
+    /**
+     * Returns the projection of the command.
+     * @return the projection
+     */
+    public QTProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns the number of projected fields.
+     * @return the number of projected fields
+     */
+    public int getNumFields() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of a projected field by its index in the projection.
+     * @param index the index of the field
+     * @return the value of the field
+     */
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the value of a projected field by its name.
+     * @param name the name of the field
+     * @return the value of the field
+     * @throws IllegalArgumentException if the field is not projected
+     */
+    public long getValue(String name) {
+        int index = projection.indexOf(name);
+        if (index < 0) throw new IllegalArgumentException("field not projected: " + name);
+        return values[index];
+    }
+}
@@ -35,11 +35,26 @@ public class QTAtom {
      */
     public final static int TRAK = 0x7472616B; //'trak'
 
+    /**
+     * The atom type 'tkhd'
+     */
+    public final static int TKHD = 0x746B6864; //'tkhd'
+
     /**
      * The atom container type 'mdia'
      */
     public final static int MDIA = 0x6D646961; //'mdia'
 
+    /**
+     * The atom type 'mdhd'
+     */
+    public final static int MDHD = 0x6D646864; //'mdhd'
+
+    /**
+     * The atom type 'hdlr'
+     */
+    public final static int HDLR = 0x68646C72; //'hdlr'
+
     /**
      * The atom container type 'minf'
      */
@@ -55,6 +70,41 @@ public class QTAtom {
      */
     public final static int STSD = 0x73747364; //'stsd'
 
+    /**
+     * The atom type 'stts'
+     */
+    public final static int STTS = 0x73747473; //'stts'
+
+    /**
+     * The atom type 'stss'
+     */
+    public final static int STSS = 0x73747373; //'stss'
+
+    /**
+     * The atom type 'stsc'
+     */
+    public final static int STSC = 0x73747363; //'stsc'
+
+    /**
+     * The atom type 'stsz'
+     */
+    public final static int STSZ = 0x7374737A; //'stsz'
+
+    /**
+     * The atom type 'stco'
+     */
+    public final static int STCO = 0x7374636F; //'stco'
+
+    /**
+     * The atom type 'co64'
+     */
+    public final static int CO64 = 0x636F3634; //'co64'
+
+    /**
+     * The atom type 'ctts'
+     */
+    public final static int CTTS = 0x63747473; //'ctts'
+
     /**
      * The video sample desc. extension type 'colr'
      */
@@ -65,6 +115,91 @@ public class QTAtom {
      */
     public final static int AVCC = 0x61766343; //'avcC'
 
+    /**
+     * The sound sample desc. extension type 'esds'
+     */
+    public final static int ESDS = 0x65736473; //'esds'
+
+    /**
+     * The sound sample desc. extension container type 'wave'
+     */
+    public final static int WAVE = 0x77617665; //'wave'
+
+    /**
+     * The video sample desc. extension type 'hvcC'
+     */
+    public final static int HVCC = 0x68766343; //'hvcC'
+
+    /**
+     * The video sample desc. extension type 'pasp'
+     */
+    public final static int PASP = 0x70617370; //'pasp'
+
+    /**
+     * The video sample desc. extension type 'clap'
+     */
+    public final static int CLAP = 0x636C6170; //'clap'
+
+    /**
+     * The video sample desc. extension type 'fiel'
+     */
+    public final static int FIEL = 0x6669656C; //'fiel'
+
+    /**
+     * The sample desc. extension type 'btrt'
+     */
+    public final static int BTRT = 0x62747274; //'btrt'
+
+    /**
+     * The movie extends atom type 'mvex'
+     */
+    public final static int MVEX = 0x6D766578; //'mvex'
+
+    /**
+     * The track extends atom type 'trex'
+     */
+    public final static int TREX = 0x74726578; //'trex'
+
+    /**
+     * The movie fragment atom type 'moof'
+     */
+    public final static int MOOF = 0x6D6F6F66; //'moof'
+
+    /**
+     * The movie fragment header atom type 'mfhd'
+     */
+    public final static int MFHD = 0x6D666864; //'mfhd'
+
+    /**
+     * The track fragment atom type 'traf'
+     */
+    public final static int TRAF = 0x74726166; //'traf'
+
+    /**
+     * The track fragment header atom type 'tfhd'
+     */
+    public final static int TFHD = 0x74666864; //'tfhd'
+
+    /**
+     * The track fragment decode time atom type 'tfdt'
+     */
+    public final static int TFDT = 0x74666474; //'tfdt'
+
+    /**
+     * The track fragment run atom type 'trun'
+     */
+    public final static int TRUN = 0x7472756E; //'trun'
+
+    /**
+     * The media data atom type 'mdat'
+     */
+    public final static int MDAT = 0x6D646174; //'mdat'
+
+    /**
+     * The segment index atom type 'sidx'
+     */
+    public final static int SIDX = 0x73696478; //'sidx'
+
     /**
      * The size of the atom in the file.
      */
@@ -129,6 +264,15 @@ public class QTAtom {
         return new ContentsIterator();
     }
 
+    /**
+     * Returns the contents of the atom for the parsing of subclasses.
+     * The array is not copied and must not be modified.
+     * @return the contents of the atom
+     */
+    final byte[] getContents() {
+        return contents;
+    }
+
     /**
      * Returns the type as a string
      * @return the type as a string
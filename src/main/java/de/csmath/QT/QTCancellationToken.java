@@ -0,0 +1,31 @@
+package de.csmath.QT;
+
+/**
+ * A token, with which another thread cancels reads cooperatively. The
+ * reads, which were given the token in their {@link QTLimits}, stop at
+ * the next atom boundary or chunk of a long read or skip and return their
+ * partial results. A token is thread-safe and may be shared by many reads.
+ * @author lpfeiler
+ */
+public final class QTCancellationToken {
+
+    /**
+     * True iff the token was cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * Cancels all reads of this token.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Tests, whether the token was cancelled.
+     * @return true iff the token was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
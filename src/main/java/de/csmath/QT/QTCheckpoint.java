@@ -0,0 +1,247 @@
+package de.csmath.QT;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * This class represents the state of a QTReader that executes a program
+ * on a FileChannel: the file offset of the next atom header, the position
+ * in the list of QTCommands, the ends of the entered containers and the
+ * offsets of the atoms collected so far.
+ * A checkpoint is serialized into a compact byte array, so a probe that is
+ * interrupted, e.g. by a timeout or the restart of a worker, is resumed by
+ * a new reader with {@link QTReader#resume(java.nio.channels.FileChannel, List, QTCheckpoint)}.
+ * The collected atoms are stored by their offsets and the indices of
+ * their READ commands and decoded again on resumption; they are small
+ * compared to the skipped parts of the file.
+ * @author lpfeiler
+ */
+public final class QTCheckpoint {
+
+    /**
+     * The magic number of a serialized checkpoint ('QTck').
+     */
+    private static final int MAGIC = 0x5154636B;
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The fingerprint of the program.
+     */
+    private final int programHash;
+
+    /**
+     * The number of commands of the program.
+     */
+    private final int numCommands;
+
+    /**
+     * The index of the next command to execute.
+     */
+    private final int commandIndex;
+
+    /**
+     * The file offset of the next atom header.
+     */
+    private final long offset;
+
+    /**
+     * The end offsets of the entered containers, outermost first.
+     */
+    private final long[] containerEnds;
+
+    /**
+     * The file offsets of the collected atoms.
+     */
+    private final long[] atomOffsets;
+
+    /**
+     * The indices of the READ commands of the collected atoms.
+     */
+    private final int[] atomCommands;
+
+    /**
+     * Constructs a QTCheckpoint.
+     * @param programHash the fingerprint of the program
+     * @param numCommands the number of commands of the program
+     * @param commandIndex the index of the next command to execute
+     * @param offset the file offset of the next atom header
+     * @param containerEnds the end offsets of the entered containers
+     * @param atomOffsets the file offsets of the collected atoms
+     * @param atomCommands the indices of the READ commands of the collected atoms
+     */
+    QTCheckpoint(int programHash, int numCommands, int commandIndex, long offset,
+                 long[] containerEnds, long[] atomOffsets, int[] atomCommands) {
+        this.programHash = programHash;
+        this.numCommands = numCommands;
+        this.commandIndex = commandIndex;
+        this.offset = offset;
+        this.containerEnds = containerEnds;
+        this.atomOffsets = atomOffsets;
+        this.atomCommands = atomCommands;
+    }
+
+    /**
+     * Returns the fingerprint of a program. Checkpoints are only
+     * resumed with the program they were taken of.
+     * @param commands the list of QTCommands
+     * @return the fingerprint of the program
+     */
+    static int hash(List<QTCommand> commands) {
+        int h = commands.size();
+        for (QTCommand cmd : commands) {
+            h = 31 * h + cmd.getCode().ordinal();
+            h = 31 * h + cmd.getType();
+            if (cmd.getPredicate() != null) h = 31 * h + cmd.getPredicate().hashCode();
+            if (cmd.getProjection() != null) h = 31 * h + cmd.getProjection().hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * Checks that this checkpoint was taken of the given program.
+     * @param commands the list of QTCommands
+     * @throws IllegalArgumentException if the checkpoint belongs to another program
+     */
+    void checkProgram(List<QTCommand> commands) {
+        if (commands.size() != numCommands || hash(commands) != programHash)
+            throw new IllegalArgumentException("checkpoint of another program");
+    }
+
+    /**
+     * Returns the index of the next command to execute.
+     * @return the index of the next command
+     */
+    public int getCommandIndex() {
+        return commandIndex;
+    }
+
+    /**
+     * Returns true iff all commands of the program were executed.
+     * @return true iff the program is finished
+     */
+    public boolean isFinished() {
+        return commandIndex == numCommands;
+    }
+
+    /**
+     * Returns the file offset of the next atom header.
+     * @return the file offset of the next atom header
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the number of entered containers.
+     * @return the depth of the container stack
+     */
+    public int getDepth() {
+        return containerEnds.length;
+    }
+
+    /**
+     * Returns the end offsets of the entered containers, outermost first.
+     * @return a copy of the container stack
+     */
+    public long[] getContainerEnds() {
+        return containerEnds.clone();
+    }
+
+    /**
+     * Returns the number of collected atoms.
+     * @return the number of collected atoms
+     */
+    public int getNumAtoms() {
+        return atomOffsets.length;
+    }
+
+    /**
+     * Returns the file offsets of the collected atoms.
+     * @return a copy of the file offsets of the collected atoms
+     */
+    long[] getAtomOffsets() {
+        return atomOffsets.clone();
+    }
+
+    /**
+     * Returns the indices of the READ commands of the collected atoms.
+     * @return a copy of the command indices of the collected atoms
+     */
+    int[] getAtomCommands() {
+        return atomCommands.clone();
+    }
+
+    /**
+     * Serializes this checkpoint.
+     * @return the serialized checkpoint
+     */
+    public byte[] toBytes() {
+        ByteBuffer buf = ByteBuffer.allocate(36 + 8 * containerEnds.length + 12 * atomOffsets.length);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(programHash).putInt(numCommands)
+                .putInt(commandIndex).putLong(offset);
+        buf.putInt(containerEnds.length);
+        for (long end : containerEnds) {
+            buf.putLong(end);
+        }
+        buf.putInt(atomOffsets.length);
+        for (int i=0; i < atomOffsets.length; i++) {
+            buf.putLong(atomOffsets[i]).putInt(atomCommands[i]);
+        }
+        return buf.array();
+    }
+
+    /**
+     * Deserializes a checkpoint.
+     * @param bytes the serialized checkpoint
+     * @return the checkpoint
+     * @throws IllegalArgumentException if the bytes are no serialized checkpoint
+     */
+    public static QTCheckpoint fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                throw new IllegalArgumentException("no checkpoint");
+            int programHash = buf.getInt();
+            int numCommands = buf.getInt();
+            int commandIndex = buf.getInt();
+            long offset = buf.getLong();
+            long[] containerEnds = new long[checkedCount(buf, 8)];
+            for (int i=0; i < containerEnds.length; i++) {
+                containerEnds[i] = buf.getLong();
+            }
+            int numAtoms = checkedCount(buf, 12);
+            long[] atomOffsets = new long[numAtoms];
+            int[] atomCommands = new int[numAtoms];
+            for (int i=0; i < numAtoms; i++) {
+                atomOffsets[i] = buf.getLong();
+                atomCommands[i] = buf.getInt();
+                if (atomCommands[i] < 0 || atomCommands[i] >= commandIndex)
+                    throw new IllegalArgumentException("corrupt checkpoint");
+            }
+            if (commandIndex < 0 || commandIndex > numCommands || offset < 0)
+                throw new IllegalArgumentException("corrupt checkpoint");
+            return new QTCheckpoint(programHash, numCommands, commandIndex, offset,
+                    containerEnds, atomOffsets, atomCommands);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated checkpoint");
+        }
+    }
+
+    /**
+     * Reads the length of an array and checks it against the remaining bytes.
+     * @param buf the serialized checkpoint
+     * @param entrySize the size of an entry of the array
+     * @return the length of the array
+     */
+    private static int checkedCount(ByteBuffer buf, int entrySize) {
+        int count = buf.getInt();
+        if (count < 0 || count > buf.remaining() / entrySize)
+            throw new IllegalArgumentException("corrupt checkpoint");
+        return count;
+    }
+}
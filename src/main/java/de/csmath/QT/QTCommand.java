@@ -1,5 +1,8 @@
 package de.csmath.QT;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 /**
  * This class represents a command that describes how a
  * QuickTime file is read.
@@ -19,14 +22,81 @@ public final class QTCommand {
      */
     private final int type;
 
+    /**
+     * The predicate, which the atom must satisfy, or null.
+     */
+    private final QTPredicate predicate;
+
+    /**
+     * The projection of a READ command, or null.
+     */
+    private final QTProjection projection;
+
+    /**
+     * The number of following commands, which are executed inside the
+     * container of a STEPIN command, or -1 if unknown.
+     */
+    private final int subtreeSize;
+
+    /**
+     * False iff the commands inside the container of a STEPIN command
+     * read no atom.
+     */
+    private final boolean containsRead;
+
     /**
      * Constructs a QTCommand.
      * @param code the action to execute
      * @param type the type of the atom
      */
     public QTCommand(QTOpCode code,int type) {
+        this(code, type, null);
+    }
+
+    /**
+     * Constructs a QTCommand, which applies to the next atom of the type
+     * satisfying the predicate.
+     * @param code the action to execute
+     * @param type the type of the atom
+     * @param predicate the predicate, which the atom must satisfy, or null
+     */
+    public QTCommand(QTOpCode code, int type, QTPredicate predicate) {
+        this(code, type, predicate, null);
+    }
+
+    /**
+     * Constructs a QTCommand, which applies to the next atom of the type
+     * satisfying the predicate and, if it is a READ command, reads only the
+     * projected fields of the atom.
+     * @param code the action to execute
+     * @param type the type of the atom
+     * @param predicate the predicate, which the atom must satisfy, or null
+     * @param projection the projection of a READ command, or null
+     */
+    public QTCommand(QTOpCode code, int type, QTPredicate predicate, QTProjection projection) {
+        this(code, type, predicate, projection, -1, true);
+    }
+
+    /**
+     * Constructs a QTCommand with the annotations of the plan optimizer.
+     * @param code the action to execute
+     * @param type the type of the atom
+     * @param predicate the predicate, which the atom must satisfy, or null
+     * @param projection the projection of a READ command, or null
+     * @param subtreeSize the number of following commands inside the
+     *                    container of a STEPIN command, or -1 if unknown
+     * @param containsRead false iff these commands read no atom
+     */
+    QTCommand(QTOpCode code, int type, QTPredicate predicate, QTProjection projection,
+              int subtreeSize, boolean containsRead) {
+        if (projection != null && (code != QTOpCode.READ || projection.getAtomType() != type))
+            throw new IllegalArgumentException("projection of another atom");
         this.code = code;
         this.type = type;
+        this.predicate = predicate;
+        this.projection = projection;
+        this.subtreeSize = subtreeSize;
+        this.containsRead = containsRead;
     }
 
     /**
@@ -44,4 +114,62 @@ public final class QTCommand {
     public int getType() {
         return type;
     }
+
+    /**
+     * Returns the predicate, which the atom must satisfy.
+     * @return the predicate, or null
+     */
+    public QTPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Returns the projection of a READ command.
+     * @return the projection, or null if the whole atom is read
+     */
+    public QTProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Returns true iff the atom satisfies the predicate of this command.
+     * A command without a predicate accepts every atom of its type.
+     * @param reader the reader
+     * @param size the 32-bit size of the atom, whose header was read already
+     * @param is the InputStream object
+     * @return true iff the atom satisfies the predicate
+     * @throws IOException
+     */
+    boolean accepts(QTReader reader, int size, InputStream is) throws IOException {
+        return predicate == null || predicate.test(reader, size, type, is);
+    }
+
+    /**
+     * Returns the number of following commands, which are executed inside
+     * the container of a STEPIN command. It is known for the commands of
+     * an optimized plan only.
+     * @return the number of commands inside the container, or -1 if unknown
+     */
+    public int getSubtreeSize() {
+        return subtreeSize;
+    }
+
+    /**
+     * Returns false iff the commands inside the container of a STEPIN
+     * command read no atom, so the reader skips the whole container
+     * together with these commands.
+     * @return false iff no atom is read inside the container
+     */
+    public boolean containsRead() {
+        return containsRead;
+    }
+
+    /**
+     * Returns true iff the reader may skip the container of this command
+     * together with the commands inside it.
+     * @return true iff the container can be skipped
+     */
+    boolean isSkippable() {
+        return code == QTOpCode.STEPIN && subtreeSize >= 0 && !containsRead;
+    }
 }
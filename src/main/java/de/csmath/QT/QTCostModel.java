@@ -0,0 +1,76 @@
+package de.csmath.QT;
+
+/**
+ * This class represents the I/O costs of a source of files: a fixed
+ * latency per request, which is paid for every seek, and a throughput.
+ * The cost of reading a file is estimated in nanoseconds, so the costs
+ * of the strategies of a {@link QTExplain} are compared per source.
+ * @author lpfeiler
+ */
+public final class QTCostModel {
+
+    /**
+     * A local disk or SSD: cheap seeks and a high throughput.
+     */
+    public static final QTCostModel LOCAL_DISK = new QTCostModel(100_000L, 500_000_000L);
+
+    /**
+     * A remote mount or object store: every request costs a round trip.
+     */
+    public static final QTCostModel HIGH_LATENCY = new QTCostModel(40_000_000L, 50_000_000L);
+
+    /**
+     * The latency of a request in nanoseconds.
+     */
+    private final long seekNanos;
+
+    /**
+     * The throughput in bytes per second.
+     */
+    private final long bytesPerSecond;
+
+    /**
+     * Constructs a QTCostModel.
+     * @param seekNanos the latency of a request in nanoseconds
+     * @param bytesPerSecond the throughput in bytes per second
+     * @throws IllegalArgumentException if the latency is negative or the
+     *                                  throughput is not positive
+     */
+    public QTCostModel(long seekNanos, long bytesPerSecond) {
+        if (seekNanos < 0) throw new IllegalArgumentException("negative latency");
+        if (bytesPerSecond <= 0) throw new IllegalArgumentException("throughput not positive");
+        this.seekNanos = seekNanos;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Returns the latency of a request in nanoseconds.
+     * @return the latency of a request
+     */
+    public long getSeekNanos() {
+        return seekNanos;
+    }
+
+    /**
+     * Returns the throughput in bytes per second.
+     * @return the throughput
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Returns the estimated cost of reading some bytes with some requests.
+     * @param seeks the number of requests
+     * @param bytes the number of bytes read
+     * @return the estimated cost in nanoseconds
+     */
+    public long cost(long seeks, long bytes) {
+        return seeks * seekNanos + (long) (bytes * 1e9 / bytesPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return "QTCostModel[seek=" + seekNanos + "ns, " + bytesPerSecond + " B/s]";
+    }
+}
@@ -0,0 +1,203 @@
+package de.csmath.QT;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * This class represents a plan compiled into a specialized executor.
+ * Instead of interpreting the commands with a switch over the opcode and
+ * a switch over the atom type for every command, like
+ * {@link QTReader#readStream(InputStream, java.util.List)}, the commands are
+ * composed into a single chain of method handles: the traversal is
+ * unrolled, every READ is bound directly to the decoder of its atom type,
+ * and containers without a READ (see {@link QTProgCompiler#optimize(QTPlan)})
+ * are skipped without emitting the commands inside them.
+ * An executor is immutable and safe to share across threads.
+ * @author lpfeiler
+ */
+public final class QTExecutor {
+
+    /**
+     * The type of the handle of a command: (InputStream, Collection)void.
+     */
+    private static final MethodType STEP_TYPE =
+            MethodType.methodType(void.class, InputStream.class, Collection.class);
+
+    /**
+     * The handle of {@link #find(QTReader, QTCommand, InputStream)}.
+     */
+    private static final MethodHandle FIND;
+
+    /**
+     * The handle of {@link #skip(QTReader, QTCommand, InputStream)}.
+     */
+    private static final MethodHandle SKIP;
+
+    /**
+     * The handle of Collection.add with the type (Collection, QTAtom)void.
+     */
+    private static final MethodHandle ADD;
+
+    /**
+     * The end of a chain of commands with the type (InputStream, Collection)void.
+     */
+    private static final MethodHandle NOOP;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            FIND = lookup.findStatic(QTExecutor.class, "find",
+                    MethodType.methodType(int.class, QTReader.class, QTCommand.class, InputStream.class));
+            SKIP = lookup.findStatic(QTExecutor.class, "skip",
+                    MethodType.methodType(void.class, QTReader.class, QTCommand.class, InputStream.class));
+            ADD = lookup.findVirtual(Collection.class, "add",
+                    MethodType.methodType(boolean.class, Object.class))
+                    .asType(MethodType.methodType(void.class, Collection.class, QTAtom.class));
+            NOOP = MethodHandles.dropArguments(lookup.findStatic(QTExecutor.class, "noop",
+                    MethodType.methodType(void.class)), 0, InputStream.class, Collection.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The reader, whose decoders are bound into the executor.
+     */
+    private final QTReader reader;
+
+    /**
+     * The plan of the executor.
+     */
+    private final QTPlan plan;
+
+    /**
+     * The composed commands of the plan.
+     */
+    private final MethodHandle program;
+
+    /**
+     * True iff a command of the plan has a predicate.
+     */
+    private final boolean predicates;
+
+    /**
+     * Constructs a QTExecutor.
+     * @param reader the reader, whose decoders are bound
+     * @param plan the plan to compile
+     */
+    QTExecutor(QTReader reader, QTPlan plan) {
+        this.reader = reader;
+        this.plan = plan;
+        MethodHandle[] steps = new MethodHandle[plan.size()];
+        int n = 0;
+        for (int i=0; i < plan.size(); i++) {
+            QTCommand cmd = plan.getCommand(i);
+            steps[n++] = step(reader, cmd);
+            if (cmd.isSkippable()) i += cmd.getSubtreeSize();
+        }
+        MethodHandle chain = NOOP;
+        for (int i = n - 1; i >= 0; i--) {
+            chain = MethodHandles.foldArguments(chain, steps[i]);
+        }
+        program = chain;
+        predicates = QTReader.hasPredicate(plan.getCommands());
+    }
+
+    /**
+     * Returns the plan of this executor.
+     * @return the plan
+     */
+    public QTPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Reads a QuickTime file from an InputStream and collects the atoms of
+     * the plan. The result equals the one of
+     * {@link QTReader#readStream(InputStream, java.util.List)}.
+     * @param is the InputStream to read the file from
+     * @return a collection of collected atoms
+     * @throws IOException
+     */
+    public Collection<QTAtom> execute(InputStream is) throws IOException {
+        if (predicates && !is.markSupported()) is = new BufferedInputStream(is);
+        int size = reader.readInt(is);
+        int type = reader.readInt(is);
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
+        reader.skipAtomContents(is, size);
+        Collection<QTAtom> atoms = new LinkedList<>();
+        try {
+            program.invokeExact(is, atoms);
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        return atoms;
+    }
+
+    /**
+     * Returns the handle of a command.
+     * @param reader the reader, whose decoders are bound
+     * @param cmd the command
+     * @return a handle of the type (InputStream, Collection)void
+     */
+    private static MethodHandle step(QTReader reader, QTCommand cmd) {
+        int type = cmd.getType();
+        MethodHandle find = MethodHandles.insertArguments(FIND, 0, reader, cmd);
+        MethodHandle handle;
+        if (cmd.getCode() == QTOpCode.READ) {
+            MethodHandle decode = MethodHandles.insertArguments(reader.decoder(cmd), 1, type);
+            MethodHandle read = MethodHandles.foldArguments(decode, find);
+            handle = MethodHandles.permuteArguments(MethodHandles.filterArguments(ADD, 1, read),
+                    STEP_TYPE, 1, 0);
+        } else if (cmd.getCode() == QTOpCode.SKIP || cmd.isSkippable()) {
+            handle = MethodHandles.insertArguments(SKIP, 0, reader, cmd);
+        } else {
+            handle = find.asType(MethodType.methodType(void.class, InputStream.class));
+        }
+        return handle.type().parameterCount() == 2 ? handle
+                : MethodHandles.dropArguments(handle, 1, Collection.class);
+    }
+
+    /**
+     * Skips the atoms in front of the atom of a command and reads its
+     * header.
+     * @param reader the reader
+     * @param cmd the command
+     * @param is the InputStream object
+     * @return the size of the atom
+     * @throws IOException
+     */
+    private static int find(QTReader reader, QTCommand cmd, InputStream is) throws IOException {
+        int size = reader.readInt(is);
+        while (reader.readInt(is) != cmd.getType() || !cmd.accepts(reader, size, is)) {
+            reader.skipAtomContents(is, size);
+            size = reader.readInt(is);
+        }
+        return size;
+    }
+
+    /**
+     * Skips the atoms in front of the atom of a command and the atom.
+     * @param reader the reader
+     * @param cmd the command
+     * @param is the InputStream object
+     * @throws IOException
+     */
+    private static void skip(QTReader reader, QTCommand cmd, InputStream is) throws IOException {
+        reader.skipAtomContents(is, find(reader, cmd, is));
+    }
+
+    /**
+     * Does nothing; the end of the chain.
+     */
+    private static void noop() {
+    }
+}
@@ -0,0 +1,379 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * This class represents the explanation of a plan for a file, which is
+ * made by {@link QTReader#explain(java.nio.channels.FileChannel, QTPlan)}
+ * from the atom headers only: the byte ranges of the atoms the plan reads,
+ * all accesses to the file including headers and predicates, the distances
+ * skipped between them and the number of seeks. The costs of reading the
+ * file by seeking from access to access and of reading it sequentially up
+ * to the last access are estimated for a {@link QTCostModel}, and the
+ * cheaper {@link Strategy} is passed to the reader with
+ * {@link QTReadOptions#withStrategy(Strategy)}.
+ * Files of the same layout share their explanation, so a plan is explained
+ * once per source and layout, not once per file.
+ * @author lpfeiler
+ */
+public final class QTExplain {
+
+    /**
+     * The strategies of reading a file.
+     */
+    public enum Strategy {
+        /**
+         * Read the accessed bytes only and seek over the skipped ones.
+         */
+        SEEK,
+        /**
+         * Read the file from its start up to the last access.
+         */
+        SEQUENTIAL
+    }
+
+    /**
+     * The file offsets of the atoms the plan reads.
+     */
+    private final long[] rangeOffsets;
+
+    /**
+     * The numbers of bytes of the atoms the plan reads.
+     */
+    private final long[] rangeLengths;
+
+    /**
+     * The indices of the READ commands of the ranges.
+     */
+    private final int[] rangeCommands;
+
+    /**
+     * The file offsets of the contiguous accesses in their order.
+     */
+    private final long[] accessOffsets;
+
+    /**
+     * The numbers of bytes of the contiguous accesses.
+     */
+    private final long[] accessLengths;
+
+    /**
+     * Constructs a QTExplain.
+     * @param rangeOffsets the file offsets of the atoms the plan reads
+     * @param rangeLengths the numbers of bytes of the atoms the plan reads
+     * @param rangeCommands the indices of the READ commands of the ranges
+     * @param accessOffsets the file offsets of the contiguous accesses
+     * @param accessLengths the numbers of bytes of the contiguous accesses
+     */
+    private QTExplain(long[] rangeOffsets, long[] rangeLengths, int[] rangeCommands,
+                      long[] accessOffsets, long[] accessLengths) {
+        this.rangeOffsets = rangeOffsets;
+        this.rangeLengths = rangeLengths;
+        this.rangeCommands = rangeCommands;
+        this.accessOffsets = accessOffsets;
+        this.accessLengths = accessLengths;
+    }
+
+    /**
+     * Returns the number of atoms the plan reads.
+     * @return the number of byte ranges
+     */
+    public int getNumRanges() {
+        return rangeOffsets.length;
+    }
+
+    /**
+     * Returns the file offset of an atom the plan reads.
+     * @param index the index of the range
+     * @return the file offset of the range
+     */
+    public long getRangeOffset(int index) {
+        return rangeOffsets[index];
+    }
+
+    /**
+     * Returns the number of bytes of an atom the plan reads.
+     * A projected atom is read up to its last projected field.
+     * @param index the index of the range
+     * @return the length of the range
+     */
+    public long getRangeLength(int index) {
+        return rangeLengths[index];
+    }
+
+    /**
+     * Returns the index of the READ command of a range in the plan.
+     * @param index the index of the range
+     * @return the index of the command
+     */
+    public int getRangeCommand(int index) {
+        return rangeCommands[index];
+    }
+
+    /**
+     * Returns the number of seeks, i.e. of accesses, which do not continue
+     * the previous access.
+     * @return the number of seeks
+     */
+    public int getNumSeeks() {
+        return accessOffsets.length;
+    }
+
+    /**
+     * Returns the file offset of an access.
+     * @param index the index of the access
+     * @return the file offset of the access
+     */
+    long getAccessOffset(int index) {
+        return accessOffsets[index];
+    }
+
+    /**
+     * Returns the number of bytes of an access.
+     * @param index the index of the access
+     * @return the length of the access
+     */
+    long getAccessLength(int index) {
+        return accessLengths[index];
+    }
+
+    /**
+     * Returns the number of bytes of all accesses: atom headers, peeks of
+     * predicates and the atoms the plan reads.
+     * @return the number of accessed bytes
+     */
+    public long getBytesRead() {
+        long bytes = 0;
+        for (long length : accessLengths) {
+            bytes += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the distances skipped between consecutive accesses.
+     * @return the skip distances in bytes
+     */
+    public long[] getSkipDistances() {
+        long[] skips = new long[Math.max(0, accessOffsets.length - 1)];
+        for (int i=0; i < skips.length; i++) {
+            skips[i] = accessOffsets[i + 1] - accessOffsets[i] - accessLengths[i];
+        }
+        return skips;
+    }
+
+    /**
+     * Returns the file offset after the last access.
+     * @return the number of bytes a sequential read covers
+     */
+    public long getExtent() {
+        int last = accessOffsets.length - 1;
+        return last < 0 ? 0 : accessOffsets[last] + accessLengths[last];
+    }
+
+    /**
+     * Returns the estimated cost of the strategy SEEK.
+     * @param model the costs of the source
+     * @return the estimated cost in nanoseconds
+     */
+    public long getSeekCost(QTCostModel model) {
+        return model.cost(getNumSeeks(), getBytesRead());
+    }
+
+    /**
+     * Returns the estimated cost of the strategy SEQUENTIAL.
+     * @param model the costs of the source
+     * @return the estimated cost in nanoseconds
+     */
+    public long getSequentialCost(QTCostModel model) {
+        return model.cost(1, getExtent());
+    }
+
+    /**
+     * Returns the estimated cost of a strategy.
+     * @param model the costs of the source
+     * @param strategy the strategy
+     * @return the estimated cost in nanoseconds
+     */
+    public long getCost(QTCostModel model, Strategy strategy) {
+        return strategy == Strategy.SEQUENTIAL ? getSequentialCost(model) : getSeekCost(model);
+    }
+
+    /**
+     * Returns the cheaper strategy for a source. Seeking wins ties.
+     * @param model the costs of the source
+     * @return the cheaper strategy
+     */
+    public Strategy choose(QTCostModel model) {
+        return getSequentialCost(model) < getSeekCost(model) ? Strategy.SEQUENTIAL : Strategy.SEEK;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i=0; i < rangeOffsets.length; i++) {
+            sb.append("read ").append(rangeOffsets[i]).append('+').append(rangeLengths[i])
+                    .append(" (command ").append(rangeCommands[i]).append(")\n");
+        }
+        sb.append("seeks ").append(getNumSeeks())
+                .append(", bytes read ").append(getBytesRead())
+                .append(", skipped ").append(getExtent() - getBytesRead())
+                .append(", extent ").append(getExtent()).append('\n');
+        for (QTCostModel model : new QTCostModel[] {QTCostModel.LOCAL_DISK, QTCostModel.HIGH_LATENCY}) {
+            sb.append(model == QTCostModel.LOCAL_DISK ? "local disk: " : "high latency: ")
+                    .append(choose(model)).append(", seek ").append(getSeekCost(model) / 1000)
+                    .append("us, sequential ").append(getSequentialCost(model) / 1000).append("us\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * This class records the accesses of the reader to a ChannelInputStream
+     * and the ranges of the atoms a plan reads.
+     */
+    static final class Recorder extends InputStream {
+
+        /**
+         * The stream of positional reads.
+         */
+        private final ChannelInputStream in;
+
+        /**
+         * The ranges: offset, length and command index of each range.
+         */
+        private long[] ranges = new long[3 * 8];
+
+        /**
+         * The number of entries of ranges.
+         */
+        private int numRanges;
+
+        /**
+         * The accesses: offset and length of each access.
+         */
+        private long[] accesses = new long[2 * 16];
+
+        /**
+         * The number of entries of accesses.
+         */
+        private int numAccesses;
+
+        /**
+         * Constructs a Recorder.
+         * @param in the stream of positional reads
+         */
+        Recorder(ChannelInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the file offset of the next byte.
+         * @return the file offset of the next byte
+         */
+        long getPosition() {
+            return in.getPosition();
+        }
+
+        /**
+         * Records an access. An access, which continues or overlaps the
+         * previous one, extends it.
+         * @param offset the file offset of the access
+         * @param length the number of bytes accessed
+         */
+        void touch(long offset, long length) {
+            if (length <= 0) return;
+            if (numAccesses > 0) {
+                long start = accesses[numAccesses - 2];
+                long end = start + accesses[numAccesses - 1];
+                if (offset >= start && offset <= end) {
+                    accesses[numAccesses - 1] = Math.max(end, offset + length) - start;
+                    return;
+                }
+            }
+            if (numAccesses == accesses.length) accesses = Arrays.copyOf(accesses, 2 * numAccesses);
+            accesses[numAccesses++] = offset;
+            accesses[numAccesses++] = length;
+        }
+
+        /**
+         * Records the range of an atom the plan reads.
+         * @param offset the file offset of the atom
+         * @param length the number of bytes read of the atom
+         * @param command the index of the READ command
+         */
+        void plan(long offset, long length, int command) {
+            touch(offset, length);
+            if (numRanges == ranges.length) ranges = Arrays.copyOf(ranges, 2 * numRanges);
+            ranges[numRanges++] = offset;
+            ranges[numRanges++] = length;
+            ranges[numRanges++] = command;
+        }
+
+        /**
+         * Returns the explanation of the recorded accesses.
+         * @return the explanation
+         */
+        QTExplain build() {
+            int n = numRanges / 3;
+            long[] offsets = new long[n];
+            long[] lengths = new long[n];
+            int[] commands = new int[n];
+            for (int i=0; i < n; i++) {
+                offsets[i] = ranges[3 * i];
+                lengths[i] = ranges[3 * i + 1];
+                commands[i] = (int) ranges[3 * i + 2];
+            }
+            int m = numAccesses / 2;
+            long[] accessOffsets = new long[m];
+            long[] accessLengths = new long[m];
+            for (int i=0; i < m; i++) {
+                accessOffsets[i] = accesses[2 * i];
+                accessLengths[i] = accesses[2 * i + 1];
+            }
+            return new QTExplain(offsets, lengths, commands, accessOffsets, accessLengths);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long offset = in.getPosition();
+            int b = in.read();
+            if (b >= 0) touch(offset, 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long offset = in.getPosition();
+            int n = in.read(b, off, len);
+            if (n > 0) touch(offset, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            return in.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            in.mark(readlimit);
+        }
+
+        @Override
+        public void reset() {
+            in.reset();
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in.available();
+        }
+    }
+}
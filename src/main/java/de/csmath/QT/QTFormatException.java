@@ -0,0 +1,26 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+
+/**
+ * Signals that a file is no valid QuickTime file, e.g. because of a
+ * corrupt atom size, a missing atom or a premature end of the file.
+ * Unlike a {@link QTInterruptedException}, reading the same bytes again
+ * fails again, so the read is not resumed.
+ * @author lpfeiler
+ */
+public class QTFormatException extends IOException {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a QTFormatException.
+     * @param message the description of the format error
+     */
+    public QTFormatException(String message) {
+        super(message);
+    }
+}
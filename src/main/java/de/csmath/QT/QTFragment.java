@@ -0,0 +1,94 @@
+package de.csmath.QT;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class represents a movie fragment ('moof') of a fragmented movie
+ * together with its track fragments.
+ * @author lpfeiler
+ */
+public final class QTFragment {
+
+    /**
+     * The file offset of the 'moof' atom.
+     */
+    private final long offset;
+
+    /**
+     * The size of the 'moof' atom.
+     */
+    private final long size;
+
+    /**
+     * The sequence number of the fragment.
+     */
+    private final int sequenceNumber;
+
+    /**
+     * The track fragments.
+     */
+    private final List<QTTrackFragment> trackFragments;
+
+    /**
+     * Constructs a QTFragment.
+     * @param offset the file offset of the 'moof' atom
+     * @param size the size of the 'moof' atom
+     * @param sequenceNumber the sequence number of the fragment
+     * @param trackFragments the track fragments
+     */
+    public QTFragment(long offset, long size, int sequenceNumber,
+                      Collection<QTTrackFragment> trackFragments) {
+        this.offset = offset;
+        this.size = size;
+        this.sequenceNumber = sequenceNumber;
+        this.trackFragments = Collections.unmodifiableList(new ArrayList<>(trackFragments));
+    }
+
+    /**
+     * Returns the file offset of the 'moof' atom.
+     * @return the file offset of the 'moof' atom
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the 'moof' atom.
+     * @return the size of the 'moof' atom
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the sequence number of the fragment.
+     * @return the sequence number of the fragment
+     */
+    public int getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * Returns the track fragments.
+     * @return an unmodifiable list of the track fragments
+     */
+    public List<QTTrackFragment> getTrackFragments() {
+        return trackFragments;
+    }
+
+    /**
+     * Returns the track fragment of the given track.
+     * @param trackId the ID of the track
+     * @return the track fragment, or null if the fragment has no samples
+     *         of the track
+     */
+    public QTTrackFragment getTrackFragment(int trackId) {
+        for (QTTrackFragment traf : trackFragments) {
+            if (traf.getTrackId() == trackId) return traf;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,157 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class reads the movie fragments of a fragmented file one at a time.
+ * It is obtained from {@link QTReader#readFragments(InputStream)} and reads
+ * the InputStream strictly forward: media data ('mdat') and other atoms
+ * between the fragments are skipped, and only the current fragment is held
+ * in memory. So a recording of any length is indexed in one pass with
+ * constant memory.
+ * A reader of a FileChannel can seek with the segment index ('sidx') of
+ * the file.
+ * @author lpfeiler
+ */
+public final class QTFragmentReader {
+
+    /**
+     * The reader, which decodes the atoms.
+     */
+    private final QTReader reader;
+
+    /**
+     * The InputStream of the file.
+     */
+    private final InputStream is;
+
+    /**
+     * The tracks of the movie (headers only).
+     */
+    private final List<QTTrack> tracks;
+
+    /**
+     * The 'trex' atoms of the movie by track ID.
+     */
+    private final Map<Integer, TrexAtom> trex;
+
+    /**
+     * The segment index of the file, or null.
+     */
+    private final SegmentIndex index;
+
+    /**
+     * The current file offset.
+     */
+    private long position;
+
+    /**
+     * True iff the end of the file was reached.
+     */
+    private boolean finished;
+
+    /**
+     * Constructs a QTFragmentReader.
+     * @param reader the reader, which decodes the atoms
+     * @param is the InputStream positioned after the 'moov' atom
+     * @param position the file offset after the 'moov' atom
+     * @param tracks the tracks of the movie
+     * @param trex the 'trex' atoms of the movie by track ID
+     * @param index the segment index of the file, or null
+     */
+    QTFragmentReader(QTReader reader, InputStream is, long position,
+                     List<QTTrack> tracks, Map<Integer, TrexAtom> trex,
+                     SegmentIndex index) {
+        this.reader = reader;
+        this.is = is;
+        this.position = position;
+        this.tracks = Collections.unmodifiableList(tracks);
+        this.trex = trex;
+        this.index = index;
+    }
+
+    /**
+     * Returns the tracks of the movie. Only their headers are decoded.
+     * @return an unmodifiable list of the tracks
+     */
+    public List<QTTrack> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Returns the 'trex' atom of a track.
+     * @param trackId the ID of the track
+     * @return the 'trex' atom, or null
+     */
+    public TrexAtom getTrex(int trackId) {
+        return trex.get(trackId);
+    }
+
+    /**
+     * Returns the file offset of the next atom to be read.
+     * @return the current file offset
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the segment index of the file. It is only read by a
+     * reader of a FileChannel.
+     * @return the segment index, or null if there is none
+     */
+    public SegmentIndex getSegmentIndex() {
+        return index;
+    }
+
+    /**
+     * Moves this reader to the subsegment, which contains the given
+     * presentation time, so the next call of next() reads its first movie
+     * fragment. The fragments in front of it are not read.
+     * @param time the presentation time in the time scale of the segment index
+     * @return false if the time is outside of the segment index
+     * @throws IllegalStateException if there is no segment index
+     */
+    public boolean seek(long time) {
+        if (index == null || !(is instanceof ChannelInputStream))
+            throw new IllegalStateException("no segment index");
+        int i = index.findSegment(time);
+        if (i < 0) return false;
+        position = index.getOffset(i);
+        ((ChannelInputStream) is).seek(position);
+        finished = false;
+        return true;
+    }
+
+    /**
+     * Reads the next movie fragment.
+     * @return the next movie fragment, or null at the end of the file
+     * @throws IOException
+     */
+    public QTFragment next() throws IOException {
+        while (!finished) {
+            int b = is.read();
+            if (b < 0) {
+                finished = true;
+                break;
+            }
+            long offset = position;
+            int size = b << 24 | (int) reader.readInteger(is, 3);
+            int type = reader.readInt(is);
+            if (type == QTAtom.MOOF) {
+                QTFragment fragment = reader.readMoof(size, is, offset, trex);
+                position += fragment.getSize();
+                return fragment;
+            } else if (size == 0) {
+                finished = true;                 //the last atom extends to the end
+            } else {
+                position += reader.skipAtomContents(is, size);
+            }
+        }
+        return null;
+    }
+}
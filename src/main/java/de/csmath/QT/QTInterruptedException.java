@@ -0,0 +1,44 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Signals that the execution of a program on a FileChannel was
+ * interrupted, by an interrupt of the reading thread, by a limit of the
+ * read or by a failed read of the channel. It carries the checkpoint after
+ * the last completed command, from which a new reader resumes the
+ * execution. Format errors of the file are thrown as QTFormatExceptions.
+ * @author lpfeiler
+ */
+public class QTInterruptedException extends InterruptedIOException {
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The checkpoint after the last completed command.
+     */
+    private final transient QTCheckpoint checkpoint;
+
+    /**
+     * Constructs a QTInterruptedException.
+     * @param checkpoint the checkpoint after the last completed command
+     * @param cause the failed read, or null for an interrupt
+     */
+    public QTInterruptedException(QTCheckpoint checkpoint, IOException cause) {
+        super(cause == null ? "interrupted" : cause.getMessage());
+        this.checkpoint = checkpoint;
+        initCause(cause);
+    }
+
+    /**
+     * Returns the checkpoint after the last completed command.
+     * @return the checkpoint
+     */
+    public QTCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+}
@@ -0,0 +1,115 @@
+package de.csmath.QT;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents the limits of a read: a timeout, which starts
+ * with the call, a maximal number of bytes read and a cancellation token.
+ * The limits are checked at every atom boundary and in chunks of long
+ * reads and skips, so a corrupt size or a missing atom cannot keep a read
+ * busy beyond its limits. A read, which hits a limit, returns its partial
+ * results in a {@link QTResult}. Limits are immutable and shared by many
+ * reads.
+ * @author lpfeiler
+ */
+public final class QTLimits {
+
+    /**
+     * No limits.
+     */
+    public static final QTLimits NONE = new QTLimits(-1, Long.MAX_VALUE, null);
+
+    /**
+     * The timeout in nanoseconds, or -1 for none.
+     */
+    private final long timeout;
+
+    /**
+     * The maximal number of bytes read.
+     */
+    private final long maxBytes;
+
+    /**
+     * The cancellation token, or null.
+     */
+    private final QTCancellationToken token;
+
+    /**
+     * Constructs a QTLimits.
+     * @param timeout the timeout in nanoseconds, or -1 for none
+     * @param maxBytes the maximal number of bytes read
+     * @param token the cancellation token, or null
+     */
+    private QTLimits(long timeout, long maxBytes, QTCancellationToken token) {
+        this.timeout = timeout;
+        this.maxBytes = maxBytes;
+        this.token = token;
+    }
+
+    /**
+     * Returns these limits with a timeout, which starts with each read.
+     * @param timeout the timeout
+     * @param unit the unit of the timeout
+     * @return the new limits
+     * @throws IllegalArgumentException if the timeout is negative
+     */
+    public QTLimits withTimeout(long timeout, TimeUnit unit) {
+        if (timeout < 0) throw new IllegalArgumentException("negative timeout");
+        return new QTLimits(unit.toNanos(timeout), maxBytes, token);
+    }
+
+    /**
+     * Returns these limits with a maximal number of bytes read. Bytes
+     * skipped on an InputStream count, since the stream reads them; bytes
+     * skipped on a FileChannel or RandomAccessSource are not read and do
+     * not count.
+     * @param maxBytes the maximal number of bytes read
+     * @return the new limits
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public QTLimits withMaxBytes(long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("negative byte budget");
+        return new QTLimits(timeout, maxBytes, token);
+    }
+
+    /**
+     * Returns these limits with a cancellation token.
+     * @param token the cancellation token
+     * @return the new limits
+     */
+    public QTLimits withToken(QTCancellationToken token) {
+        return new QTLimits(timeout, maxBytes, token);
+    }
+
+    /**
+     * Returns the timeout.
+     * @return the timeout in nanoseconds, or -1 for none
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the maximal number of bytes read.
+     * @return the byte budget
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the cancellation token.
+     * @return the cancellation token, or null
+     */
+    public QTCancellationToken getToken() {
+        return token;
+    }
+
+    /**
+     * Starts the timeout of a read.
+     * @return the guard of the read
+     */
+    ReadGuard start() {
+        return new ReadGuard(timeout >= 0, timeout, maxBytes, token);
+    }
+}
@@ -0,0 +1,192 @@
+package de.csmath.QT;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * This class represents a compiled QuickTime program.
+ * A plan is immutable, so one plan is shared by any number of threads and
+ * readers. It is obtained from {@link QTProgCompiler#compilePlan(String)}
+ * or from its compact binary form, which is loaded without parsing the
+ * program text.
+ * @see QTReader#readChannel(java.nio.channels.FileChannel, QTPlan)
+ * @author lpfeiler
+ */
+public final class QTPlan {
+
+    /**
+     * The magic number of a serialized plan ('QTpl').
+     */
+    private static final int MAGIC = 0x5154706C;
+
+    /**
+     * The version of the serialized form.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The minimal size of a serialized command: the opcode, the atom type,
+     * the predicate, the annotations of the optimizer and the number of
+     * projected fields.
+     */
+    private static final int COMMAND_SIZE = 15;
+
+    /**
+     * The flag of the opcode byte, which marks a container without a READ.
+     */
+    private static final int NO_READ_FLAG = 0x80;
+
+    /**
+     * The commands of the plan.
+     */
+    private final List<QTCommand> commands;
+
+    /**
+     * The fingerprint of the commands.
+     */
+    private final int hash;
+
+    /**
+     * Constructs a QTPlan.
+     * @param commands the commands of the plan
+     */
+    public QTPlan(List<QTCommand> commands) {
+        this.commands = Collections.unmodifiableList(Arrays.asList(
+                commands.toArray(new QTCommand[commands.size()])));
+        hash = QTCheckpoint.hash(this.commands);
+    }
+
+    /**
+     * Returns the commands of the plan.
+     * @return an unmodifiable list of the commands
+     */
+    public List<QTCommand> getCommands() {
+        return commands;
+    }
+
+    /**
+     * Returns the number of commands.
+     * @return the number of commands
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Returns a command of the plan.
+     * @param index the index of the command
+     * @return the command
+     */
+    public QTCommand getCommand(int index) {
+        return commands.get(index);
+    }
+
+    /**
+     * Serializes this plan: a header and per command one opcode byte, the
+     * atom type, the field and value of the predicate, the number of
+     * commands inside its container and the projected fields.
+     * @return the serialized plan
+     */
+    public byte[] toBytes() {
+        int length = 12 + COMMAND_SIZE * commands.size();
+        for (QTCommand cmd : commands) {
+            if (cmd.getProjection() != null) length += 1 + cmd.getProjection().getNumFields();
+        }
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(commands.size());
+        for (QTCommand cmd : commands) {
+            int code = cmd.getCode().ordinal() | (cmd.containsRead() ? 0 : NO_READ_FLAG);
+            QTPredicate p = cmd.getPredicate();
+            buf.put((byte) code).putInt(cmd.getType())
+                    .put((byte) (p == null ? 0 : p.getField().ordinal() + 1)).putInt(p == null ? 0 : p.getValue())
+                    .putInt(cmd.getSubtreeSize());
+            QTProjection projection = cmd.getProjection();
+            if (projection == null) {
+                buf.put((byte) 0);
+            } else {
+                buf.put((byte) projection.getNumFields()).put((byte) projection.getView());
+                for (int f : projection.getFieldIndices()) {
+                    buf.put((byte) f);
+                }
+            }
+        }
+        return buf.array();
+    }
+
+    /**
+     * Deserializes a plan.
+     * @param bytes the serialized plan
+     * @return the plan
+     * @throws IllegalArgumentException if the bytes are no serialized plan
+     */
+    public static QTPlan fromBytes(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        QTOpCode[] codes = QTOpCode.values();
+        QTPredicate.Field[] fields = QTPredicate.Field.values();
+        try {
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                throw new IllegalArgumentException("no plan");
+            int size = buf.getInt();
+            if (size < 0 || size > buf.remaining() / COMMAND_SIZE)
+                throw new IllegalArgumentException("corrupt plan");
+            QTCommand[] cmds = new QTCommand[size];
+            for (int i=0; i < size; i++) {
+                int code = buf.get() & 0xFF;
+                boolean containsRead = (code & NO_READ_FLAG) == 0;
+                code &= ~NO_READ_FLAG;
+                if (code >= codes.length)
+                    throw new IllegalArgumentException("corrupt plan");
+                int type = buf.getInt();
+                int field = buf.get();
+                int value = buf.getInt();
+                if (field < 0 || field > fields.length)
+                    throw new IllegalArgumentException("corrupt plan");
+                QTPredicate predicate = field == 0 ? null : new QTPredicate(fields[field - 1], value);
+                int subtreeSize = buf.getInt();
+                if (subtreeSize < -1 || subtreeSize >= size - i)
+                    throw new IllegalArgumentException("corrupt plan");
+                QTProjection projection = null;
+                int numFields = buf.get() & 0xFF;
+                if (numFields > 0) {
+                    int view = buf.get();
+                    int[] indices = new int[numFields];
+                    for (int f=0; f < numFields; f++) {
+                        indices[f] = buf.get();
+                    }
+                    projection = QTProjection.of(view, indices);
+                }
+                cmds[i] = new QTCommand(codes[code], type, predicate, projection, subtreeSize, containsRead);
+            }
+            return new QTPlan(Arrays.asList(cmds));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated plan");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QTPlan)) return false;
+        QTPlan other = (QTPlan) o;
+        if (hash != other.hash || size() != other.size()) return false;
+        for (int i=0; i < size(); i++) {
+            QTCommand a = commands.get(i);
+            QTCommand b = other.commands.get(i);
+            if (a.getCode() != b.getCode() || a.getType() != b.getType()
+                    || a.getSubtreeSize() != b.getSubtreeSize()
+                    || a.containsRead() != b.containsRead()
+                    || !Objects.equals(a.getPredicate(), b.getPredicate())
+                    || !Objects.equals(a.getProjection(), b.getProjection())) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
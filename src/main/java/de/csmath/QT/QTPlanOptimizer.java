@@ -0,0 +1,187 @@
+package de.csmath.QT;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class provides the optimization pass of the QTProgCompiler.
+ * It simulates the containers, which the reader enters while executing a
+ * plan, with the known parents of the standard atoms. Atoms of other
+ * types are accepted in any container.
+ * The pass
+ * <ul>
+ *     <li>removes the trailing commands, which cannot lead to a READ,</li>
+ *     <li>rejects commands on atoms outside of any of their parents,
+ *     e.g. reading 'stsd' outside of 'stbl',</li>
+ *     <li>merges repeated prefixes, i.e. drops a STEPIN into a container,
+ *     which occurs once in its parent and was entered already,</li>
+ *     <li>annotates each STEPIN with the number of commands inside its
+ *     container and whether one of them is a READ.</li>
+ * </ul>
+ * @see QTProgCompiler#optimize(QTPlan)
+ * @author lpfeiler
+ */
+final class QTPlanOptimizer {
+
+    /**
+     * The parent type of the top-level atoms.
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * The possible parents of the standard atoms.
+     */
+    private static final Map<Integer, int[]> PARENTS = new HashMap<>();
+
+    /**
+     * The containers, which occur at most once in their parent.
+     */
+    private static final Set<Integer> UNIQUE = new HashSet<>();
+
+    static {
+        parents(new int[] {ROOT}, QTAtom.FTYP, QTAtom.MOOV, QTAtom.MDAT, QTAtom.MOOF, QTAtom.SIDX);
+        parents(new int[] {QTAtom.MOOV}, QTAtom.MVHD, QTAtom.TRAK, QTAtom.MVEX);
+        parents(new int[] {QTAtom.TRAK}, QTAtom.TKHD, QTAtom.MDIA);
+        parents(new int[] {QTAtom.MDIA}, QTAtom.MDHD, QTAtom.MINF);
+        parents(new int[] {QTAtom.MDIA, QTAtom.MINF}, QTAtom.HDLR);
+        parents(new int[] {QTAtom.MINF}, QTAtom.STBL);
+        parents(new int[] {QTAtom.STBL}, QTAtom.STSD, QTAtom.STTS, QTAtom.STSS, QTAtom.STSC,
+                QTAtom.STSZ, QTAtom.STCO, QTAtom.CO64, QTAtom.CTTS);
+        parents(new int[] {QTAtom.MVEX}, QTAtom.TREX);
+        parents(new int[] {QTAtom.MOOF}, QTAtom.MFHD, QTAtom.TRAF);
+        parents(new int[] {QTAtom.TRAF}, QTAtom.TFHD, QTAtom.TFDT, QTAtom.TRUN);
+        UNIQUE.addAll(Arrays.asList(QTAtom.MOOV, QTAtom.MVEX, QTAtom.MDIA, QTAtom.MINF, QTAtom.STBL));
+    }
+
+    /**
+     * This class has only static methods.
+     */
+    private QTPlanOptimizer() {
+    }
+
+    /**
+     * Registers the possible parents of atom types.
+     * @param parents the possible parents
+     * @param types the atom types
+     */
+    private static void parents(int[] parents, int... types) {
+        for (int type : types) {
+            PARENTS.put(type, parents);
+        }
+    }
+
+    /**
+     * Optimizes a list of commands.
+     * @param commands the commands
+     * @return the optimized and annotated commands
+     * @throws IllegalArgumentException if a command is on an atom outside
+     *                                  of all of its parents
+     */
+    static List<QTCommand> optimize(List<QTCommand> commands) {
+        int last = commands.size() - 1;
+        while (last >= 0 && commands.get(last).getCode() != QTOpCode.READ) last--;
+
+        List<QTCommand> out = new ArrayList<>();
+        int[] stack = new int[8];
+        int[] opened = new int[8];
+        int depth = 1;
+        stack[0] = ROOT;
+        int[] closed = new int[last + 1];
+        for (int i=0; i <= last; i++) {
+            QTCommand cmd = commands.get(i);
+            int type = cmd.getType();
+            if (cmd.getCode() == QTOpCode.STEPIN && cmd.getPredicate() == null && UNIQUE.contains(type)) {
+                int d = indexOf(stack, depth, type);
+                if (d > 0) {
+                    depth = close(d + 1, depth, opened, closed, out.size());
+                    continue;
+                }
+            }
+            int[] parents = PARENTS.get(type);
+            if (parents != null) {
+                int d = depth - 1;
+                while (d >= 0 && indexOf(parents, parents.length, stack[d]) < 0) d--;
+                if (d < 0) throw new IllegalArgumentException("impossible path: "
+                        + cmd.getCode().name().toLowerCase() + " "
+                        + QTProgCompiler.atomIntToName(type) + " outside " + names(parents));
+                depth = close(d + 1, depth, opened, closed, out.size());
+            }
+            if (cmd.getCode() == QTOpCode.STEPIN) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * depth);
+                    opened = Arrays.copyOf(opened, 2 * depth);
+                }
+                stack[depth] = type;
+                opened[depth++] = out.size();
+            }
+            out.add(cmd);
+        }
+        close(1, depth, opened, closed, out.size());
+
+        List<QTCommand> result = new ArrayList<>(out.size());
+        int[] reads = new int[out.size() + 1];
+        for (int i=0; i < out.size(); i++) {
+            reads[i + 1] = reads[i] + (out.get(i).getCode() == QTOpCode.READ ? 1 : 0);
+        }
+        for (int i=0; i < out.size(); i++) {
+            QTCommand cmd = out.get(i);
+            if (cmd.getCode() == QTOpCode.STEPIN) {
+                int end = closed[i];
+                cmd = new QTCommand(cmd.getCode(), cmd.getType(), cmd.getPredicate(), cmd.getProjection(),
+                        end - i - 1, reads[end] > reads[i + 1]);
+            }
+            result.add(cmd);
+        }
+        return result;
+    }
+
+    /**
+     * Leaves the containers above the given depth and records, where the
+     * commands inside of them end.
+     * @param newDepth the depth after leaving the containers
+     * @param depth the current depth
+     * @param opened the indices of the STEPIN commands of the containers
+     * @param closed the end indices of the STEPIN commands
+     * @param end the index of the first command after the containers
+     * @return the new depth
+     */
+    private static int close(int newDepth, int depth, int[] opened, int[] closed, int end) {
+        for (int d = depth - 1; d >= newDepth; d--) {
+            closed[opened[d]] = end;
+        }
+        return Math.min(newDepth, depth);
+    }
+
+    /**
+     * Returns the index of a value in the first elements of an array.
+     * @param values the array
+     * @param length the number of elements to search
+     * @param value the value
+     * @return the index of the value, or -1
+     */
+    private static int indexOf(int[] values, int length, int value) {
+        for (int i=0; i < length; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the names of the given parents.
+     * @param parents the parent types
+     * @return the names separated by "or"
+     */
+    private static String names(int[] parents) {
+        StringBuilder sb = new StringBuilder();
+        for (int parent : parents) {
+            if (sb.length() > 0) sb.append(" or ");
+            sb.append(QTProgCompiler.atomIntToName(parent));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,243 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class represents the predicate of a command, e.g. the
+ * {@code hdlr=vide} of {@code step into trak where hdlr=vide}. A command
+ * with a predicate applies to the next atom of its type, which satisfies
+ * the predicate; the atoms in front of it are skipped without being decoded.
+ * A predicate is evaluated on a few header fields of the atom, which are
+ * read ahead and then reset, so the stream of the reader must support
+ * mark and reset.
+ * The fields:
+ * <ul>
+ *     <li>hdlr: the handler type of a 'trak' (from its 'hdlr' atom) or of a 'hdlr' atom,</li>
+ *     <li>id: the track ID of a 'trak', 'tkhd', 'traf' or 'tfhd' atom,</li>
+ *     <li>format: the data format of the first sample description of a 'stsd' atom.</li>
+ * </ul>
+ * @author lpfeiler
+ */
+public final class QTPredicate {
+
+    /**
+     * The maximal number of bytes, which are read ahead to evaluate a predicate.
+     */
+    public static final int MAX_PEEK = 1 << 20;
+
+    /**
+     * The fields of a predicate.
+     */
+    public enum Field {
+
+        /**
+         * The handler type of a track.
+         */
+        HDLR,
+
+        /**
+         * The track ID.
+         */
+        ID,
+
+        /**
+         * The data format of the first sample description.
+         */
+        FORMAT
+    }
+
+    /**
+     * The field to compare.
+     */
+    private final Field field;
+
+    /**
+     * The value to compare the field with.
+     */
+    private final int value;
+
+    /**
+     * Constructs a QTPredicate.
+     * @param field the field to compare
+     * @param value the value to compare the field with
+     */
+    public QTPredicate(Field field, int value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    /**
+     * Parses a predicate of the form field=value for an atom type.
+     * Handler types and data formats are given by their four letters, which
+     * are case-sensitive, and track IDs as decimal numbers.
+     * @param atomType the type of the atom of the command
+     * @param token the predicate
+     * @return the predicate
+     * @throws IllegalArgumentException if the predicate is invalid for the atom type
+     */
+    static QTPredicate parse(int atomType, String token) {
+        int eq = token.indexOf('=');
+        if (eq <= 0 || eq == token.length() - 1) throw new IllegalArgumentException("syntax error");
+        Field field;
+        try {
+            field = Field.valueOf(token.substring(0, eq).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown field " + token.substring(0, eq));
+        }
+        if (!appliesTo(field, atomType))
+            throw new IllegalArgumentException("no field " + field.name().toLowerCase()
+                    + " of " + QTProgCompiler.atomIntToName(atomType));
+        String value = token.substring(eq + 1);
+        if (field == Field.ID) {
+            try {
+                return new QTPredicate(field, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("syntax error");
+            }
+        }
+        return new QTPredicate(field, QTProgCompiler.atomNameToInt(value));
+    }
+
+    /**
+     * This predicate is true iff the field can be evaluated on atoms of the given type.
+     * @param field the field
+     * @param atomType the type of the atom
+     * @return true iff the field applies to the atom type
+     */
+    static boolean appliesTo(Field field, int atomType) {
+        switch (field) {
+            case HDLR:
+                return atomType == QTAtom.TRAK || atomType == QTAtom.HDLR;
+            case ID:
+                return atomType == QTAtom.TRAK || atomType == QTAtom.TKHD
+                        || atomType == QTAtom.TRAF || atomType == QTAtom.TFHD;
+            default:
+                return atomType == QTAtom.STSD;
+        }
+    }
+
+    /**
+     * Returns the field to compare.
+     * @return the field
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns the value to compare the field with.
+     * @return the value
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * Evaluates the predicate on an atom, whose header was read already.
+     * The stream is reset to the contents of the atom afterwards.
+     * @param reader the reader
+     * @param size the 32-bit size of the atom
+     * @param type the type of the atom
+     * @param is the InputStream object, which supports mark and reset
+     * @return true iff the atom satisfies the predicate
+     * @throws IOException
+     */
+    boolean test(QTReader reader, int size, int type, InputStream is) throws IOException {
+        long content = size == 1 ? Long.MAX_VALUE : (size & 0xFFFFFFFFL) - 8;
+        is.mark((int) Math.min(MAX_PEEK, content));
+        try {
+            Integer actual = fieldOf(reader, type, content, is);
+            return actual != null && actual == value;
+        } finally {
+            is.reset();
+        }
+    }
+
+    /**
+     * Reads the field from the contents of an atom.
+     * @param reader the reader
+     * @param type the type of the atom
+     * @param content the size of the contents
+     * @param is the InputStream object
+     * @return the value of the field, or null if the atom has no such field
+     * @throws IOException
+     */
+    private Integer fieldOf(QTReader reader, int type, long content, InputStream is) throws IOException {
+        switch (type) {
+            case QTAtom.TRAK:
+                if (field == Field.ID) {
+                    long tkhd = findChild(reader, QTAtom.TKHD, content, is);
+                    return tkhd < 0 ? null : fieldOf(reader, QTAtom.TKHD, tkhd, is);
+                }
+                long mdia = findChild(reader, QTAtom.MDIA, content, is);
+                long hdlr = mdia < 0 ? -1 : findChild(reader, QTAtom.HDLR, mdia, is);
+                return hdlr < 0 ? null : fieldOf(reader, QTAtom.HDLR, hdlr, is);
+            case QTAtom.TRAF:
+                long tfhd = findChild(reader, QTAtom.TFHD, content, is);
+                return tfhd < 0 ? null : fieldOf(reader, QTAtom.TFHD, tfhd, is);
+            case QTAtom.HDLR:
+                if (content < 12) return null;
+                reader.skipFully(is, 8);
+                return reader.readInt(is);
+            case QTAtom.TKHD:
+                if (content < 16) return null;
+                int version = reader.readInt(is) >>> 24;
+                reader.skipFully(is, version == 1 ? 16 : 8);
+                return reader.readInt(is);
+            case QTAtom.TFHD:
+                if (content < 8) return null;
+                reader.skipFully(is, 4);
+                return reader.readInt(is);
+            case QTAtom.STSD:
+                if (content < 16) return null;
+                reader.skipFully(is, 4);
+                if (reader.readInt(is) == 0) return null;
+                reader.skipFully(is, 4);
+                return reader.readInt(is);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Skips to the contents of the first child atom of the given type.
+     * @param reader the reader
+     * @param type the type of the child atom
+     * @param content the size of the contents of the container
+     * @param is the InputStream object
+     * @return the size of the contents of the child, or -1 if there is none
+     * @throws IOException
+     */
+    private static long findChild(QTReader reader, int type, long content, InputStream is) throws IOException {
+        while (content >= 8) {
+            int size = reader.readInt(is);
+            int childType = reader.readInt(is);
+            long childSize = size & 0xFFFFFFFFL;
+            if (size == 1 || childSize < 8 || childSize > content) return -1;
+            if (childType == type) return childSize - 8;
+            reader.skipFully(is, childSize - 8);
+            content -= childSize;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QTPredicate)) return false;
+        QTPredicate other = (QTPredicate) o;
+        return field == other.field && value == other.value;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * field.ordinal() + value;
+    }
+
+    @Override
+    public String toString() {
+        return field.name().toLowerCase() + "="
+                + (field == Field.ID ? Integer.toString(value) : QTProgCompiler.atomIntToName(value));
+    }
+}
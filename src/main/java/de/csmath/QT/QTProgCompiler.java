@@ -1,7 +1,10 @@
 package de.csmath.QT;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -11,26 +14,88 @@ import java.util.stream.Stream;
  * The program language:
  * Prog   ::= Cmd | Cmd '\n' Prog | CommentLine | CommentLine '\n' Prog
  * CommentLine ::= '#' [A..z 0..9]*
- * Cmd    ::= Action Spaces Atom | Action Spaces Atom Spaces CommentLine
+ * Cmd    ::= Action Spaces Atom [Spaces Where] | Action Spaces Atom [Spaces Where] Spaces CommentLine
+ *          | 'read' Spaces Atom Projection [Spaces Where] [Spaces CommentLine]
  * Spaces ::= ' ' | ' ' Spaces
  * Action ::= 'read' | 'step' Spaces 'into' | 'skip'
+ * Where  ::= 'where' Spaces Field '=' Value
+ * Projection ::= ['.' View] '(' Name [',' Name]* ')'
  * Atom is the name of a QuickTime atom (made of 4 symbols)
+ * Field and Value are described in {@link QTPredicate}, View and Name in {@link QTProjection}
  *
  * Example:
  *   step into moov
  *   read mvhd
  *   skip trak
+ *   step into trak where hdlr=vide
+ *   read stsd.video(width,height)
  */
 public class QTProgCompiler {
 
+    /**
+     * The maximal number of cached plans.
+     */
+    public static final int MAX_CACHED_PLANS = 256;
+
+    /**
+     * The cache of compiled plans by program string in access order, which
+     * evicts the least recently used plan when full. All accesses are
+     * synchronized on the cache.
+     */
+    private static final Map<String, QTPlan> PLANS = new LinkedHashMap<String, QTPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, QTPlan> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    };
+
     /**
      * Compiles a program string into a list of QTCommand objects.
+     * The plans of program strings are cached, so a program is only
+     * tokenized on its first compilation.
      * @param prog a program string
      * @return a list of QTCommand objects
      */
     public static List<QTCommand> compile(String prog) {
-        String[] lines = prog.split("\n");
-        return compile(lines);
+        return new ArrayList<>(compilePlan(prog).getCommands());
+    }
+
+    /**
+     * Compiles a program string into an immutable QTPlan, which can be
+     * shared across threads. The plan is taken from the cache of compiled
+     * plans, which holds the MAX_CACHED_PLANS most recently used programs.
+     * @param prog a program string
+     * @return the compiled plan
+     */
+    public static QTPlan compilePlan(String prog) {
+        QTPlan plan;
+        synchronized (PLANS) {
+            plan = PLANS.get(prog);
+        }
+        if (plan == null) {
+            plan = new QTPlan(compile(prog.split("\n")));
+            synchronized (PLANS) {
+                QTPlan cached = PLANS.putIfAbsent(prog, plan);
+                if (cached != null) plan = cached;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Optimizes a plan: trailing commands, which cannot lead to a READ, are
+     * removed, repeated steps into containers, which were entered already
+     * and occur only once in their parent (e.g. 'moov', 'stbl'), are
+     * merged, and each STEPIN is annotated with whether its container is
+     * read from, so the reader skips containers without a READ.
+     * The optimization relies on the known parents of the standard atoms:
+     * commands on atoms outside of all of their parents are rejected.
+     * @param plan the plan
+     * @return the optimized plan
+     * @throws IllegalArgumentException if a path of the plan is impossible
+     */
+    public static QTPlan optimize(QTPlan plan) {
+        return new QTPlan(QTPlanOptimizer.optimize(plan.getCommands()));
     }
 
     /**
@@ -41,7 +106,7 @@ public class QTProgCompiler {
     public static List<QTCommand> compile(String[] prog) {
         List<QTCommand> code = Arrays.stream(prog)
                 .map( line -> line.trim()
-                        .toLowerCase()
+                        .replaceAll("\\s*([(,])\\s*|\\s+(\\))", "$1$2")
                         .split("\\s+") )
                 .filter( tokens -> (tokens.length > 0) &&
                             (tokens[0].length() > 0) &&
@@ -59,6 +124,25 @@ public class QTProgCompiler {
      * @return a QTCommand object
      */
     private static QTCommand tokens2Commands(String[] tokens) {
+        String condition = null;
+        int where = indexOfWhere(tokens);
+        if (where >= 0) {
+            if (where + 1 == tokens.length || tokens[where + 1].startsWith("#"))
+                throw new IllegalArgumentException("syntax error");
+            condition = tokens[where + 1];
+            String[] rest = Arrays.copyOf(tokens, tokens.length - 2);
+            System.arraycopy(tokens, where + 2, rest, where, tokens.length - where - 2);
+            tokens = rest;
+        }
+        for (int i=0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].toLowerCase();
+        }
+        String projection = null;
+        if (tokens.length > 1 && tokens[0].equals("read") && tokens[1].length() > 4
+                && (tokens[1].charAt(4) == '(' || tokens[1].charAt(4) == '.')) {
+            projection = tokens[1].substring(4);
+            tokens[1] = tokens[1].substring(0, 4);
+        }
         QTOpCode opcode = QTOpCode.SKIP;
         int atom = 0;
         switch(tokens[0]) {
@@ -83,7 +167,21 @@ public class QTProgCompiler {
             default:
                 throw new IllegalArgumentException("syntax error");
         }
-        return new QTCommand(opcode, atom);
+        return new QTCommand(opcode, atom,
+                condition == null ? null : QTPredicate.parse(atom, condition),
+                projection == null ? null : QTProjection.parse(atom, projection));
+    }
+
+    /**
+     * Returns the index of the keyword 'where' in front of a trailing comment.
+     * @param tokens a tokenized command
+     * @return the index of 'where', or -1
+     */
+    private static int indexOfWhere(String[] tokens) {
+        for (int i=1; i < tokens.length && !tokens[i].startsWith("#"); i++) {
+            if (tokens[i].equalsIgnoreCase("where")) return i;
+        }
+        return -1;
     }
 
     /**
@@ -100,6 +198,19 @@ public class QTProgCompiler {
         return value;
     }
 
+    /**
+     * Converts an integer into an atom name.
+     * @param type the integer of the ASCII codes of the letters
+     * @return the name of the atom
+     */
+    public static String atomIntToName(int type) {
+        char[] name = new char[4];
+        for (int i=0; i < 4; i++) {
+            name[i] = (char) ((type >>> (24 - 8 * i)) & 0xFF);
+        }
+        return new String(name);
+    }
+
     /**
      * This predicate is true iff the given command is a valid two word command.
      * @param tokens a tokenized command
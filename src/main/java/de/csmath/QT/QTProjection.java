@@ -0,0 +1,395 @@
+package de.csmath.QT;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the projection of a READ command onto some fields
+ * of an atom, e.g. the {@code (timescale,duration)} of
+ * {@code read mvhd(timescale,duration)}. The reader reads only the bytes
+ * up to the last projected field, takes the fields from their known
+ * offsets (for version 0 and version 1 atoms), skips the rest of the atom
+ * and returns a ProjectedAtom with the values instead of the decoded atom.
+ * The projectable atoms and fields:
+ * <ul>
+ *     <li>mvhd: creation_time, modification_time, timescale, duration, rate, volume, next_track_id</li>
+ *     <li>tkhd: creation_time, modification_time, track_id, duration, layer, alternate_group,
+ *     volume, width, height</li>
+ *     <li>mdhd: creation_time, modification_time, timescale, duration, language</li>
+ *     <li>hdlr: component_type, handler_type</li>
+ *     <li>stsd: entry_count, format</li>
+ *     <li>stsd.video (of the first sample description): format, data_reference_index,
+ *     width, height, horizontal_resolution, vertical_resolution, frame_count, depth</li>
+ *     <li>stsd.sound (of the first sample description): format, data_reference_index,
+ *     channels, sample_size, sample_rate</li>
+ * </ul>
+ * Fixed-point fields (rate, volume, the resolutions, the track size and
+ * the sample rate) are returned as their integer part.
+ * @author lpfeiler
+ */
+public final class QTProjection {
+
+    /**
+     * The views of the projectable atoms.
+     */
+    private static final View[] VIEWS = {
+            new View(QTAtom.MVHD, "",
+                    field("creation_time", 4, 4, 4, 8, 0),
+                    field("modification_time", 8, 4, 12, 8, 0),
+                    field("timescale", 12, 4, 20, 4, 0),
+                    field("duration", 16, 4, 24, 8, 0),
+                    field("rate", 20, 4, 32, 4, 16),
+                    field("volume", 24, 2, 36, 2, 8),
+                    field("next_track_id", 96, 4, 108, 4, 0)),
+            new View(QTAtom.TKHD, "",
+                    field("creation_time", 4, 4, 4, 8, 0),
+                    field("modification_time", 8, 4, 12, 8, 0),
+                    field("track_id", 12, 4, 20, 4, 0),
+                    field("duration", 20, 4, 28, 8, 0),
+                    field("layer", 32, 2, 44, 2, 0),
+                    field("alternate_group", 34, 2, 46, 2, 0),
+                    field("volume", 36, 2, 48, 2, 8),
+                    field("width", 76, 4, 88, 4, 16),
+                    field("height", 80, 4, 92, 4, 16)),
+            new View(QTAtom.MDHD, "",
+                    field("creation_time", 4, 4, 4, 8, 0),
+                    field("modification_time", 8, 4, 12, 8, 0),
+                    field("timescale", 12, 4, 20, 4, 0),
+                    field("duration", 16, 4, 24, 8, 0),
+                    field("language", 20, 2, 32, 2, 0)),
+            new View(QTAtom.HDLR, "",
+                    field("component_type", 4, 4, 4, 4, 0),
+                    field("handler_type", 8, 4, 8, 4, 0)),
+            new View(QTAtom.STSD, "",
+                    field("entry_count", 4, 4, 4, 4, 0),
+                    field("format", 12, 4, 12, 4, 0)),
+            new View(QTAtom.STSD, "video",
+                    field("format", 12, 4, 12, 4, 0),
+                    field("data_reference_index", 22, 2, 22, 2, 0),
+                    field("width", 40, 2, 40, 2, 0),
+                    field("height", 42, 2, 42, 2, 0),
+                    field("horizontal_resolution", 44, 4, 44, 4, 16),
+                    field("vertical_resolution", 48, 4, 48, 4, 16),
+                    field("frame_count", 56, 2, 56, 2, 0),
+                    field("depth", 90, 2, 90, 2, 0)),
+            new View(QTAtom.STSD, "sound",
+                    field("format", 12, 4, 12, 4, 0),
+                    field("data_reference_index", 22, 2, 22, 2, 0),
+                    field("channels", 32, 2, 32, 2, 0),
+                    field("sample_size", 34, 2, 34, 2, 0),
+                    field("sample_rate", 40, 4, 40, 4, 16))
+    };
+
+    /**
+     * The index of the view in VIEWS.
+     */
+    private final int view;
+
+    /**
+     * The indices of the projected fields in the view.
+     */
+    private final int[] fields;
+
+    /**
+     * The number of bytes of the contents, which are read for a version 0 atom.
+     */
+    private final int length0;
+
+    /**
+     * The number of bytes of the contents, which are read for a version 1 atom.
+     */
+    private final int length1;
+
+    /**
+     * Constructs a QTProjection.
+     * @param view the index of the view
+     * @param fields the indices of the projected fields in the view
+     */
+    private QTProjection(int view, int[] fields) {
+        this.view = view;
+        this.fields = fields;
+        int l0 = 0;
+        int l1 = 0;
+        for (int f : fields) {
+            Field field = VIEWS[view].fields[f];
+            l0 = Math.max(l0, field.off0 + field.width0);
+            l1 = Math.max(l1, field.off1 + field.width1);
+        }
+        length0 = l0;
+        length1 = l1;
+    }
+
+    /**
+     * Parses a projection of the form [.view](field,field,...) for an atom type.
+     * @param atomType the type of the atom of the command
+     * @param spec the projection
+     * @return the projection
+     * @throws IllegalArgumentException if the projection is invalid for the atom type
+     */
+    static QTProjection parse(int atomType, String spec) {
+        int open = spec.indexOf('(');
+        if (open < 0 || !spec.endsWith(")") || (open > 0 && spec.charAt(0) != '.'))
+            throw new IllegalArgumentException("syntax error");
+        String viewName = open == 0 ? "" : spec.substring(1, open);
+        int view = -1;
+        for (int v=0; v < VIEWS.length; v++) {
+            if (VIEWS[v].type == atomType && VIEWS[v].name.equals(viewName)) view = v;
+        }
+        String atom = QTProgCompiler.atomIntToName(atomType) + (open == 0 ? "" : "." + viewName);
+        if (view < 0) throw new IllegalArgumentException("no projection of " + atom);
+        String[] names = spec.substring(open + 1, spec.length() - 1).split(",");
+        int[] fields = new int[names.length];
+        for (int i=0; i < names.length; i++) {
+            fields[i] = VIEWS[view].indexOf(names[i]);
+            if (fields[i] < 0) throw new IllegalArgumentException("no field " + names[i] + " of " + atom);
+        }
+        return new QTProjection(view, fields);
+    }
+
+    /**
+     * Returns a projection from its serialized indices.
+     * @param view the index of the view
+     * @param fields the indices of the projected fields in the view
+     * @return the projection
+     * @throws IllegalArgumentException if an index is invalid
+     */
+    static QTProjection of(int view, int[] fields) {
+        if (view < 0 || view >= VIEWS.length || fields.length == 0)
+            throw new IllegalArgumentException("corrupt projection");
+        for (int f : fields) {
+            if (f < 0 || f >= VIEWS[view].fields.length)
+                throw new IllegalArgumentException("corrupt projection");
+        }
+        return new QTProjection(view, fields.clone());
+    }
+
+    /**
+     * Returns the index of the view.
+     * @return the index of the view
+     */
+    int getView() {
+        return view;
+    }
+
+    /**
+     * Returns the indices of the projected fields in the view.
+     * @return a copy of the indices
+     */
+    int[] getFieldIndices() {
+        return fields.clone();
+    }
+
+    /**
+     * Returns the type of the projected atom.
+     * @return the type of the atom
+     */
+    public int getAtomType() {
+        return VIEWS[view].type;
+    }
+
+    /**
+     * Returns the number of projected fields.
+     * @return the number of projected fields
+     */
+    public int getNumFields() {
+        return fields.length;
+    }
+
+    /**
+     * Returns the name of a projected field.
+     * @param index the index of the field in the projection
+     * @return the name of the field
+     */
+    public String getFieldName(int index) {
+        return VIEWS[view].fields[fields[index]].name;
+    }
+
+    /**
+     * Returns the index of a field in the projection.
+     * @param name the name of the field
+     * @return the index, or -1 if the field is not projected
+     */
+    public int indexOf(String name) {
+        for (int i=0; i < fields.length; i++) {
+            if (getFieldName(i).equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of bytes of the contents, which hold the
+     * projected fields of an atom of the given version.
+     * @param version the version of the atom
+     * @return the number of bytes to read
+     */
+    int length(int version) {
+        return version == 1 ? length1 : length0;
+    }
+
+    /**
+     * Returns the number of bytes of the contents, which hold the
+     * projected fields of an atom of any version.
+     * @return the number of bytes to read at most
+     */
+    int maxLength() {
+        return Math.max(length0, length1);
+    }
+
+    /**
+     * Takes the projected fields from the first bytes of the contents.
+     * @param contents the first bytes of the contents, at least length(version)
+     * @return the values of the projected fields
+     */
+    long[] extract(byte[] contents) {
+        boolean version1 = contents[0] == 1;
+        long[] values = new long[fields.length];
+        for (int i=0; i < fields.length; i++) {
+            Field field = VIEWS[view].fields[fields[i]];
+            int off = version1 ? field.off1 : field.off0;
+            int width = version1 ? field.width1 : field.width0;
+            long value = 0;
+            for (int b=0; b < width; b++) {
+                value = (value << 8) | (contents[off + b] & 0xFF);
+            }
+            values[i] = value >>> field.fraction;
+        }
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QTProjection)) return false;
+        QTProjection other = (QTProjection) o;
+        return view == other.view && Arrays.equals(fields, other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * view + Arrays.hashCode(fields);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(QTProgCompiler.atomIntToName(getAtomType()));
+        if (!VIEWS[view].name.isEmpty()) sb.append('.').append(VIEWS[view].name);
+        sb.append('(');
+        for (int i=0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(getFieldName(i));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Returns the layout of a field.
+     * @param name the name of the field
+     * @param off0 the offset in the contents of a version 0 atom
+     * @param width0 the width in bytes in a version 0 atom
+     * @param off1 the offset in the contents of a version 1 atom
+     * @param width1 the width in bytes in a version 1 atom
+     * @param fraction the number of fraction bits of a fixed-point field
+     * @return the layout of the field
+     */
+    private static Field field(String name, int off0, int width0, int off1, int width1, int fraction) {
+        return new Field(name, off0, width0, off1, width1, fraction);
+    }
+
+    /**
+     * The layout of a projectable field.
+     */
+    private static final class Field {
+
+        /**
+         * The name of the field.
+         */
+        final String name;
+
+        /**
+         * The offset in the contents of a version 0 atom.
+         */
+        final int off0;
+
+        /**
+         * The width in bytes in a version 0 atom.
+         */
+        final int width0;
+
+        /**
+         * The offset in the contents of a version 1 atom.
+         */
+        final int off1;
+
+        /**
+         * The width in bytes in a version 1 atom.
+         */
+        final int width1;
+
+        /**
+         * The number of fraction bits of a fixed-point field.
+         */
+        final int fraction;
+
+        /**
+         * Constructs a Field.
+         * @param name the name of the field
+         * @param off0 the offset in the contents of a version 0 atom
+         * @param width0 the width in bytes in a version 0 atom
+         * @param off1 the offset in the contents of a version 1 atom
+         * @param width1 the width in bytes in a version 1 atom
+         * @param fraction the number of fraction bits of a fixed-point field
+         */
+        Field(String name, int off0, int width0, int off1, int width1, int fraction) {
+            this.name = name;
+            this.off0 = off0;
+            this.width0 = width0;
+            this.off1 = off1;
+            this.width1 = width1;
+            this.fraction = fraction;
+        }
+    }
+
+    /**
+     * The projectable fields of an atom type.
+     */
+    private static final class View {
+
+        /**
+         * The type of the atom.
+         */
+        final int type;
+
+        /**
+         * The name of the view, empty for the atom itself.
+         */
+        final String name;
+
+        /**
+         * The layouts of the fields.
+         */
+        final Field[] fields;
+
+        /**
+         * Constructs a View.
+         * @param type the type of the atom
+         * @param name the name of the view
+         * @param fields the layouts of the fields
+         */
+        View(int type, String name, Field... fields) {
+            this.type = type;
+            this.name = name;
+            this.fields = fields;
+        }
+
+        /**
+         * Returns the index of a field.
+         * @param name the name of the field
+         * @return the index, or -1
+         */
+        int indexOf(String name) {
+            for (int i=0; i < fields.length; i++) {
+                if (fields[i].name.equals(name)) return i;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.csmath.QT;
+
+/**
+ * This class represents the options of a read of a QuickTime file from a
+ * FileChannel or another {@link RandomAccessSource}: the strategy, the
+ * schedule of the accesses of an explanation, a prefetcher, a layout
+ * learner and the limits of the read. The options combine freely: the
+ * reader serves its reads from the speculative window of the learner
+ * first, then from the scheduled reads, then from the prefetcher, and
+ * goes to the source only if all of them missed. The byte budget of the
+ * limits counts the reads of the reader from the source; the reads ahead
+ * are bounded by the budgets of the scheduler and the prefetcher.
+ * Options are immutable. A scheduler and a prefetcher hold the state of
+ * one read, so options with either are used by one thread at a time.
+ * @author lpfeiler
+ */
+public final class QTReadOptions {
+
+    /**
+     * The default options: seek to the atoms of the plan without reading
+     * ahead and without limits.
+     */
+    public static final QTReadOptions DEFAULT = new QTReadOptions(QTExplain.Strategy.SEEK,
+            null, null, null, null, QTLimits.NONE);
+
+    /**
+     * The strategy of the read.
+     */
+    private final QTExplain.Strategy strategy;
+
+    /**
+     * The explanation, whose accesses are scheduled, or null.
+     */
+    private final QTExplain explain;
+
+    /**
+     * The scheduler of the accesses of the explanation, or null.
+     */
+    private final ReadScheduler scheduler;
+
+    /**
+     * The prefetcher, or null.
+     */
+    private final Prefetcher prefetcher;
+
+    /**
+     * The layout learner, or null.
+     */
+    private final LayoutLearner learner;
+
+    /**
+     * The limits of the read.
+     */
+    private final QTLimits limits;
+
+    /**
+     * Constructs a QTReadOptions.
+     * @param strategy the strategy of the read
+     * @param explain the explanation, whose accesses are scheduled, or null
+     * @param scheduler the scheduler of the accesses of the explanation, or null
+     * @param prefetcher the prefetcher, or null
+     * @param learner the layout learner, or null
+     * @param limits the limits of the read
+     */
+    private QTReadOptions(QTExplain.Strategy strategy, QTExplain explain, ReadScheduler scheduler,
+                          Prefetcher prefetcher, LayoutLearner learner, QTLimits limits) {
+        this.strategy = strategy;
+        this.explain = explain;
+        this.scheduler = scheduler;
+        this.prefetcher = prefetcher;
+        this.learner = learner;
+        this.limits = limits;
+    }
+
+    /**
+     * Returns these options with a strategy: SEEK reads the atom headers
+     * and atoms of the plan only, SEQUENTIAL reads the file in large
+     * blocks from its start up to the last atom of the plan.
+     * @param strategy the strategy, e.g. chosen by {@link QTExplain#choose(QTCostModel)}
+     * @return the new options
+     * @throws IllegalArgumentException if the strategy is null
+     */
+    public QTReadOptions withStrategy(QTExplain.Strategy strategy) {
+        if (strategy == null) throw new IllegalArgumentException("no strategy");
+        return new QTReadOptions(strategy, explain, scheduler, prefetcher, learner, limits);
+    }
+
+    /**
+     * Returns these options with a schedule: the accesses of the
+     * explanation are coalesced by the scheduler and fetched with few
+     * large reads before the plan is executed; accesses beyond the
+     * explanation, e.g. of a file of another layout, are read from the
+     * source.
+     * @param explain the explanation of the plan for the file or a file of the same layout
+     * @param scheduler the scheduler, which is cleared and reused
+     * @return the new options
+     * @throws IllegalArgumentException if the explanation or the scheduler is null
+     */
+    public QTReadOptions withSchedule(QTExplain explain, ReadScheduler scheduler) {
+        if (explain == null || scheduler == null) throw new IllegalArgumentException("no schedule");
+        return new QTReadOptions(strategy, explain, scheduler, prefetcher, learner, limits);
+    }
+
+    /**
+     * Returns these options with a prefetcher, which reads every entered
+     * container ahead asynchronously within its memory budget, while the
+     * reader decodes the current atom.
+     * @param prefetcher the prefetcher, which is reused for the next file
+     * @return the new options
+     */
+    public QTReadOptions withPrefetcher(Prefetcher prefetcher) {
+        return new QTReadOptions(strategy, explain, scheduler, prefetcher, learner, limits);
+    }
+
+    /**
+     * Returns these options with a layout learner: the head of the file
+     * and the predicted window of the first entered container are read
+     * first, and the layout of the file is learned after a complete read.
+     * @param learner the learner, which is shared by the reads of the plan
+     * @return the new options
+     */
+    public QTReadOptions withLearner(LayoutLearner learner) {
+        return new QTReadOptions(strategy, explain, scheduler, prefetcher, learner, limits);
+    }
+
+    /**
+     * Returns these options with the limits of the read.
+     * @param limits the limits of the read
+     * @return the new options
+     * @throws IllegalArgumentException if the limits are null
+     */
+    public QTReadOptions withLimits(QTLimits limits) {
+        if (limits == null) throw new IllegalArgumentException("no limits");
+        return new QTReadOptions(strategy, explain, scheduler, prefetcher, learner, limits);
+    }
+
+    /**
+     * Returns the strategy of the read.
+     * @return the strategy
+     */
+    public QTExplain.Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Returns the explanation, whose accesses are scheduled.
+     * @return the explanation, or null
+     */
+    public QTExplain getExplain() {
+        return explain;
+    }
+
+    /**
+     * Returns the scheduler of the accesses of the explanation.
+     * @return the scheduler, or null
+     */
+    public ReadScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the prefetcher.
+     * @return the prefetcher, or null
+     */
+    public Prefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * Returns the layout learner.
+     * @return the learner, or null
+     */
+    public LayoutLearner getLearner() {
+        return learner;
+    }
+
+    /**
+     * Returns the limits of the read.
+     * @return the limits
+     */
+    public QTLimits getLimits() {
+        return limits;
+    }
+}
@@ -1,15 +1,113 @@
 package de.csmath.QT;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * This class represents a QuickTime File Reader.
+ * A QTReader holds no state of a read: the state lives in the stream or,
+ * for a FileChannel, in the local variables of the call, which reads the
+ * channel with positional reads and never moves its position. So one
+ * reader and one {@link QTPlan} are safe to share across threads that
+ * probe different files or different regions of the same file.
  * @author lpfeiler
  */
 public class QTReader {
 
+    /**
+     * The default size in bytes from which on sample tables are
+     * not kept on the Java heap.
+     */
+    public static final int DEFAULT_OFF_HEAP_THRESHOLD = 1 << 16;
+
+    /**
+     * The default maximal size in bytes of the contents of an atom, which
+     * is loaded into an array.
+     */
+    public static final int DEFAULT_MAX_ATOM_SIZE = 1 << 26;
+
+    /**
+     * The size of the chunks in which tables are copied off the heap.
+     */
+    private static final int COPY_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The maximal depth of a hierarchy of 'sidx' atoms.
+     */
+    private static final int MAX_SIDX_DEPTH = 8;
+
+    /**
+     * The storage of large sample tables.
+     */
+    private final TableStorage tableStorage;
+
+    /**
+     * The size in bytes from which on sample tables are stored
+     * in the table storage instead of the Java heap.
+     */
+    private final int offHeapThreshold;
+
+    /**
+     * The directory of the scratch files of memory-mapped tables.
+     */
+    private final Path scratchDir;
+
+    /**
+     * The maximal size in bytes of the contents of an atom without a
+     * specific type, which is loaded into an array. A larger atom is
+     * returned as a {@link LazyAtom}.
+     */
+    private final int maxAtomSize;
+
+    /**
+     * Constructs a QTReader, which keeps all tables on the Java heap.
+     */
+    public QTReader() {
+        this(TableStorage.HEAP, DEFAULT_OFF_HEAP_THRESHOLD, null);
+    }
+
+    /**
+     * Constructs a QTReader.
+     * @param tableStorage the storage of large sample tables
+     * @param offHeapThreshold the size in bytes from which on sample tables
+     *                         are stored in the table storage
+     * @param scratchDir the directory of scratch files, or null for the
+     *                   default temporary directory
+     */
+    public QTReader(TableStorage tableStorage, int offHeapThreshold, Path scratchDir) {
+        this(tableStorage, offHeapThreshold, scratchDir, DEFAULT_MAX_ATOM_SIZE);
+    }
+
+    /**
+     * Constructs a QTReader.
+     * @param tableStorage the storage of large sample tables
+     * @param offHeapThreshold the size in bytes from which on sample tables
+     *                         are stored in the table storage
+     * @param scratchDir the directory of scratch files, or null for the
+     *                   default temporary directory
+     * @param maxAtomSize the maximal size in bytes of the contents of an
+     *                    atom, which is loaded into an array
+     * @throws IllegalArgumentException if the maximal atom size is negative
+     */
+    public QTReader(TableStorage tableStorage, int offHeapThreshold, Path scratchDir, int maxAtomSize) {
+        if (maxAtomSize < 0) throw new IllegalArgumentException("negative maximal atom size");
+        this.tableStorage = tableStorage;
+        this.offHeapThreshold = offHeapThreshold;
+        this.scratchDir = scratchDir;
+        this.maxAtomSize = maxAtomSize;
+    }
+
     /**
      * This method reads a QuickTime file from an InputStream and collects
      * atoms according to the given list of QTCommands.
@@ -19,51 +117,1107 @@ public class QTReader {
      * @throws IOException
      */
     public Collection<QTAtom> readStream(InputStream is, List<QTCommand> commands) throws IOException {
+        return readStream(is, commands, null, new LinkedList<>());
+    }
 
+    /**
+     * This method reads a QuickTime file from an InputStream within the
+     * given limits: the token and the deadline are checked at every atom
+     * boundary and in chunks of long reads and skips, the byte budget
+     * before every read. If a limit is hit, the atoms collected so far are
+     * returned with the status of the limit.
+     * @param is the InputStream to read the file from
+     * @param commands the list of QTCommands
+     * @param limits the limits of the read
+     * @return the collected atoms and the status of the read
+     * @throws IOException if the file could not be read within its limits
+     * @see #readStream(InputStream, List)
+     */
+    public QTResult readStream(InputStream is, List<QTCommand> commands, QTLimits limits) throws IOException {
+        ReadGuard guard = limits.start();
         Collection<QTAtom> atoms = new LinkedList<>();
+        try {
+            readStream(new LimitedInputStream(is, guard), commands, guard, atoms);
+        } catch (IOException e) {
+            if (guard.getStatus() == QTResult.Status.COMPLETE) throw e;
+            return new QTResult(atoms, guard.getStatus(), guard.getBytesRead(), null);
+        }
+        return new QTResult(atoms, QTResult.Status.COMPLETE, guard.getBytesRead(), null);
+    }
+
+    /**
+     * Reads a QuickTime file from an InputStream and collects atoms
+     * according to the given list of QTCommands.
+     * @param is the InputStream to read the file from
+     * @param commands the list of QTCommands
+     * @param guard the guard of the limits of the read, or null
+     * @param atoms the collection of collected atoms
+     * @return the collection of collected atoms
+     * @throws IOException
+     */
+    private Collection<QTAtom> readStream(InputStream is, List<QTCommand> commands, ReadGuard guard,
+                                          Collection<QTAtom> atoms) throws IOException {
+        if (!is.markSupported() && hasPredicate(commands)) is = new BufferedInputStream(is);
 
         int size = readInt(is);
         int type = readInt(is);
-        if (type != QTAtom.FTYP) throw new IOException("not a QT-File");
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
         QTAtom atom = readFType(size, type, is);
 
-        for (QTCommand cmd : commands) {
-            size = readInt(is);
-            type = readInt(is);
+        for (int i=0; i < commands.size(); i++) {
+            QTCommand cmd = commands.get(i);
+            if (guard != null) guard.check();
+            size = readInt(is);
+            type = readInt(is);
+
+            while (type != cmd.getType() || !cmd.accepts(this, size, is)) {
+                skipAtomContents(is, size);
+                if (guard != null) guard.check();
+                size = readInt(is);
+                type = readInt(is);
+            }
+
+            switch (cmd.getCode()) {
+                case READ:
+                    atom = readCommandAtom(cmd, size, type, is);
+                    atoms.add(atom);
+                    break;
+                case STEPIN:
+                    if (cmd.isSkippable()) {
+                        skipAtomContents(is, size);
+                        i += cmd.getSubtreeSize();
+                    }
+                    break;
+                case SKIP:
+                    skipAtomContents(is, size);
+                    break;
+            }
+
+        }
+        return atoms;
+    }
+
+    /**
+     * This method reads a QuickTime file from a FileChannel and collects
+     * atoms according to the given list of QTCommands, like
+     * {@link #readStream(InputStream, List)}. The channel is read with
+     * positional reads. If the reading thread is interrupted or a read
+     * of the channel fails, a QTInterruptedException with a checkpoint is
+     * thrown, from which the execution is resumed by
+     * {@link #resume(FileChannel, List, QTCheckpoint)}. A format error of
+     * the file is thrown as a QTFormatException and is not resumable.
+     * @param ch the FileChannel to read the file from
+     * @param commands the list of QTCommands
+     * @return a collection of collected atoms
+     * @throws IOException
+     */
+    public Collection<QTAtom> readChannel(FileChannel ch, List<QTCommand> commands) throws IOException {
+        return executeFile(new ChannelInputStream(ch, 0), commands);
+    }
+
+    /**
+     * This method reads a QuickTime file from a FileChannel and collects
+     * atoms according to the given plan.
+     * @param ch the FileChannel to read the file from
+     * @param plan the compiled program
+     * @return a collection of collected atoms
+     * @throws IOException
+     * @see #readChannel(FileChannel, List)
+     */
+    public Collection<QTAtom> readChannel(FileChannel ch, QTPlan plan) throws IOException {
+        return readChannel(ch, plan.getCommands());
+    }
+
+    /**
+     * This method reads a QuickTime file from a RandomAccessSource, e.g. a
+     * remote file, which is read with HTTP range requests, and collects
+     * atoms according to the given plan. Only the atom headers on the path
+     * of the plan and the read atoms are read from the source.
+     * @param source the source to read the file from
+     * @param plan the compiled program
+     * @return a collection of collected atoms
+     * @throws IOException
+     * @see #readChannel(FileChannel, List)
+     */
+    public Collection<QTAtom> readSource(RandomAccessSource source, QTPlan plan) throws IOException {
+        return executeFile(new ChannelInputStream(source, 0), plan.getCommands());
+    }
+
+    /**
+     * This method collects atoms according to the given plan from a region
+     * of a FileChannel. The first command is applied to the atom header at
+     * the given offset, e.g. a 'moof' atom of a fragmented file, and no
+     * 'ftyp' atom is expected there.
+     * @param ch the FileChannel to read the file from
+     * @param offset the file offset of the first atom header of the region
+     * @param plan the compiled program
+     * @return a collection of collected atoms
+     * @throws IOException
+     */
+    public Collection<QTAtom> readChannel(FileChannel ch, long offset, QTPlan plan) throws IOException {
+        if (offset < 0) throw new IllegalArgumentException("negative offset");
+        QTCheckpoint start = new QTCheckpoint(plan.hashCode(), plan.size(), 0,
+                offset, new long[0], new long[0], new int[0]);
+        return execute(new ChannelInputStream(ch, offset), plan.getCommands(), start, new LinkedList<>());
+    }
+
+    /**
+     * This method reads a QuickTime file from a FileChannel and collects
+     * atoms according to the given plan with the given options.
+     * @param ch the FileChannel to read the file from
+     * @param plan the compiled program
+     * @param options the options of the read
+     * @return the collected atoms and the status of the read
+     * @throws IOException if the file could not be read within its limits
+     * @see #readSource(RandomAccessSource, QTPlan, QTReadOptions)
+     */
+    public QTResult readChannel(FileChannel ch, QTPlan plan, QTReadOptions options) throws IOException {
+        return readSource(new FileChannelSource(ch), plan, options);
+    }
+
+    /**
+     * This method reads a QuickTime file from a RandomAccessSource and
+     * collects atoms according to the given plan with the given options.
+     * The learner reads the head of the file and its predicted window and
+     * the scheduler fetches the accesses of its explanation, before the
+     * plan is executed; the prefetcher reads every entered container
+     * ahead. The reads of the reader are served by these bytes read ahead
+     * and go to the source only on a miss. The token and the deadline of
+     * the limits are checked at every atom boundary and before every read
+     * from the source, the byte budget limits the bytes read from the
+     * source. If a limit is hit, the atoms collected so far are returned
+     * with the status of the limit and the checkpoint, from which the read
+     * is resumed. The layout of the file is learned after a complete read.
+     * @param source the source to read the file from
+     * @param plan the compiled program
+     * @param options the options of the read
+     * @return the collected atoms and the status of the read
+     * @throws IOException if the file could not be read within its limits
+     * @see #readSource(RandomAccessSource, QTPlan)
+     */
+    public QTResult readSource(RandomAccessSource source, QTPlan plan, QTReadOptions options)
+            throws IOException {
+        return read(source, plan.getCommands(), null, options);
+    }
+
+    /**
+     * Reads a QuickTime file from a RandomAccessSource with the given
+     * options, from its start or from a checkpoint on.
+     * @param source the source to read the file from
+     * @param commands the list of QTCommands
+     * @param from the checkpoint to resume from, or null to read from the start
+     * @param options the options of the read
+     * @return the collected atoms and the status of the read
+     * @throws IOException if the file could not be read within its limits
+     */
+    private QTResult read(RandomAccessSource source, List<QTCommand> commands, QTCheckpoint from,
+                          QTReadOptions options) throws IOException {
+        ReadGuard guard = options.getLimits().start();
+        LayoutLearner learner = options.getLearner();
+        ReadScheduler scheduler = options.getScheduler();
+        Prefetcher prefetcher = options.getPrefetcher();
+        LayoutLearner.Speculation speculation = null;
+        ReadAhead readAhead = null;
+        Collection<QTAtom> atoms = new LinkedList<>();
+        try {
+            guard.check();
+            if (learner != null) {
+                speculation = learner.speculate(source);
+                readAhead = speculation;
+            }
+            if (scheduler != null) {
+                scheduler.clear();
+                scheduler.addAll(options.getExplain()).schedule();
+                scheduler.fetch(source);
+                readAhead = readAhead == null ? scheduler : readAhead.then(scheduler);
+            }
+            if (prefetcher != null) {
+                prefetcher.start(source);
+                readAhead = readAhead == null ? prefetcher : readAhead.then(prefetcher);
+            }
+            boolean readThrough = options.getStrategy() == QTExplain.Strategy.SEQUENTIAL;
+            ChannelInputStream is = new ChannelInputStream(source, 0, readThrough, readAhead, guard);
+            if (from == null) {
+                executeFile(is, commands, atoms);
+            } else {
+                resume(is, commands, from, atoms);
+            }
+        } catch (IOException e) {
+            if (guard.getStatus() == QTResult.Status.COMPLETE) throw e;
+            QTCheckpoint checkpoint = e instanceof QTInterruptedException
+                    ? ((QTInterruptedException) e).getCheckpoint() : null;
+            return new QTResult(atoms, guard.getStatus(), guard.getBytesRead(), checkpoint);
+        } finally {
+            if (prefetcher != null) prefetcher.finish();
+        }
+        if (speculation != null) learner.learn(speculation);
+        return new QTResult(atoms, QTResult.Status.COMPLETE, guard.getBytesRead(), null);
+    }
+
+    /**
+     * Reads the 'ftyp' atom at the start of a file and executes the
+     * commands on the atoms after it.
+     * @param is the stream of positional reads at the start of the file
+     * @param commands the list of QTCommands
+     * @return a collection of collected atoms
+     * @throws IOException
+     */
+    private Collection<QTAtom> executeFile(ChannelInputStream is, List<QTCommand> commands)
+            throws IOException {
+        return executeFile(is, commands, new LinkedList<>());
+    }
+
+    /**
+     * Reads the 'ftyp' atom at the start of a file and executes the
+     * commands on the atoms after it.
+     * @param is the stream of positional reads at the start of the file
+     * @param commands the list of QTCommands
+     * @param atoms the collection of collected atoms
+     * @return the collection of collected atoms
+     * @throws IOException
+     */
+    private Collection<QTAtom> executeFile(ChannelInputStream is, List<QTCommand> commands,
+                                           Collection<QTAtom> atoms) throws IOException {
+        int size = readInt(is);
+        int type = readInt(is);
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
+        readFType(size, type, is);
+        QTCheckpoint start = new QTCheckpoint(QTCheckpoint.hash(commands), commands.size(), 0,
+                is.getPosition(), new long[0], new long[0], new int[0]);
+        return execute(is, commands, start, atoms);
+    }
+
+    /**
+     * This method explains a plan for a QuickTime file.
+     * @param ch the FileChannel to read the file from
+     * @param plan the compiled program
+     * @return the explanation of the plan for the file
+     * @throws IOException
+     * @see #explain(RandomAccessSource, QTPlan)
+     */
+    public QTExplain explain(FileChannel ch, QTPlan plan) throws IOException {
+        return explain(new FileChannelSource(ch), plan);
+    }
+
+    /**
+     * This method explains a plan for a QuickTime file: it reads the atom
+     * headers, which the plan visits, and the atoms predicates are tested
+     * on, but none of the atoms the plan reads, and records the byte ranges
+     * and seeks of a read of the file with the plan.
+     * @param source the source to read the file from
+     * @param plan the compiled program
+     * @return the explanation of the plan for the file
+     * @throws IOException
+     */
+    public QTExplain explain(RandomAccessSource source, QTPlan plan) throws IOException {
+        QTExplain.Recorder is = new QTExplain.Recorder(new ChannelInputStream(source, 0));
+        int size = readInt(is);
+        int type = readInt(is);
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
+        is.touch(0, skipAtomContents(is, size));
+        List<QTCommand> commands = plan.getCommands();
+        for (int i=0; i < commands.size(); i++) {
+            QTCommand cmd = commands.get(i);
+            long start = is.getPosition();
+            size = readInt(is);
+            type = readInt(is);
+            while (type != cmd.getType() || !cmd.accepts(this, size, is)) {
+                skipAtomContents(is, size);
+                start = is.getPosition();
+                size = readInt(is);
+                type = readInt(is);
+            }
+            switch (cmd.getCode()) {
+                case READ:
+                    long header = is.getPosition() - start;
+                    boolean lazy = readsLazily(cmd, size, type);
+                    long length = skipAtomContents(is, size);
+                    if (cmd.getProjection() != null)
+                        length = Math.min(length, header + cmd.getProjection().maxLength());
+                    else if (lazy)
+                        length = header + (size == 1 ? 8 : 0);
+                    is.plan(start, length, i);
+                    break;
+                case STEPIN:
+                    if (cmd.isSkippable()) {
+                        skipAtomContents(is, size);
+                        i += cmd.getSubtreeSize();
+                    }
+                    break;
+                case SKIP:
+                    skipAtomContents(is, size);
+                    break;
+            }
+        }
+        return is.build();
+    }
+
+    /**
+     * This method resumes the execution of a program on a FileChannel from
+     * a checkpoint. The atoms collected before the checkpoint are decoded
+     * again from their offsets.
+     * @param ch the FileChannel to read the file from
+     * @param commands the list of QTCommands, of which the checkpoint was taken
+     * @param checkpoint the checkpoint
+     * @return a collection of all collected atoms
+     * @throws IOException
+     * @throws IllegalArgumentException if the checkpoint belongs to another program
+     * @see #resume(RandomAccessSource, List, QTCheckpoint)
+     */
+    public Collection<QTAtom> resume(FileChannel ch, List<QTCommand> commands,
+                                     QTCheckpoint checkpoint) throws IOException {
+        return resume(new FileChannelSource(ch), commands, checkpoint);
+    }
+
+    /**
+     * This method resumes the execution of a program on a RandomAccessSource
+     * from a checkpoint, e.g. of a read of a remote file, which failed or
+     * hit a limit. The atoms collected before the checkpoint are decoded
+     * again from their offsets.
+     * @param source the source to read the file from
+     * @param commands the list of QTCommands, of which the checkpoint was taken
+     * @param checkpoint the checkpoint
+     * @return a collection of all collected atoms
+     * @throws IOException
+     * @throws IllegalArgumentException if the checkpoint belongs to another program
+     */
+    public Collection<QTAtom> resume(RandomAccessSource source, List<QTCommand> commands,
+                                     QTCheckpoint checkpoint) throws IOException {
+        checkpoint.checkProgram(commands);
+        return resume(new ChannelInputStream(source, 0), commands, checkpoint, new LinkedList<>());
+    }
+
+    /**
+     * This method resumes the execution of a plan on a RandomAccessSource
+     * from a checkpoint with the given options, e.g. from the checkpoint
+     * of a {@link QTResult}, whose read hit a limit.
+     * @param source the source to read the file from
+     * @param plan the compiled program, of which the checkpoint was taken
+     * @param checkpoint the checkpoint
+     * @param options the options of the read
+     * @return all collected atoms and the status of the read
+     * @throws IOException if the file could not be read within its limits
+     * @throws IllegalArgumentException if the checkpoint belongs to another program
+     * @see #readSource(RandomAccessSource, QTPlan, QTReadOptions)
+     */
+    public QTResult resume(RandomAccessSource source, QTPlan plan, QTCheckpoint checkpoint,
+                           QTReadOptions options) throws IOException {
+        checkpoint.checkProgram(plan.getCommands());
+        return read(source, plan.getCommands(), checkpoint, options);
+    }
+
+    /**
+     * Decodes the atoms collected before a checkpoint again and executes
+     * the commands from the checkpoint on.
+     * @param is the stream of positional reads
+     * @param commands the list of QTCommands, of which the checkpoint was taken
+     * @param checkpoint the checkpoint
+     * @param atoms the collection of collected atoms
+     * @return the collection of collected atoms
+     * @throws IOException
+     */
+    private Collection<QTAtom> resume(ChannelInputStream is, List<QTCommand> commands,
+                                      QTCheckpoint checkpoint, Collection<QTAtom> atoms) throws IOException {
+        long[] atomOffsets = checkpoint.getAtomOffsets();
+        int[] atomCommands = checkpoint.getAtomCommands();
+        try {
+            for (int k=0; k < atomOffsets.length; k++) {
+                is.seek(atomOffsets[k]);
+                int size = readInt(is);
+                atoms.add(readCommandAtom(commands.get(atomCommands[k]), size, readInt(is), is));
+            }
+        } catch (QTFormatException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new QTInterruptedException(checkpoint, e instanceof InterruptedIOException ? null : e);
+        }
+        return execute(is, commands, checkpoint, atoms);
+    }
+
+    /**
+     * Executes the commands from a checkpoint on. The container stack and
+     * the offsets of the collected atoms are tracked, so a checkpoint can
+     * be taken after every command.
+     * @param is the stream of positional reads
+     * @param commands the list of QTCommands
+     * @param from the checkpoint to start from
+     * @param atoms the collection of collected atoms
+     * @return the collection of collected atoms
+     * @throws IOException
+     */
+    private Collection<QTAtom> execute(ChannelInputStream is, List<QTCommand> commands,
+                                       QTCheckpoint from, Collection<QTAtom> atoms) throws IOException {
+        int programHash = QTCheckpoint.hash(commands);
+        long offset = from.getOffset();
+        long[] ends = from.getContainerEnds();
+        int depth = ends.length;
+        long[] atomOffsets = from.getAtomOffsets();
+        int[] atomCommands = from.getAtomCommands();
+        int numAtoms = atomOffsets.length;
+
+        for (int i = from.getCommandIndex(); i < commands.size(); i++) {
+            QTCommand cmd = commands.get(i);
+            try {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException();
+                is.check();
+                is.seek(offset);
+                long start = offset;
+                int size = readInt(is);
+                int type = readInt(is);
+                while (type != cmd.getType() || !cmd.accepts(this, size, is)) {
+                    start += skipAtomContents(is, size);
+                    is.check();
+                    size = readInt(is);
+                    type = readInt(is);
+                }
+                switch (cmd.getCode()) {
+                    case READ:
+                        atoms.add(readCommandAtom(cmd, size, type, is));
+                        if (numAtoms == atomOffsets.length) {
+                            atomOffsets = Arrays.copyOf(atomOffsets, 2 * numAtoms + 4);
+                            atomCommands = Arrays.copyOf(atomCommands, 2 * numAtoms + 4);
+                        }
+                        atomOffsets[numAtoms] = start;
+                        atomCommands[numAtoms++] = i;
+                        break;
+                    case STEPIN:
+                        if (cmd.isSkippable()) {
+                            skipAtomContents(is, size);
+                            i += cmd.getSubtreeSize();
+                            break;
+                        }
+                        if (depth == ends.length) ends = Arrays.copyOf(ends, 2 * depth + 4);
+                        ends[depth++] = start + (size & 0xFFFFFFFFL);
+                        is.hint(start, ends[depth - 1]);
+                        break;
+                    case SKIP:
+                        skipAtomContents(is, size);
+                        break;
+                }
+                offset = is.getPosition();
+                while (depth > 0 && ends[depth - 1] <= offset) depth--;
+            } catch (QTFormatException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new QTInterruptedException(new QTCheckpoint(programHash, commands.size(), i,
+                        offset, Arrays.copyOf(ends, depth), Arrays.copyOf(atomOffsets, numAtoms),
+                        Arrays.copyOf(atomCommands, numAtoms)),
+                        e instanceof InterruptedIOException ? null : e);
+            }
+        }
+        return atoms;
+    }
+
+    /**
+     * This method compiles a plan into a specialized executor, which reads
+     * files like {@link #readStream(InputStream, List)} without interpreting
+     * the commands. It pays off for plans, which are executed many times.
+     * @param plan the plan, preferably optimized
+     * @return the executor
+     */
+    public QTExecutor compile(QTPlan plan) {
+        return new QTExecutor(this, plan);
+    }
+
+    /**
+     * This predicate is true iff one of the commands has a predicate.
+     * @param commands the list of QTCommands
+     * @return true iff a command has a predicate
+     */
+    static boolean hasPredicate(List<QTCommand> commands) {
+        for (QTCommand cmd : commands) {
+            if (cmd.getPredicate() != null) return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method reads the tracks of a QuickTime file from an InputStream.
+     * It decodes the header atoms ('tkhd', 'mdhd', 'hdlr') of every track in
+     * a single traversal of the 'moov' atom and skips the media information
+     * of the tracks.
+     * @param is the InputStream to read the file from
+     * @return a list of tracks
+     * @throws IOException
+     */
+    public List<QTTrack> readTracks(InputStream is) throws IOException {
+        return readTracks(is, 0, false);
+    }
+
+    /**
+     * This method reads the tracks of a QuickTime file with the given handler
+     * type (e.g. 'vide') from an InputStream.
+     * The sample tables of these tracks are decoded as well. Tracks with
+     * another handler type are skipped after their 'hdlr' atom, so their
+     * sample tables are not decoded.
+     * @param is the InputStream to read the file from
+     * @param handlerType the handler type of the media
+     * @return a list of tracks with the given handler type
+     * @throws IOException
+     */
+    public List<QTTrack> readTracks(InputStream is, int handlerType) throws IOException {
+        return readTracks(is, handlerType, true);
+    }
+
+    /**
+     * This method reads the header of a fragmented file (ISO base media
+     * file with 'moof' atoms) from an InputStream. It decodes the track
+     * headers and the 'trex' defaults of the 'moov' atom and returns a
+     * QTFragmentReader, which reads the movie fragments one at a time.
+     * @param is the InputStream to read the file from
+     * @return a reader of the movie fragments, positioned after 'moov'
+     * @throws IOException
+     */
+    public QTFragmentReader readFragments(InputStream is) throws IOException {
+        List<QTTrack> tracks = new ArrayList<>();
+        Map<Integer, TrexAtom> trex = new HashMap<>();
+        long position = readMovieHeader(is, tracks, trex);
+        return new QTFragmentReader(this, is, position, tracks, trex, null);
+    }
+
+    /**
+     * This method reads the header of a fragmented file from a FileChannel
+     * with positional reads. Besides the track headers and 'trex' defaults,
+     * it reads the segment index ('sidx') in front of the first movie
+     * fragment, if there is one. With this index the returned reader can
+     * seek to the fragment of a given time without reading the fragments
+     * in front of it. Media data is never read.
+     * The position of the channel is not changed.
+     * @param ch the FileChannel to read the file from
+     * @return a reader of the movie fragments, positioned after 'moov'
+     * @throws IOException
+     */
+    public QTFragmentReader readFragments(FileChannel ch) throws IOException {
+        ChannelInputStream is = new ChannelInputStream(ch, 0);
+        List<QTTrack> tracks = new ArrayList<>();
+        Map<Integer, TrexAtom> trex = new HashMap<>();
+        long position = readMovieHeader(is, tracks, trex);
+        SegmentIndex index = null;
+        long pos = position;
+        long fileSize = ch.size();
+        while (pos + 8 <= fileSize) {
+            is.seek(pos);
+            int size = readInt(is);
+            int type = readInt(is);
+            if (type == QTAtom.MOOF || size == 0) break;
+            if (type == QTAtom.SIDX) {
+                SidxAtom sidx = readSidx(size, type, is);
+                index = new SegmentIndex(sidx.getReferenceId(), sidx.getTimeScale());
+                addSegments(ch, sidx, pos + size, index, 0);
+                break;
+            }
+            long atomSize = size == 1 ? readInteger(is, 8) : size & 0xFFFFFFFFL;
+            if (atomSize < 8) throw new QTFormatException("corrupt atom size");
+            pos += atomSize;
+        }
+        is.seek(position);
+        return new QTFragmentReader(this, is, position, tracks, trex, index);
+    }
+
+    /**
+     * This method opens a file that is still being written and returns a
+     * QTTailReader, which reports the atoms and movie fragments of the file
+     * as they are completed. Nothing is read before the first call of
+     * {@link QTTailReader#poll()}.
+     * @param file the file to follow
+     * @param listener the listener of the completed atoms
+     * @return a reader that follows the file
+     * @throws IOException
+     */
+    public QTTailReader tail(Path file, QTTailListener listener) throws IOException {
+        return new QTTailReader(this, file, listener);
+    }
+
+    /**
+     * Reads the 'ftyp' atom and the 'moov' atom of a fragmented file and
+     * collects the track headers and the 'trex' atoms of the movie.
+     * @param is the InputStream to read the file from
+     * @param tracks the list to add the tracks to
+     * @param trex the map to add the 'trex' atoms to
+     * @return the file offset after the 'moov' atom
+     * @throws IOException
+     */
+    private long readMovieHeader(InputStream is, List<QTTrack> tracks,
+                                 Map<Integer, TrexAtom> trex) throws IOException {
+        int size = readInt(is);
+        int type = readInt(is);
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
+        readFType(size, type, is);
+        long position = size;
+
+        size = readInt(is);
+        type = readInt(is);
+        while (type != QTAtom.MOOV) {
+            position += skipAtomContents(is, size);
+            size = readInt(is);
+            type = readInt(is);
+        }
+        position += size & 0xFFFFFFFFL;
+        readMoov(size, is, tracks, trex, false);
+        return position;
+    }
+
+    /**
+     * Reads a movie atom ('moov'), whose header was read already, and
+     * collects the tracks and the 'trex' atoms of the movie.
+     * @param size the size of the atom in the file
+     * @param is the InputStream object
+     * @param tracks the list to add the tracks to
+     * @param trex the map to add the 'trex' atoms to
+     * @param withSampleTables true iff the sample tables are decoded
+     * @throws IOException
+     */
+    void readMoov(int size, InputStream is, List<QTTrack> tracks,
+                  Map<Integer, TrexAtom> trex, boolean withSampleTables) throws IOException {
+        long remaining = checkedContentSize(size, Long.MAX_VALUE);
+        while (remaining > 0) {
+            int s = readInt(is);
+            int t = readInt(is);
+            long content = checkedContentSize(s, remaining);
+            remaining -= content + 8;
+            if (t == QTAtom.TRAK) {
+                QTTrack track = readTrak(s, is, 0, withSampleTables);
+                if (track != null) tracks.add(track);
+            } else if (t == QTAtom.MVEX) {
+                Collection<QTAtom> atoms = new ArrayList<>();
+                readChildren(content, is, atoms);
+                for (QTAtom a : atoms) {
+                    if (a instanceof TrexAtom) trex.put(((TrexAtom) a).getTrackId(), (TrexAtom) a);
+                }
+            } else {
+                skipFully(is, content);
+            }
+        }
+    }
+
+    /**
+     * Adds the subsegments of a 'sidx' atom to a segment index. References
+     * to further 'sidx' atoms are resolved with positional reads.
+     * @param ch the FileChannel of the file
+     * @param sidx the 'sidx' atom
+     * @param end the file offset after the 'sidx' atom
+     * @param index the segment index
+     * @param depth the depth of the 'sidx' atom in the hierarchy
+     * @throws IOException
+     */
+    private void addSegments(FileChannel ch, SidxAtom sidx, long end,
+                             SegmentIndex index, int depth) throws IOException {
+        if (depth > MAX_SIDX_DEPTH) throw new QTFormatException("corrupt segment index");
+        long offset = end + sidx.getFirstOffset();
+        long time = sidx.getEarliestPresentationTime();
+        for (int i=0; i < sidx.getNumEntries(); i++) {
+            long size = sidx.getReferencedSize(i);
+            long duration = sidx.getSubsegmentDuration(i);
+            if (sidx.isIndexReference(i)) {
+                ChannelInputStream is = new ChannelInputStream(ch, offset);
+                int s = readInt(is);
+                int t = readInt(is);
+                if (t != QTAtom.SIDX) throw new QTFormatException("corrupt segment index");
+                addSegments(ch, readSidx(s, t, is), offset + s, index, depth + 1);
+            } else {
+                index.add(offset, size, time, duration, sidx.startsWithSap(i));
+            }
+            offset += size;
+            time += duration;
+        }
+    }
+
+    /**
+     * Reads a movie fragment atom ('moof') from the given InputStream.
+     * The header of the atom was read already.
+     * @param size the size of the atom in the file
+     * @param is the InputStream object
+     * @param offset the file offset of the atom
+     * @param trex the 'trex' atoms of the movie by track ID
+     * @return a QTFragment object
+     * @throws IOException
+     */
+    QTFragment readMoof(int size, InputStream is, long offset,
+                        Map<Integer, TrexAtom> trex) throws IOException {
+        int sequenceNumber = 0;
+        List<QTTrackFragment> trafs = new ArrayList<>();
+        long dataEnd = offset;
+        long remaining = checkedContentSize(size, Long.MAX_VALUE);
+        while (remaining > 0) {
+            int s = readInt(is);
+            int t = readInt(is);
+            long content = checkedContentSize(s, remaining);
+            remaining -= content + 8;
+            if (t == QTAtom.MFHD) {
+                sequenceNumber = readMfhd(s, t, is).getSequenceNumber();
+            } else if (t == QTAtom.TRAF) {
+                QTTrackFragment traf = readTraf(content, is, offset, dataEnd, trex);
+                if (traf != null) {
+                    trafs.add(traf);
+                    dataEnd = traf.getDataEnd();
+                }
+            } else {
+                skipFully(is, content);
+            }
+        }
+        return new QTFragment(offset, size & 0xFFFFFFFFL, sequenceNumber, trafs);
+    }
+
+    /**
+     * Reads a track fragment atom ('traf') from the given InputStream and
+     * resolves its runs.
+     * @param content the size of the contents of the atom
+     * @param is the InputStream object
+     * @param moofOffset the file offset of the enclosing 'moof' atom
+     * @param prevDataEnd the end of the data of the previous track fragment,
+     *                    or moofOffset for the first track fragment
+     * @param trex the 'trex' atoms of the movie by track ID
+     * @return a QTTrackFragment object, or null if there is no 'tfhd' atom
+     * @throws IOException
+     */
+    private QTTrackFragment readTraf(long content, InputStream is, long moofOffset,
+                                     long prevDataEnd, Map<Integer, TrexAtom> trex) throws IOException {
+        Collection<QTAtom> atoms = new ArrayList<>();
+        readChildren(content, is, atoms);
+        TfhdAtom tfhd = null;
+        TfdtAtom tfdt = null;
+        List<TrunAtom> truns = new ArrayList<>();
+        for (QTAtom a : atoms) {
+            if (a instanceof TfhdAtom) {
+                tfhd = (TfhdAtom) a;
+            } else if (a instanceof TfdtAtom) {
+                tfdt = (TfdtAtom) a;
+            } else if (a instanceof TrunAtom) {
+                truns.add((TrunAtom) a);
+            }
+        }
+        if (tfhd == null) return null;
+        long numSamples = 0;
+        for (TrunAtom trun : truns) {
+            numSamples += trun.getSampleCount();
+        }
+        if (numSamples > maxSamples()) throw new QTFormatException("corrupt sample count");
+        long base;
+        if (tfhd.hasFlag(TfhdAtom.BASE_DATA_OFFSET_PRESENT)) {
+            base = tfhd.getBaseDataOffset();
+        } else if (tfhd.hasFlag(TfhdAtom.DEFAULT_BASE_IS_MOOF)) {
+            base = moofOffset;
+        } else {
+            base = prevDataEnd;
+        }
+        return new QTTrackFragment(tfhd, tfdt, truns, trex.get(tfhd.getTrackId()), base);
+    }
+
+    /**
+     * Reads the tracks of a QuickTime file from an InputStream.
+     * @param is the InputStream to read the file from
+     * @param handlerType the handler type of the tracks, or 0 for all tracks
+     * @param withSampleTables true iff the sample tables are decoded
+     * @return a list of tracks
+     * @throws IOException
+     */
+    private List<QTTrack> readTracks(InputStream is, int handlerType,
+                                     boolean withSampleTables) throws IOException {
+        int size = readInt(is);
+        int type = readInt(is);
+        if (type != QTAtom.FTYP) throw new QTFormatException("not a QT-File");
+        readFType(size, type, is);
+
+        size = readInt(is);
+        type = readInt(is);
+        while (type != QTAtom.MOOV) {
+            skipAtomContents(is, size);
+            size = readInt(is);
+            type = readInt(is);
+        }
+
+        List<QTTrack> tracks = new ArrayList<>();
+        long remaining = checkedContentSize(size, Long.MAX_VALUE);
+        while (remaining > 0) {
+            size = readInt(is);
+            type = readInt(is);
+            long content = checkedContentSize(size, remaining);
+            remaining -= content + 8;
+            if (type == QTAtom.TRAK) {
+                QTTrack track = readTrak(size, is, handlerType, withSampleTables);
+                if (track != null) tracks.add(track);
+            } else {
+                skipFully(is, content);
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * Reads a track atom ('trak') from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param is the InputStream object
+     * @param handlerType the handler type of the track, or 0 for any track
+     * @param withSampleTables true iff the sample table is decoded
+     * @return a QTTrack object, or null if the handler type does not match
+     * @throws IOException if the track has a handler, but no track or media header
+     */
+    private QTTrack readTrak(int size, InputStream is, int handlerType,
+                             boolean withSampleTables) throws IOException {
+        TkhdAtom tkhd = null;
+        MdhdAtom mdhd = null;
+        HdlrAtom hdlr = null;
+        Collection<QTAtom> stblAtoms = new ArrayList<>();
+        boolean matches = true;
+        long remaining = size - 8;
+        while (remaining > 0) {
+            int s = readInt(is);
+            int t = readInt(is);
+            long content = checkedContentSize(s, remaining);
+            remaining -= content + 8;
+            if (t == QTAtom.TKHD && matches) {
+                tkhd = readTkhd(s, t, is);
+            } else if (t == QTAtom.MDIA && matches) {
+                long mdiaRemaining = content;
+                while (mdiaRemaining > 0) {
+                    s = readInt(is);
+                    t = readInt(is);
+                    content = checkedContentSize(s, mdiaRemaining);
+                    mdiaRemaining -= content + 8;
+                    if (t == QTAtom.MDHD && matches) {
+                        mdhd = readMdhd(s, t, is);
+                    } else if (t == QTAtom.HDLR && matches) {
+                        hdlr = readHdlr(s, t, is);
+                        matches = handlerType == 0 || hdlr.getCompSubtype() == handlerType;
+                    } else if (t == QTAtom.MINF && matches && withSampleTables) {
+                        readContainer(s, is, QTAtom.STBL, stblAtoms);
+                    } else {
+                        skipFully(is, content);
+                    }
+                }
+            } else {
+                skipFully(is, content);
+            }
+        }
+        if (!matches || hdlr == null) return null;
+        if (tkhd == null || mdhd == null) throw new QTFormatException("missing track header");
+        return new QTTrack(tkhd, mdhd, hdlr, stblAtoms);
+    }
+
+    /**
+     * Reads the typed atoms of a child container of the given container.
+     * Atoms without a typed decoder are skipped.
+     * @param size the size of the outer container in the file
+     * @param is the InputStream object
+     * @param childType the type of the child container to read
+     * @param atoms the collection to add the decoded atoms to
+     * @throws IOException
+     */
+    private void readContainer(int size, InputStream is, int childType,
+                               Collection<QTAtom> atoms) throws IOException {
+        long remaining = size - 8;
+        while (remaining > 0) {
+            int s = readInt(is);
+            int t = readInt(is);
+            long content = checkedContentSize(s, remaining);
+            remaining -= content + 8;
+            if (t == childType) {
+                long childRemaining = content;
+                while (childRemaining > 0) {
+                    s = readInt(is);
+                    t = readInt(is);
+                    content = checkedContentSize(s, childRemaining);
+                    childRemaining -= content + 8;
+                    if (hasTypedDecoder(t)) {
+                        atoms.add(readTypedAtom(s, t, is));
+                    } else {
+                        skipFully(is, content);
+                    }
+                }
+            } else {
+                skipFully(is, content);
+            }
+        }
+    }
+
+    /**
+     * Reads the typed atoms of a container, whose header was read already.
+     * Atoms without a typed decoder are skipped.
+     * @param content the size of the contents of the container
+     * @param is the InputStream object
+     * @param atoms the collection to add the decoded atoms to
+     * @throws IOException
+     */
+    private void readChildren(long content, InputStream is,
+                              Collection<QTAtom> atoms) throws IOException {
+        long remaining = content;
+        while (remaining > 0) {
+            int s = readInt(is);
+            int t = readInt(is);
+            long c = checkedContentSize(s, remaining);
+            remaining -= c + 8;
+            if (hasTypedDecoder(t)) {
+                atoms.add(readTypedAtom(s, t, is));
+            } else {
+                skipFully(is, c);
+            }
+        }
+    }
+
+    /**
+     * Returns true iff the given atom type has a typed decoder.
+     * @param type the type of the atom
+     * @return true iff the atom type has a typed decoder
+     */
+    private boolean hasTypedDecoder(int type) {
+        switch (type) {
+            case QTAtom.MVHD:
+            case QTAtom.TKHD:
+            case QTAtom.MDHD:
+            case QTAtom.HDLR:
+            case QTAtom.STSD:
+            case QTAtom.STTS:
+            case QTAtom.STSS:
+            case QTAtom.STSC:
+            case QTAtom.STSZ:
+            case QTAtom.STCO:
+            case QTAtom.CO64:
+            case QTAtom.CTTS:
+            case QTAtom.TREX:
+            case QTAtom.MFHD:
+            case QTAtom.TFHD:
+            case QTAtom.TFDT:
+            case QTAtom.TRUN:
+            case QTAtom.SIDX:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads the atom of a READ command, whose header was read already:
+     * only the projected fields, if the command has a projection, and
+     * the decoded atom otherwise.
+     * @param cmd the command
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param is the InputStream object
+     * @return a QTAtom object
+     * @throws IOException
+     */
+    private QTAtom readCommandAtom(QTCommand cmd, int size, int type, InputStream is) throws IOException {
+        return cmd.getProjection() == null ? readTypedAtom(size, type, is)
+                : readProjected(cmd.getProjection(), size, type, is);
+    }
+
+    /**
+     * Reads the projected fields of an atom, whose header was read already,
+     * and skips the rest of the atom.
+     * @param projection the projection
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param is the InputStream object
+     * @return a ProjectedAtom object
+     * @throws IOException
+     */
+    private ProjectedAtom readProjected(QTProjection projection, int size, int type,
+                                        InputStream is) throws IOException {
+        long content = checkedContentSize(size, Long.MAX_VALUE);
+        byte[] head = readBytes(is, (int) Math.min(content, projection.maxLength()));
+        if (head.length == 0 || head.length < projection.length(head[0]))
+            throw new QTFormatException("corrupt atom size");
+        skipFully(is, content - head.length);
+        return new ProjectedAtom(size, type, projection, projection.extract(head));
+    }
 
-            while (type != cmd.getType()) {
-                is.skip(size - 8);
-                size = readInt(is);
-                type = readInt(is);
-            }
+    /**
+     * Returns a method handle, which reads the atom of a READ command like
+     * {@link #readCommandAtom(QTCommand, int, int, InputStream)}.
+     * @param cmd the command
+     * @return the bound decoder of the type (int size, int type, InputStream)QTAtom
+     */
+    MethodHandle decoder(QTCommand cmd) {
+        if (cmd.getProjection() == null) return decoder(cmd.getType());
+        try {
+            return MethodHandles.lookup().findVirtual(QTReader.class, "readProjected",
+                    MethodType.methodType(ProjectedAtom.class, QTProjection.class, int.class, int.class,
+                            InputStream.class))
+                    .bindTo(this).bindTo(cmd.getProjection())
+                    .asType(MethodType.methodType(QTAtom.class, int.class, int.class, InputStream.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no decoder readProjected", e);
+        }
+    }
 
-            switch (cmd.getCode()) {
-                case READ:
-                    switch (type) {
-                        case QTAtom.MVHD:
-                            atom = readMvhd(size, type, is);
-                            break;
-                        case QTAtom.STSD:
-                            atom = readStsd(size, type, is);
-                            break;
-                        default:
-                            atom = readAtom(size, type, is);
-                    }
-                    atoms.add(atom);
-                    break;
-                case STEPIN:
-                    break;
-                case SKIP:
-                    is.skip(size - 8);
-                    break;
-            }
+    /**
+     * Returns a method handle of the decoder of the given atom type, bound
+     * to this reader. It has the type (int size, int type, InputStream)QTAtom
+     * and reads an atom, whose header was read already, like
+     * {@link #readTypedAtom(int, int, InputStream)} without the dispatch.
+     * @param type the type of the atom
+     * @return the bound decoder
+     */
+    MethodHandle decoder(int type) {
+        String name = !hasTypedDecoder(type) ? "readAtom"
+                : type == QTAtom.CO64 ? "readStco"
+                : "read" + Character.toUpperCase((char) (type >>> 24))
+                        + QTProgCompiler.atomIntToName(type).substring(1);
+        try {
+            Method method = QTReader.class.getDeclaredMethod(name, int.class, int.class, InputStream.class);
+            return MethodHandles.lookup().unreflect(method).bindTo(this)
+                    .asType(MethodType.methodType(QTAtom.class, int.class, int.class, InputStream.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("no decoder " + name, e);
+        }
+    }
 
+    /**
+     * Reads a QuickTime atom with its typed decoder from the given InputStream.
+     * Atoms without a typed decoder are read as plain QTAtom objects.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param is the InputStream object
+     * @return a QTAtom object
+     * @throws IOException
+     */
+    private QTAtom readTypedAtom(int size, int type, InputStream is) throws IOException {
+        switch (type) {
+            case QTAtom.MVHD:
+                return readMvhd(size, type, is);
+            case QTAtom.TKHD:
+                return readTkhd(size, type, is);
+            case QTAtom.MDHD:
+                return readMdhd(size, type, is);
+            case QTAtom.HDLR:
+                return readHdlr(size, type, is);
+            case QTAtom.STSD:
+                return readStsd(size, type, is);
+            case QTAtom.STTS:
+                return readStts(size, type, is);
+            case QTAtom.STSS:
+                return readStss(size, type, is);
+            case QTAtom.STSC:
+                return readStsc(size, type, is);
+            case QTAtom.STSZ:
+                return readStsz(size, type, is);
+            case QTAtom.STCO:
+            case QTAtom.CO64:
+                return readStco(size, type, is);
+            case QTAtom.CTTS:
+                return readCtts(size, type, is);
+            case QTAtom.TREX:
+                return readTrex(size, type, is);
+            case QTAtom.MFHD:
+                return readMfhd(size, type, is);
+            case QTAtom.TFHD:
+                return readTfhd(size, type, is);
+            case QTAtom.TFDT:
+                return readTfdt(size, type, is);
+            case QTAtom.TRUN:
+                return readTrun(size, type, is);
+            case QTAtom.SIDX:
+                return readSidx(size, type, is);
+            default:
+                return readAtom(size, type, is);
         }
-        return atoms;
     }
 
     /**
-     * Reads a QuickTime atom from the given InputStream.
+     * Reads a QuickTime atom from the given InputStream. Contents larger
+     * than the maximal atom size and atoms with a 64-bit size are skipped
+     * and returned as a LazyAtom, which reads them from the source of a
+     * ChannelInputStream on demand.
      * @param size the size of the atom in the file
      * @param type the type of the atom
      * @param is the InputStream object
@@ -71,8 +1225,48 @@ public class QTReader {
      * @throws IOException
      */
     private QTAtom readAtom(int size, int type, InputStream is) throws IOException {
-        byte[] contents = readBytes(is, size - 8);
-        return new QTAtom(size, type, contents);
+        long contentSize = size == 1 ? readInteger(is, 8) - 16 : (size & 0xFFFFFFFFL) - 8;
+        if (contentSize < 0) throw new QTFormatException("corrupt atom size");
+        if (size != 1 && contentSize <= maxAtomSize) {
+            byte[] contents = readBytes(is, (int) contentSize);
+            return new QTAtom(size, type, contents);
+        }
+        return readLazyAtom(size, type, contentSize, is);
+    }
+
+    /**
+     * Skips the contents of an atom, which are not loaded, and returns a
+     * LazyAtom of them.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param contentSize the number of bytes of the contents
+     * @param is the InputStream object
+     * @return a LazyAtom object
+     * @throws IOException
+     */
+    private LazyAtom readLazyAtom(int size, int type, long contentSize, InputStream is) throws IOException {
+        LazyAtom atom;
+        if (is instanceof ChannelInputStream) {
+            ChannelInputStream cis = (ChannelInputStream) is;
+            atom = new LazyAtom(size, type, cis.getPosition(), contentSize, cis.getSource());
+        } else {
+            atom = new LazyAtom(size, type, -1, contentSize, null);
+        }
+        skipFully(is, contentSize);
+        return atom;
+    }
+
+    /**
+     * Tests, whether a READ command returns an atom as a LazyAtom.
+     * @param cmd the READ command
+     * @param size the 32-bit size of the atom
+     * @param type the type of the atom
+     * @return true iff the contents of the atom are not loaded
+     */
+    boolean readsLazily(QTCommand cmd, int size, int type) {
+        if (cmd.getProjection() != null) return false;
+        if (hasTypedDecoder(type)) return false;
+        return size == 1 || (size & 0xFFFFFFFFL) - 8 > maxAtomSize;
     }
 
     /**
@@ -126,6 +1320,96 @@ public class QTReader {
         return mb.build();
     }
 
+    /**
+     * Reads a QuickTime atom of type 'tkhd' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'tkhd')
+     * @param is the InputStream object
+     * @return a TkhdAtom object
+     * @throws IOException
+     */
+    private TkhdAtom readTkhd(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        int timeSize = version == 1 ? 8 : 4;
+        long rest = remainingContent(size, version == 1 ? 104 : 92);
+        TkhdAtomBuilder tb = new TkhdAtomBuilder(size, type)
+                .withVersion(version)
+                .withFlags(readBytes(is, TkhdAtom.FLAGS_SIZE))
+                .withCreationTime(readUnsigned(is, timeSize))
+                .withModificationTime(readUnsigned(is, timeSize))
+                .withTrackId(readInt(is));
+        skipFully(is, 4);
+        tb.withDuration(readUnsigned(is, timeSize));
+        skipFully(is, 8);
+        tb.withLayer(readShort(is))
+                .withAltGroup(readShort(is))
+                .withVolume(readShort(is));
+        skipFully(is, 2);
+        tb.withMatrix(readInts(is, TkhdAtom.MATRIX_SIZE))
+                .withWidth(readInt(is))
+                .withHeight(readInt(is));
+        skipFully(is, rest);
+        return tb.build();
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'mdhd' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'mdhd')
+     * @param is the InputStream object
+     * @return a MdhdAtom object
+     * @throws IOException
+     */
+    private MdhdAtom readMdhd(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        int timeSize = version == 1 ? 8 : 4;
+        long rest = remainingContent(size, version == 1 ? 44 : 32);
+        MdhdAtom mdhd = new MdhdAtomBuilder(size, type)
+                .withVersion(version)
+                .withFlags(readBytes(is, MdhdAtom.FLAGS_SIZE))
+                .withCreationTime(readUnsigned(is, timeSize))
+                .withModificationTime(readUnsigned(is, timeSize))
+                .withTimeScale(readInt(is))
+                .withDuration(readUnsigned(is, timeSize))
+                .withLanguage(readShort(is))
+                .withQuality(readShort(is))
+                .build();
+        skipFully(is, rest);
+        return mdhd;
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'hdlr' from the given InputStream.
+     * The component name is either a Pascal string (QuickTime) or a
+     * null-terminated string (ISO base media files).
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'hdlr')
+     * @param is the InputStream object
+     * @return a HdlrAtom object
+     * @throws IOException
+     */
+    private HdlrAtom readHdlr(int size, int type, InputStream is) throws IOException {
+        long nameSize = checkedContentSize(size, Long.MAX_VALUE) - 24;
+        if (nameSize < 0 || nameSize > maxAtomSize) throw new QTFormatException("corrupt atom size");
+        HdlrAtomBuilder hb = new HdlrAtomBuilder(size, type)
+                .withVersion((byte)is.read())
+                .withFlags(readBytes(is, HdlrAtom.FLAGS_SIZE))
+                .withCompType(readInt(is))
+                .withCompSubtype(readInt(is))
+                .withManufacturer(readInt(is));
+        skipFully(is, 8);
+        byte[] name = readBytes(is, (int) nameSize);
+        int start = 0;
+        int end = 0;
+        if (name.length > 0 && (name[0] & 0xFF) == name.length - 1) {
+            start = 1;
+            end = name.length;
+        } else {
+            while (end < name.length && name[end] != 0) end++;
+        }
+        return hb.withCompName(new String(name, start, end - start, StandardCharsets.UTF_8)).build();
+    }
+
     /**
      * Reads a QuickTime atom of type 'stsd' from the given InputStream.
      * @param size the size of the atom in the file
@@ -146,6 +1430,290 @@ public class QTReader {
         return sab.withTable(table).build();
     }
 
+    /**
+     * Reads a QuickTime atom of type 'stts' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stts')
+     * @param is the InputStream object
+     * @return a SttsAtom object
+     * @throws IOException
+     */
+    private SttsAtom readStts(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        SampleTable table = readTable(is, size - 16, readInt(is), SttsAtom.ENTRY_SIZE);
+        return new SttsAtom(size, type, version, flags, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'stss' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stss')
+     * @param is the InputStream object
+     * @return a StssAtom object
+     * @throws IOException
+     */
+    private StssAtom readStss(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        SampleTable table = readTable(is, size - 16, readInt(is), StssAtom.ENTRY_SIZE);
+        return new StssAtom(size, type, version, flags, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'stsc' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stsc')
+     * @param is the InputStream object
+     * @return a StscAtom object
+     * @throws IOException
+     */
+    private StscAtom readStsc(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        SampleTable table = readTable(is, size - 16, readInt(is), StscAtom.ENTRY_SIZE);
+        return new StscAtom(size, type, version, flags, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'stsz' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stsz')
+     * @param is the InputStream object
+     * @return a StszAtom object
+     * @throws IOException
+     */
+    private StszAtom readStsz(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        int sampleSize = readInt(is);
+        int numSamples = readInt(is);
+        int numEntries = sampleSize == 0 ? numSamples : 0;
+        SampleTable table = readTable(is, size - 20, numEntries, StszAtom.ENTRY_SIZE);
+        return new StszAtom(size, type, version, flags, sampleSize, numSamples, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'stco' or 'co64' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stco' or 'co64')
+     * @param is the InputStream object
+     * @return a StcoAtom object
+     * @throws IOException
+     */
+    private StcoAtom readStco(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        int entrySize = type == QTAtom.CO64 ? StcoAtom.ENTRY_SIZE_64 : StcoAtom.ENTRY_SIZE;
+        SampleTable table = readTable(is, size - 16, readInt(is), entrySize);
+        return new StcoAtom(size, type, version, flags, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'ctts' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'ctts')
+     * @param is the InputStream object
+     * @return a CttsAtom object
+     * @throws IOException
+     */
+    private CttsAtom readCtts(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        SampleTable table = readTable(is, size - 16, readInt(is), CttsAtom.ENTRY_SIZE);
+        return new CttsAtom(size, type, version, flags, table);
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'trex' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'trex')
+     * @param is the InputStream object
+     * @return a TrexAtom object
+     * @throws IOException
+     */
+    private TrexAtom readTrex(int size, int type, InputStream is) throws IOException {
+        long rest = remainingContent(size, 32);
+        skipFully(is, 4);
+        TrexAtom trex = new TrexAtom(size, type, readInt(is), readInt(is),
+                readInt(is), readInt(is), readInt(is));
+        skipFully(is, rest);
+        return trex;
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'mfhd' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'mfhd')
+     * @param is the InputStream object
+     * @return a MfhdAtom object
+     * @throws IOException
+     */
+    private MfhdAtom readMfhd(int size, int type, InputStream is) throws IOException {
+        long rest = remainingContent(size, 16);
+        skipFully(is, 4);
+        MfhdAtom mfhd = new MfhdAtom(size, type, readInt(is));
+        skipFully(is, rest);
+        return mfhd;
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'tfhd' from the given InputStream.
+     * Only the fields announced by the flags are present in the file.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'tfhd')
+     * @param is the InputStream object
+     * @return a TfhdAtom object
+     * @throws IOException
+     */
+    private TfhdAtom readTfhd(int size, int type, InputStream is) throws IOException {
+        int flags = readInt(is) & 0xFFFFFF;
+        TfhdAtomBuilder tb = new TfhdAtomBuilder(size, type)
+                .withTfFlags(flags)
+                .withTrackId(readInt(is));
+        int read = 16;
+        if ((flags & TfhdAtom.BASE_DATA_OFFSET_PRESENT) != 0) {
+            tb.withBaseDataOffset(readInteger(is, 8));
+            read += 8;
+        }
+        if ((flags & TfhdAtom.SAMPLE_DESC_INDEX_PRESENT) != 0) {
+            tb.withSampleDescIndex(readInt(is));
+            read += 4;
+        }
+        if ((flags & TfhdAtom.DEFAULT_DURATION_PRESENT) != 0) {
+            tb.withDefaultSampleDuration(readInt(is));
+            read += 4;
+        }
+        if ((flags & TfhdAtom.DEFAULT_SIZE_PRESENT) != 0) {
+            tb.withDefaultSampleSize(readInt(is));
+            read += 4;
+        }
+        if ((flags & TfhdAtom.DEFAULT_FLAGS_PRESENT) != 0) {
+            tb.withDefaultSampleFlags(readInt(is));
+            read += 4;
+        }
+        if (read > size) throw new QTFormatException("corrupt atom size");
+        skipFully(is, size - read);
+        return tb.build();
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'tfdt' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'tfdt')
+     * @param is the InputStream object
+     * @return a TfdtAtom object
+     * @throws IOException
+     */
+    private TfdtAtom readTfdt(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        skipFully(is, 3);
+        int timeSize = version == 1 ? 8 : 4;
+        long rest = remainingContent(size, 12 + timeSize);
+        TfdtAtom tfdt = new TfdtAtom(size, type, version, readUnsigned(is, timeSize));
+        skipFully(is, rest);
+        return tfdt;
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'trun' from the given InputStream.
+     * The entries hold only the fields announced by the flags.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'trun')
+     * @param is the InputStream object
+     * @return a TrunAtom object
+     * @throws IOException
+     */
+    private TrunAtom readTrun(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        int trFlags = (flags[0] & 0xFF) << 16 | (flags[1] & 0xFF) << 8 | (flags[2] & 0xFF);
+        int sampleCount = readInt(is);
+        if ((sampleCount & 0xFFFFFFFFL) > maxSamples())
+            throw new QTFormatException("corrupt sample count");
+        int available = size - 16;
+        int dataOffset = 0;
+        int firstSampleFlags = 0;
+        if ((trFlags & TrunAtom.DATA_OFFSET_PRESENT) != 0) {
+            dataOffset = readInt(is);
+            available -= 4;
+        }
+        if ((trFlags & TrunAtom.FIRST_SAMPLE_FLAGS_PRESENT) != 0) {
+            firstSampleFlags = readInt(is);
+            available -= 4;
+        }
+        SampleTable table = readTable(is, available, sampleCount, TrunAtom.entrySize(trFlags));
+        return new TrunAtom(size, type, version, flags, dataOffset, firstSampleFlags, table);
+    }
+
+    /**
+     * Returns the maximal number of samples of a track fragment, whose
+     * resolved table fits into the maximal atom size. A run without
+     * per-sample fields takes no bytes per sample in the file, so its
+     * sample count is not bounded by the size of the atom.
+     * @return the maximal number of samples
+     */
+    private long maxSamples() {
+        return maxAtomSize / QTTrackFragment.ENTRY_SIZE;
+    }
+
+    /**
+     * Reads a QuickTime atom of type 'sidx' from the given InputStream.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'sidx')
+     * @param is the InputStream object
+     * @return a SidxAtom object
+     * @throws IOException
+     */
+    private SidxAtom readSidx(int size, int type, InputStream is) throws IOException {
+        byte version = (byte)is.read();
+        byte[] flags = readBytes(is, TableAtom.FLAGS_SIZE);
+        int referenceId = readInt(is);
+        int timeScale = readInt(is);
+        int timeSize = version == 0 ? 4 : 8;
+        long earliestPresentationTime = readUnsigned(is, timeSize);
+        long firstOffset = readUnsigned(is, timeSize);
+        skipFully(is, 2);
+        int referenceCount = readShort(is) & 0xFFFF;
+        SampleTable table = readTable(is, size - 24 - 2 * timeSize,
+                referenceCount, SidxAtom.ENTRY_SIZE);
+        return new SidxAtom(size, type, version, flags, referenceId, timeScale,
+                earliestPresentationTime, firstOffset, table);
+    }
+
+    /**
+     * Reads the entries of a sample table from the given InputStream.
+     * Tables from the off-heap threshold on are stored in the table storage
+     * of this reader, smaller tables are kept on the heap.
+     * Remaining bytes of the atom after the table are skipped.
+     * @param is the InputStream object
+     * @param available the number of bytes left in the atom
+     * @param numEntries the number of entries
+     * @param entrySize the size of one entry in bytes
+     * @return a SampleTable object
+     * @throws IOException
+     */
+    private SampleTable readTable(InputStream is, int available,
+                                  int numEntries, int entrySize) throws IOException {
+        long length = (long) numEntries * entrySize;
+        if (numEntries < 0 || length > available)
+            throw new QTFormatException("corrupt table size");
+        TableStorage storage = length < offHeapThreshold ? TableStorage.HEAP : tableStorage;
+        ByteBuffer buf = SampleTable.allocate(storage, (int) length, scratchDir);
+        if (buf.hasArray()) {
+            readFully(is, buf.array(), buf.arrayOffset(), (int) length);
+        } else {
+            byte[] chunk = new byte[(int) Math.min(length, COPY_CHUNK_SIZE)];
+            while (buf.hasRemaining()) {
+                int n = Math.min(chunk.length, buf.remaining());
+                readFully(is, chunk, 0, n);
+                buf.put(chunk, 0, n);
+            }
+        }
+        skipFully(is, available - length);
+        return new SampleTable(buf, numEntries, entrySize, storage);
+    }
+
     /**
      * Reads a SampleDescription from the given InputStream.
      * @param is the InputStream object
@@ -156,17 +1724,106 @@ public class QTReader {
         int size = readInt(is);
         int dataFormat = readInt(is);
         SampleDescription sd = null;
-        switch (dataFormat) {
-            case SampleDescription.AVC1:
+        switch (SampleLayout.of(dataFormat)) {
+            case VIDEO:
                 sd = readVideoSampleDesc(is, size, dataFormat);
                 break;
-            case SampleDescription.SOWT:
+            case SOUND:
+                sd = readSoundSampleDesc(is, size, dataFormat);
+                break;
             default:
-                is.skip(size - 8);
+                sd = new SampleDescription(size, dataFormat,
+                        readBytes(is, SampleDescription.RESERVED1_SIZE), readShort(is));
+                skipFully(is, size - 16);
         }
         return sd;
     }
 
+    /**
+     * Reads a sound sample description (version 0, 1 or 2) from the given
+     * InputStream.
+     * @param is the InputStream object
+     * @param size the size of the sound sample description
+     * @param dataFormat the data format of the sound sample description
+     * @return a SoundSampleDescription object
+     * @throws IOException
+     */
+    private SoundSampleDescription readSoundSampleDesc(InputStream is,
+                                                       int size, int dataFormat) throws IOException {
+        SoundSampleDescBuilder ssdb = new SoundSampleDescBuilder()
+                .withSize(size)
+                .withDataFormat(dataFormat)
+                .withReserved1(readBytes(is, SampleDescription.RESERVED1_SIZE))
+                .withRefIndex(readShort(is));
+        short version = readShort(is);
+        ssdb.withVersion(version)
+                .withRevLevel(readShort(is))
+                .withVendor(readInt(is));
+        if (version == 2) {
+            skipFully(is, 16);
+            ssdb.withSampleRate(Double.longBitsToDouble(readInteger(is, 8)))
+                    .withNumChannels(readInt(is));
+            skipFully(is, 4);
+            ssdb.withSampleSize(readInt(is))
+                    .withFormatFlags(readInt(is))
+                    .withConstBytesPerPacket(readInt(is))
+                    .withConstFramesPerPacket(readInt(is));
+            size -= SoundSampleDescription.SIZE_V2;
+        } else {
+            ssdb.withNumChannels(readShort(is) & 0xFFFF)
+                    .withSampleSize(readShort(is) & 0xFFFF)
+                    .withCompressionId(readShort(is));
+            skipFully(is, 2);
+            ssdb.withSampleRate((readInt(is) & 0xFFFFFFFFL) / 65536.0);
+            size -= SoundSampleDescription.SIZE_V0;
+            if (version == 1) {
+                ssdb.withSamplesPerPacket(readInt(is))
+                        .withBytesPerPacket(readInt(is))
+                        .withBytesPerFrame(readInt(is))
+                        .withBytesPerSample(readInt(is));
+                size -= SoundSampleDescription.SIZE_V1 - SoundSampleDescription.SIZE_V0;
+            }
+        }
+        Collection<QTAtom> extensions = new ArrayList<>();
+        readSsdExtensions(is, size, extensions);
+        return ssdb.withExtensions(extensions).build();
+    }
+
+    /**
+     * Reads the extensions of a sound sample description from the given
+     * InputStream. The children of a 'wave' atom are added as extensions
+     * of their own, a terminator atom ends the extensions. Extensions
+     * larger than the maximal atom size are returned as LazyAtoms.
+     * @param is the InputStream object
+     * @param extSize the total size of all extensions of the sound sample description
+     * @param extensions the collection to add the extensions to
+     * @throws IOException
+     */
+    private void readSsdExtensions(InputStream is, int extSize,
+                                   Collection<QTAtom> extensions) throws IOException {
+        while (extSize >= 8) {
+            int size = readInt(is);
+            int type = readInt(is);
+            if (size < 8 || size > extSize) {
+                extSize -= 8;
+                break;
+            }
+            if (type == QTAtom.WAVE) {
+                readSsdExtensions(is, size - 8, extensions);
+            } else if (type != 0 && size - 8 > maxAtomSize) {
+                extensions.add(readLazyAtom(size, type, size - 8, is));
+            } else if (type == QTAtom.ESDS) {
+                extensions.add(new EsdsAtom(size, type, readBytes(is, size - 8)));
+            } else if (type != 0) {
+                extensions.add(new QTAtom(size, type, readBytes(is, size - 8)));
+            } else {
+                skipFully(is, size - 8);
+            }
+            extSize -= size;
+        }
+        skipFully(is, extSize);
+    }
+
     /**
      * Reads a video sample description from the given InputStream.
      * @param is the InputStream object
@@ -203,7 +1860,7 @@ public class QTReader {
 
     /**
      * Reads a collection of extensions of a video sample description from the
-     * given InputStream.
+     * given InputStream. Extensions with an invalid size end the extensions.
      * @param is the InputStream object
      * @param extSize the total size of all extensions of the video sample description
      * @return a collection of extensions as QTAtom objects
@@ -212,26 +1869,55 @@ public class QTReader {
     private Collection<QTAtom> readVsdExtensions(InputStream is,
                                                  int extSize) throws IOException {
         Collection<QTAtom> extensions = new ArrayList<>();
-        while (extSize > 0) {
+        while (extSize >= 8) {
             int size = readInt(is);
             int type = readInt(is);
+            if (size < 8 || size > extSize) {
+                extSize -= 8;
+                break;
+            }
             QTAtom a = null;
-            if (type == QTAtom.COLR) {
-                a = new ColrAtomBuilder(size,type)
-                        .withColParamType(readInt(is))
-                        .withPrimIndex(readShort(is))
-                        .withTransFuncIndex(readShort(is))
-                        .withMatrixIndex(readShort(is))
-                        .build();
-
+            int rest = size - 8;
+            if (type == QTAtom.COLR && rest >= 4) {
+                ColrAtomBuilder cab = new ColrAtomBuilder(size,type);
+                int colParamType = readInt(is);
+                cab.withColParamType(colParamType);
+                rest -= 4;
+                if ((colParamType == ColrAtom.NCLC || colParamType == ColrAtom.NCLX) && rest >= 6) {
+                    cab.withPrimIndex(readShort(is))
+                            .withTransFuncIndex(readShort(is))
+                            .withMatrixIndex(readShort(is));
+                    rest -= 6;
+                }
+                skipFully(is, rest);
+                a = cab.build();
+            } else if (type == QTAtom.PASP && rest >= 8) {
+                a = new PaspAtom(size, type, readInt(is), readInt(is));
+                skipFully(is, rest - 8);
+            } else if (type == QTAtom.CLAP && rest >= 4 * ClapAtom.NUM_VALUES) {
+                int[] values = new int[ClapAtom.NUM_VALUES];
+                for (int i=0; i < values.length; i++) {
+                    values[i] = readInt(is);
+                }
+                a = new ClapAtom(size, type, values);
+                skipFully(is, rest - 4 * ClapAtom.NUM_VALUES);
+            } else if (type == QTAtom.FIEL && rest >= 2) {
+                a = new FielAtom(size, type, (int) readUnsigned(is, 1), (int) readUnsigned(is, 1));
+                skipFully(is, rest - 2);
+            } else if (type == QTAtom.BTRT && rest >= 12) {
+                a = new BtrtAtom(size, type, readInt(is), readInt(is), readInt(is));
+                skipFully(is, rest - 12);
             } else if (type == QTAtom.AVCC) {
-                a = new AvcCAtom(size,type,readBytes(is,size - 8));
+                a = new AvcCAtom(size,type,readBytes(is,rest));
+            } else if (type == QTAtom.HVCC) {
+                a = new HvcCAtom(size,type,readBytes(is,rest));
             } else {
-                a = new QTAtom(size,type,readBytes(is,size - 8));
+                a = new QTAtom(size,type,readBytes(is,rest));
             }
             extensions.add(a);
             extSize -= size;
         }
+        skipFully(is, extSize);
         return extensions;
     }
 
@@ -244,10 +1930,44 @@ public class QTReader {
      */
     private byte[] readBytes(InputStream is, int size) throws IOException {
         byte[] buf = new byte[size];
-        is.read(buf);
+        readFully(is, buf, 0, size);
         return buf;
     }
 
+    /**
+     * Reads exactly the given number of bytes from the given InputStream.
+     * @param is the InputStream object
+     * @param buf the buffer to read into
+     * @param off the start offset in the buffer
+     * @param len the number of bytes to read
+     * @throws IOException
+     */
+    private void readFully(InputStream is, byte[] buf, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = is.read(buf, off, len);
+            if (n < 0) throw new QTFormatException("Premature end of file");
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Skips exactly the given number of bytes of the given InputStream.
+     * @param is the InputStream object
+     * @param len the number of bytes to skip
+     * @throws IOException
+     */
+    void skipFully(InputStream is, long len) throws IOException {
+        while (len > 0) {
+            long n = is.skip(len);
+            if (n <= 0) {
+                if (is.read() < 0) throw new QTFormatException("Premature end of file");
+                n = 1;
+            }
+            len -= n;
+        }
+    }
+
     /**
      * Reads an array of 32-bit integers from the given InputStream.
      * @param is the InputStream object
@@ -263,13 +1983,73 @@ public class QTReader {
         return buf;
     }
 
+    /**
+     * Skips an atom, whose header was read already, and returns its size.
+     * An atom with a 64-bit size is skipped as a whole.
+     * @param is the InputStream object
+     * @param size the 32-bit size of the atom
+     * @return the size of the atom in the file
+     * @throws IOException
+     */
+    long skipAtomContents(InputStream is, int size) throws IOException {
+        if (size == 1) {
+            long largeSize = readInteger(is, 8);
+            if (largeSize < 16) throw new QTFormatException("corrupt atom size");
+            skipFully(is, largeSize - 16);
+            return largeSize;
+        }
+        if (size == 0) throw new QTFormatException("atom not found");
+        skipFully(is, checkedContentSize(size, Long.MAX_VALUE));
+        return size & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns the size of the contents of a child atom and checks that the
+     * child atom fits into its container.
+     * @param size the 32-bit size of the atom
+     * @param available the number of bytes left in the container
+     * @return the size of the contents of the atom
+     * @throws IOException
+     */
+    private long checkedContentSize(int size, long available) throws IOException {
+        long s = size & 0xFFFFFFFFL;
+        if (s < 8 || s > available) throw new QTFormatException("corrupt atom size");
+        return s - 8;
+    }
+
+    /**
+     * Returns the number of bytes of an atom after its fixed fields and
+     * checks that the atom holds the fixed fields.
+     * @param size the 32-bit size of the atom
+     * @param fixedSize the size of the header and the fixed fields of the atom
+     * @return the number of bytes after the fixed fields
+     * @throws IOException if the atom is shorter than its fixed fields
+     */
+    private long remainingContent(int size, int fixedSize) throws IOException {
+        long rest = checkedContentSize(size, Long.MAX_VALUE) - (fixedSize - 8);
+        if (rest < 0) throw new QTFormatException("corrupt atom size");
+        return rest;
+    }
+
+    /**
+     * Reads an unsigned integer of 4 or 8 bytes from the given InputStream.
+     * @param is the InputStream object
+     * @param bytes the number of bytes, which represent the integer
+     * @return a 64-bit integer
+     * @throws IOException
+     */
+    private long readUnsigned(InputStream is, int bytes) throws IOException {
+        long value = readInteger(is, bytes);
+        return bytes == 4 ? value & 0xFFFFFFFFL : value;
+    }
+
     /**
      * Reads a 32-bit integer from the given InputStream.
      * @param is the InputStream object
      * @return a 32-bit integer
      * @throws IOException
      */
-    private int readInt(InputStream is) throws IOException {
+    int readInt(InputStream is) throws IOException {
         return (int) readInteger(is, 4);
     }
 
@@ -290,14 +2070,14 @@ public class QTReader {
      * @return a 64-bit integer
      * @throws IOException
      */
-    private long readInteger(InputStream is, int bytes) throws IOException {
+    long readInteger(InputStream is, int bytes) throws IOException {
         long value = 0;
         int c;
         for (int count = 0;(c = is.read()) != -1 && count < (bytes - 1); count ++) {
             value <<= 8;
             value |= c;
         }
-        if (c == -1) throw new IOException("Premature end of file");
+        if (c == -1) throw new QTFormatException("Premature end of file");
         value <<= 8;
         return value | c;
     }
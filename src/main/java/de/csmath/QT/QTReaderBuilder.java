@@ -0,0 +1,80 @@
+package de.csmath.QT;
+
+import java.nio.file.Path;
+
+/**
+ * This class builds a QTReader from given parameters.
+ * @author lpfeiler
+ */
+public class QTReaderBuilder {
+
+    /**
+     * @see QTReader#tableStorage
+     */
+    private TableStorage tableStorage = TableStorage.HEAP;
+
+    /**
+     * @see QTReader#offHeapThreshold
+     */
+    private int offHeapThreshold = QTReader.DEFAULT_OFF_HEAP_THRESHOLD;
+
+    /**
+     * @see QTReader#scratchDir
+     */
+    private Path scratchDir;
+
+    /**
+     * @see QTReader#maxAtomSize
+     */
+    private int maxAtomSize = QTReader.DEFAULT_MAX_ATOM_SIZE;
+
+    /**
+     * Builds a new QTReader.
+     * @return a new QTReader
+     */
+    public QTReader build() {
+        return new QTReader(tableStorage, offHeapThreshold, scratchDir, maxAtomSize);
+    }
+
+    /**
+     * Sets the storage of large sample tables.
+     * @param tableStorage the storage of large sample tables
+     * @return a reference to this object
+     */
+    public QTReaderBuilder withTableStorage(TableStorage tableStorage) {
+        this.tableStorage = tableStorage;
+        return this;
+    }
+
+    /**
+     * Sets the size in bytes from which on sample tables are not kept
+     * on the Java heap.
+     * @param offHeapThreshold the minimal size of an off-heap table
+     * @return a reference to this object
+     */
+    public QTReaderBuilder withOffHeapThreshold(int offHeapThreshold) {
+        this.offHeapThreshold = offHeapThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the directory of the scratch files of memory-mapped tables.
+     * @param scratchDir the directory of the scratch files
+     * @return a reference to this object
+     */
+    public QTReaderBuilder withScratchDir(Path scratchDir) {
+        this.scratchDir = scratchDir;
+        return this;
+    }
+
+    /**
+     * Sets the maximal size in bytes of the contents of an atom, which is
+     * loaded into an array. Larger atoms are returned as LazyAtoms.
+     * @param maxAtomSize the maximal size of loaded contents
+     * @return a reference to this object
+     */
+    public QTReaderBuilder withMaxAtomSize(int maxAtomSize) {
+        this.maxAtomSize = maxAtomSize;
+        return this;
+    }
+}
@@ -0,0 +1,117 @@
+package de.csmath.QT;
+
+import java.util.Collection;
+
+/**
+ * This class represents the result of a read with {@link QTLimits}: the
+ * collected atoms, which are partial if a limit was hit, and the status
+ * of the read.
+ * @author lpfeiler
+ */
+public final class QTResult {
+
+    /**
+     * The states of a read.
+     */
+    public enum Status {
+        /**
+         * The program was executed completely.
+         */
+        COMPLETE,
+        /**
+         * The read was cancelled by its token.
+         */
+        CANCELLED,
+        /**
+         * The timeout of the read expired.
+         */
+        DEADLINE_EXCEEDED,
+        /**
+         * The read would have read more bytes than its budget.
+         */
+        BYTE_BUDGET_EXCEEDED
+    }
+
+    /**
+     * The collected atoms.
+     */
+    private final Collection<QTAtom> atoms;
+
+    /**
+     * The status of the read.
+     */
+    private final Status status;
+
+    /**
+     * The number of bytes read.
+     */
+    private final long bytesRead;
+
+    /**
+     * The checkpoint, from which the read is resumed, or null.
+     */
+    private final QTCheckpoint checkpoint;
+
+    /**
+     * Constructs a QTResult.
+     * @param atoms the collected atoms
+     * @param status the status of the read
+     * @param bytesRead the number of bytes read
+     * @param checkpoint the checkpoint, from which the read is resumed, or null
+     */
+    QTResult(Collection<QTAtom> atoms, Status status, long bytesRead, QTCheckpoint checkpoint) {
+        this.atoms = atoms;
+        this.status = status;
+        this.bytesRead = bytesRead;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Returns the collected atoms, which are all atoms of the program only
+     * if the read is complete.
+     * @return the collected atoms
+     */
+    public Collection<QTAtom> getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Returns the status of the read.
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Tests, whether the program was executed completely.
+     * @return true iff the status is COMPLETE
+     */
+    public boolean isComplete() {
+        return status == Status.COMPLETE;
+    }
+
+    /**
+     * Returns the number of bytes read.
+     * @return the number of bytes read
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the checkpoint after the last completed command of an
+     * incomplete read of a FileChannel or RandomAccessSource, from which
+     * {@link QTReader#resume(java.nio.channels.FileChannel, java.util.List, QTCheckpoint)}
+     * continues, e.g. with larger limits.
+     * @return the checkpoint, or null
+     */
+    public QTCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    @Override
+    public String toString() {
+        return "QTResult[" + status + ", " + atoms.size() + " atoms, " + bytesRead + " bytes]";
+    }
+}
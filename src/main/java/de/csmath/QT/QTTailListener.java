@@ -0,0 +1,37 @@
+package de.csmath.QT;
+
+import java.util.List;
+
+/**
+ * A QTTailListener receives the atoms that a {@link QTTailReader} finds
+ * completed in a file that is still being written.
+ * All methods do nothing by default, so a listener implements only the
+ * events it is interested in.
+ * @author lpfeiler
+ */
+public interface QTTailListener {
+
+    /**
+     * Called for every newly completed top-level atom, after the atom
+     * specific event ({@link #tracksRead(List)} or {@link #fragmentRead(QTFragment)}).
+     * @param offset the file offset of the atom
+     * @param type the type of the atom
+     * @param size the size of the atom in the file
+     */
+    default void atomCompleted(long offset, int type, long size) {
+    }
+
+    /**
+     * Called once, when the movie atom ('moov') is completed.
+     * @param tracks the tracks of the movie
+     */
+    default void tracksRead(List<QTTrack> tracks) {
+    }
+
+    /**
+     * Called for every newly completed movie fragment ('moof').
+     * @param fragment the movie fragment
+     */
+    default void fragmentRead(QTFragment fragment) {
+    }
+}
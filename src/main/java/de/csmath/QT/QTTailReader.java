@@ -0,0 +1,217 @@
+package de.csmath.QT;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class follows a file that is still being written, e.g. by a live
+ * recorder. Each call of {@link #poll()} parses the top-level atoms that
+ * were completed since the last call and reports them to a
+ * {@link QTTailListener}. The reader remembers the offset after the last
+ * completed atom together with the parser state (the tracks and the
+ * 'trex' defaults of the movie), so nothing is parsed twice.
+ * An atom is complete when the file holds all of its bytes; an atom of
+ * size 0, which extends to the end of the file, is never complete, since
+ * the writer has not fixed its size yet.
+ * It is obtained from {@link QTReader#tail(Path, QTTailListener)}.
+ * @author lpfeiler
+ */
+public final class QTTailReader implements Closeable {
+
+    /**
+     * The reader, which decodes the atoms.
+     */
+    private final QTReader reader;
+
+    /**
+     * The followed file.
+     */
+    private final Path file;
+
+    /**
+     * The listener of the completed atoms.
+     */
+    private final QTTailListener listener;
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The stream of positional reads of the channel.
+     */
+    private final ChannelInputStream is;
+
+    /**
+     * The tracks of the movie, once the 'moov' atom is completed.
+     */
+    private final List<QTTrack> tracks = new ArrayList<>();
+
+    /**
+     * The 'trex' atoms of the movie by track ID.
+     */
+    private final Map<Integer, TrexAtom> trex = new HashMap<>();
+
+    /**
+     * The file offset after the last completed atom.
+     */
+    private long position;
+
+    /**
+     * True iff the 'moov' atom was completed.
+     */
+    private boolean movieRead;
+
+    /**
+     * The watch service of the directory of the file, created on demand.
+     */
+    private WatchService watcher;
+
+    /**
+     * Constructs a QTTailReader and opens the file.
+     * @param reader the reader, which decodes the atoms
+     * @param file the followed file
+     * @param listener the listener of the completed atoms
+     * @throws IOException
+     */
+    QTTailReader(QTReader reader, Path file, QTTailListener listener) throws IOException {
+        this.reader = reader;
+        this.file = file;
+        this.listener = listener;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        is = new ChannelInputStream(channel, 0);
+    }
+
+    /**
+     * Parses the atoms completed since the last call and reports them to
+     * the listener. An incomplete atom at the end of the file is left for
+     * a later call.
+     * @return the number of newly completed top-level atoms
+     * @throws IOException
+     */
+    public int poll() throws IOException {
+        long fileSize = channel.size();
+        int count = 0;
+        while (position + 8 <= fileSize) {
+            is.seek(position);
+            int size = reader.readInt(is);
+            int type = reader.readInt(is);
+            long atomSize;
+            if (size == 1) {
+                if (position + 16 > fileSize) break;
+                atomSize = reader.readInteger(is, 8);
+            } else {
+                atomSize = size & 0xFFFFFFFFL;
+            }
+            if (size == 0 || position + atomSize > fileSize) break;
+            if (atomSize < 8) throw new QTFormatException("corrupt atom size");
+
+            if (type == QTAtom.MOOV && !movieRead && size != 1) {
+                List<QTTrack> movieTracks = new ArrayList<>();
+                Map<Integer, TrexAtom> movieTrex = new HashMap<>();
+                reader.readMoov(size, is, movieTracks, movieTrex, true);
+                tracks.addAll(movieTracks);
+                trex.putAll(movieTrex);
+                movieRead = true;
+                listener.tracksRead(getTracks());
+            } else if (type == QTAtom.MOOF && size != 1) {
+                listener.fragmentRead(reader.readMoof(size, is, position, trex));
+            }
+            listener.atomCompleted(position, type, atomSize);
+            position += atomSize;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Waits until the file is modified or the timeout elapses. It watches
+     * the directory of the file with a WatchService; where the file system
+     * does not deliver events, the caller just polls after the timeout.
+     * @param timeout the maximal time to wait
+     * @param unit the unit of the timeout
+     * @return true iff a modification of the file was signalled
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public boolean awaitChange(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        if (watcher == null) {
+            Path dir = file.toAbsolutePath().getParent();
+            watcher = FileSystems.getDefault().newWatchService();
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        Path name = file.getFileName();
+        try {
+            for (long wait = deadline - System.nanoTime(); wait > 0; wait = deadline - System.nanoTime()) {
+                WatchKey key = watcher.poll(wait, TimeUnit.NANOSECONDS);
+                if (key == null) return false;
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= name.equals(event.context())
+                            || event.kind() == StandardWatchEventKinds.OVERFLOW;
+                }
+                key.reset();
+                if (changed) return true;
+            }
+        } catch (ClosedWatchServiceException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the file offset after the last completed atom. The next call
+     * of {@link #poll()} resumes there.
+     * @return the file offset after the last completed atom
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns true iff the movie atom ('moov') was completed.
+     * @return true iff the movie atom was completed
+     */
+    public boolean isMovieRead() {
+        return movieRead;
+    }
+
+    /**
+     * Returns the tracks of the movie.
+     * @return an unmodifiable list of the tracks, empty until the 'moov'
+     *         atom is completed
+     */
+    public List<QTTrack> getTracks() {
+        return Collections.unmodifiableList(tracks);
+    }
+
+    /**
+     * Closes the file and the watch service.
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (watcher != null) watcher.close();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package de.csmath.QT;
+
+import java.util.Collection;
+
+/**
+ * This class represents a track ('trak') of a QuickTime movie.
+ * It holds the decoded header atoms of the track and, if they were read,
+ * the atoms of its sample table ('stbl').
+ * @author lpfeiler
+ */
+public final class QTTrack {
+
+    /**
+     * The track header atom.
+     */
+    private final TkhdAtom tkhd;
+
+    /**
+     * The media header atom.
+     */
+    private final MdhdAtom mdhd;
+
+    /**
+     * The handler reference atom of the media.
+     */
+    private final HdlrAtom hdlr;
+
+    /**
+     * The sample description atom, or null.
+     */
+    private StsdAtom stsd;
+
+    /**
+     * The time-to-sample atom, or null.
+     */
+    private SttsAtom stts;
+
+    /**
+     * The sync sample atom, or null.
+     */
+    private StssAtom stss;
+
+    /**
+     * The composition offset atom, or null.
+     */
+    private CttsAtom ctts;
+
+    /**
+     * The sample-to-chunk atom, or null.
+     */
+    private StscAtom stsc;
+
+    /**
+     * The sample size atom, or null.
+     */
+    private StszAtom stsz;
+
+    /**
+     * The chunk offset atom, or null.
+     */
+    private StcoAtom stco;
+
+    /**
+     * Constructs a QTTrack.
+     * @param tkhd the track header atom
+     * @param mdhd the media header atom
+     * @param hdlr the handler reference atom of the media
+     * @param stblAtoms the decoded atoms of the sample table (may be empty)
+     */
+    public QTTrack(TkhdAtom tkhd, MdhdAtom mdhd, HdlrAtom hdlr, Collection<QTAtom> stblAtoms) {
+        if (tkhd == null || mdhd == null || hdlr == null)
+            throw new IllegalArgumentException("missing track header");
+        this.tkhd = tkhd;
+        this.mdhd = mdhd;
+        this.hdlr = hdlr;
+        for (QTAtom a : stblAtoms) {
+            switch (a.getType()) {
+                case QTAtom.STSD:
+                    stsd = (StsdAtom) a;
+                    break;
+                case QTAtom.STTS:
+                    stts = (SttsAtom) a;
+                    break;
+                case QTAtom.STSS:
+                    stss = (StssAtom) a;
+                    break;
+                case QTAtom.CTTS:
+                    ctts = (CttsAtom) a;
+                    break;
+                case QTAtom.STSC:
+                    stsc = (StscAtom) a;
+                    break;
+                case QTAtom.STSZ:
+                    stsz = (StszAtom) a;
+                    break;
+                case QTAtom.STCO:
+                case QTAtom.CO64:
+                    stco = (StcoAtom) a;
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Returns the ID of the track.
+     * @return the ID of the track
+     */
+    public int getTrackId() {
+        return tkhd.getTrackId();
+    }
+
+    /**
+     * Returns the handler type of the media, e.g. 'vide' or 'soun'.
+     * @return the handler type of the media
+     */
+    public int getHandlerType() {
+        return hdlr.getCompSubtype();
+    }
+
+    /**
+     * Returns the time scale of the media.
+     * @return the time scale of the media
+     */
+    public int getTimeScale() {
+        return mdhd.getTimeScale();
+    }
+
+    /**
+     * Returns the duration of the media in media time scale units.
+     * @return the duration of the media
+     */
+    public long getDuration() {
+        return mdhd.getDuration();
+    }
+
+    /**
+     * Returns the width of the track in pixels.
+     * @return the width of the track in pixels
+     */
+    public int getWidth() {
+        return tkhd.getWidth();
+    }
+
+    /**
+     * Returns the height of the track in pixels.
+     * @return the height of the track in pixels
+     */
+    public int getHeight() {
+        return tkhd.getHeight();
+    }
+
+    /**
+     * Returns the track header atom.
+     * @return the track header atom
+     */
+    public TkhdAtom getTkhd() {
+        return tkhd;
+    }
+
+    /**
+     * Returns the media header atom.
+     * @return the media header atom
+     */
+    public MdhdAtom getMdhd() {
+        return mdhd;
+    }
+
+    /**
+     * Returns the handler reference atom of the media.
+     * @return the handler reference atom
+     */
+    public HdlrAtom getHdlr() {
+        return hdlr;
+    }
+
+    /**
+     * Returns the sample description atom.
+     * @return the sample description atom, or null if it was not read
+     */
+    public StsdAtom getStsd() {
+        return stsd;
+    }
+
+    /**
+     * Returns true iff the sample table of the track was read.
+     * @return true iff the sample table of the track was read
+     */
+    public boolean hasSampleTable() {
+        return stts != null && stsz != null && stsc != null && stco != null;
+    }
+
+    /**
+     * Returns a new cursor over the samples of the track.
+     * @return a new cursor over the samples of the track
+     */
+    public SampleCursor getSampleCursor() {
+        if (!hasSampleTable())
+            throw new IllegalStateException("no sample table");
+        return new SampleCursor(stts, stsz, stsc, stco, ctts, stss);
+    }
+
+    /**
+     * Returns the sync samples of the track.
+     * @return the sync samples of the track
+     */
+    public SyncSampleBitmap getSyncSamples() {
+        if (stsz == null)
+            throw new IllegalStateException("no sample table");
+        return new SyncSampleBitmap(stss, stsz.getNumSamples());
+    }
+}
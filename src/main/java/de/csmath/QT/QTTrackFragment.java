@@ -0,0 +1,209 @@
+package de.csmath.QT;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * This class represents a track fragment ('traf') of a movie fragment.
+ * The runs of the fragment are resolved against the defaults of the
+ * 'tfhd' and 'trex' atoms into a table with the file offset, size,
+ * decode time, duration, flags and composition offset of every sample.
+ * @author lpfeiler
+ */
+public final class QTTrackFragment {
+
+    /**
+     * The size of an entry of the resolved table.
+     */
+    static final int ENTRY_SIZE = 32;
+
+    /**
+     * The flag of a sample that is no sync sample.
+     */
+    public static final int SAMPLE_IS_NON_SYNC = 0x00010000;
+
+    /**
+     * The track fragment header atom.
+     */
+    private final TfhdAtom tfhd;
+
+    /**
+     * The decode time of the first sample.
+     */
+    private final long baseMediaDecodeTime;
+
+    /**
+     * The resolved samples of the fragment.
+     */
+    private final SampleTable samples;
+
+    /**
+     * The file offset after the data of the last run.
+     */
+    private final long dataEnd;
+
+    /**
+     * Constructs a QTTrackFragment.
+     * @param tfhd the track fragment header atom
+     * @param tfdt the track fragment decode time atom, or null
+     * @param truns the track fragment run atoms
+     * @param trex the track extends atom of the track, or null
+     * @param baseDataOffset the file offset, the data offsets of the runs are
+     *                       relative to
+     * @throws QTFormatException if the runs hold too many samples
+     */
+    public QTTrackFragment(TfhdAtom tfhd, TfdtAtom tfdt, List<TrunAtom> truns,
+                           TrexAtom trex, long baseDataOffset) throws QTFormatException {
+        if (tfhd == null)
+            throw new IllegalArgumentException("missing track fragment header");
+        this.tfhd = tfhd;
+        this.baseMediaDecodeTime = tfdt != null ? tfdt.getBaseMediaDecodeTime() : 0;
+        int defDuration = tfhd.hasFlag(TfhdAtom.DEFAULT_DURATION_PRESENT)
+                ? tfhd.getDefaultSampleDuration() : trex != null ? trex.getDefaultSampleDuration() : 0;
+        int defSize = tfhd.hasFlag(TfhdAtom.DEFAULT_SIZE_PRESENT)
+                ? tfhd.getDefaultSampleSize() : trex != null ? trex.getDefaultSampleSize() : 0;
+        int defFlags = tfhd.hasFlag(TfhdAtom.DEFAULT_FLAGS_PRESENT)
+                ? tfhd.getDefaultSampleFlags() : trex != null ? trex.getDefaultSampleFlags() : 0;
+        long numSamples = 0;
+        for (TrunAtom trun : truns) {
+            numSamples += trun.getSampleCount();
+        }
+        if (numSamples * ENTRY_SIZE > Integer.MAX_VALUE)
+            throw new QTFormatException("too many samples");
+        ByteBuffer buf = ByteBuffer.allocate((int) numSamples * ENTRY_SIZE);
+        long offset = baseDataOffset;
+        long time = baseMediaDecodeTime;
+        for (TrunAtom trun : truns) {
+            if (trun.hasFlag(TrunAtom.DATA_OFFSET_PRESENT)) {
+                offset = baseDataOffset + trun.getDataOffset();
+            }
+            for (int i=0; i < trun.getSampleCount(); i++) {
+                int size = trun.getSampleSize(i, defSize);
+                int duration = trun.getSampleDuration(i, defDuration);
+                buf.putLong(offset)
+                        .putLong(time)
+                        .putInt(size)
+                        .putInt(duration)
+                        .putInt(trun.getSampleFlags(i, defFlags))
+                        .putInt(trun.getCompositionOffset(i));
+                offset += size & 0xFFFFFFFFL;
+                time += duration & 0xFFFFFFFFL;
+            }
+        }
+        buf.flip();
+        this.samples = new SampleTable(buf, (int) numSamples, ENTRY_SIZE, TableStorage.HEAP);
+        this.dataEnd = offset;
+    }
+
+    /**
+     * Returns the ID of the track.
+     * @return the ID of the track
+     */
+    public int getTrackId() {
+        return tfhd.getTrackId();
+    }
+
+    /**
+     * Returns the track fragment header atom.
+     * @return the track fragment header atom
+     */
+    public TfhdAtom getTfhd() {
+        return tfhd;
+    }
+
+    /**
+     * Returns the decode time of the first sample in media time scale units.
+     * @return the decode time of the first sample
+     */
+    public long getBaseMediaDecodeTime() {
+        return baseMediaDecodeTime;
+    }
+
+    /**
+     * Returns the number of samples of the fragment.
+     * @return the number of samples
+     */
+    public int getNumSamples() {
+        return samples.getNumEntries();
+    }
+
+    /**
+     * Returns the file offset of a sample.
+     * @param index the index of the sample in the fragment
+     * @return the file offset of the sample
+     */
+    public long getSampleOffset(int index) {
+        return samples.getLong(index, 0);
+    }
+
+    /**
+     * Returns the decode time of a sample in media time scale units.
+     * @param index the index of the sample in the fragment
+     * @return the decode time of the sample
+     */
+    public long getDecodeTime(int index) {
+        return samples.getLong(index, 1);
+    }
+
+    /**
+     * Returns the size of a sample in bytes.
+     * @param index the index of the sample in the fragment
+     * @return the size of the sample
+     */
+    public long getSampleSize(int index) {
+        return samples.getUnsignedInt(index, 4);
+    }
+
+    /**
+     * Returns the duration of a sample in media time scale units.
+     * @param index the index of the sample in the fragment
+     * @return the duration of the sample
+     */
+    public long getSampleDuration(int index) {
+        return samples.getUnsignedInt(index, 5);
+    }
+
+    /**
+     * Returns the flags of a sample.
+     * @param index the index of the sample in the fragment
+     * @return the flags of the sample
+     */
+    public int getSampleFlags(int index) {
+        return samples.getInt(index, 6);
+    }
+
+    /**
+     * Returns the composition offset of a sample.
+     * @param index the index of the sample in the fragment
+     * @return the composition offset of the sample
+     */
+    public int getCompositionOffset(int index) {
+        return samples.getInt(index, 7);
+    }
+
+    /**
+     * Returns true iff a sample is a sync sample.
+     * @param index the index of the sample in the fragment
+     * @return true iff the sample is a sync sample
+     */
+    public boolean isSync(int index) {
+        return (getSampleFlags(index) & SAMPLE_IS_NON_SYNC) == 0;
+    }
+
+    /**
+     * Returns the decode time after the last sample.
+     * @return the decode time after the last sample
+     */
+    public long getEndTime() {
+        int n = getNumSamples();
+        return n == 0 ? baseMediaDecodeTime : getDecodeTime(n - 1) + getSampleDuration(n - 1);
+    }
+
+    /**
+     * Returns the file offset after the data of the last run.
+     * @return the file offset after the data of the fragment
+     */
+    public long getDataEnd() {
+        return dataEnd;
+    }
+}
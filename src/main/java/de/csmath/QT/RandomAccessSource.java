@@ -0,0 +1,42 @@
+package de.csmath.QT;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface represents the bytes of a file, which are read at
+ * arbitrary offsets: a local file, a file in memory or a remote object,
+ * which is read with HTTP range requests. A QTReader reads a source with
+ * positional reads only, so a source is shared by the threads of a
+ * {@link Prefetcher} and must be safe for concurrent reads.
+ * @author lpfeiler
+ */
+public interface RandomAccessSource extends Closeable {
+
+    /**
+     * Reads bytes at an offset into a buffer from its position on.
+     * @param offset the offset of the first byte
+     * @param length the maximal number of bytes to read
+     * @param dst the buffer
+     * @return the number of bytes read, which may be less than the length,
+     *         or -1 if the offset is at or beyond the end of the source
+     * @throws IOException
+     */
+    int read(long offset, int length, ByteBuffer dst) throws IOException;
+
+    /**
+     * Returns the size of the source.
+     * @return the number of bytes of the source
+     * @throws IOException
+     */
+    long size() throws IOException;
+
+    /**
+     * Releases the resources of the source. The default does nothing.
+     * @throws IOException
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
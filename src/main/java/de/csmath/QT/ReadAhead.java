@@ -0,0 +1,53 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This interface provides bytes of a file, which were read ahead of the
+ * reader, to a ChannelInputStream. A ChannelInputStream fills its buffer
+ * from it and reads the channel only on a miss.
+ * @author lpfeiler
+ */
+interface ReadAhead {
+
+    /**
+     * Fills a buffer of the reader with bytes read ahead from a position on.
+     * @param dst the cleared buffer of the reader
+     * @param position the file offset of the first byte
+     * @return true iff bytes at the position were read ahead, false on a miss
+     * @throws IOException
+     */
+    boolean fill(ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Gives a hint, that the reader entered a container and will read
+     * from the given range next.
+     * @param offset the file offset of the container
+     * @param end the end offset of the container
+     */
+    default void hint(long offset, long end) {
+    }
+
+    /**
+     * Returns a ReadAhead, which fills a buffer from this one and, on a
+     * miss, from the given one, and gives hints to both.
+     * @param next the bytes read ahead, which serve the misses of this one
+     * @return the combined bytes read ahead
+     */
+    default ReadAhead then(ReadAhead next) {
+        ReadAhead first = this;
+        return new ReadAhead() {
+            @Override
+            public boolean fill(ByteBuffer dst, long position) throws IOException {
+                return first.fill(dst, position) || next.fill(dst, position);
+            }
+
+            @Override
+            public void hint(long offset, long end) {
+                first.hint(offset, end);
+                next.hint(offset, end);
+            }
+        };
+    }
+}
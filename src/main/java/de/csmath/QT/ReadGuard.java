@@ -0,0 +1,139 @@
+package de.csmath.QT;
+
+import java.io.InterruptedIOException;
+
+/**
+ * This class checks the {@link QTLimits} of one read. A guard trips at
+ * the first check, which finds a limit hit: it records the status and
+ * throws an InterruptedIOException, which unwinds the read up to the
+ * method, which returns the partial results.
+ * @author lpfeiler
+ */
+final class ReadGuard {
+
+    /**
+     * The number of bytes after which single-byte reads check the clock.
+     */
+    private static final int CHECK_INTERVAL = 1 << 16;
+
+    /**
+     * The maximal number of bytes read or skipped between two checks.
+     */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * True iff the read has a timeout.
+     */
+    private final boolean hasDeadline;
+
+    /**
+     * The start of the read in terms of System.nanoTime().
+     */
+    private final long start;
+
+    /**
+     * The timeout in nanoseconds.
+     */
+    private final long timeout;
+
+    /**
+     * The maximal number of bytes read.
+     */
+    private final long maxBytes;
+
+    /**
+     * The cancellation token, or null.
+     */
+    private final QTCancellationToken token;
+
+    /**
+     * The number of bytes read.
+     */
+    private long bytesRead;
+
+    /**
+     * The status of the read.
+     */
+    private QTResult.Status status = QTResult.Status.COMPLETE;
+
+    /**
+     * Constructs a ReadGuard, whose timeout starts now.
+     * @param hasDeadline true iff the read has a timeout
+     * @param timeout the timeout in nanoseconds
+     * @param maxBytes the maximal number of bytes read
+     * @param token the cancellation token, or null
+     */
+    ReadGuard(boolean hasDeadline, long timeout, long maxBytes, QTCancellationToken token) {
+        this.hasDeadline = hasDeadline;
+        this.start = System.nanoTime();
+        this.timeout = timeout;
+        this.maxBytes = maxBytes;
+        this.token = token;
+    }
+
+    /**
+     * Returns the number of bytes read.
+     * @return the number of bytes read
+     */
+    long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the status of the read: COMPLETE until the guard tripped.
+     * @return the status
+     */
+    QTResult.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks the token and the deadline.
+     * @throws InterruptedIOException if the read was cancelled or its deadline passed
+     */
+    void check() throws InterruptedIOException {
+        if (token != null && token.isCancelled()) trip(QTResult.Status.CANCELLED);
+        if (hasDeadline && System.nanoTime() - start > timeout) trip(QTResult.Status.DEADLINE_EXCEEDED);
+    }
+
+    /**
+     * Checks the limits before a read and returns the number of bytes,
+     * which may be read.
+     * @param len the number of bytes to read
+     * @return the number of bytes allowed, at least 1 and at most a chunk
+     * @throws InterruptedIOException if a limit was hit
+     */
+    int allow(int len) throws InterruptedIOException {
+        check();
+        if (bytesRead >= maxBytes) trip(QTResult.Status.BYTE_BUDGET_EXCEEDED);
+        return (int) Math.min(Math.min(len, CHUNK_SIZE), maxBytes - bytesRead);
+    }
+
+    /**
+     * Checks the byte budget before a single-byte read and the token and
+     * deadline every CHECK_INTERVAL bytes.
+     * @throws InterruptedIOException if a limit was hit
+     */
+    void allowByte() throws InterruptedIOException {
+        if (bytesRead >= maxBytes) trip(QTResult.Status.BYTE_BUDGET_EXCEEDED);
+        if ((bytesRead & (CHECK_INTERVAL - 1)) == 0) check();
+    }
+
+    /**
+     * Counts bytes read.
+     * @param n the number of bytes read
+     */
+    void count(int n) {
+        if (n > 0) bytesRead += n;
+    }
+
+    /**
+     * Records the status and stops the read.
+     * @param status the status of the read
+     * @throws InterruptedIOException always
+     */
+    private void trip(QTResult.Status status) throws InterruptedIOException {
+        this.status = status;
+        throw new InterruptedIOException(status.name().toLowerCase().replace('_', ' '));
+    }
+}
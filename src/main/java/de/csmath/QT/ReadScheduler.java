@@ -0,0 +1,268 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * This class schedules the reads of a plan between the plan and the file.
+ * It collects the planned byte ranges, e.g. all accesses of a
+ * {@link QTExplain}, sorts them, merges ranges whose gaps are at most a
+ * threshold, aligns the merged ranges to blocks and reads them with few
+ * large reads into a buffer, which is reused for the next file. The reader
+ * serves its reads from the buffer and reads the channel only on a miss,
+ * so a high-latency source sees a handful of reads per file.
+ * A scheduler holds the state of one read and is not thread-safe.
+ * @author lpfeiler
+ */
+public final class ReadScheduler implements ReadAhead {
+
+    /**
+     * The default maximal gap between two ranges, which are merged.
+     */
+    public static final int DEFAULT_MAX_GAP = 1 << 14;
+
+    /**
+     * The default alignment of the reads.
+     */
+    public static final int DEFAULT_ALIGNMENT = 1 << 12;
+
+    /**
+     * The maximal gap between two ranges, which are merged.
+     */
+    private final int maxGap;
+
+    /**
+     * The alignment of the reads, a power of two.
+     */
+    private final int alignment;
+
+    /**
+     * The collected ranges: offset and end of each range.
+     */
+    private long[] ranges = new long[2 * 16];
+
+    /**
+     * The number of entries of ranges.
+     */
+    private int numRanges;
+
+    /**
+     * The scheduled reads: offset and end of each read.
+     */
+    private long[] reads = new long[0];
+
+    /**
+     * The position of each read in the buffer, and the number of bytes read at last.
+     */
+    private int[] positions = new int[1];
+
+    /**
+     * The buffer of the reads, reused for the next file.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+    /**
+     * The number of reads of the reader, which were not served by the buffer.
+     */
+    private int misses;
+
+    /**
+     * Constructs a ReadScheduler with the default gap and alignment.
+     */
+    public ReadScheduler() {
+        this(DEFAULT_MAX_GAP, DEFAULT_ALIGNMENT);
+    }
+
+    /**
+     * Constructs a ReadScheduler.
+     * @param maxGap the maximal gap between two ranges, which are merged
+     * @param alignment the alignment of the reads, a power of two
+     * @throws IllegalArgumentException if the gap is negative or the
+     *                                  alignment no power of two
+     */
+    public ReadScheduler(int maxGap, int alignment) {
+        if (maxGap < 0) throw new IllegalArgumentException("negative gap");
+        if (alignment <= 0 || Integer.bitCount(alignment) != 1)
+            throw new IllegalArgumentException("alignment no power of two");
+        this.maxGap = maxGap;
+        this.alignment = alignment;
+    }
+
+    /**
+     * Adds a planned byte range.
+     * @param offset the file offset of the range
+     * @param length the number of bytes of the range
+     * @return a reference to this object
+     */
+    public ReadScheduler add(long offset, long length) {
+        if (offset < 0 || length < 0) throw new IllegalArgumentException("negative range");
+        if (length == 0) return this;
+        if (numRanges == ranges.length) ranges = Arrays.copyOf(ranges, 2 * numRanges);
+        ranges[numRanges++] = offset;
+        ranges[numRanges++] = offset + length;
+        return this;
+    }
+
+    /**
+     * Adds all accesses of an explanation: the atom headers, the peeks of
+     * predicates and the atoms the plan reads.
+     * @param explain the explanation of a plan
+     * @return a reference to this object
+     */
+    public ReadScheduler addAll(QTExplain explain) {
+        for (int i=0; i < explain.getNumSeeks(); i++) {
+            add(explain.getAccessOffset(i), explain.getAccessLength(i));
+        }
+        return this;
+    }
+
+    /**
+     * Sorts and merges the collected ranges into aligned reads.
+     * @return the number of reads
+     * @throws IllegalArgumentException if the reads do not fit into a buffer
+     */
+    public int schedule() {
+        int n = numRanges / 2;
+        long[][] sorted = new long[n][];
+        for (int i=0; i < n; i++) {
+            sorted[i] = new long[] {ranges[2 * i], ranges[2 * i + 1]};
+        }
+        Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+        long mask = alignment - 1;
+        long[] merged = new long[2 * n];
+        int m = 0;
+        long total = 0;
+        for (long[] range : sorted) {
+            long start = range[0] & ~mask;
+            long end = (range[1] + mask) & ~mask;
+            if (m > 0 && start - merged[m - 1] <= maxGap) {
+                total += Math.max(0, end - merged[m - 1]);
+                merged[m - 1] = Math.max(merged[m - 1], end);
+            } else {
+                merged[m++] = start;
+                merged[m++] = end;
+                total += end - start;
+            }
+        }
+        if (total > Integer.MAX_VALUE - alignment)
+            throw new IllegalArgumentException("scheduled reads too large");
+        reads = Arrays.copyOf(merged, m);
+        positions = new int[m / 2 + 1];
+        misses = 0;
+        return m / 2;
+    }
+
+    /**
+     * Reads the scheduled reads from a channel into the buffer.
+     * @param ch the channel to read from
+     * @throws IOException
+     */
+    public void fetch(FileChannel ch) throws IOException {
+        fetch(new FileChannelSource(ch));
+    }
+
+    /**
+     * Reads the scheduled reads from a source into the buffer.
+     * @param source the source to read from
+     * @throws IOException
+     */
+    public void fetch(RandomAccessSource source) throws IOException {
+        long fileSize = source.size();
+        int total = 0;
+        for (int i=0; i < reads.length; i += 2) {
+            total += (int) (reads[i + 1] - reads[i]);
+        }
+        if (buffer.capacity() < total) buffer = ByteBuffer.allocate(total);
+        buffer.clear();
+        for (int i=0; i < reads.length; i += 2) {
+            positions[i / 2] = buffer.position();
+            long end = Math.min(reads[i + 1], fileSize);
+            buffer.limit(buffer.position() + (int) Math.max(0, end - reads[i]));
+            long offset = reads[i];
+            while (buffer.hasRemaining()) {
+                int r = source.read(offset, buffer.remaining(), buffer);
+                if (r < 0) break;
+                offset += r;
+            }
+        }
+        positions[reads.length / 2] = buffer.position();
+    }
+
+    /**
+     * Clears the collected ranges and reads, but keeps the buffer.
+     */
+    public void clear() {
+        numRanges = 0;
+        reads = new long[0];
+        positions = new int[1];
+        misses = 0;
+    }
+
+    /**
+     * Returns the number of scheduled reads.
+     * @return the number of reads
+     */
+    public int getNumReads() {
+        return reads.length / 2;
+    }
+
+    /**
+     * Returns the file offset of a scheduled read.
+     * @param index the index of the read
+     * @return the file offset of the read
+     */
+    public long getReadOffset(int index) {
+        return reads[2 * index];
+    }
+
+    /**
+     * Returns the number of bytes of a scheduled read.
+     * @param index the index of the read
+     * @return the length of the read
+     */
+    public long getReadLength(int index) {
+        return reads[2 * index + 1] - reads[2 * index];
+    }
+
+    /**
+     * Returns the number of reads of the reader, which were not served by
+     * the buffer and went to the source.
+     * @return the number of misses
+     */
+    public int getNumMisses() {
+        return misses;
+    }
+
+    @Override
+    public boolean fill(ByteBuffer dst, long position) {
+        int lo = 0;
+        int hi = reads.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (reads[2 * mid] > position) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        int read = hi;
+        if (read >= 0) {
+            long available = positions[read + 1] - positions[read] - (position - reads[2 * read]);
+            if (available > 0) {
+                int start = positions[read] + (int) (position - reads[2 * read]);
+                int n = (int) Math.min(dst.remaining(), available);
+                ByteBuffer src = buffer.duplicate();
+                src.clear();
+                src.position(start);
+                src.limit(start + n);
+                dst.put(src);
+                dst.flip();
+                return true;
+            }
+        }
+        misses++;
+        return false;
+    }
+}
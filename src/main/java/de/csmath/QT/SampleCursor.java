@@ -0,0 +1,420 @@
+package de.csmath.QT;
+
+/**
+ * This class represents a cursor over the samples of a track.
+ * It is driven by the sample table atoms of the track and exposes the
+ * properties of the current sample through primitive getters, so no
+ * objects are created per sample.
+ * The run-length coded tables ('stts', 'stsc', 'ctts') are walked entry by
+ * entry and never expanded per sample. The cursor reads the tables of the
+ * decoded atoms; it does not stream them from the file, since it walks up
+ * to six tables at once, which a stream of the file yields only one after
+ * another, and a seek to a time needs random access to them. Tables too
+ * large for the heap are kept in a {@link TableStorage#MAPPED} storage
+ * instead: since the cursor only moves forward through the tables (except
+ * after a seek backwards), they are paged in only as far as the cursor
+ * advances.
+ * A cursor is not thread-safe.
+ * @author lpfeiler
+ */
+public final class SampleCursor {
+
+    /**
+     * The time-to-sample atom.
+     */
+    private final SttsAtom stts;
+
+    /**
+     * The sample size atom.
+     */
+    private final StszAtom stsz;
+
+    /**
+     * The sample-to-chunk atom.
+     */
+    private final StscAtom stsc;
+
+    /**
+     * The chunk offset atom ('stco' or 'co64').
+     */
+    private final StcoAtom stco;
+
+    /**
+     * The composition offset atom, or null.
+     */
+    private final CttsAtom ctts;
+
+    /**
+     * The sync sample atom, or null if every sample is a sync sample.
+     */
+    private final StssAtom stss;
+
+    /**
+     * The number of samples.
+     */
+    private final int numSamples;
+
+    /**
+     * The index of the current sample (starting with 0).
+     */
+    private int sample;
+
+    /**
+     * This flag indicates whether the cursor points to a sample.
+     */
+    private boolean started;
+
+    /**
+     * The current entry of the time-to-sample atom.
+     */
+    private int sttsIndex;
+
+    /**
+     * The number of samples left in the current 'stts' entry,
+     * including the current sample.
+     */
+    private long sttsRemaining;
+
+    /**
+     * The duration of the current sample.
+     */
+    private int duration;
+
+    /**
+     * The decoding time of the current sample.
+     */
+    private long decodeTime;
+
+    /**
+     * The current entry of the composition offset atom.
+     */
+    private int cttsIndex;
+
+    /**
+     * The number of samples left in the current 'ctts' entry,
+     * including the current sample.
+     */
+    private long cttsRemaining;
+
+    /**
+     * The composition offset of the current sample.
+     */
+    private int compositionOffset;
+
+    /**
+     * The current entry of the sample-to-chunk atom.
+     */
+    private int stscIndex;
+
+    /**
+     * The index of the current chunk (starting with 0).
+     */
+    private int chunk;
+
+    /**
+     * The number of samples in the current chunk.
+     */
+    private int samplesPerChunk;
+
+    /**
+     * The index of the current sample within the current chunk.
+     */
+    private int sampleInChunk;
+
+    /**
+     * The index of the next sync sample entry.
+     */
+    private int stssIndex;
+
+    /**
+     * The file offset of the current sample.
+     */
+    private long offset;
+
+    /**
+     * The size of the current sample.
+     */
+    private long size;
+
+    /**
+     * Constructs a SampleCursor, which points before the first sample.
+     * @param stts the time-to-sample atom
+     * @param stsz the sample size atom
+     * @param stsc the sample-to-chunk atom
+     * @param stco the chunk offset atom ('stco' or 'co64')
+     * @param ctts the composition offset atom, or null
+     * @param stss the sync sample atom, or null if every sample is a sync sample
+     */
+    public SampleCursor(SttsAtom stts, StszAtom stsz, StscAtom stsc, StcoAtom stco,
+                        CttsAtom ctts, StssAtom stss) {
+        if (stts == null || stsz == null || stsc == null || stco == null)
+            throw new IllegalArgumentException("missing sample table");
+        this.stts = stts;
+        this.stsz = stsz;
+        this.stsc = stsc;
+        this.stco = stco;
+        this.ctts = ctts;
+        this.stss = stss;
+        this.numSamples = stsz.getNumSamples();
+        reset();
+    }
+
+    /**
+     * Moves the cursor before the first sample.
+     */
+    public void reset() {
+        sample = 0;
+        started = false;
+        decodeTime = 0;
+        loadStts(0);
+        loadCtts(0);
+        stscIndex = 0;
+        chunk = -1;
+        nextChunk();
+        stssIndex = 0;
+        size = numSamples > 0 ? stsz.getSampleSize(0) : 0;
+    }
+
+    /**
+     * Moves the cursor to the next sample.
+     * @return true iff the cursor points to a sample
+     */
+    public boolean next() {
+        if (!started) {
+            started = true;
+            return numSamples > 0;
+        }
+        if (sample + 1 >= numSamples) {
+            sample = numSamples;
+            return false;
+        }
+        decodeTime += duration;
+        if (--sttsRemaining == 0) loadStts(sttsIndex + 1);
+        if (--cttsRemaining == 0) loadCtts(cttsIndex + 1);
+        if (++sampleInChunk >= samplesPerChunk) {
+            nextChunk();
+        } else {
+            offset += size;
+        }
+        sample++;
+        size = stsz.getSampleSize(sample);
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the sample with the given index.
+     * @param target the index of the sample (starting with 0)
+     * @return true iff the cursor points to a sample
+     */
+    public boolean seekToSample(int target) {
+        if (target < 0 || target >= numSamples) {
+            sample = numSamples;
+            started = true;
+            return false;
+        }
+        if (target < sample) reset();
+        started = true;
+        long n = target - sample;
+
+        long m = n;
+        while (m >= sttsRemaining) {
+            decodeTime += (long) duration * sttsRemaining;
+            m -= sttsRemaining;
+            loadStts(sttsIndex + 1);
+        }
+        decodeTime += duration * m;
+        sttsRemaining -= m;
+
+        m = n;
+        while (m >= cttsRemaining) {
+            m -= cttsRemaining;
+            loadCtts(cttsIndex + 1);
+        }
+        cttsRemaining -= m;
+
+        int s = sample;
+        while (target - s >= samplesPerChunk - sampleInChunk && chunk < stco.getNumChunks()) {
+            s += samplesPerChunk - sampleInChunk;
+            nextChunk();
+        }
+        for (; s < target; s++) {
+            offset += stsz.getSampleSize(s);
+            sampleInChunk++;
+        }
+
+        if (stss != null) {
+            int lo = stssIndex;
+            int hi = stss.getNumEntries();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (stss.getSyncSample(mid) <= target) lo = mid + 1;
+                else hi = mid;
+            }
+            stssIndex = lo;
+        }
+        sample = target;
+        size = stsz.getSampleSize(target);
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the sample, which is decoded at the given time.
+     * This is the last sample whose decoding time is not after the given time.
+     * @param time the decoding time in media time scale units
+     * @return true iff the cursor points to a sample
+     */
+    public boolean seekTo(long time) {
+        if (time < decodeTime) reset();
+        long t = decodeTime;
+        long s = sample;
+        int index = sttsIndex;
+        long remaining = sttsRemaining;
+        int delta = duration;
+        while (index < stts.getNumEntries() && time >= t + delta * remaining) {
+            t += delta * remaining;
+            s += remaining;
+            index++;
+            if (index < stts.getNumEntries()) {
+                remaining = stts.getSampleCount(index) & 0xFFFFFFFFL;
+                delta = stts.getSampleDuration(index);
+            }
+        }
+        if (index < stts.getNumEntries() && delta > 0) s += (time - t) / delta;
+        return seekToSample((int) Math.max(0, Math.min(s, numSamples - 1L)));
+    }
+
+    /**
+     * Returns the index of the current sample (starting with 0).
+     * @return the index of the current sample
+     */
+    public int sampleIndex() {
+        return sample;
+    }
+
+    /**
+     * Returns the number of samples.
+     * @return the number of samples
+     */
+    public int numSamples() {
+        return numSamples;
+    }
+
+    /**
+     * Returns the file offset of the current sample.
+     * @return the file offset of the current sample
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the current sample in bytes.
+     * @return the size of the current sample
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the decoding time of the current sample in media time scale units.
+     * @return the decoding time of the current sample
+     */
+    public long decodeTime() {
+        return decodeTime;
+    }
+
+    /**
+     * Returns the duration of the current sample in media time scale units.
+     * @return the duration of the current sample
+     */
+    public int duration() {
+        return duration;
+    }
+
+    /**
+     * Returns the composition offset of the current sample in media time
+     * scale units.
+     * @return the composition offset of the current sample
+     */
+    public int compositionOffset() {
+        return compositionOffset;
+    }
+
+    /**
+     * Returns true iff the current sample is a sync sample.
+     * @return true iff the current sample is a sync sample
+     */
+    public boolean isSync() {
+        if (stss == null) return true;
+        while (stssIndex < stss.getNumEntries() && stss.getSyncSample(stssIndex) <= sample) {
+            stssIndex++;
+        }
+        return stssIndex < stss.getNumEntries() && stss.getSyncSample(stssIndex) == sample + 1;
+    }
+
+    /**
+     * Returns the index of the chunk of the current sample (starting with 0).
+     * @return the index of the chunk of the current sample
+     */
+    public int chunkIndex() {
+        return chunk;
+    }
+
+    /**
+     * Returns the ID of the sample description of the current sample
+     * (starting with 1).
+     * @return the ID of the sample description
+     */
+    public int sampleDescId() {
+        return stscIndex < stsc.getNumEntries() ? stsc.getSampleDescId(stscIndex) : 0;
+    }
+
+    /**
+     * Loads an entry of the time-to-sample atom, skipping empty entries.
+     * @param index the index of the entry
+     */
+    private void loadStts(int index) {
+        while (index < stts.getNumEntries() && stts.getSampleCount(index) == 0) index++;
+        sttsIndex = index;
+        if (index < stts.getNumEntries()) {
+            sttsRemaining = stts.getSampleCount(index) & 0xFFFFFFFFL;
+            duration = stts.getSampleDuration(index);
+        } else {
+            sttsRemaining = Long.MAX_VALUE;
+            duration = 0;
+        }
+    }
+
+    /**
+     * Loads an entry of the composition offset atom, skipping empty entries.
+     * @param index the index of the entry
+     */
+    private void loadCtts(int index) {
+        int numEntries = ctts == null ? 0 : ctts.getNumEntries();
+        while (index < numEntries && ctts.getSampleCount(index) == 0) index++;
+        cttsIndex = index;
+        if (index < numEntries) {
+            cttsRemaining = ctts.getSampleCount(index) & 0xFFFFFFFFL;
+            compositionOffset = ctts.getSampleOffset(index);
+        } else {
+            cttsRemaining = Long.MAX_VALUE;
+            compositionOffset = 0;
+        }
+    }
+
+    /**
+     * Moves to the next chunk, which contains samples.
+     */
+    private void nextChunk() {
+        sampleInChunk = 0;
+        do {
+            chunk++;
+            while (stscIndex + 1 < stsc.getNumEntries()
+                    && stsc.getFirstChunk(stscIndex + 1) <= chunk + 1) {
+                stscIndex++;
+            }
+            samplesPerChunk = stsc.getNumEntries() > 0 ? stsc.getSamplesPerChunk(stscIndex) : 0;
+        } while (samplesPerChunk <= 0 && chunk < stco.getNumChunks());
+        offset = chunk < stco.getNumChunks() ? stco.getChunkOffset(chunk) : 0;
+    }
+}
@@ -11,11 +11,151 @@ public class SampleDescription {
      */
     public static final int AVC1 = 0x61766331; //'avc1'
 
+    /**
+     * The data format 'hvc1'.
+     */
+    public static final int HVC1 = 0x68766331; //'hvc1'
+
+    /**
+     * The data format 'hev1'.
+     */
+    public static final int HEV1 = 0x68657631; //'hev1'
+
+    /**
+     * The data format 'mp4v'.
+     */
+    public static final int MP4V = 0x6D703476; //'mp4v'
+
+    /**
+     * The data format 'jpeg'.
+     */
+    public static final int JPEG = 0x6A706567; //'jpeg'
+
+    /**
+     * The data format 'apch'.
+     */
+    public static final int APCH = 0x61706368; //'apch'
+
+    /**
+     * The data format 'apcn'.
+     */
+    public static final int APCN = 0x6170636E; //'apcn'
+
+    /**
+     * The data format 'apcs'.
+     */
+    public static final int APCS = 0x61706373; //'apcs'
+
+    /**
+     * The data format 'apco'.
+     */
+    public static final int APCO = 0x6170636F; //'apco'
+
+    /**
+     * The data format 'ap4h'.
+     */
+    public static final int AP4H = 0x61703468; //'ap4h'
+
+    /**
+     * The data format 'av01'.
+     */
+    public static final int AV01 = 0x61763031; //'av01'
+
+    /**
+     * The data format 'vp09'.
+     */
+    public static final int VP09 = 0x76703039; //'vp09'
+
     /**
      * The data format 'sowt'
      */
     public static final int SOWT = 0x736F7774; //'sowt'
 
+    /**
+     * The data format 'twos'.
+     */
+    public static final int TWOS = 0x74776F73; //'twos'
+
+    /**
+     * The data format 'lpcm'.
+     */
+    public static final int LPCM = 0x6C70636D; //'lpcm'
+
+    /**
+     * The data format 'raw '.
+     */
+    public static final int RAW = 0x72617720; //'raw '
+
+    /**
+     * The data format 'in24'.
+     */
+    public static final int IN24 = 0x696E3234; //'in24'
+
+    /**
+     * The data format 'in32'.
+     */
+    public static final int IN32 = 0x696E3332; //'in32'
+
+    /**
+     * The data format 'fl32'.
+     */
+    public static final int FL32 = 0x666C3332; //'fl32'
+
+    /**
+     * The data format 'fl64'.
+     */
+    public static final int FL64 = 0x666C3634; //'fl64'
+
+    /**
+     * The data format 'ulaw'.
+     */
+    public static final int ULAW = 0x756C6177; //'ulaw'
+
+    /**
+     * The data format 'alaw'.
+     */
+    public static final int ALAW = 0x616C6177; //'alaw'
+
+    /**
+     * The data format 'ima4'.
+     */
+    public static final int IMA4 = 0x696D6134; //'ima4'
+
+    /**
+     * The data format 'mp4a'.
+     */
+    public static final int MP4A = 0x6D703461; //'mp4a'
+
+    /**
+     * The data format 'ac-3'.
+     */
+    public static final int AC_3 = 0x61632D33; //'ac-3'
+
+    /**
+     * The data format 'ec-3'.
+     */
+    public static final int EC_3 = 0x65632D33; //'ec-3'
+
+    /**
+     * The data format 'alac'.
+     */
+    public static final int ALAC = 0x616C6163; //'alac'
+
+    /**
+     * The data format '.mp3'.
+     */
+    public static final int MP3 = 0x2E6D7033; //'.mp3'
+
+    /**
+     * The data format 'Opus'.
+     */
+    public static final int OPUS = 0x4F707573; //'Opus'
+
+    /**
+     * The data format 'fLaC'.
+     */
+    public static final int FLAC = 0x664C6143; //'fLaC'
+
     /**
      * The number of bytes of the reserved part.
      */
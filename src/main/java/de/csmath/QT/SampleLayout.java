@@ -0,0 +1,72 @@
+package de.csmath.QT;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The layouts of sample descriptions in a 'stsd' atom.
+ * The layout of a sample description is picked from its data format.
+ * @see SampleDescription
+ * @author lpfeiler
+ */
+public enum SampleLayout {
+
+    /**
+     * The 86 byte layout of video sample descriptions.
+     */
+    VIDEO("avc1", "avc2", "avc3", "avc4", "hvc1", "hev1", "dvh1", "dvhe",
+          "mp4v", "jpeg", "mjpa", "mjpb", "png ", "tiff", "rle ", "SVQ3",
+          "apch", "apcn", "apcs", "apco", "ap4h", "ap4x",
+          "av01", "vp08", "vp09", "h263", "s263", "CFHD", "AVdn", "AVdh",
+          "dvc ", "dvcp", "dvpp", "dv5n", "dv5p", "dvh5", "dvh6", "dvhp", "dvhq",
+          "ai5p", "ai5q", "ai12", "ai13", "ai15", "ai16", "ai1p", "ai1q",
+          "xdvc", "xd5c", "2vuy", "yuv2", "v210", "v410", "r210"),
+
+    /**
+     * The layout of sound sample descriptions (versions 0, 1 and 2).
+     */
+    SOUND("sowt", "twos", "lpcm", "raw ", "in24", "in32", "fl32", "fl64",
+          "ulaw", "alaw", "ima4", "mp4a", "ac-3", "ec-3", "alac", ".mp3",
+          "Opus", "fLaC"),
+
+    /**
+     * The common layout of all sample descriptions.
+     */
+    GENERIC;
+
+    /**
+     * The layouts of the known data formats.
+     */
+    private static final Map<Integer, SampleLayout> LAYOUTS = new HashMap<>();
+
+    static {
+        for (SampleLayout layout : values()) {
+            for (String format : layout.formats) {
+                LAYOUTS.put(QTProgCompiler.atomNameToInt(format), layout);
+            }
+        }
+    }
+
+    /**
+     * The data formats of this layout.
+     */
+    private final String[] formats;
+
+    /**
+     * Constructs a SampleLayout.
+     * @param formats the data formats of this layout
+     */
+    SampleLayout(String... formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Returns the layout of the sample descriptions of the given data format.
+     * @param dataFormat the data format
+     * @return the layout of the sample descriptions
+     */
+    public static SampleLayout of(int dataFormat) {
+        SampleLayout layout = LAYOUTS.get(dataFormat);
+        return layout != null ? layout : GENERIC;
+    }
+}
@@ -0,0 +1,142 @@
+package de.csmath.QT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents the decoded entries of a sample table atom
+ * (e.g. 'stsz', 'stco' or 'ctts').
+ * The entries are kept in their big-endian file layout, either on the
+ * Java heap, in a direct buffer or in a memory-mapped scratch file.
+ * The lookup methods are the same for every kind of storage.
+ * @author lpfeiler
+ */
+public final class SampleTable {
+
+    /**
+     * The prefix of the names of scratch files.
+     */
+    private static final String SCRATCH_PREFIX = "qt-table";
+
+    /**
+     * The entries of the table.
+     */
+    private final ByteBuffer entries;
+
+    /**
+     * The number of entries.
+     */
+    private final int numEntries;
+
+    /**
+     * The size of one entry in bytes.
+     */
+    private final int entrySize;
+
+    /**
+     * The storage which holds the entries.
+     */
+    private final TableStorage storage;
+
+    /**
+     * Constructs a SampleTable.
+     * @param entries the buffer with the entries in file layout
+     * @param numEntries the number of entries
+     * @param entrySize the size of one entry in bytes
+     * @param storage the storage which holds the entries
+     */
+    public SampleTable(ByteBuffer entries, int numEntries, int entrySize, TableStorage storage) {
+        if ((long) numEntries * entrySize > entries.capacity())
+            throw new IllegalArgumentException("table size mismatch");
+        this.entries = entries.asReadOnlyBuffer();
+        this.numEntries = numEntries;
+        this.entrySize = entrySize;
+        this.storage = storage;
+    }
+
+    /**
+     * Allocates a buffer for the entries of a table.
+     * @param storage the storage of the table
+     * @param length the length of the table in bytes
+     * @param scratchDir the directory of scratch files, or null for the
+     *                   default temporary directory
+     * @return a writable buffer of the given length
+     * @throws IOException
+     */
+    public static ByteBuffer allocate(TableStorage storage, int length,
+                                      Path scratchDir) throws IOException {
+        switch (storage) {
+            case DIRECT:
+                return ByteBuffer.allocateDirect(length);
+            case MAPPED:
+                Path file = scratchDir == null
+                        ? Files.createTempFile(SCRATCH_PREFIX, null)
+                        : Files.createTempFile(scratchDir, SCRATCH_PREFIX, null);
+                try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                    return ch.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                }
+            case HEAP:
+            default:
+                return ByteBuffer.allocate(length);
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Returns the size of one entry in bytes.
+     * @return the size of one entry in bytes
+     */
+    public int getEntrySize() {
+        return entrySize;
+    }
+
+    /**
+     * Returns the storage which holds the entries.
+     * @return the storage which holds the entries
+     */
+    public TableStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Returns a 32-bit field of an entry.
+     * @param index the index of the entry
+     * @param field the index of the 32-bit field within the entry
+     * @return the value of the field
+     */
+    public int getInt(int index, int field) {
+        return entries.getInt(index * entrySize + (field << 2));
+    }
+
+    /**
+     * Returns a 32-bit field of an entry as an unsigned value.
+     * @param index the index of the entry
+     * @param field the index of the 32-bit field within the entry
+     * @return the unsigned value of the field
+     */
+    public long getUnsignedInt(int index, int field) {
+        return getInt(index, field) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Returns a 64-bit field of an entry.
+     * @param index the index of the entry
+     * @param field the index of the 64-bit field within the entry
+     * @return the value of the field
+     */
+    public long getLong(int index, int field) {
+        return entries.getLong(index * entrySize + (field << 3));
+    }
+}
@@ -0,0 +1,196 @@
+package de.csmath.QT;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the flattened segment index of a segmented file.
+ * It holds the file offset, size, presentation time and duration of
+ * every media subsegment of the 'sidx' atoms, so the subsegment of a given
+ * time is found by binary search.
+ * @author lpfeiler
+ */
+public final class SegmentIndex {
+
+    /**
+     * The initial capacity of the arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The ID of the indexed stream (track).
+     */
+    private final int referenceId;
+
+    /**
+     * The time scale of the times and durations.
+     */
+    private final int timeScale;
+
+    /**
+     * The file offsets of the subsegments.
+     */
+    private long[] offsets = new long[INITIAL_CAPACITY];
+
+    /**
+     * The sizes of the subsegments.
+     */
+    private long[] sizes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The presentation times of the subsegments.
+     */
+    private long[] times = new long[INITIAL_CAPACITY];
+
+    /**
+     * The flags of the subsegments, which start with a stream access point.
+     */
+    private boolean[] saps = new boolean[INITIAL_CAPACITY];
+
+    /**
+     * The number of subsegments.
+     */
+    private int numSegments;
+
+    /**
+     * The presentation time after the last subsegment.
+     */
+    private long endTime;
+
+    /**
+     * Constructs an empty SegmentIndex.
+     * @param referenceId the ID of the indexed stream
+     * @param timeScale the time scale of the times and durations
+     */
+    SegmentIndex(int referenceId, int timeScale) {
+        this.referenceId = referenceId;
+        this.timeScale = timeScale;
+    }
+
+    /**
+     * Appends a subsegment.
+     * @param offset the file offset of the subsegment
+     * @param size the size of the subsegment
+     * @param time the presentation time of the subsegment
+     * @param duration the duration of the subsegment
+     * @param sap true iff the subsegment starts with a stream access point
+     */
+    void add(long offset, long size, long time, long duration, boolean sap) {
+        if (numSegments == offsets.length) {
+            int capacity = 2 * numSegments;
+            offsets = Arrays.copyOf(offsets, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+            times = Arrays.copyOf(times, capacity);
+            saps = Arrays.copyOf(saps, capacity);
+        }
+        offsets[numSegments] = offset;
+        sizes[numSegments] = size;
+        times[numSegments] = time;
+        saps[numSegments] = sap;
+        numSegments++;
+        endTime = time + duration;
+    }
+
+    /**
+     * Returns the ID of the indexed stream (track).
+     * @return the ID of the indexed stream
+     */
+    public int getReferenceId() {
+        return referenceId;
+    }
+
+    /**
+     * Returns the time scale of the times and durations.
+     * @return the time scale
+     */
+    public int getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Returns the number of subsegments.
+     * @return the number of subsegments
+     */
+    public int getNumSegments() {
+        return numSegments;
+    }
+
+    /**
+     * Returns the file offset of a subsegment.
+     * @param index the index of the subsegment
+     * @return the file offset of the subsegment
+     */
+    public long getOffset(int index) {
+        checkIndex(index);
+        return offsets[index];
+    }
+
+    /**
+     * Returns the size of a subsegment in bytes.
+     * @param index the index of the subsegment
+     * @return the size of the subsegment
+     */
+    public long getSize(int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+
+    /**
+     * Returns the presentation time of a subsegment.
+     * @param index the index of the subsegment
+     * @return the presentation time of the subsegment
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * Returns the duration of a subsegment.
+     * @param index the index of the subsegment
+     * @return the duration of the subsegment
+     */
+    public long getDuration(int index) {
+        checkIndex(index);
+        return (index + 1 < numSegments ? times[index + 1] : endTime) - times[index];
+    }
+
+    /**
+     * Returns true iff a subsegment starts with a stream access point.
+     * @param index the index of the subsegment
+     * @return true iff the subsegment starts with a stream access point
+     */
+    public boolean startsWithSap(int index) {
+        checkIndex(index);
+        return saps[index];
+    }
+
+    /**
+     * Returns the presentation time after the last subsegment.
+     * @return the end time of the index
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Returns the index of the subsegment, which contains the given
+     * presentation time.
+     * @param time the presentation time in the time scale of the index
+     * @return the index of the subsegment, or -1 if the time is outside
+     *         of the index
+     */
+    public int findSegment(long time) {
+        if (numSegments == 0 || time < times[0] || time >= endTime) return -1;
+        int i = Arrays.binarySearch(times, 0, numSegments, time);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Checks the index of a subsegment.
+     * @param index the index of the subsegment
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= numSegments)
+            throw new IndexOutOfBoundsException("no such segment: " + index);
+    }
+}
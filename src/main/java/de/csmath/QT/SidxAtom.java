@@ -0,0 +1,128 @@
+package de.csmath.QT;
+
+/**
+ * The SidxAtom class represents the Segment Index Atom ('sidx').
+ * It indexes the subsegments of a segmented file: every entry references
+ * either a run of media data (movie fragments) or another 'sidx' atom.
+ * @author lpfeiler
+ */
+public final class SidxAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 12;
+
+    /**
+     * The ID of the indexed stream (track).
+     */
+    private final int referenceId;
+
+    /**
+     * The time scale of the durations.
+     */
+    private final int timeScale;
+
+    /**
+     * The presentation time of the first subsegment.
+     */
+    private final long earliestPresentationTime;
+
+    /**
+     * The distance from the end of this atom to the first subsegment.
+     */
+    private final long firstOffset;
+
+    /**
+     * Constructs a SidxAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'sidx')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param referenceId the ID of the indexed stream
+     * @param timeScale the time scale of the durations
+     * @param earliestPresentationTime the presentation time of the first subsegment
+     * @param firstOffset the distance from the end of the atom to the first subsegment
+     * @param table the entries (reference type and size, duration, SAP info)
+     */
+    public SidxAtom(int size, int type, byte version, byte[] flags, int referenceId,
+                    int timeScale, long earliestPresentationTime, long firstOffset,
+                    SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.SIDX)
+            throw new IllegalArgumentException("no sidx type");
+        this.referenceId = referenceId;
+        this.timeScale = timeScale;
+        this.earliestPresentationTime = earliestPresentationTime;
+        this.firstOffset = firstOffset;
+    }
+
+    /**
+     * Returns the ID of the indexed stream (track).
+     * @return the ID of the indexed stream
+     */
+    public int getReferenceId() {
+        return referenceId;
+    }
+
+    /**
+     * Returns the time scale of the durations.
+     * @return the time scale
+     */
+    public int getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Returns the presentation time of the first subsegment.
+     * @return the presentation time of the first subsegment
+     */
+    public long getEarliestPresentationTime() {
+        return earliestPresentationTime;
+    }
+
+    /**
+     * Returns the distance from the end of this atom to the first subsegment.
+     * @return the offset of the first subsegment
+     */
+    public long getFirstOffset() {
+        return firstOffset;
+    }
+
+    /**
+     * Returns true iff an entry references another 'sidx' atom.
+     * @param index the index of the entry
+     * @return true iff the entry references a 'sidx' atom
+     */
+    public boolean isIndexReference(int index) {
+        return getTable().getInt(index, 0) < 0;
+    }
+
+    /**
+     * Returns the size of the referenced subsegment in bytes.
+     * @param index the index of the entry
+     * @return the size of the referenced subsegment
+     */
+    public long getReferencedSize(int index) {
+        return getTable().getInt(index, 0) & 0x7FFFFFFFL;
+    }
+
+    /**
+     * Returns the duration of the referenced subsegment.
+     * @param index the index of the entry
+     * @return the duration of the referenced subsegment
+     */
+    public long getSubsegmentDuration(int index) {
+        return getTable().getUnsignedInt(index, 1);
+    }
+
+    /**
+     * Returns true iff the referenced subsegment starts with a stream
+     * access point.
+     * @param index the index of the entry
+     * @return true iff the subsegment starts with a stream access point
+     */
+    public boolean startsWithSap(int index) {
+        return getTable().getInt(index, 2) < 0;
+    }
+}
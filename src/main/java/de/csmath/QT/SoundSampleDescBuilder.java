@@ -0,0 +1,307 @@
+package de.csmath.QT;
+
+import java.util.Collection;
+
+/**
+ * This class represents a builder of a SoundSampleDescription.
+ * @author lpfeiler
+ */
+public class SoundSampleDescBuilder {
+
+    /**
+     * @see SampleDescription#size
+     */
+    private int size;
+
+    /**
+     * @see SampleDescription#dataFormat
+     */
+    private int dataFormat;
+
+    /**
+     * @see SampleDescription#reserved1
+     */
+    private byte[] reserved1;
+
+    /**
+     * @see SampleDescription#refIndex
+     */
+    private short refIndex;
+
+    /**
+     * @see SoundSampleDescription#version
+     */
+    private short version;
+
+    /**
+     * @see SoundSampleDescription#revLevel
+     */
+    private short revLevel;
+
+    /**
+     * @see SoundSampleDescription#vendor
+     */
+    private int vendor;
+
+    /**
+     * @see SoundSampleDescription#numChannels
+     */
+    private int numChannels;
+
+    /**
+     * @see SoundSampleDescription#sampleSize
+     */
+    private int sampleSize;
+
+    /**
+     * @see SoundSampleDescription#compressionId
+     */
+    private short compressionId;
+
+    /**
+     * @see SoundSampleDescription#sampleRate
+     */
+    private double sampleRate;
+
+    /**
+     * @see SoundSampleDescription#samplesPerPacket
+     */
+    private int samplesPerPacket;
+
+    /**
+     * @see SoundSampleDescription#bytesPerPacket
+     */
+    private int bytesPerPacket;
+
+    /**
+     * @see SoundSampleDescription#bytesPerFrame
+     */
+    private int bytesPerFrame;
+
+    /**
+     * @see SoundSampleDescription#bytesPerSample
+     */
+    private int bytesPerSample;
+
+    /**
+     * @see SoundSampleDescription#formatFlags
+     */
+    private int formatFlags;
+
+    /**
+     * @see SoundSampleDescription#constBytesPerPacket
+     */
+    private int constBytesPerPacket;
+
+    /**
+     * @see SoundSampleDescription#constFramesPerPacket
+     */
+    private int constFramesPerPacket;
+
+    /**
+     * @see SoundSampleDescription#extensions
+     */
+    private Collection<QTAtom> extensions;
+
+    /**
+     * Builds a new SoundSampleDescription object.
+     * @return a new SoundSampleDescription object
+     */
+    public SoundSampleDescription build() {
+        return new SoundSampleDescription(size, dataFormat, reserved1, refIndex,
+                version, revLevel, vendor, numChannels, sampleSize, compressionId,
+                sampleRate, samplesPerPacket, bytesPerPacket, bytesPerFrame,
+                bytesPerSample, formatFlags, constBytesPerPacket, constFramesPerPacket,
+                extensions);
+    }
+
+    /**
+     * Sets the size of the sample description in the file.
+     * @param size the size of the sample description in the file
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withSize(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Sets the data format.
+     * @param dataFormat the data format
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withDataFormat(int dataFormat) {
+        this.dataFormat = dataFormat;
+        return this;
+    }
+
+    /**
+     * Sets the bytes of the reserved space.
+     * @param reserved1 the bytes of the reserved space
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withReserved1(byte[] reserved1) {
+        this.reserved1 = reserved1;
+        return this;
+    }
+
+    /**
+     * Sets the data reference index.
+     * @param refIndex the data reference index
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withRefIndex(short refIndex) {
+        this.refIndex = refIndex;
+        return this;
+    }
+
+    /**
+     * Sets the version of the sample description.
+     * @param version the version of the sample description
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withVersion(short version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Sets the revision level.
+     * @param revLevel the revision level
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withRevLevel(short revLevel) {
+        this.revLevel = revLevel;
+        return this;
+    }
+
+    /**
+     * Sets the vendor of the compressor.
+     * @param vendor the vendor of the compressor
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withVendor(int vendor) {
+        this.vendor = vendor;
+        return this;
+    }
+
+    /**
+     * Sets the number of sound channels.
+     * @param numChannels the number of sound channels
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withNumChannels(int numChannels) {
+        this.numChannels = numChannels;
+        return this;
+    }
+
+    /**
+     * Sets the number of bits in each uncompressed sample.
+     * @param sampleSize the number of bits in each uncompressed sample
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+        return this;
+    }
+
+    /**
+     * Sets the compression ID.
+     * @param compressionId the compression ID
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withCompressionId(short compressionId) {
+        this.compressionId = compressionId;
+        return this;
+    }
+
+    /**
+     * Sets the sample rate in samples per second.
+     * @param sampleRate the sample rate in samples per second
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+        return this;
+    }
+
+    /**
+     * Sets the number of samples per packet.
+     * @param samplesPerPacket the number of samples per packet
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withSamplesPerPacket(int samplesPerPacket) {
+        this.samplesPerPacket = samplesPerPacket;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes per packet and channel.
+     * @param bytesPerPacket the number of bytes per packet and channel
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withBytesPerPacket(int bytesPerPacket) {
+        this.bytesPerPacket = bytesPerPacket;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes per frame.
+     * @param bytesPerFrame the number of bytes per frame
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withBytesPerFrame(int bytesPerFrame) {
+        this.bytesPerFrame = bytesPerFrame;
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes per sample.
+     * @param bytesPerSample the number of bytes per sample
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withBytesPerSample(int bytesPerSample) {
+        this.bytesPerSample = bytesPerSample;
+        return this;
+    }
+
+    /**
+     * Sets the format specific flags.
+     * @param formatFlags the format specific flags
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withFormatFlags(int formatFlags) {
+        this.formatFlags = formatFlags;
+        return this;
+    }
+
+    /**
+     * Sets the constant number of bytes per packet.
+     * @param constBytesPerPacket the constant number of bytes per packet
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withConstBytesPerPacket(int constBytesPerPacket) {
+        this.constBytesPerPacket = constBytesPerPacket;
+        return this;
+    }
+
+    /**
+     * Sets the constant number of frames per packet.
+     * @param constFramesPerPacket the constant number of frames per packet
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withConstFramesPerPacket(int constFramesPerPacket) {
+        this.constFramesPerPacket = constFramesPerPacket;
+        return this;
+    }
+
+    /**
+     * Sets the attached extensions.
+     * @param extensions a collection of extensions
+     * @return a reference to this object
+     */
+    public SoundSampleDescBuilder withExtensions(Collection<QTAtom> extensions) {
+        this.extensions = extensions;
+        return this;
+    }
+}
@@ -0,0 +1,283 @@
+package de.csmath.QT;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * This class represents a sound sample description (versions 0, 1 and 2).
+ * @author lpfeiler
+ */
+public class SoundSampleDescription extends SampleDescription {
+
+    /**
+     * The size of a version 0 sound sample description, without extensions.
+     */
+    public static final int SIZE_V0 = 36;
+
+    /**
+     * The size of a version 1 sound sample description, without extensions.
+     */
+    public static final int SIZE_V1 = 52;
+
+    /**
+     * The size of a version 2 sound sample description, without extensions.
+     */
+    public static final int SIZE_V2 = 72;
+
+    /**
+     * The version of the sound sample description.
+     */
+    private final short version;
+
+    /**
+     * The revision level.
+     */
+    private final short revLevel;
+
+    /**
+     * The vendor of the compressor.
+     */
+    private final int vendor;
+
+    /**
+     * The number of sound channels.
+     */
+    private final int numChannels;
+
+    /**
+     * The number of bits in each uncompressed sound sample.
+     */
+    private final int sampleSize;
+
+    /**
+     * The compression ID (version 0 and 1).
+     */
+    private final short compressionId;
+
+    /**
+     * The rate of the uncompressed sound in samples per second.
+     */
+    private final double sampleRate;
+
+    /**
+     * The number of uncompressed samples in a compressed packet (version 1).
+     */
+    private final int samplesPerPacket;
+
+    /**
+     * The number of bytes in a compressed packet per channel (version 1).
+     */
+    private final int bytesPerPacket;
+
+    /**
+     * The number of bytes in a compressed frame of all channels (version 1).
+     */
+    private final int bytesPerFrame;
+
+    /**
+     * The size of an uncompressed sample in bytes (version 1).
+     */
+    private final int bytesPerSample;
+
+    /**
+     * The format specific flags (version 2).
+     */
+    private final int formatFlags;
+
+    /**
+     * The number of bytes per packet, if constant (version 2).
+     */
+    private final int constBytesPerPacket;
+
+    /**
+     * The number of LPCM frames per packet, if constant (version 2).
+     */
+    private final int constFramesPerPacket;
+
+    /**
+     * The extensions that are attached to this sample description.
+     */
+    private final Collection<QTAtom> extensions;
+
+    /**
+     * Constructs a SoundSampleDescription.
+     * @param size the size of the sample description in the file
+     * @param dataFormat the data format
+     * @param reserved1 the reserved part
+     * @param refIndex the data reference index
+     * @param version the version of the sound sample description
+     * @param revLevel the revision level
+     * @param vendor the vendor of the compressor
+     * @param numChannels the number of sound channels
+     * @param sampleSize the number of bits in each uncompressed sample
+     * @param compressionId the compression ID
+     * @param sampleRate the sample rate in samples per second
+     * @param samplesPerPacket the number of samples per packet
+     * @param bytesPerPacket the number of bytes per packet and channel
+     * @param bytesPerFrame the number of bytes per frame
+     * @param bytesPerSample the number of bytes per sample
+     * @param formatFlags the format specific flags
+     * @param constBytesPerPacket the constant number of bytes per packet
+     * @param constFramesPerPacket the constant number of frames per packet
+     * @param extensions the attached extensions
+     */
+    public SoundSampleDescription(int size, int dataFormat, byte[] reserved1, short refIndex,
+                                  short version, short revLevel, int vendor,
+                                  int numChannels, int sampleSize, short compressionId,
+                                  double sampleRate, int samplesPerPacket, int bytesPerPacket,
+                                  int bytesPerFrame, int bytesPerSample, int formatFlags,
+                                  int constBytesPerPacket, int constFramesPerPacket,
+                                  Collection<QTAtom> extensions) {
+        super(size, dataFormat, reserved1, refIndex);
+        this.version = version;
+        this.revLevel = revLevel;
+        this.vendor = vendor;
+        this.numChannels = numChannels;
+        this.sampleSize = sampleSize;
+        this.compressionId = compressionId;
+        this.sampleRate = sampleRate;
+        this.samplesPerPacket = samplesPerPacket;
+        this.bytesPerPacket = bytesPerPacket;
+        this.bytesPerFrame = bytesPerFrame;
+        this.bytesPerSample = bytesPerSample;
+        this.formatFlags = formatFlags;
+        this.constBytesPerPacket = constBytesPerPacket;
+        this.constFramesPerPacket = constFramesPerPacket;
+        this.extensions = new LinkedList<QTAtom>();
+        for (QTAtom a : extensions) {
+            this.extensions.add(a);
+        }
+    }
+
+    /**
+     * Returns the version of the sound sample description.
+     * @return the version of the sound sample description
+     */
+    public short getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the revision level.
+     * @return the revision level
+     */
+    public short getRevLevel() {
+        return revLevel;
+    }
+
+    /**
+     * Returns the vendor of the compressor.
+     * @return the vendor of the compressor
+     */
+    public int getVendor() {
+        return vendor;
+    }
+
+    /**
+     * Returns the number of sound channels.
+     * @return the number of sound channels
+     */
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    /**
+     * Returns the number of bits in each uncompressed sound sample.
+     * @return the number of bits in each sample
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Returns the compression ID.
+     * @return the compression ID
+     */
+    public short getCompressionId() {
+        return compressionId;
+    }
+
+    /**
+     * Returns the sample rate in samples per second.
+     * @return the sample rate
+     */
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Returns the number of uncompressed samples in a compressed packet.
+     * @return the number of samples per packet
+     */
+    public int getSamplesPerPacket() {
+        return samplesPerPacket;
+    }
+
+    /**
+     * Returns the number of bytes in a compressed packet per channel.
+     * @return the number of bytes per packet
+     */
+    public int getBytesPerPacket() {
+        return bytesPerPacket;
+    }
+
+    /**
+     * Returns the number of bytes in a compressed frame of all channels.
+     * @return the number of bytes per frame
+     */
+    public int getBytesPerFrame() {
+        return bytesPerFrame;
+    }
+
+    /**
+     * Returns the size of an uncompressed sample in bytes.
+     * @return the number of bytes per sample
+     */
+    public int getBytesPerSample() {
+        return bytesPerSample;
+    }
+
+    /**
+     * Returns the format specific flags (version 2).
+     * @return the format specific flags
+     */
+    public int getFormatFlags() {
+        return formatFlags;
+    }
+
+    /**
+     * Returns the number of bytes per packet, if constant (version 2).
+     * @return the constant number of bytes per packet
+     */
+    public int getConstBytesPerPacket() {
+        return constBytesPerPacket;
+    }
+
+    /**
+     * Returns the number of LPCM frames per packet, if constant (version 2).
+     * @return the constant number of frames per packet
+     */
+    public int getConstFramesPerPacket() {
+        return constFramesPerPacket;
+    }
+
+    /**
+     * Returns the elementary stream descriptor of the sound, if any.
+     * @return the 'esds' extension, or null
+     */
+    public EsdsAtom getEsds() {
+        for (QTAtom a : extensions) {
+            if (a instanceof EsdsAtom) return (EsdsAtom) a;
+        }
+        return null;
+    }
+
+    /**
+     * Returns an iterator over the extensions.
+     * @return an iterator over the extensions
+     */
+    public Iterator<QTAtom> getExtIterator() {
+        return extensions.iterator();
+    }
+}
@@ -0,0 +1,52 @@
+package de.csmath.QT;
+
+/**
+ * The StcoAtom class represents the QuickTime Chunk Offset Atoms
+ * ('stco' and 'co64').
+ * It specifies the file offset of each chunk of the media.
+ * @author lpfeiler
+ */
+public final class StcoAtom extends TableAtom {
+
+    /**
+     * The size of an entry of a 'stco' atom in the file.
+     */
+    public static final int ENTRY_SIZE = 4;
+
+    /**
+     * The size of an entry of a 'co64' atom in the file.
+     */
+    public static final int ENTRY_SIZE_64 = 8;
+
+    /**
+     * Constructs a StcoAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stco' or 'co64')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the chunk offsets
+     */
+    public StcoAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.STCO && type != QTAtom.CO64)
+            throw new IllegalArgumentException("no stco or co64 type");
+    }
+
+    /**
+     * Returns the number of chunks.
+     * @return the number of chunks
+     */
+    public int getNumChunks() {
+        return getNumEntries();
+    }
+
+    /**
+     * Returns the file offset of a chunk.
+     * @param index the index of the chunk (starting with 0)
+     * @return the file offset of the chunk
+     */
+    public long getChunkOffset(int index) {
+        return getType() == QTAtom.CO64 ? getTable().getLong(index, 0)
+                                        : getTable().getUnsignedInt(index, 0);
+    }
+}
@@ -0,0 +1,55 @@
+package de.csmath.QT;
+
+/**
+ * The StscAtom class represents the QuickTime Sample-to-Chunk Atom ('stsc').
+ * It maps the samples of the media to the chunks, which contain them.
+ * @author lpfeiler
+ */
+public final class StscAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 12;
+
+    /**
+     * Constructs a StscAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stsc')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the entries (first chunk, samples per chunk, sample description ID)
+     */
+    public StscAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.STSC)
+            throw new IllegalArgumentException("no stsc type");
+    }
+
+    /**
+     * Returns the number of the first chunk of an entry (starting with 1).
+     * @param index the index of the entry
+     * @return the number of the first chunk of the entry
+     */
+    public int getFirstChunk(int index) {
+        return getTable().getInt(index, 0);
+    }
+
+    /**
+     * Returns the number of samples in each chunk of an entry.
+     * @param index the index of the entry
+     * @return the number of samples in each chunk
+     */
+    public int getSamplesPerChunk(int index) {
+        return getTable().getInt(index, 1);
+    }
+
+    /**
+     * Returns the ID of the sample description of an entry (starting with 1).
+     * @param index the index of the entry
+     * @return the ID of the sample description
+     */
+    public int getSampleDescId(int index) {
+        return getTable().getInt(index, 2);
+    }
+}
@@ -0,0 +1,37 @@
+package de.csmath.QT;
+
+/**
+ * The StssAtom class represents the QuickTime Sync Sample Atom ('stss').
+ * It lists the key frames of the media.
+ * @author lpfeiler
+ */
+public final class StssAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 4;
+
+    /**
+     * Constructs a StssAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stss')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the numbers of the sync samples in ascending order
+     */
+    public StssAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.STSS)
+            throw new IllegalArgumentException("no stss type");
+    }
+
+    /**
+     * Returns the number of a sync sample (starting with 1).
+     * @param index the index of the entry
+     * @return the number of the sync sample
+     */
+    public int getSyncSample(int index) {
+        return getTable().getInt(index, 0);
+    }
+}
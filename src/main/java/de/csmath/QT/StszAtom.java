@@ -0,0 +1,69 @@
+package de.csmath.QT;
+
+/**
+ * The StszAtom class represents the QuickTime Sample Size Atom ('stsz').
+ * It specifies the size of each sample in the media.
+ * @author lpfeiler
+ */
+public final class StszAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 4;
+
+    /**
+     * The size of all samples, or 0 if the samples have different sizes.
+     */
+    private final int sampleSize;
+
+    /**
+     * The number of samples.
+     */
+    private final int numSamples;
+
+    /**
+     * Constructs a StszAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stsz')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param sampleSize the size of all samples, or 0
+     * @param numSamples the number of samples
+     * @param table the sample sizes (empty, if sampleSize is not 0)
+     */
+    public StszAtom(int size, int type, byte version, byte[] flags,
+                    int sampleSize, int numSamples, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.STSZ)
+            throw new IllegalArgumentException("no stsz type");
+        this.sampleSize = sampleSize;
+        this.numSamples = numSamples;
+    }
+
+    /**
+     * Returns the size of all samples, or 0 if the samples have different sizes.
+     * @return the size of all samples, or 0
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Returns the number of samples.
+     * @return the number of samples
+     */
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    /**
+     * Returns the size of a sample.
+     * @param index the index of the sample (starting with 0)
+     * @return the size of the sample in bytes
+     */
+    public long getSampleSize(int index) {
+        return sampleSize != 0 ? sampleSize & 0xFFFFFFFFL
+                               : getTable().getUnsignedInt(index, 0);
+    }
+}
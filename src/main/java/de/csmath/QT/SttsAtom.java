@@ -0,0 +1,46 @@
+package de.csmath.QT;
+
+/**
+ * The SttsAtom class represents the QuickTime Time-to-Sample Atom ('stts').
+ * It maps the samples of the media to their decoding time.
+ * @author lpfeiler
+ */
+public final class SttsAtom extends TableAtom {
+
+    /**
+     * The size of an entry in the file.
+     */
+    public static final int ENTRY_SIZE = 8;
+
+    /**
+     * Constructs a SttsAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'stts')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the entries (sample count, sample duration)
+     */
+    public SttsAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.STTS)
+            throw new IllegalArgumentException("no stts type");
+    }
+
+    /**
+     * Returns the number of consecutive samples of an entry.
+     * @param index the index of the entry
+     * @return the number of consecutive samples with the same duration
+     */
+    public int getSampleCount(int index) {
+        return getTable().getInt(index, 0);
+    }
+
+    /**
+     * Returns the sample duration of an entry.
+     * @param index the index of the entry
+     * @return the duration of each sample in media time scale units
+     */
+    public int getSampleDuration(int index) {
+        return getTable().getInt(index, 1);
+    }
+}
@@ -0,0 +1,261 @@
+package de.csmath.QT;
+
+/**
+ * This class represents the sync samples (key frames) of a track as a
+ * compressed bitmap with rank and select support.
+ * The sync samples are Elias-Fano coded: the low bits of each sample index
+ * are packed into an array, the high bits are unary coded in a bit vector
+ * with a rank directory. This takes about 2 + log2(samples / sync samples)
+ * bits per sync sample and answers membership, rank and select queries in
+ * constant or logarithmic time.
+ * A track without a sync sample atom ('stss') has only sync samples; this
+ * case is represented without any table.
+ * All sample indices start with 0, unlike the sample numbers of 'stss'.
+ * @author lpfeiler
+ */
+public final class SyncSampleBitmap {
+
+    /**
+     * The number of samples of the track.
+     */
+    private final int numSamples;
+
+    /**
+     * The number of sync samples of the track.
+     */
+    private final int numSync;
+
+    /**
+     * The number of low bits of each sync sample index.
+     */
+    private final int lowBits;
+
+    /**
+     * The packed low bits of the sync sample indices.
+     */
+    private final long[] lows;
+
+    /**
+     * The unary coded high bits of the sync sample indices,
+     * or null if every sample is a sync sample.
+     */
+    private final long[] highs;
+
+    /**
+     * The number of set bits in the high bit vector before each word.
+     */
+    private final int[] onesBefore;
+
+    /**
+     * Constructs a SyncSampleBitmap.
+     * Entries of the sync sample atom, which are out of range or not in
+     * ascending order, are ignored.
+     * @param stss the sync sample atom, or null if every sample is a sync sample
+     * @param numSamples the number of samples of the track
+     */
+    public SyncSampleBitmap(StssAtom stss, int numSamples) {
+        this.numSamples = numSamples;
+        if (stss == null) {
+            numSync = numSamples;
+            lowBits = 0;
+            lows = null;
+            highs = null;
+            onesBefore = null;
+            return;
+        }
+        int m = 0;
+        int last = -1;
+        for (int i=0; i < stss.getNumEntries(); i++) {
+            int x = stss.getSyncSample(i) - 1;
+            if (x > last && x < numSamples) {
+                m++;
+                last = x;
+            }
+        }
+        numSync = m;
+        lowBits = m > 0 && numSamples > m ? 63 - Long.numberOfLeadingZeros(numSamples / m) : 0;
+        lows = new long[(int) (((long) m * lowBits + 63) >>> 6)];
+        highs = new long[(int) (((long) m + (numSamples >>> lowBits) + 1 + 63) >>> 6)];
+        onesBefore = new int[highs.length];
+        last = -1;
+        int k = 0;
+        for (int i=0; i < stss.getNumEntries(); i++) {
+            int x = stss.getSyncSample(i) - 1;
+            if (x > last && x < numSamples) {
+                setLow(k, x & ((1 << lowBits) - 1));
+                long pos = (long) (x >>> lowBits) + k;
+                highs[(int) (pos >>> 6)] |= 1L << pos;
+                k++;
+                last = x;
+            }
+        }
+        int ones = 0;
+        for (int w=0; w < highs.length; w++) {
+            onesBefore[w] = ones;
+            ones += Long.bitCount(highs[w]);
+        }
+    }
+
+    /**
+     * Returns the number of samples of the track.
+     * @return the number of samples
+     */
+    public int getNumSamples() {
+        return numSamples;
+    }
+
+    /**
+     * Returns the number of sync samples of the track.
+     * @return the number of sync samples
+     */
+    public int getNumSyncSamples() {
+        return numSync;
+    }
+
+    /**
+     * Returns true iff every sample is a sync sample.
+     * @return true iff every sample is a sync sample
+     */
+    public boolean isAllSync() {
+        return highs == null;
+    }
+
+    /**
+     * Returns true iff the given sample is a sync sample.
+     * @param sample the index of the sample
+     * @return true iff the sample is a sync sample
+     */
+    public boolean isSync(int sample) {
+        if (sample < 0 || sample >= numSamples) return false;
+        int k = rank(sample);
+        return k < numSync && select(k) == sample;
+    }
+
+    /**
+     * Returns the number of sync samples before the given sample.
+     * @param sample the index of the sample
+     * @return the number of sync samples with a smaller index
+     */
+    public int rank(int sample) {
+        if (sample <= 0) return 0;
+        if (sample >= numSamples) return numSync;
+        if (highs == null) return sample;
+        int hi = sample >>> lowBits;
+        long low = sample & ((1 << lowBits) - 1);
+        long pos = hi == 0 ? 0 : select0(hi - 1) + 1;
+        int k = (int) (pos - hi);
+        while (k < numSync && (highs[(int) (pos >>> 6)] & (1L << pos)) != 0
+                && getLow(k) < low) {
+            k++;
+            pos++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the index of the k-th sync sample.
+     * @param k the number of the sync sample (starting with 0)
+     * @return the index of the sync sample, or -1 if there is none
+     */
+    public int select(int k) {
+        if (k < 0 || k >= numSync) return -1;
+        if (highs == null) return k;
+        int lo = 0;
+        int hi = onesBefore.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (onesBefore[mid] <= k) lo = mid;
+            else hi = mid - 1;
+        }
+        long pos = ((long) lo << 6) + nthSetBit(highs[lo], k - onesBefore[lo]);
+        return (int) (((pos - k) << lowBits) | getLow(k));
+    }
+
+    /**
+     * Returns the first sync sample at or after the given sample.
+     * @param sample the index of the sample
+     * @return the index of the sync sample, or -1 if there is none
+     */
+    public int nextSync(int sample) {
+        return select(rank(sample));
+    }
+
+    /**
+     * Returns the last sync sample at or before the given sample.
+     * @param sample the index of the sample
+     * @return the index of the sync sample, or -1 if there is none
+     */
+    public int prevSync(int sample) {
+        if (sample < 0) return -1;
+        return select(rank(sample + 1) - 1);
+    }
+
+    /**
+     * Returns the number of sync samples in a range of samples.
+     * @param from the index of the first sample (inclusive)
+     * @param to the index of the last sample (exclusive)
+     * @return the number of sync samples in the range
+     */
+    public int countSync(int from, int to) {
+        return to <= from ? 0 : rank(to) - rank(from);
+    }
+
+    /**
+     * Returns the position of the j-th unset bit of the high bit vector.
+     * @param j the number of the unset bit (starting with 0)
+     * @return the position of the unset bit
+     */
+    private long select0(int j) {
+        int lo = 0;
+        int hi = onesBefore.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (((long) mid << 6) - onesBefore[mid] <= j) lo = mid;
+            else hi = mid - 1;
+        }
+        long zerosBefore = ((long) lo << 6) - onesBefore[lo];
+        return ((long) lo << 6) + nthSetBit(~highs[lo], (int) (j - zerosBefore));
+    }
+
+    /**
+     * Returns the position of the n-th set bit of a word.
+     * @param word the word
+     * @param n the number of the set bit (starting with 0)
+     * @return the position of the set bit within the word
+     */
+    private static int nthSetBit(long word, int n) {
+        for (int i=0; i < n; i++) {
+            word &= word - 1;
+        }
+        return Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the low bits of the k-th sync sample.
+     * @param k the number of the sync sample
+     * @return the low bits of its index
+     */
+    private long getLow(int k) {
+        if (lowBits == 0) return 0;
+        long bit = (long) k * lowBits;
+        int w = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        long value = lows[w] >>> shift;
+        if (shift + lowBits > 64) value |= lows[w + 1] << (64 - shift);
+        return value & ((1L << lowBits) - 1);
+    }
+
+    /**
+     * Sets the low bits of the k-th sync sample.
+     * @param k the number of the sync sample
+     * @param value the low bits of its index
+     */
+    private void setLow(int k, long value) {
+        if (lowBits == 0) return;
+        long bit = (long) k * lowBits;
+        int w = (int) (bit >>> 6);
+        int shift = (int) (bit & 63);
+        lows[w] |= value << shift;
+        if (shift + lowBits > 64) lows[w + 1] |= value >>> (64 - shift);
+    }
+}
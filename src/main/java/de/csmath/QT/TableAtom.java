@@ -0,0 +1,70 @@
+package de.csmath.QT;
+
+/**
+ * This class provides a skeletal implementation of the atoms of a sample
+ * table ('stbl'), whose contents are a table of fixed size entries.
+ * @author lpfeiler
+ */
+public abstract class TableAtom extends QTAtom {
+
+    /**
+     * The number of bytes for future flags.
+     */
+    public static final int FLAGS_SIZE = 3;
+
+    /**
+     * The version of the atom.
+     */
+    private final byte version;
+
+    /**
+     * Flags (for future purpose)
+     */
+    private final byte[] flags = new byte[FLAGS_SIZE];
+
+    /**
+     * The entries of the atom.
+     */
+    private final SampleTable table;
+
+    /**
+     * Constructs a TableAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param table the entries of the atom
+     */
+    public TableAtom(int size, int type, byte version, byte[] flags, SampleTable table) {
+        super(size, type);
+        this.version = version;
+        for (int i=0; i < flags.length && i < this.flags.length; i++) {
+            this.flags[i] = flags[i];
+        }
+        this.table = table;
+    }
+
+    /**
+     * Returns the version of the atom.
+     * @return the version of the atom
+     */
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int getNumEntries() {
+        return table.getNumEntries();
+    }
+
+    /**
+     * Returns the table of entries.
+     * @return the table of entries
+     */
+    public SampleTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,25 @@
+package de.csmath.QT;
+
+/**
+ * The storage options for decoded sample tables.
+ * @see SampleTable
+ * @author lpfeiler
+ */
+public enum TableStorage {
+
+    /**
+     * Keep the table in a byte array on the Java heap.
+     */
+    HEAP,
+
+    /**
+     * Keep the table in a direct ByteBuffer outside of the Java heap.
+     */
+    DIRECT,
+
+    /**
+     * Keep the table in a memory-mapped scratch file.
+     */
+    MAPPED
+
+}
@@ -0,0 +1,50 @@
+package de.csmath.QT;
+
+/**
+ * The TfdtAtom class represents the Track Fragment Decode Time Atom ('tfdt').
+ * It holds the decode time of the first sample of a track fragment.
+ * @author lpfeiler
+ */
+public final class TfdtAtom extends QTAtom {
+
+    /**
+     * The version of the atom.
+     */
+    private final byte version;
+
+    /**
+     * The decode time of the first sample in media time scale units.
+     */
+    private final long baseMediaDecodeTime;
+
+    /**
+     * Constructs a TfdtAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'tfdt'
+     * @param version the version of the atom
+     * @param baseMediaDecodeTime the decode time of the first sample
+     */
+    public TfdtAtom(int size, int type, byte version, long baseMediaDecodeTime) {
+        super(size, type);
+        if (type != QTAtom.TFDT)
+            throw new IllegalArgumentException("no tfdt type");
+        this.version = version;
+        this.baseMediaDecodeTime = baseMediaDecodeTime;
+    }
+
+    /**
+     * Returns the version of the atom.
+     * @return the version of the atom
+     */
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the decode time of the first sample in media time scale units.
+     * @return the decode time of the first sample
+     */
+    public long getBaseMediaDecodeTime() {
+        return baseMediaDecodeTime;
+    }
+}
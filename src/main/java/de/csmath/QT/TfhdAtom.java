@@ -0,0 +1,172 @@
+package de.csmath.QT;
+
+/**
+ * The TfhdAtom class represents the Track Fragment Header Atom ('tfhd').
+ * It identifies the track of a track fragment and may override the
+ * default values of the 'trex' atom of the track.
+ * @author lpfeiler
+ */
+public final class TfhdAtom extends QTAtom {
+
+    /**
+     * The flag of an explicit base data offset.
+     */
+    public static final int BASE_DATA_OFFSET_PRESENT = 0x000001;
+
+    /**
+     * The flag of an explicit sample description index.
+     */
+    public static final int SAMPLE_DESC_INDEX_PRESENT = 0x000002;
+
+    /**
+     * The flag of an explicit default sample duration.
+     */
+    public static final int DEFAULT_DURATION_PRESENT = 0x000008;
+
+    /**
+     * The flag of an explicit default sample size.
+     */
+    public static final int DEFAULT_SIZE_PRESENT = 0x000010;
+
+    /**
+     * The flag of explicit default sample flags.
+     */
+    public static final int DEFAULT_FLAGS_PRESENT = 0x000020;
+
+    /**
+     * The flag of a fragment without samples.
+     */
+    public static final int DURATION_IS_EMPTY = 0x010000;
+
+    /**
+     * The flag of a base data offset at the start of the 'moof' atom.
+     */
+    public static final int DEFAULT_BASE_IS_MOOF = 0x020000;
+
+    /**
+     * The flags of the atom.
+     */
+    private final int tfFlags;
+
+    /**
+     * The ID of the track.
+     */
+    private final int trackId;
+
+    /**
+     * The base data offset.
+     */
+    private final long baseDataOffset;
+
+    /**
+     * The index of the sample description.
+     */
+    private final int sampleDescIndex;
+
+    /**
+     * The default duration of a sample.
+     */
+    private final int defaultSampleDuration;
+
+    /**
+     * The default size of a sample.
+     */
+    private final int defaultSampleSize;
+
+    /**
+     * The default flags of a sample.
+     */
+    private final int defaultSampleFlags;
+
+    /**
+     * Constructs a TfhdAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'tfhd'
+     * @param tfFlags the flags of the atom
+     * @param trackId the ID of the track
+     * @param baseDataOffset the base data offset
+     * @param sampleDescIndex the index of the sample description
+     * @param defaultSampleDuration the default duration of a sample
+     * @param defaultSampleSize the default size of a sample
+     * @param defaultSampleFlags the default flags of a sample
+     */
+    public TfhdAtom(int size, int type, int tfFlags, int trackId, long baseDataOffset,
+                    int sampleDescIndex, int defaultSampleDuration,
+                    int defaultSampleSize, int defaultSampleFlags) {
+        super(size, type);
+        if (type != QTAtom.TFHD)
+            throw new IllegalArgumentException("no tfhd type");
+        this.tfFlags = tfFlags;
+        this.trackId = trackId;
+        this.baseDataOffset = baseDataOffset;
+        this.sampleDescIndex = sampleDescIndex;
+        this.defaultSampleDuration = defaultSampleDuration;
+        this.defaultSampleSize = defaultSampleSize;
+        this.defaultSampleFlags = defaultSampleFlags;
+    }
+
+    /**
+     * Returns the flags of the atom.
+     * @return the flags of the atom
+     */
+    public int getTfFlags() {
+        return tfFlags;
+    }
+
+    /**
+     * Returns true iff the given flag is set.
+     * @param flag the flag, e.g. BASE_DATA_OFFSET_PRESENT
+     * @return true iff the flag is set
+     */
+    public boolean hasFlag(int flag) {
+        return (tfFlags & flag) != 0;
+    }
+
+    /**
+     * Returns the ID of the track.
+     * @return the ID of the track
+     */
+    public int getTrackId() {
+        return trackId;
+    }
+
+    /**
+     * Returns the base data offset.
+     * @return the base data offset, if BASE_DATA_OFFSET_PRESENT is set
+     */
+    public long getBaseDataOffset() {
+        return baseDataOffset;
+    }
+
+    /**
+     * Returns the index of the sample description.
+     * @return the index of the sample description, if SAMPLE_DESC_INDEX_PRESENT is set
+     */
+    public int getSampleDescIndex() {
+        return sampleDescIndex;
+    }
+
+    /**
+     * Returns the default duration of a sample.
+     * @return the default duration of a sample, if DEFAULT_DURATION_PRESENT is set
+     */
+    public int getDefaultSampleDuration() {
+        return defaultSampleDuration;
+    }
+
+    /**
+     * Returns the default size of a sample.
+     * @return the default size of a sample, if DEFAULT_SIZE_PRESENT is set
+     */
+    public int getDefaultSampleSize() {
+        return defaultSampleSize;
+    }
+
+    /**
+     * Returns the default flags of a sample.
+     * @return the default flags of a sample, if DEFAULT_FLAGS_PRESENT is set
+     */
+    public int getDefaultSampleFlags() {
+        return defaultSampleFlags;
+    }
+}
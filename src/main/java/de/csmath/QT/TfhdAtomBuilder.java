@@ -0,0 +1,131 @@
+package de.csmath.QT;
+
+/**
+ * This class builds a TfhdAtom from given parameters.
+ * @author lpfeiler
+ */
+public class TfhdAtomBuilder extends QTAtomBuilder {
+
+    /**
+     * @see TfhdAtom#tfFlags
+     */
+    private int tfFlags;
+
+    /**
+     * @see TfhdAtom#trackId
+     */
+    private int trackId;
+
+    /**
+     * @see TfhdAtom#baseDataOffset
+     */
+    private long baseDataOffset;
+
+    /**
+     * @see TfhdAtom#sampleDescIndex
+     */
+    private int sampleDescIndex;
+
+    /**
+     * @see TfhdAtom#defaultSampleDuration
+     */
+    private int defaultSampleDuration;
+
+    /**
+     * @see TfhdAtom#defaultSampleSize
+     */
+    private int defaultSampleSize;
+
+    /**
+     * @see TfhdAtom#defaultSampleFlags
+     */
+    private int defaultSampleFlags;
+
+    /**
+     * Constructs a TfhdAtomBuilder
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'tfhd'
+     */
+    public TfhdAtomBuilder(int size, int type) {
+        super(size, type);
+    }
+
+    /**
+     * Builds a new TfhdAtom.
+     * @return a new TfhdAtom
+     */
+    public TfhdAtom build() {
+        return new TfhdAtom(size, type, tfFlags, trackId, baseDataOffset, sampleDescIndex,
+                defaultSampleDuration, defaultSampleSize, defaultSampleFlags);
+    }
+
+    /**
+     * Sets the flags of the atom.
+     * @param tfFlags the flags of the atom
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withTfFlags(int tfFlags) {
+        this.tfFlags = tfFlags;
+        return this;
+    }
+
+    /**
+     * Sets the ID of the track.
+     * @param trackId the ID of the track
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withTrackId(int trackId) {
+        this.trackId = trackId;
+        return this;
+    }
+
+    /**
+     * Sets the base data offset.
+     * @param baseDataOffset the base data offset
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withBaseDataOffset(long baseDataOffset) {
+        this.baseDataOffset = baseDataOffset;
+        return this;
+    }
+
+    /**
+     * Sets the index of the sample description.
+     * @param sampleDescIndex the index of the sample description
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withSampleDescIndex(int sampleDescIndex) {
+        this.sampleDescIndex = sampleDescIndex;
+        return this;
+    }
+
+    /**
+     * Sets the default duration of a sample.
+     * @param defaultSampleDuration the default duration of a sample
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withDefaultSampleDuration(int defaultSampleDuration) {
+        this.defaultSampleDuration = defaultSampleDuration;
+        return this;
+    }
+
+    /**
+     * Sets the default size of a sample.
+     * @param defaultSampleSize the default size of a sample
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withDefaultSampleSize(int defaultSampleSize) {
+        this.defaultSampleSize = defaultSampleSize;
+        return this;
+    }
+
+    /**
+     * Sets the default flags of a sample.
+     * @param defaultSampleFlags the default flags of a sample
+     * @return a reference to this object
+     */
+    public TfhdAtomBuilder withDefaultSampleFlags(int defaultSampleFlags) {
+        this.defaultSampleFlags = defaultSampleFlags;
+        return this;
+    }
+}
@@ -0,0 +1,236 @@
+package de.csmath.QT;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * The TkhdAtom class represents the QuickTime Track Header Atom ('tkhd').
+ * It specifies the characteristics of a single track within a movie.
+ * @author lpfeiler
+ */
+public final class TkhdAtom extends QTAtom {
+
+    /**
+     * The number of bytes for future flags.
+     */
+    public static final int FLAGS_SIZE = 3;
+
+    /**
+     * The size of the matrix-array.
+     */
+    public static final int MATRIX_SIZE = 9;
+
+    /**
+     * The flag, which indicates that the track is enabled.
+     */
+    public static final int TRACK_ENABLED = 0x1;
+
+    /**
+     * The version of this track header atom.
+     */
+    private final byte version;
+
+    /**
+     * The flags of the track.
+     */
+    private final byte[] flags = new byte[FLAGS_SIZE];
+
+    /**
+     * The creation time in seconds since 1904-01-01 0:00 (UTC).
+     */
+    private final long creationTime;
+
+    /**
+     * The modification time in seconds since 1904-01-01 0:00 (UTC).
+     */
+    private final long modificationTime;
+
+    /**
+     * The ID of the track.
+     */
+    private final int trackId;
+
+    /**
+     * The duration of the track in movie time scale units.
+     */
+    private final long duration;
+
+    /**
+     * The front-to-back ordering of video tracks.
+     */
+    private final short layer;
+
+    /**
+     * The alternate group of the track.
+     */
+    private final short altGroup;
+
+    /**
+     * The volume of the track's sound.
+     */
+    private final short volume;
+
+    /**
+     * The mapping of points from one coordinate space into another.
+     */
+    private final int[] matrix = new int[MATRIX_SIZE];
+
+    /**
+     * The width of the track in pixels (as 16.16 fixed point number).
+     */
+    private final int width;
+
+    /**
+     * The height of the track in pixels (as 16.16 fixed point number).
+     */
+    private final int height;
+
+    /**
+     * Constructs a TkhdAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'tkhd'
+     * @param version the version of this track header atom
+     * @param flags the flags of the track
+     * @param creationTime the creation time
+     * @param modificationTime the modification time
+     * @param trackId the ID of the track
+     * @param duration the duration of the track
+     * @param layer the layer of the track
+     * @param altGroup the alternate group of the track
+     * @param volume the volume of the track
+     * @param matrix the point mapping matrix
+     * @param width the width of the track (16.16 fixed point)
+     * @param height the height of the track (16.16 fixed point)
+     */
+    public TkhdAtom(int size, int type, byte version, byte[] flags, long creationTime,
+                    long modificationTime, int trackId, long duration, short layer,
+                    short altGroup, short volume, int[] matrix, int width, int height) {
+        super(size, type);
+        if (type != QTAtom.TKHD)
+            throw new IllegalArgumentException("no tkhd type");
+        this.version = version;
+        for (int i=0; i < flags.length && i < this.flags.length; i++) {
+            this.flags[i] = flags[i];
+        }
+        this.creationTime = creationTime;
+        this.modificationTime = modificationTime;
+        this.trackId = trackId;
+        this.duration = duration;
+        this.layer = layer;
+        this.altGroup = altGroup;
+        this.volume = volume;
+        for (int i=0; i < matrix.length && i < this.matrix.length; i++) {
+            this.matrix[i] = matrix[i];
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the version of the track header atom.
+     * @return the version of the track header atom
+     */
+    public byte getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns true iff the track is enabled.
+     * @return true iff the track is enabled
+     */
+    public boolean isEnabled() {
+        return (flags[FLAGS_SIZE - 1] & TRACK_ENABLED) != 0;
+    }
+
+    /**
+     * Returns the creation date and time of the track.
+     * @return the creation date and time of the track
+     */
+    public ZonedDateTime getCreationTime() {
+        return convertToDate(creationTime);
+    }
+
+    /**
+     * Returns the modification date and time of the track.
+     * @return the modification date and time of the track
+     */
+    public ZonedDateTime getModificationTime() {
+        return convertToDate(modificationTime);
+    }
+
+    /**
+     * Returns the ID of the track.
+     * @return the ID of the track
+     */
+    public int getTrackId() {
+        return trackId;
+    }
+
+    /**
+     * Returns the duration of the track in movie time scale units.
+     * @return the duration of the track
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the layer of the track.
+     * @return the layer of the track
+     */
+    public short getLayer() {
+        return layer;
+    }
+
+    /**
+     * Returns the alternate group of the track.
+     * @return the alternate group of the track
+     */
+    public short getAltGroup() {
+        return altGroup;
+    }
+
+    /**
+     * Returns the volume of the track.
+     * @return the volume of the track
+     */
+    public short getVolume() {
+        return volume;
+    }
+
+    /**
+     * Returns an iterator over the matrix.
+     * @return an iterator over the matrix
+     */
+    public Iterator<Integer> getMatrix() {
+        return Arrays.stream(matrix).iterator();
+    }
+
+    /**
+     * Returns the width of the track in pixels.
+     * @return the width of the track in pixels
+     */
+    public int getWidth() {
+        return width >>> 16;
+    }
+
+    /**
+     * Returns the height of the track in pixels.
+     * @return the height of the track in pixels
+     */
+    public int getHeight() {
+        return height >>> 16;
+    }
+
+    /**
+     * Converts a date/time value of the file (in seconds since 1904-01-01 0:00)
+     * into a ZonedDateTime.
+     * @param time date/time value (in seconds since 1904-01-01 0:00)
+     * @return the date/time value as ZonedDateTime
+     */
+    private static ZonedDateTime convertToDate(long time) {
+        return ZonedDateTime.of(1904,1,1,0,0,0,0,ZoneId.of("UTC")).plusSeconds(time);
+    }
+}
@@ -0,0 +1,207 @@
+package de.csmath.QT;
+
+/**
+ * This class builds a TkhdAtom from given parameters.
+ * @author lpfeiler
+ */
+public class TkhdAtomBuilder extends QTAtomBuilder {
+
+    /**
+     * @see TkhdAtom#version
+     */
+    private byte version;
+
+    /**
+     * @see TkhdAtom#flags
+     */
+    private byte[] flags = new byte[TkhdAtom.FLAGS_SIZE];
+
+    /**
+     * @see TkhdAtom#creationTime
+     */
+    private long creationTime;
+
+    /**
+     * @see TkhdAtom#modificationTime
+     */
+    private long modificationTime;
+
+    /**
+     * @see TkhdAtom#trackId
+     */
+    private int trackId;
+
+    /**
+     * @see TkhdAtom#duration
+     */
+    private long duration;
+
+    /**
+     * @see TkhdAtom#layer
+     */
+    private short layer;
+
+    /**
+     * @see TkhdAtom#altGroup
+     */
+    private short altGroup;
+
+    /**
+     * @see TkhdAtom#volume
+     */
+    private short volume;
+
+    /**
+     * @see TkhdAtom#matrix
+     */
+    private int[] matrix = new int[TkhdAtom.MATRIX_SIZE];
+
+    /**
+     * @see TkhdAtom#width
+     */
+    private int width;
+
+    /**
+     * @see TkhdAtom#height
+     */
+    private int height;
+
+    /**
+     * Constructs a TkhdAtomBuilder
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'tkhd'
+     */
+    public TkhdAtomBuilder(int size, int type) {
+        super(size, type);
+    }
+
+    /**
+     * Builds a new TkhdAtom.
+     * @return a new TkhdAtom
+     */
+    public TkhdAtom build() {
+        return new TkhdAtom(size, type, version, flags, creationTime,
+                modificationTime, trackId, duration, layer, altGroup, volume,
+                matrix, width, height);
+    }
+
+    /**
+     * Sets the version of the atom.
+     * @param version the version of the atom
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withVersion(byte version) {
+        this.version = version;
+        return this;
+    }
+
+    /**
+     * Sets the flags.
+     * @param flags the flags
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withFlags(byte[] flags) {
+        this.flags = flags;
+        return this;
+    }
+
+    /**
+     * Sets the creation time.
+     * @param creationTime the creation time
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withCreationTime(long creationTime) {
+        this.creationTime = creationTime;
+        return this;
+    }
+
+    /**
+     * Sets the modification time.
+     * @param modificationTime the modification time
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withModificationTime(long modificationTime) {
+        this.modificationTime = modificationTime;
+        return this;
+    }
+
+    /**
+     * Sets the ID of the track.
+     * @param trackId the ID of the track
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withTrackId(int trackId) {
+        this.trackId = trackId;
+        return this;
+    }
+
+    /**
+     * Sets the duration of the track.
+     * @param duration the duration of the track
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withDuration(long duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Sets the layer of the track.
+     * @param layer the layer of the track
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withLayer(short layer) {
+        this.layer = layer;
+        return this;
+    }
+
+    /**
+     * Sets the alternate group of the track.
+     * @param altGroup the alternate group of the track
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withAltGroup(short altGroup) {
+        this.altGroup = altGroup;
+        return this;
+    }
+
+    /**
+     * Sets the volume of the track.
+     * @param volume the volume of the track
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withVolume(short volume) {
+        this.volume = volume;
+        return this;
+    }
+
+    /**
+     * Sets the point mapping matrix.
+     * @param matrix the point mapping matrix
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withMatrix(int[] matrix) {
+        this.matrix = matrix;
+        return this;
+    }
+
+    /**
+     * Sets the width of the track (16.16 fixed point).
+     * @param width the width of the track (16.16 fixed point)
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withWidth(int width) {
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * Sets the height of the track (16.16 fixed point).
+     * @param height the height of the track (16.16 fixed point)
+     * @return a reference to this object
+     */
+    public TkhdAtomBuilder withHeight(int height) {
+        this.height = height;
+        return this;
+    }
+}
@@ -0,0 +1,97 @@
+package de.csmath.QT;
+
+/**
+ * The TrexAtom class represents the Track Extends Atom ('trex').
+ * It sets the default values of the samples of a track, which are used by
+ * the track fragments of a fragmented movie.
+ * @author lpfeiler
+ */
+public final class TrexAtom extends QTAtom {
+
+    /**
+     * The ID of the track.
+     */
+    private final int trackId;
+
+    /**
+     * The default index of the sample description.
+     */
+    private final int defaultSampleDescIndex;
+
+    /**
+     * The default duration of a sample.
+     */
+    private final int defaultSampleDuration;
+
+    /**
+     * The default size of a sample.
+     */
+    private final int defaultSampleSize;
+
+    /**
+     * The default flags of a sample.
+     */
+    private final int defaultSampleFlags;
+
+    /**
+     * Constructs a TrexAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom, should be set to 'trex'
+     * @param trackId the ID of the track
+     * @param defaultSampleDescIndex the default index of the sample description
+     * @param defaultSampleDuration the default duration of a sample
+     * @param defaultSampleSize the default size of a sample
+     * @param defaultSampleFlags the default flags of a sample
+     */
+    public TrexAtom(int size, int type, int trackId, int defaultSampleDescIndex,
+                    int defaultSampleDuration, int defaultSampleSize, int defaultSampleFlags) {
+        super(size, type);
+        if (type != QTAtom.TREX)
+            throw new IllegalArgumentException("no trex type");
+        this.trackId = trackId;
+        this.defaultSampleDescIndex = defaultSampleDescIndex;
+        this.defaultSampleDuration = defaultSampleDuration;
+        this.defaultSampleSize = defaultSampleSize;
+        this.defaultSampleFlags = defaultSampleFlags;
+    }
+
+    /**
+     * Returns the ID of the track.
+     * @return the ID of the track
+     */
+    public int getTrackId() {
+        return trackId;
+    }
+
+    /**
+     * Returns the default index of the sample description.
+     * @return the default index of the sample description
+     */
+    public int getDefaultSampleDescIndex() {
+        return defaultSampleDescIndex;
+    }
+
+    /**
+     * Returns the default duration of a sample.
+     * @return the default duration of a sample
+     */
+    public int getDefaultSampleDuration() {
+        return defaultSampleDuration;
+    }
+
+    /**
+     * Returns the default size of a sample.
+     * @return the default size of a sample
+     */
+    public int getDefaultSampleSize() {
+        return defaultSampleSize;
+    }
+
+    /**
+     * Returns the default flags of a sample.
+     * @return the default flags of a sample
+     */
+    public int getDefaultSampleFlags() {
+        return defaultSampleFlags;
+    }
+}
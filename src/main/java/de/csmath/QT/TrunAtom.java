@@ -0,0 +1,193 @@
+package de.csmath.QT;
+
+/**
+ * The TrunAtom class represents the Track Fragment Run Atom ('trun').
+ * It describes a run of contiguous samples of a track fragment. Each
+ * entry holds only the fields announced by the flags of the atom; absent
+ * fields take the defaults of the 'tfhd' or 'trex' atom of the track.
+ * @author lpfeiler
+ */
+public final class TrunAtom extends TableAtom {
+
+    /**
+     * The flag of an explicit data offset.
+     */
+    public static final int DATA_OFFSET_PRESENT = 0x000001;
+
+    /**
+     * The flag of explicit flags of the first sample.
+     */
+    public static final int FIRST_SAMPLE_FLAGS_PRESENT = 0x000004;
+
+    /**
+     * The flag of a duration per sample.
+     */
+    public static final int SAMPLE_DURATION_PRESENT = 0x000100;
+
+    /**
+     * The flag of a size per sample.
+     */
+    public static final int SAMPLE_SIZE_PRESENT = 0x000200;
+
+    /**
+     * The flag of flags per sample.
+     */
+    public static final int SAMPLE_FLAGS_PRESENT = 0x000400;
+
+    /**
+     * The flag of a composition offset per sample.
+     */
+    public static final int SAMPLE_CTO_PRESENT = 0x000800;
+
+    /**
+     * The flags of the atom.
+     */
+    private final int trFlags;
+
+    /**
+     * The offset of the data of the run relative to the base data offset.
+     */
+    private final int dataOffset;
+
+    /**
+     * The flags of the first sample.
+     */
+    private final int firstSampleFlags;
+
+    /**
+     * The field indices of duration, size, flags and composition offset
+     * within an entry, -1 for absent fields.
+     */
+    private final int[] fields = new int[4];
+
+    /**
+     * Constructs a TrunAtom.
+     * @param size the size of the atom in the file
+     * @param type the type of the atom (should be 'trun')
+     * @param version the version of the atom
+     * @param flags the flags
+     * @param dataOffset the data offset, if DATA_OFFSET_PRESENT is set
+     * @param firstSampleFlags the flags of the first sample,
+     *                         if FIRST_SAMPLE_FLAGS_PRESENT is set
+     * @param table the entries (the present ones of duration, size, flags
+     *              and composition offset)
+     */
+    public TrunAtom(int size, int type, byte version, byte[] flags, int dataOffset,
+                    int firstSampleFlags, SampleTable table) {
+        super(size, type, version, flags, table);
+        if (type != QTAtom.TRUN)
+            throw new IllegalArgumentException("no trun type");
+        this.trFlags = (flags[0] & 0xFF) << 16 | (flags[1] & 0xFF) << 8 | (flags[2] & 0xFF);
+        this.dataOffset = dataOffset;
+        this.firstSampleFlags = firstSampleFlags;
+        int field = 0;
+        for (int i=0; i < fields.length; i++) {
+            fields[i] = hasFlag(SAMPLE_DURATION_PRESENT << i) ? field++ : -1;
+        }
+        if (table.getEntrySize() != 4 * field)
+            throw new IllegalArgumentException("entry size mismatch");
+    }
+
+    /**
+     * Returns the size of an entry for the given flags.
+     * @param trFlags the flags of the atom
+     * @return the size of an entry in bytes
+     */
+    public static int entrySize(int trFlags) {
+        return 4 * Integer.bitCount(trFlags & 0x000F00);
+    }
+
+    /**
+     * Returns the flags of the atom.
+     * @return the flags of the atom
+     */
+    public int getTrFlags() {
+        return trFlags;
+    }
+
+    /**
+     * Returns true iff the given flag is set.
+     * @param flag the flag, e.g. DATA_OFFSET_PRESENT
+     * @return true iff the flag is set
+     */
+    public boolean hasFlag(int flag) {
+        return (trFlags & flag) != 0;
+    }
+
+    /**
+     * Returns the number of samples of the run.
+     * @return the number of samples
+     */
+    public int getSampleCount() {
+        return getNumEntries();
+    }
+
+    /**
+     * Returns the offset of the data of the run relative to the base data offset.
+     * @return the data offset, if DATA_OFFSET_PRESENT is set
+     */
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * Returns the flags of the first sample.
+     * @return the flags of the first sample, if FIRST_SAMPLE_FLAGS_PRESENT is set
+     */
+    public int getFirstSampleFlags() {
+        return firstSampleFlags;
+    }
+
+    /**
+     * Returns the duration of a sample, or the given default.
+     * @param index the index of the sample in the run
+     * @param defaultValue the default duration
+     * @return the duration of the sample
+     */
+    public int getSampleDuration(int index, int defaultValue) {
+        return field(index, 0, defaultValue);
+    }
+
+    /**
+     * Returns the size of a sample, or the given default.
+     * @param index the index of the sample in the run
+     * @param defaultValue the default size
+     * @return the size of the sample
+     */
+    public int getSampleSize(int index, int defaultValue) {
+        return field(index, 1, defaultValue);
+    }
+
+    /**
+     * Returns the flags of a sample, or the given default.
+     * The flags of the first sample take precedence.
+     * @param index the index of the sample in the run
+     * @param defaultValue the default flags
+     * @return the flags of the sample
+     */
+    public int getSampleFlags(int index, int defaultValue) {
+        if (index == 0 && hasFlag(FIRST_SAMPLE_FLAGS_PRESENT)) return firstSampleFlags;
+        return field(index, 2, defaultValue);
+    }
+
+    /**
+     * Returns the composition offset of a sample, or 0.
+     * @param index the index of the sample in the run
+     * @return the composition offset of the sample
+     */
+    public int getCompositionOffset(int index) {
+        return field(index, 3, 0);
+    }
+
+    /**
+     * Returns a field of an entry, or the given default if it is absent.
+     * @param index the index of the entry
+     * @param field the index of the field among duration, size, flags, offset
+     * @param defaultValue the default value
+     * @return the value of the field
+     */
+    private int field(int index, int field, int defaultValue) {
+        int f = fields[field];
+        return f < 0 ? defaultValue : getTable().getInt(index, f);
+    }
+}
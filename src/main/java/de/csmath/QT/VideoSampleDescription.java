@@ -190,6 +190,18 @@ public class VideoSampleDescription extends SampleDescription {
      */
     public String getCompName() { return compName; }
 
+    /**
+     * Returns the first extension of the given type.
+     * @param type the type of the extension
+     * @return the first extension of the given type, or null
+     */
+    public QTAtom getExtension(int type) {
+        for (QTAtom a : extensions) {
+            if (a.getType() == type) return a;
+        }
+        return null;
+    }
+
     /**
      * Returns an iterator over the extensions.
      * @return an iterator over the extensions
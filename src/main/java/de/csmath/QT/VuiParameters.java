@@ -0,0 +1,245 @@
+package de.csmath.QT;
+
+/**
+ * This class represents the parts of the video usability information (VUI)
+ * of an H.264 or H.265 sequence parameter set that describe the picture:
+ * the sample aspect ratio, the color description and the timing.
+ * @author lpfeiler
+ */
+public final class VuiParameters {
+
+    /**
+     * The aspect_ratio_idc of an explicitly given sample aspect ratio.
+     */
+    public static final int EXTENDED_SAR = 255;
+
+    /**
+     * The value of unspecified color description fields.
+     */
+    public static final int UNSPECIFIED = 2;
+
+    /**
+     * The transfer characteristics of SMPTE ST 2084 (PQ).
+     */
+    public static final int TRANSFER_PQ = 16;
+
+    /**
+     * The transfer characteristics of ARIB STD-B67 (HLG).
+     */
+    public static final int TRANSFER_HLG = 18;
+
+    /**
+     * The sample aspect ratios of the aspect_ratio_idc values 1 to 16.
+     */
+    private static final int[][] SAR_TABLE = {
+            {1, 1}, {12, 11}, {10, 11}, {16, 11}, {40, 33}, {24, 11}, {20, 11}, {32, 11},
+            {80, 33}, {18, 11}, {15, 11}, {64, 33}, {160, 99}, {4, 3}, {3, 2}, {2, 1} };
+
+    /**
+     * The horizontal size of the sample aspect ratio, 0 if unspecified.
+     */
+    private int sarWidth;
+
+    /**
+     * The vertical size of the sample aspect ratio, 0 if unspecified.
+     */
+    private int sarHeight;
+
+    /**
+     * The video format (5 if unspecified).
+     */
+    private int videoFormat = 5;
+
+    /**
+     * True iff the video uses the full range of sample values.
+     */
+    private boolean fullRange;
+
+    /**
+     * The color primaries.
+     */
+    private int colourPrimaries = UNSPECIFIED;
+
+    /**
+     * The transfer characteristics.
+     */
+    private int transferCharacteristics = UNSPECIFIED;
+
+    /**
+     * The matrix coefficients.
+     */
+    private int matrixCoefficients = UNSPECIFIED;
+
+    /**
+     * True iff timing information is present.
+     */
+    private boolean timingInfoPresent;
+
+    /**
+     * The number of time units of a clock tick.
+     */
+    private long numUnitsInTick;
+
+    /**
+     * The number of time units per second.
+     */
+    private long timeScale;
+
+    /**
+     * True iff the frame rate is fixed (H.264 only).
+     */
+    private boolean fixedFrameRate;
+
+    /**
+     * Constructs VuiParameters with the defaults of a sequence parameter
+     * set without VUI.
+     */
+    VuiParameters() {
+    }
+
+    /**
+     * Constructs VuiParameters from the vui_parameters() of a sequence
+     * parameter set. The reader must be positioned after the
+     * vui_parameters_present_flag; HRD parameters are not read.
+     * @param r the reader of the sequence parameter set
+     * @param hevc true for H.265, false for H.264
+     */
+    VuiParameters(NalBitReader r, boolean hevc) {
+        if (r.readFlag()) {
+            int aspectRatioIdc = r.readBits(8);
+            if (aspectRatioIdc == EXTENDED_SAR) {
+                sarWidth = r.readBits(16);
+                sarHeight = r.readBits(16);
+            } else if (aspectRatioIdc > 0 && aspectRatioIdc <= SAR_TABLE.length) {
+                sarWidth = SAR_TABLE[aspectRatioIdc - 1][0];
+                sarHeight = SAR_TABLE[aspectRatioIdc - 1][1];
+            }
+        }
+        if (r.readFlag()) {
+            r.readBit();                     //overscan_appropriate_flag
+        }
+        if (r.readFlag()) {
+            videoFormat = r.readBits(3);
+            fullRange = r.readFlag();
+            if (r.readFlag()) {
+                colourPrimaries = r.readBits(8);
+                transferCharacteristics = r.readBits(8);
+                matrixCoefficients = r.readBits(8);
+            }
+        }
+        if (r.readFlag()) {
+            r.readUE();                      //chroma_sample_loc_type_top_field
+            r.readUE();                      //chroma_sample_loc_type_bottom_field
+        }
+        if (hevc) {
+            r.skipBits(3);                   //neutral_chroma, field_seq, frame_field_info
+            if (r.readFlag()) {
+                for (int i=0; i < 4; i++) {
+                    r.readUE();              //default display window offsets
+                }
+            }
+        }
+        timingInfoPresent = r.readFlag();
+        if (timingInfoPresent) {
+            numUnitsInTick = r.readBits(32) & 0xFFFFFFFFL;
+            timeScale = r.readBits(32) & 0xFFFFFFFFL;
+            if (!hevc) fixedFrameRate = r.readFlag();
+        }
+    }
+
+    /**
+     * Returns the horizontal size of the sample aspect ratio.
+     * @return the horizontal size of the sample aspect ratio, 0 if unspecified
+     */
+    public int getSarWidth() {
+        return sarWidth;
+    }
+
+    /**
+     * Returns the vertical size of the sample aspect ratio.
+     * @return the vertical size of the sample aspect ratio, 0 if unspecified
+     */
+    public int getSarHeight() {
+        return sarHeight;
+    }
+
+    /**
+     * Returns the video format (0 component, 1 PAL, 2 NTSC, ..., 5 unspecified).
+     * @return the video format
+     */
+    public int getVideoFormat() {
+        return videoFormat;
+    }
+
+    /**
+     * Returns true iff the video uses the full range of sample values.
+     * @return true iff the video uses the full range
+     */
+    public boolean isFullRange() {
+        return fullRange;
+    }
+
+    /**
+     * Returns the color primaries (e.g. 1 for BT.709, 9 for BT.2020).
+     * @return the color primaries
+     */
+    public int getColourPrimaries() {
+        return colourPrimaries;
+    }
+
+    /**
+     * Returns the transfer characteristics (e.g. 1 for BT.709, 16 for PQ).
+     * @return the transfer characteristics
+     */
+    public int getTransferCharacteristics() {
+        return transferCharacteristics;
+    }
+
+    /**
+     * Returns the matrix coefficients (e.g. 1 for BT.709, 9 for BT.2020).
+     * @return the matrix coefficients
+     */
+    public int getMatrixCoefficients() {
+        return matrixCoefficients;
+    }
+
+    /**
+     * Returns true iff the transfer characteristics are PQ or HLG.
+     * @return true iff the video uses a high dynamic range transfer function
+     */
+    public boolean isHdr() {
+        return transferCharacteristics == TRANSFER_PQ || transferCharacteristics == TRANSFER_HLG;
+    }
+
+    /**
+     * Returns true iff timing information is present.
+     * @return true iff timing information is present
+     */
+    public boolean isTimingInfoPresent() {
+        return timingInfoPresent;
+    }
+
+    /**
+     * Returns the number of time units of a clock tick.
+     * @return the number of time units of a clock tick
+     */
+    public long getNumUnitsInTick() {
+        return numUnitsInTick;
+    }
+
+    /**
+     * Returns the number of time units per second.
+     * @return the number of time units per second
+     */
+    public long getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * Returns true iff the frame rate is fixed (H.264 only).
+     * @return true iff the frame rate is fixed
+     */
+    public boolean isFixedFrameRate() {
+        return fixedFrameRate;
+    }
+}
@@ -0,0 +1,48 @@
+package de.csmath.QT;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compares the specialized executor with the interpreter of QTReader on
+ * a program like the one of the README. It is no unit test; run its main
+ * method after {@code mvn test-compile} with the test classpath (the
+ * classes, the test classes and JUnit).
+ */
+public class QTExecutorBenchmark {
+
+    /**
+     * The number of measured rounds; the first ones warm up the JIT.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * The number of files read per round and reader.
+     */
+    private static final int RUNS = 200000;
+
+    public static void main(String[] args) throws IOException {
+        byte[] file = TestQTExecutor.movie();
+        QTReader reader = new QTReader();
+        QTPlan plan = QTProgCompiler.compilePlan(TestQTExecutor.PROG);
+        List<QTCommand> commands = plan.getCommands();
+        QTExecutor executor = reader.compile(plan);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i=0; i < RUNS; i++) {
+                sink += reader.readStream(new ByteArrayInputStream(file), commands).size();
+            }
+            long interpreted = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i=0; i < RUNS; i++) {
+                sink += executor.execute(new ByteArrayInputStream(file)).size();
+            }
+            long executed = System.nanoTime() - start;
+            System.out.printf("round %d: interpreter %.0f ns/file, executor %.0f ns/file (%d)%n",
+                    round, (double) interpreted / RUNS, (double) executed / RUNS, sink);
+        }
+    }
+}
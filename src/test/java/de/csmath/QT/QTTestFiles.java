@@ -0,0 +1,116 @@
+package de.csmath.QT;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Helper methods to assemble synthetic QuickTime files for tests.
+ */
+final class QTTestFiles {
+
+    private QTTestFiles() {
+    }
+
+    /**
+     * Returns an atom with the given type and contents.
+     */
+    static byte[] atom(String type, byte[]... parts) {
+        byte[] contents = concat(parts);
+        return concat(ints(contents.length + 8), type.getBytes(), contents);
+    }
+
+    /**
+     * Returns an atom with version, flags and the given contents.
+     */
+    static byte[] fullAtom(String type, int version, int flags, byte[]... parts) {
+        return atom(type, ints((version << 24) | (flags & 0xFFFFFF)), concat(parts));
+    }
+
+    /**
+     * Returns the 'ftyp' atom of a QuickTime file.
+     */
+    static byte[] ftyp() {
+        return atom("ftyp", "qt  ".getBytes(), ints(0x20050300), "qt  ".getBytes());
+    }
+
+    static byte[] ints(int... values) {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * 4);
+        for (int v : values) buf.putInt(v);
+        return buf.array();
+    }
+
+    static byte[] shorts(int... values) {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * 2);
+        for (int v : values) buf.putShort((short) v);
+        return buf.array();
+    }
+
+    static byte[] longs(long... values) {
+        ByteBuffer buf = ByteBuffer.allocate(values.length * 8);
+        for (long v : values) buf.putLong(v);
+        return buf.array();
+    }
+
+    static byte[] bytes(int... values) {
+        byte[] buf = new byte[values.length];
+        for (int i = 0; i < values.length; i++) buf[i] = (byte) values[i];
+        return buf;
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (byte[] p : parts) bos.write(p, 0, p.length);
+        return bos.toByteArray();
+    }
+
+    /**
+     * Writes the bits of a NAL unit and inserts emulation prevention bytes.
+     */
+    static final class NalWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int current;
+        private int bits;
+
+        NalWriter u(int n, long value) {
+            for (int i = n - 1; i >= 0; i--) {
+                current = (current << 1) | (int) ((value >>> i) & 1);
+                if (++bits == 8) {
+                    out.write(current);
+                    current = 0;
+                    bits = 0;
+                }
+            }
+            return this;
+        }
+
+        NalWriter ue(int value) {
+            long v = value + 1L;
+            int len = 64 - Long.numberOfLeadingZeros(v);
+            return u(len - 1, 0).u(len, v);
+        }
+
+        NalWriter se(int value) {
+            return ue(value > 0 ? 2 * value - 1 : -2 * value);
+        }
+
+        /**
+         * Returns the escaped NAL unit after the rbsp trailing bits.
+         */
+        byte[] toNal() {
+            u(1, 1);
+            while (bits != 0) u(1, 0);
+            ByteArrayOutputStream nal = new ByteArrayOutputStream();
+            int zeros = 0;
+            for (byte b : out.toByteArray()) {
+                if (zeros >= 2 && (b & 0xFF) <= 3) {
+                    nal.write(3);
+                    zeros = 0;
+                }
+                nal.write(b);
+                zeros = b == 0 ? zeros + 1 : 0;
+            }
+            return nal.toByteArray();
+        }
+    }
+}
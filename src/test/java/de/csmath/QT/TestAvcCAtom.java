@@ -0,0 +1,98 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Unit test for AvcCAtom and the parsing of H.264 sequence parameter sets.
+ */
+public class TestAvcCAtom extends TestCase {
+
+    public TestAvcCAtom(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns the sequence parameter set of a 1080p High profile stream.
+     */
+    static byte[] highProfileSps() {
+        return new NalWriter()
+                .u(8, 0x67).u(8, 100).u(8, 0).u(8, 40).ue(0)
+                .ue(1).ue(0).ue(0).u(1, 0).u(1, 0)
+                .ue(0).ue(0).ue(2).ue(4).u(1, 0)
+                .ue(119).ue(67).u(1, 1).u(1, 1)
+                .u(1, 1).ue(0).ue(0).ue(0).ue(4)
+                .u(1, 1)
+                .u(1, 1).u(8, 1)
+                .u(1, 0)
+                .u(1, 1).u(3, 5).u(1, 0).u(1, 1).u(8, 1).u(8, 1).u(8, 1)
+                .u(1, 0)
+                .u(1, 1).u(32, 1001).u(32, 60000).u(1, 1)
+                .u(4, 0)
+                .toNal();
+    }
+
+    public void testNalBitReader() {
+        byte[] nal = bytes(0x00, 0x00, 0x03, 0x01, 0xA0);
+        NalBitReader r = new NalBitReader(nal, 0, nal.length);
+        assertEquals(1, r.readBits(24));
+        assertEquals(0, r.readUE());
+        assertEquals(1, r.readSE());
+        assertFalse(r.isOverrun());
+        r.readBits(8);
+        assertTrue(r.isOverrun());
+    }
+
+    public void testDecConfRecord() {
+        byte[] sps = highProfileSps();
+        byte[] pps = bytes(0x68, 0xEB, 0xE3, 0xCB, 0x22, 0xC0);
+        byte[] record = concat(bytes(1, 100, 0, 40, 0xFF, 0xE1), shorts(sps.length), sps,
+                bytes(1), shorts(pps.length), pps);
+        AvcCAtom avcC = new AvcCAtom(record.length + 8, QTAtom.AVCC, record);
+        assertEquals(1, avcC.getConfigVersion());
+        assertEquals(100, avcC.getProfile());
+        assertEquals(40, avcC.getLevel());
+        assertEquals(4, avcC.getNalLengthSize());
+        assertEquals(1, avcC.getNumSps());
+        assertEquals(1, avcC.getNumPps());
+        assertEquals(pps.length, avcC.getPps(0).length);
+
+        AvcSps s = avcC.getSequenceParameterSet();
+        assertNotNull(s);
+        assertEquals(100, s.getProfileIdc());
+        assertEquals(1, s.getChromaFormatIdc());
+        assertEquals(8, s.getBitDepthLuma());
+        assertEquals(1920, s.getCodedWidth());
+        assertEquals(1088, s.getCodedHeight());
+        assertEquals(1920, s.getWidth());
+        assertEquals(1080, s.getHeight());
+        VuiParameters vui = s.getVui();
+        assertEquals(1, vui.getSarWidth());
+        assertEquals(1, vui.getColourPrimaries());
+        assertEquals(1, vui.getTransferCharacteristics());
+        assertFalse(vui.isHdr());
+        assertEquals(60000 / 2002.0, s.getFrameRate(), 1e-9);
+    }
+
+    public void testInterlacedSpsWithoutVui() {
+        byte[] sps = new NalWriter()
+                .u(8, 0x67).u(8, 77).u(8, 0).u(8, 30).ue(0)
+                .ue(0).ue(1).u(1, 0).se(-1).se(2).ue(2).se(3).se(-4)
+                .ue(2).u(1, 0)
+                .ue(44).ue(17).u(1, 0).u(1, 1).u(1, 1)
+                .u(1, 1).ue(0).ue(0).ue(0).ue(0)
+                .u(1, 0)
+                .toNal();
+        AvcSps s = AvcSps.parse(sps, 0, sps.length);
+        assertNotNull(s);
+        assertEquals(77, s.getProfileIdc());
+        assertFalse(s.isFrameMbsOnly());
+        assertEquals(720, s.getWidth());
+        assertEquals(576, s.getHeight());
+        assertEquals(VuiParameters.UNSPECIFIED, s.getVui().getMatrixCoefficients());
+        assertEquals(0.0, s.getFrameRate());
+
+        assertNull(AvcSps.parse(sps, 0, 6));
+    }
+}
@@ -0,0 +1,95 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Unit test for HvcCAtom and the parsing of H.265 sequence parameter sets.
+ */
+public class TestHvcCAtom extends TestCase {
+
+    public TestHvcCAtom(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns the sequence parameter set of a 2160p Main 10 PQ stream.
+     */
+    static byte[] main10Sps() {
+        return new NalWriter()
+                .u(16, 0x4201).u(4, 0).u(3, 0).u(1, 1)
+                .u(2, 0).u(1, 0).u(5, 2).u(32, 0x20000000L).u(1, 1).u(1, 0).u(46, 1L << 44).u(8, 153)
+                .ue(0).ue(1).ue(3840).ue(2160).u(1, 0).ue(2).ue(2).ue(4)
+                .u(1, 1).ue(4).ue(2).ue(0)
+                .ue(0).ue(3).ue(0).ue(3).ue(0).ue(0)
+                .u(1, 0).u(1, 1).u(1, 1).u(1, 0)
+                .ue(2).ue(1).ue(0).ue(0).u(1, 1)
+                .u(1, 1).u(1, 0).ue(0).u(1, 1).u(1, 0).u(1, 0)
+                .u(1, 0).u(1, 1).u(1, 1)
+                .u(1, 1)
+                .u(1, 0).u(1, 0)
+                .u(1, 1).u(3, 5).u(1, 0).u(1, 1).u(8, 9).u(8, 16).u(8, 9)
+                .u(1, 0).u(3, 0).u(1, 0)
+                .u(1, 1).u(32, 1001).u(32, 60000).u(1, 0).u(1, 0)
+                .u(1, 0)
+                .toNal();
+    }
+
+    /**
+     * Returns an hvcC record with the given NAL unit arrays.
+     */
+    static byte[] record(int numArrays, byte[]... arrays) {
+        return concat(bytes(1, 0x02, 0x20, 0, 0, 0, 0x90, 0, 0, 0, 0, 0, 153,
+                0xF0, 0, 0xFC, 0xFD, 0xFA, 0xFA, 0, 0, 0x0F, numArrays), concat(arrays));
+    }
+
+    public void testDecConfRecord() {
+        byte[] vps = bytes(0x40, 0x01, 0x0C, 0x01);
+        byte[] sps = main10Sps();
+        byte[] pps = bytes(0x44, 0x01, 0xC1, 0x72);
+        byte[] record = record(3,
+                bytes(0xA0), shorts(1, vps.length), vps,
+                bytes(0xA1), shorts(1, sps.length), sps,
+                bytes(0xA2), shorts(1, pps.length), pps);
+        HvcCAtom hvcC = new HvcCAtom(record.length + 8, QTAtom.HVCC, record);
+        assertEquals(1, hvcC.getConfigVersion());
+        assertEquals(2, hvcC.getProfileIdc());
+        assertFalse(hvcC.isHighTier());
+        assertEquals(153, hvcC.getLevelIdc());
+        assertEquals(1, hvcC.getChromaFormat());
+        assertEquals(10, hvcC.getBitDepthLuma());
+        assertEquals(4, hvcC.getNalLengthSize());
+        assertEquals(1, hvcC.getNumNalUnits(HvcCAtom.NAL_TYPE_VPS));
+        assertEquals(1, hvcC.getNumNalUnits(HvcCAtom.NAL_TYPE_PPS));
+        assertEquals(vps.length, hvcC.getNalUnit(HvcCAtom.NAL_TYPE_VPS, 0).length);
+
+        HevcSps s = hvcC.getSequenceParameterSet();
+        assertNotNull(s);
+        assertEquals(2, s.getProfileIdc());
+        assertEquals(153, s.getLevelIdc());
+        assertTrue(s.isProgressiveSource());
+        assertEquals(1, s.getChromaFormatIdc());
+        assertEquals(10, s.getBitDepthLuma());
+        assertEquals(3840, s.getWidth());
+        assertEquals(2160, s.getHeight());
+        VuiParameters vui = s.getVui();
+        assertEquals(9, vui.getColourPrimaries());
+        assertEquals(VuiParameters.TRANSFER_PQ, vui.getTransferCharacteristics());
+        assertEquals(9, vui.getMatrixCoefficients());
+        assertTrue(hvcC.isHdr());
+        assertEquals(60000 / 1001.0, s.getFrameRate(), 1e-9);
+    }
+
+    public void testTruncatedRecord() {
+        byte[] sps = main10Sps();
+        byte[] record = record(1, bytes(0xA1), shorts(1, sps.length + 10), sps);
+        HvcCAtom hvcC = new HvcCAtom(record.length + 8, QTAtom.HVCC, record);
+        assertEquals(2, hvcC.getProfileIdc());
+        assertEquals(0, hvcC.getNumNalUnits(HvcCAtom.NAL_TYPE_SPS));
+        assertNull(hvcC.getSequenceParameterSet());
+        assertFalse(hvcC.isHdr());
+
+        assertNull(HevcSps.parse(sps, 0, 12));
+    }
+}
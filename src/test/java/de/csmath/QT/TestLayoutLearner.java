@@ -0,0 +1,156 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the speculative reads of the LayoutLearner.
+ */
+public class TestLayoutLearner extends TestCase {
+
+    public TestLayoutLearner(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd\n"
+            + "step into mdia\n"
+            + "read hdlr";
+
+    /**
+     * A source, which counts its reads.
+     */
+    private static final class CountingSource implements RandomAccessSource {
+
+        private final RandomAccessSource source;
+
+        private int reads;
+
+        private CountingSource(byte[] file) {
+            source = new ByteArraySource(file);
+        }
+
+        @Override
+        public int read(long offset, int length, ByteBuffer dst) throws IOException {
+            reads++;
+            return source.read(offset, length, dst);
+        }
+
+        @Override
+        public long size() throws IOException {
+            return source.size();
+        }
+    }
+
+    private static byte[] ftyp(String brand) {
+        return atom("ftyp", brand.getBytes(), ints(0x20050300), brand.getBytes());
+    }
+
+    private static byte[] moov(int tracks) {
+        List<byte[]> parts = new ArrayList<>();
+        parts.add(fullAtom("mvhd", 0, 0, new byte[96]));
+        for (int i=1; i < tracks; i++) {
+            parts.add(TestQTReader.trak(i, "soun", 0, 0));
+        }
+        parts.add(TestQTReader.trak(tracks, "vide", 640, 480));
+        return atom("moov", parts.toArray(new byte[0][]));
+    }
+
+    private static void assertMovie(Collection<QTAtom> atoms, int videoTrack) {
+        assertEquals(3, atoms.size());
+        assertEquals(videoTrack, ((TkhdAtom) new ArrayList<>(atoms).get(1)).getTrackId());
+    }
+
+    public void testTailLayout() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        LayoutLearner learner = new LayoutLearner();
+        QTReadOptions options = QTReadOptions.DEFAULT.withLearner(learner);
+
+        CountingSource first = new CountingSource(concat(ftyp("cam1"),
+                atom("mdat", new byte[1 << 20]), moov(60)));
+        assertMovie(reader.readSource(first, plan, options).getAtoms(), 60);
+        assertTrue(first.reads > 2);
+        assertEquals(0, learner.getHits());
+        assertEquals(1, learner.getMisses());
+        assertEquals(1, learner.getNumSignatures());
+
+        CountingSource second = new CountingSource(concat(ftyp("cam1"),
+                atom("mdat", new byte[3 << 19]), moov(70)));
+        assertMovie(reader.readSource(second, plan, options).getAtoms(), 70);
+        assertEquals(2, second.reads);
+        assertEquals(1, learner.getHits());
+
+        CountingSource other = new CountingSource(concat(ftyp("cam2"),
+                atom("mdat", new byte[1 << 20]), moov(60)));
+        assertMovie(reader.readSource(other, plan, options).getAtoms(), 60);
+        assertTrue(other.reads > 2);
+        assertEquals(2, learner.getMisses());
+        assertEquals(2, learner.getNumSignatures());
+    }
+
+    public void testHeadLayout() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        LayoutLearner learner = new LayoutLearner(1024, 1 << 20);
+        QTReadOptions options = QTReadOptions.DEFAULT.withLearner(learner);
+
+        CountingSource first = new CountingSource(concat(ftyp("cam3"), moov(40),
+                atom("mdat", new byte[1 << 20])));
+        assertMovie(reader.readSource(first, plan, options).getAtoms(), 40);
+        assertTrue(first.reads > 1);
+
+        CountingSource second = new CountingSource(concat(ftyp("cam3"), moov(30),
+                atom("mdat", new byte[1 << 18])));
+        assertMovie(reader.readSource(second, plan, options).getAtoms(), 30);
+        assertEquals(2, second.reads);
+        assertEquals(1, learner.getHits());
+
+        CountingSource other = new CountingSource(concat(ftyp("cam5"), moov(1),
+                atom("mdat", new byte[1 << 18])));
+        assertMovie(reader.readSource(other, plan, options).getAtoms(), 1);
+        assertEquals(1, other.reads);
+    }
+
+    public void testMiss() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        LayoutLearner learner = new LayoutLearner();
+        QTReadOptions options = QTReadOptions.DEFAULT.withLearner(learner);
+        CountingSource head = new CountingSource(concat(ftyp("cam4"), moov(2),
+                atom("mdat", new byte[1 << 16])));
+        assertMovie(reader.readSource(head, plan, options).getAtoms(), 2);
+        assertEquals(1, head.reads);
+        assertEquals(1, learner.getHits());
+
+        CountingSource moved = new CountingSource(concat(ftyp("cam4"),
+                atom("mdat", new byte[1 << 20]), moov(60)));
+        assertMovie(reader.readSource(moved, plan, options).getAtoms(), 60);
+        assertTrue(moved.reads > 2);
+        assertEquals(1, learner.getMisses());
+
+        CountingSource again = new CountingSource(concat(ftyp("cam4"),
+                atom("mdat", new byte[1 << 19]), moov(60)));
+        assertMovie(reader.readSource(again, plan, options).getAtoms(), 60);
+        assertEquals(2, again.reads);
+        assertEquals(2, learner.getHits());
+    }
+
+    public void testInvalidSizes() {
+        try {
+            new LayoutLearner(4096, 1024);
+            fail("window smaller than head accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("window smaller than head", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the LazyAtoms of atoms larger than the maximal atom size.
+ */
+public class TestLazyAtom extends TestCase {
+
+    public TestLazyAtom(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "read mdat\n"
+            + "step into moov\n"
+            + "read mvhd";
+
+    private static byte[] media(int size) {
+        byte[] data = new byte[size];
+        for (int i=0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    private static byte[] movie(byte[] mdat) {
+        return concat(ftyp(), mdat, atom("moov", fullAtom("mvhd", 0, 0, new byte[96])));
+    }
+
+    public void testLazyRead() throws IOException {
+        byte[] data = media(100_000);
+        byte[] file = movie(atom("mdat", data));
+        QTReader reader = new QTReaderBuilder().withMaxAtomSize(1024).build();
+        RandomAccessSource source = new ByteArraySource(file);
+        List<QTAtom> atoms = new ArrayList<>(reader.readSource(source, QTProgCompiler.compilePlan(PROG)));
+        assertEquals(2, atoms.size());
+        assertTrue(atoms.get(1) instanceof MvhdAtom);
+        LazyAtom mdat = (LazyAtom) atoms.get(0);
+        assertEquals(QTAtom.MDAT, mdat.getType());
+        assertEquals(ftyp().length + 8, mdat.getOffset());
+        assertEquals(data.length, mdat.getContentSize());
+        assertTrue(mdat.isReadable());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        long position = 0;
+        int n;
+        while ((n = mdat.read(position, chunk, 0, chunk.length)) >= 0) {
+            out.write(chunk, 0, n);
+            position += n;
+        }
+        assertTrue(Arrays.equals(data, out.toByteArray()));
+        assertEquals(-1, mdat.read(data.length, ByteBuffer.allocate(16)));
+
+        QTExplain explain = reader.explain(source, QTProgCompiler.compilePlan(PROG));
+        assertEquals(8, explain.getRangeLength(0));
+
+        atoms = new ArrayList<>(new QTReader().readSource(source, QTProgCompiler.compilePlan(PROG)));
+        assertFalse(atoms.get(0) instanceof LazyAtom);
+    }
+
+    public void testLargeSize() throws IOException {
+        byte[] data = media(300);
+        byte[] file = movie(concat(ints(1), "mdat".getBytes(), longs(16 + data.length), data));
+        List<QTAtom> atoms = new ArrayList<>(new QTReader().readSource(new ByteArraySource(file),
+                QTProgCompiler.compilePlan(PROG)));
+        LazyAtom mdat = (LazyAtom) atoms.get(0);
+        assertEquals(data.length, mdat.getContentSize());
+        ByteBuffer buf = ByteBuffer.allocate(1000);
+        assertEquals(data.length, mdat.read(0, buf));
+        assertEquals(data[299], buf.get(299));
+        assertTrue(atoms.get(1) instanceof MvhdAtom);
+    }
+
+    public void testStream() throws IOException {
+        byte[] file = movie(atom("mdat", media(5000)));
+        QTReader reader = new QTReaderBuilder().withMaxAtomSize(1024).build();
+        List<QTAtom> atoms = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file),
+                QTProgCompiler.compile(PROG)));
+        LazyAtom mdat = (LazyAtom) atoms.get(0);
+        assertFalse(mdat.isReadable());
+        assertEquals(5000, mdat.getContentSize());
+        assertTrue(atoms.get(1) instanceof MvhdAtom);
+        try {
+            mdat.read(0, ByteBuffer.allocate(16));
+            fail("skipped contents read");
+        } catch (IOException e) {
+            assertEquals("contents not readable", e.getMessage());
+        }
+    }
+
+    public void testCorruptSize() {
+        byte[] file = concat(ftyp(), ints(0x7FFFFFF0), "junk".getBytes(), new byte[100]);
+        try {
+            new QTReader().readStream(new ByteArrayInputStream(file), QTProgCompiler.compile("read junk"));
+            fail("corrupt size accepted");
+        } catch (IOException e) {
+            assertEquals("Premature end of file", e.getMessage());
+        }
+    }
+
+    public void testLargeExtension() throws IOException {
+        byte[] sowt = atom("sowt", new byte[6], shorts(1, 0, 0), ints(0),
+                shorts(2, 16, 0, 0), ints(44100 << 16),
+                atom("chan", media(2000)), atom("frma", "sowt".getBytes()));
+        byte[] file = concat(ftyp(), atom("moov", atom("trak", atom("mdia", atom("minf",
+                atom("stbl", fullAtom("stsd", 0, 0, ints(1), sowt)))))));
+        QTReader reader = new QTReaderBuilder().withMaxAtomSize(1024).build();
+        List<QTAtom> atoms = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file),
+                QTProgCompiler.compile("step into moov\nstep into trak\nstep into mdia\n"
+                        + "step into minf\nstep into stbl\nread stsd")));
+        SoundSampleDescription sd = (SoundSampleDescription) ((StsdAtom) atoms.get(0)).getSDIterator().next();
+        assertEquals(44100.0, sd.getSampleRate());
+        Iterator<QTAtom> it = sd.getExtIterator();
+        LazyAtom chan = (LazyAtom) it.next();
+        assertEquals(2000, chan.getContentSize());
+        QTAtom frma = it.next();
+        assertFalse(frma instanceof LazyAtom);
+        assertEquals("frma", new String(ints(frma.getType())));
+        assertFalse(it.hasNext());
+    }
+}
@@ -0,0 +1,118 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the read-ahead of the Prefetcher.
+ */
+public class TestPrefetcher extends TestCase {
+
+    public TestPrefetcher(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd\n"
+            + "step into mdia\n"
+            + "read hdlr\n"
+            + "step into minf\n"
+            + "step into stbl\n"
+            + "read stsz";
+
+    public void testPrefetch() throws IOException {
+        int[] sizes = new int[20000];
+        for (int i=0; i < sizes.length; i++) {
+            sizes[i] = 1000 + i;
+        }
+        byte[] stbl = atom("stbl", fullAtom("stsz", 0, 0, ints(0, sizes.length), ints(sizes)));
+        byte[] file = concat(ftyp(), atom("mdat", new byte[1 << 18]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        atom("trak", fullAtom("tkhd", 0, 1, ints(0, 0, 2, 0, 3000), new byte[60]),
+                                atom("mdia", fullAtom("hdlr", 0, 0, "mhlr".getBytes(), "vide".getBytes(),
+                                                new byte[12], bytes(4), "Test".getBytes()),
+                                        atom("minf", stbl)))));
+        Path path = Files.createTempFile("qtprefetch", ".mov");
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        AtomicInteger reads = new AtomicInteger();
+        try {
+            Files.write(path, file);
+            QTPlan plan = QTProgCompiler.compilePlan(PROG);
+            QTReader reader = new QTReader();
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                List<QTAtom> expected = new ArrayList<>(reader.readChannel(ch, plan));
+                for (int budget : new int[] {1 << 20, 4096, 100}) {
+                    Prefetcher prefetcher = new Prefetcher(r -> {
+                        reads.incrementAndGet();
+                        pool.execute(r);
+                    }, budget, 1024);
+                    List<QTAtom> atoms = new ArrayList<>(reader.readChannel(ch, plan,
+                            QTReadOptions.DEFAULT.withPrefetcher(prefetcher)).getAtoms());
+                    assertEquals(expected.size(), atoms.size());
+                    assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+                    StszAtom stsz = (StszAtom) atoms.get(3);
+                    assertEquals(20000, stsz.getNumSamples());
+                    assertEquals(20999, stsz.getSampleSize(19999));
+                    assertTrue(prefetcher.getHits() > prefetcher.getMisses());
+                    assertEquals(0, prefetcher.getBytesHeld());
+                }
+                assertTrue(reads.get() > 0);
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(path);
+        }
+    }
+
+    public void testBudgetAcrossJumps() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicBoolean paused = new AtomicBoolean(true);
+        Prefetcher prefetcher = new Prefetcher(r -> {
+            if (paused.get()) tasks.add(r); else r.run();
+        }, 4096, 1024);
+        prefetcher.start(new ByteArraySource(new byte[1 << 16]));
+        prefetcher.hint(0, 1 << 14);
+        assertEquals(4096, prefetcher.getBytesHeld());
+        prefetcher.hint(1 << 15, 1 << 16);
+        assertEquals(4096, prefetcher.getBytesHeld());
+        assertEquals(4, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(3072, prefetcher.getBytesHeld());
+        paused.set(false);
+        for (Runnable task : new ArrayList<>(tasks)) {
+            task.run();
+        }
+        assertEquals(0, prefetcher.getBytesHeld());
+        ByteBuffer buf = ByteBuffer.allocate(512);
+        assertTrue(prefetcher.fill(buf, 1 << 15));
+        assertEquals(4096, prefetcher.getBytesHeld());
+        prefetcher.finish();
+        assertEquals(0, prefetcher.getBytesHeld());
+    }
+
+    public void testInvalidBudget() {
+        try {
+            new Prefetcher(Runnable::run, 0);
+            fail("empty budget accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("budget not positive", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the checkpoints of programs executed on a FileChannel.
+ */
+public class TestQTCheckpoint extends TestCase {
+
+    private static final String PROG = "step into moov\nread mvhd\nstep into trak\n" +
+            "step into mdia\nread hdlr\nstep into minf\nstep into stbl\nread stsz";
+
+    public TestQTCheckpoint(String name) {
+        super(name);
+    }
+
+    /**
+     * A source of a file, whose reads fail from an offset on.
+     */
+    private static final class FailingSource implements RandomAccessSource {
+
+        private final ByteArraySource source;
+
+        private final long failAt;
+
+        private FailingSource(byte[] file, long failAt) {
+            source = new ByteArraySource(file);
+            this.failAt = failAt;
+        }
+
+        @Override
+        public int read(long offset, int length, ByteBuffer dst) throws IOException {
+            if (offset >= failAt) throw new IOException("connection reset");
+            return source.read(offset, (int) Math.min(length, failAt - offset), dst);
+        }
+
+        @Override
+        public long size() {
+            return source.size();
+        }
+    }
+
+    private static int indexOf(byte[] data, String type) {
+        byte[] t = type.getBytes();
+        for (int i=0; i + 4 <= data.length; i++) {
+            if (Arrays.equals(t, Arrays.copyOfRange(data, i, i + 4))) return i;
+        }
+        return -1;
+    }
+
+    private static List<Integer> types(List<QTAtom> atoms) {
+        List<Integer> types = new ArrayList<>();
+        for (QTAtom atom : atoms) types.add(atom.getType());
+        return types;
+    }
+
+    public void testResumeInterruptedProbe() throws IOException {
+        byte[] file = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                TestQTReader.trak(1, "vide", 640, 480)));
+        int cut = indexOf(file, "stsz") + 10;
+        List<QTCommand> prog = QTProgCompiler.compile(PROG);
+        QTReader reader = new QTReader();
+        Path path = Files.createTempFile("qtckpt", ".mov");
+        try {
+            Files.write(path, Arrays.copyOf(file, cut));
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                reader.readChannel(ch, prog);
+                fail("truncated file read");
+            } catch (QTFormatException e) {
+                assertEquals("Premature end of file", e.getMessage());
+            }
+
+            QTCheckpoint checkpoint = null;
+            try {
+                reader.readSource(new FailingSource(file, cut), new QTPlan(prog));
+                fail("failed read not reported");
+            } catch (QTInterruptedException e) {
+                assertEquals("connection reset", e.getMessage());
+                checkpoint = e.getCheckpoint();
+            }
+            assertEquals(7, checkpoint.getCommandIndex());
+            assertFalse(checkpoint.isFinished());
+            assertEquals(indexOf(file, "stts") - 4, checkpoint.getOffset());
+            assertEquals(5, checkpoint.getDepth());
+            assertEquals(file.length, checkpoint.getContainerEnds()[0]);
+            assertEquals(2, checkpoint.getNumAtoms());
+
+            byte[] bytes = checkpoint.toBytes();
+            assertEquals(36 + 5 * 8 + 2 * 12, bytes.length);
+            QTCheckpoint restored = QTCheckpoint.fromBytes(bytes);
+            assertEquals(checkpoint.getOffset(), restored.getOffset());
+
+            Files.write(path, file);
+            List<QTAtom> resumed;
+            List<QTAtom> full;
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                resumed = new ArrayList<>(new QTReader().resume(ch, prog, restored));
+                full = new ArrayList<>(reader.readChannel(ch, prog));
+            }
+            assertEquals(types(full), types(resumed));
+            assertEquals(Arrays.asList(QTAtom.MVHD, QTAtom.HDLR, QTAtom.STSZ), types(resumed));
+            assertEquals(30, ((StszAtom) resumed.get(2)).getSampleSize(2));
+            assertEquals("Test", ((HdlrAtom) resumed.get(1)).getCompName());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testRejectForeignCheckpoint() {
+        List<QTCommand> prog = QTProgCompiler.compile(PROG);
+        QTCheckpoint checkpoint = new QTCheckpoint(QTCheckpoint.hash(prog), prog.size(), 1, 100,
+                new long[] {2000}, new long[0], new int[0]);
+        try {
+            checkpoint.checkProgram(QTProgCompiler.compile("step into moov\nread mvhd"));
+            fail("foreign program accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("checkpoint of another program", e.getMessage());
+        }
+        byte[] bytes = checkpoint.toBytes();
+        try {
+            QTCheckpoint.fromBytes(Arrays.copyOf(bytes, bytes.length - 3));
+            fail("truncated checkpoint accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("truncated checkpoint", e.getMessage());
+        }
+    }
+
+    public void testKeepInterrupt() throws IOException {
+        byte[] file = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, new byte[96])));
+        Thread.currentThread().interrupt();
+        try {
+            new QTReader().readSource(new ByteArraySource(file),
+                    QTProgCompiler.compilePlan("step into moov\nread mvhd"));
+            fail("interrupt ignored");
+        } catch (QTInterruptedException e) {
+            assertEquals(0, e.getCheckpoint().getCommandIndex());
+            assertTrue(Thread.interrupted());
+        }
+    }
+}
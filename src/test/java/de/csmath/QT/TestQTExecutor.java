@@ -0,0 +1,82 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the specialized executors of compiled plans against the interpreter.
+ */
+public class TestQTExecutor extends TestCase {
+
+    static final String PROG = "step into moov\nread mvhd\nstep into trak\nread tkhd\n" +
+            "step into mdia\nread hdlr\nstep into minf\nstep into stbl\nread stts\nread stsz";
+
+    public TestQTExecutor(String name) {
+        super(name);
+    }
+
+    static byte[] movie() {
+        return concat(ftyp(), atom("wide"), atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                TestQTReader.trak(1, "vide", 640, 480), TestQTReader.trak(2, "soun", 0, 0)));
+    }
+
+    private static List<Integer> types(Iterable<QTAtom> atoms) {
+        List<Integer> types = new ArrayList<>();
+        for (QTAtom atom : atoms) types.add(atom.getType());
+        return types;
+    }
+
+    public void testExecuteLikeInterpreter() throws IOException {
+        byte[] file = concat(movie(), atom("mdat", new byte[64]));
+        QTReader reader = new QTReader();
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        List<QTAtom> interpreted = new ArrayList<>(reader.readStream(
+                new ByteArrayInputStream(file), plan.getCommands()));
+        QTExecutor executor = reader.compile(plan);
+        assertSame(plan, executor.getPlan());
+        List<QTAtom> executed = new ArrayList<>(executor.execute(new ByteArrayInputStream(file)));
+        assertEquals(types(interpreted), types(executed));
+        assertEquals(5, executed.size());
+        assertEquals(((StszAtom) interpreted.get(4)).getSampleSize(2),
+                ((StszAtom) executed.get(4)).getSampleSize(2));
+        assertEquals(HdlrAtom.VIDE, ((HdlrAtom) executed.get(2)).getCompSubtype());
+
+        QTPlan skipping = QTProgCompiler.optimize(QTProgCompiler.compilePlan(
+                "step into moov\nstep into trak\nskip tkhd\nstep into trak\nstep into mdia\nread hdlr"));
+        executed = new ArrayList<>(reader.compile(skipping).execute(new ByteArrayInputStream(file)));
+        assertEquals(1, executed.size());
+        assertEquals(HdlrAtom.SOUN, ((HdlrAtom) executed.get(0)).getCompSubtype());
+    }
+
+    public void testDecoderOfEveryType() throws IOException {
+        QTReader reader = new QTReader();
+        for (QTCommand cmd : QTProgCompiler.compile("read mvhd\nread tkhd\nread mdhd\nread hdlr\n" +
+                "read stsd\nread stts\nread stss\nread stsc\nread stsz\nread stco\nread co64\n" +
+                "read ctts\nread trex\nread mfhd\nread tfhd\nread tfdt\nread trun\nread sidx\nread udta")) {
+            assertNotNull(reader.decoder(cmd.getType()));
+        }
+    }
+
+    public void testPropagateErrors() {
+        QTExecutor executor = new QTReader().compile(QTProgCompiler.compilePlan(PROG));
+        try {
+            executor.execute(new ByteArrayInputStream(atom("moov")));
+            fail("no QT file accepted");
+        } catch (IOException e) {
+            assertEquals("not a QT-File", e.getMessage());
+        }
+        byte[] truncated = movie();
+        try {
+            executor.execute(new ByteArrayInputStream(truncated, 0, truncated.length - TestQTReader.trak(2, "soun", 0, 0).length - 40));
+            fail("truncated file read");
+        } catch (IOException e) {
+            assertEquals("Premature end of file", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the explanation of plans and the choice of the read strategy.
+ */
+public class TestQTExplain extends TestCase {
+
+    public TestQTExplain(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd(track_id)\n"
+            + "step into mdia\n"
+            + "read hdlr";
+
+    /**
+     * Returns a movie, whose 'moov' atom follows 1 MiB of media data.
+     */
+    private static byte[] movie() {
+        return concat(ftyp(), atom("mdat", new byte[1 << 20]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        TestQTReader.trak(2, "vide", 640, 480)));
+    }
+
+    public void testExplain() throws IOException {
+        byte[] file = movie();
+        int moov = ftyp().length + (1 << 20) + 8;
+        int trak = TestQTReader.trak(1, "soun", 0, 0).length;
+        Path path = Files.createTempFile("qtexplain", ".mov");
+        try {
+            Files.write(path, file);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                QTPlan plan = QTProgCompiler.compilePlan(PROG);
+                QTExplain explain = new QTReader().explain(ch, plan);
+
+                assertEquals(3, explain.getNumRanges());
+                assertEquals(moov + 8, explain.getRangeOffset(0));
+                assertEquals(108, explain.getRangeLength(0));
+                assertEquals(1, explain.getRangeCommand(0));
+                long tkhd = moov + 8 + 108 + trak + 8;
+                assertEquals(tkhd, explain.getRangeOffset(1));
+                assertEquals(8 + 24, explain.getRangeLength(1));
+                assertEquals(5, explain.getRangeCommand(2));
+
+                long[] skips = explain.getSkipDistances();
+                assertEquals(explain.getNumSeeks() - 1, skips.length);
+                assertEquals(1 << 20, skips[0]);
+                assertTrue(explain.getNumSeeks() > 2);
+                assertTrue(explain.getBytesRead() < 4096);
+                long hdlrEnd = explain.getRangeOffset(2) + explain.getRangeLength(2);
+                assertEquals(hdlrEnd, explain.getExtent());
+
+                assertEquals(QTExplain.Strategy.SEEK, explain.choose(QTCostModel.LOCAL_DISK));
+                assertEquals(QTExplain.Strategy.SEQUENTIAL, explain.choose(QTCostModel.HIGH_LATENCY));
+                assertTrue(explain.getCost(QTCostModel.HIGH_LATENCY, QTExplain.Strategy.SEEK)
+                        > explain.getSequentialCost(QTCostModel.HIGH_LATENCY));
+                assertTrue(explain.toString().contains("high latency: SEQUENTIAL"));
+
+                QTReader reader = new QTReader();
+                List<QTAtom> expected = new ArrayList<>(reader.readChannel(ch, plan));
+                for (QTExplain.Strategy strategy : QTExplain.Strategy.values()) {
+                    List<QTAtom> atoms = new ArrayList<>(reader.readChannel(ch, plan,
+                            QTReadOptions.DEFAULT.withStrategy(strategy)).getAtoms());
+                    assertEquals(expected.size(), atoms.size());
+                    assertEquals(2, ((ProjectedAtom) atoms.get(1)).getValue("track_id"));
+                    assertEquals(HdlrAtom.VIDE, ((HdlrAtom) atoms.get(2)).getCompSubtype());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testCostModel() {
+        QTCostModel model = new QTCostModel(1000, 1_000_000_000L);
+        assertEquals(3000 + 500, model.cost(3, 500));
+        try {
+            new QTCostModel(-1, 1);
+            fail("negative latency accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("negative latency", e.getMessage());
+        }
+        try {
+            new QTCostModel(0, 0);
+            fail("zero throughput accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("throughput not positive", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the QTFragmentReader with a fragmented file of two movie fragments.
+ */
+public class TestQTFragmentReader extends TestCase {
+
+    public TestQTFragmentReader(String name) {
+        super(name);
+    }
+
+    static byte[] moof1(int dataOffset) {
+        return atom("moof",
+                fullAtom("mfhd", 0, 0, ints(1)),
+                atom("traf",
+                        fullAtom("tfhd", 0, TfhdAtom.DEFAULT_BASE_IS_MOOF, ints(1)),
+                        fullAtom("tfdt", 1, 0, longs(0)),
+                        fullAtom("trun", 0, 0x000205, ints(3, dataOffset, 0x02000000, 100, 50, 60))));
+    }
+
+    static byte[] moof2(int dataOffset) {
+        return atom("moof",
+                fullAtom("mfhd", 0, 0, ints(2)),
+                atom("traf",
+                        fullAtom("tfhd", 0, TfhdAtom.DEFAULT_SIZE_PRESENT, ints(1, 80)),
+                        fullAtom("tfdt", 0, 0, ints(3000)),
+                        fullAtom("trun", 0, 0x000101, ints(2, dataOffset, 500, 500))),
+                atom("traf",
+                        fullAtom("tfhd", 0, 0, ints(2)),
+                        fullAtom("trun", 0, 0x000200, ints(1, 40))));
+    }
+
+    public void testReadFragments() throws IOException {
+        byte[] head = concat(ftyp(), atom("moov",
+                fullAtom("mvhd", 0, 0, new byte[96]),
+                TestQTReader.trak(1, "vide", 640, 480),
+                TestQTReader.trak(2, "soun", 0, 0),
+                atom("mvex", fullAtom("trex", 0, 0, ints(1, 1, 1000, 0, 0x00010000)))));
+        int x = moof1(0).length + 8;
+        int y = moof2(0).length + 8;
+        byte[] file = concat(head, moof1(x), atom("mdat", new byte[210]),
+                moof2(y), atom("mdat", new byte[200]), atom("free"));
+
+        QTFragmentReader fr = new QTReader().readFragments(new ByteArrayInputStream(file));
+        assertEquals(2, fr.getTracks().size());
+        assertEquals(1000, fr.getTrex(1).getDefaultSampleDuration());
+        assertEquals(head.length, fr.getPosition());
+
+        QTFragment f1 = fr.next();
+        assertEquals(1, f1.getSequenceNumber());
+        assertEquals(head.length, f1.getOffset());
+        QTTrackFragment t1 = f1.getTrackFragment(1);
+        assertEquals(3, t1.getNumSamples());
+        assertEquals(head.length + x, t1.getSampleOffset(0));
+        assertEquals(head.length + x + 150, t1.getSampleOffset(2));
+        assertEquals(60, t1.getSampleSize(2));
+        assertEquals(2000, t1.getDecodeTime(2));
+        assertTrue(t1.isSync(0));
+        assertFalse(t1.isSync(1));
+        assertEquals(3000, t1.getEndTime());
+        assertNull(f1.getTrackFragment(2));
+
+        QTFragment f2 = fr.next();
+        long moof2Offset = head.length + moof1(x).length + 218;
+        assertEquals(2, f2.getSequenceNumber());
+        assertEquals(moof2Offset, f2.getOffset());
+        QTTrackFragment v = f2.getTrackFragment(1);
+        assertEquals(2, v.getNumSamples());
+        assertEquals(moof2Offset + y + 80, v.getSampleOffset(1));
+        assertEquals(80, v.getSampleSize(1));
+        assertEquals(3500, v.getDecodeTime(1));
+        assertFalse(v.isSync(0));
+        QTTrackFragment a = f2.getTrackFragment(2);
+        assertEquals(1, a.getNumSamples());
+        assertEquals(moof2Offset + y + 160, a.getSampleOffset(0));
+        assertEquals(40, a.getSampleSize(0));
+
+        assertNull(fr.next());
+        assertEquals(file.length, fr.getPosition());
+    }
+
+    public void testSeekWithSegmentIndex() throws IOException {
+        byte[] head = concat(ftyp(), atom("moov",
+                TestQTReader.trak(1, "vide", 640, 480),
+                atom("mvex", fullAtom("trex", 0, 0, ints(1, 1, 1000, 0, 0x00010000)))));
+        byte[] seg1 = concat(moof1(moof1(0).length + 8), atom("mdat", new byte[210]));
+        byte[] seg2 = concat(moof2(moof2(0).length + 8), atom("mdat", new byte[200]));
+        byte[] sidxB = fullAtom("sidx", 0, 0, ints(1, 1000, 0, 0), shorts(0, 2),
+                ints(seg1.length, 3000, 0x90000000, seg2.length, 1000, 0x90000000));
+        byte[] sidxA = fullAtom("sidx", 0, 0, ints(1, 1000, 0, 0), shorts(0, 1),
+                ints(0x80000000 | (sidxB.length + seg1.length + seg2.length), 4000, 0x90000000));
+        Path file = Files.createTempFile("qtsidx", ".mp4");
+        try {
+            Files.write(file, concat(head, sidxA, sidxB, seg1, seg2));
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                QTFragmentReader fr = new QTReader().readFragments(ch);
+                SegmentIndex index = fr.getSegmentIndex();
+                assertNotNull(index);
+                assertEquals(2, index.getNumSegments());
+                long seg2Offset = head.length + sidxA.length + sidxB.length + seg1.length;
+                assertEquals(seg2Offset, index.getOffset(1));
+                assertEquals(3000, index.getTime(1));
+                assertEquals(1000, index.getDuration(1));
+
+                assertTrue(fr.seek(3500));
+                QTFragment f = fr.next();
+                assertEquals(2, f.getSequenceNumber());
+                assertEquals(seg2Offset, f.getOffset());
+                assertEquals(seg2Offset + moof2(0).length + 8,
+                        f.getTrackFragment(1).getSampleOffset(0));
+                assertNull(fr.next());
+
+                assertTrue(fr.seek(0));
+                assertEquals(1, fr.next().getSequenceNumber());
+                assertFalse(fr.seek(4000));
+                assertEquals(0, ch.position());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testHugeSampleCount() throws IOException {
+        byte[] head = concat(ftyp(), atom("moov", TestQTReader.trak(1, "vide", 640, 480)));
+        int[] counts = {0x7FFFFFFF, 0xFFFFFFF0, 1500};
+        for (int count : counts) {
+            byte[] moof = atom("moof", fullAtom("mfhd", 0, 0, ints(1)),
+                    atom("traf", fullAtom("tfhd", 0, TfhdAtom.DEFAULT_BASE_IS_MOOF, ints(1)),
+                            fullAtom("trun", 0, 0, ints(count)),
+                            fullAtom("trun", 0, 0, ints(count))));
+            QTFragmentReader fr = new QTReaderBuilder().withMaxAtomSize(1 << 16).build()
+                    .readFragments(new ByteArrayInputStream(concat(head, moof)));
+            try {
+                fr.next();
+                fail("huge sample count accepted");
+            } catch (QTFormatException e) {
+                assertEquals("corrupt sample count", e.getMessage());
+            }
+        }
+    }
+
+    public void testCorruptHeaderSizes() throws IOException {
+        byte[][] moofs = {
+                atom("moof", fullAtom("mfhd", 0, 0)),
+                atom("moof", fullAtom("mfhd", 0, 0, ints(1)),
+                        atom("traf", fullAtom("tfhd", 0, 0, ints(1)), fullAtom("tfdt", 1, 0, ints(0))))
+        };
+        byte[] head = concat(ftyp(), atom("moov", TestQTReader.trak(1, "vide", 640, 480)));
+        for (byte[] moof : moofs) {
+            QTFragmentReader fr = new QTReader().readFragments(new ByteArrayInputStream(concat(head, moof)));
+            try {
+                fr.next();
+                fail("corrupt header accepted");
+            } catch (QTFormatException e) {
+                assertEquals("corrupt atom size", e.getMessage());
+            }
+        }
+        byte[] file = concat(ftyp(), atom("moov", TestQTReader.trak(1, "vide", 640, 480),
+                atom("mvex", fullAtom("trex", 0, 0, ints(1, 1, 1000)))));
+        try {
+            new QTReader().readFragments(new ByteArrayInputStream(file));
+            fail("corrupt trex accepted");
+        } catch (QTFormatException e) {
+            assertEquals("corrupt atom size", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the reads within QTLimits.
+ */
+public class TestQTLimits extends TestCase {
+
+    public TestQTLimits(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd";
+
+    /**
+     * A stream of an 'ftyp' atom followed by endless 'free' atoms of 4 GiB.
+     */
+    private static final class EndlessStream extends InputStream {
+
+        private final InputStream head = new ByteArrayInputStream(ftyp());
+
+        private long position;
+
+        @Override
+        public int read() throws IOException {
+            int b = head.read();
+            if (b >= 0) return b;
+            int index = (int) (position++ % 0xFFFFFFF0L);
+            if (index < 8) return concat(ints(0xFFFFFFF0), "free".getBytes())[index] & 0xFF;
+            return 0;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = head.skip(n);
+            if (skipped > 0) return skipped;
+            position += n;
+            return n;
+        }
+    }
+
+    private static byte[] movie(int mediaSize) {
+        return concat(ftyp(), atom("free", new byte[100]), atom("mdat", new byte[mediaSize]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        TestQTReader.trak(2, "vide", 640, 480)));
+    }
+
+    public void testComplete() throws IOException {
+        byte[] file = movie(1 << 16);
+        List<QTCommand> commands = QTProgCompiler.compile(PROG);
+        QTReader reader = new QTReader();
+        QTResult result = reader.readStream(new ByteArrayInputStream(file), commands, QTLimits.NONE
+                .withTimeout(1, TimeUnit.MINUTES).withToken(new QTCancellationToken()));
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getAtoms().size());
+        assertNull(result.getCheckpoint());
+        assertTrue(result.getBytesRead() > 1 << 16);
+    }
+
+    public void testByteBudget() throws IOException {
+        List<QTCommand> commands = QTProgCompiler.compile("read free\nread mdat");
+        QTResult result = new QTReader().readStream(new ByteArrayInputStream(movie(1 << 22)),
+                commands, QTLimits.NONE.withMaxBytes(1 << 16));
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+        assertEquals(1, result.getAtoms().size());
+        assertEquals(1 << 16, result.getBytesRead());
+
+        result = new QTReader().readStream(new ByteArrayInputStream(movie(1 << 22)),
+                QTProgCompiler.compile("read moov"), QTLimits.NONE.withMaxBytes(1 << 16));
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+        assertTrue(result.getAtoms().isEmpty());
+        assertEquals(1 << 16, result.getBytesRead());
+    }
+
+    public void testCancel() throws IOException {
+        QTCancellationToken token = new QTCancellationToken();
+        token.cancel();
+        QTResult result = new QTReader().readStream(new ByteArrayInputStream(movie(100)),
+                QTProgCompiler.compile(PROG), QTLimits.NONE.withToken(token));
+        assertEquals(QTResult.Status.CANCELLED, result.getStatus());
+        assertTrue(result.getAtoms().isEmpty());
+    }
+
+    public void testDeadline() throws IOException {
+        long start = System.nanoTime();
+        QTResult result = new QTReader().readStream(new EndlessStream(),
+                QTProgCompiler.compile("read moov"), QTLimits.NONE.withTimeout(50, TimeUnit.MILLISECONDS));
+        assertEquals(QTResult.Status.DEADLINE_EXCEEDED, result.getStatus());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+
+        result = new QTReader().readStream(new ByteArrayInputStream(movie(100)),
+                QTProgCompiler.compile(PROG), QTLimits.NONE.withTimeout(Long.MAX_VALUE, TimeUnit.DAYS));
+        assertTrue(result.isComplete());
+        result = new QTReader().readStream(new EndlessStream(), QTProgCompiler.compile("read moov"),
+                QTLimits.NONE.withTimeout(Long.MAX_VALUE / 2, TimeUnit.NANOSECONDS).withMaxBytes(1 << 10));
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+
+        try {
+            new QTReader().readStream(new ByteArrayInputStream(movie(100)),
+                    QTProgCompiler.compile("read moov\nread moov"), QTLimits.NONE.withMaxBytes(1 << 20));
+            fail("missing atom not reported");
+        } catch (IOException e) {
+            assertFalse(e instanceof InterruptedIOException);
+        }
+    }
+
+    public void testResume() throws IOException {
+        Path path = Files.createTempFile("qtlimits", ".mov");
+        try {
+            Files.write(path, movie(1 << 20));
+            QTPlan plan = QTProgCompiler.compilePlan(PROG);
+            QTReader reader = new QTReader();
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                QTResult result = reader.readChannel(ch, plan,
+                        QTReadOptions.DEFAULT.withLimits(QTLimits.NONE.withMaxBytes(200)));
+                assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+                assertTrue(result.getBytesRead() <= 200);
+                assertNotNull(result.getCheckpoint());
+                Collection<QTAtom> atoms = reader.resume(ch, plan.getCommands(), result.getCheckpoint());
+                assertEquals(2, atoms.size());
+                assertEquals(2, ((TkhdAtom) new ArrayList<>(atoms).get(1)).getTrackId());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testResumeSource() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        RandomAccessSource source = new ByteArraySource(movie(1 << 20));
+        QTReadOptions options = QTReadOptions.DEFAULT.withLimits(QTLimits.NONE.withMaxBytes(200));
+        QTResult result = reader.readSource(source, plan, options);
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+        QTCheckpoint checkpoint = result.getCheckpoint();
+        assertNotNull(checkpoint);
+
+        Collection<QTAtom> atoms = reader.resume(source, plan.getCommands(), checkpoint);
+        assertEquals(2, ((TkhdAtom) new ArrayList<>(atoms).get(1)).getTrackId());
+
+        result = reader.resume(source, plan, checkpoint, options.withLimits(QTLimits.NONE.withMaxBytes(1 << 16)));
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getAtoms().size());
+        assertEquals(2, ((TkhdAtom) new ArrayList<>(result.getAtoms()).get(1)).getTrackId());
+        try {
+            reader.resume(source, QTProgCompiler.compilePlan("read moov"), checkpoint, options);
+            fail("checkpoint of another program accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
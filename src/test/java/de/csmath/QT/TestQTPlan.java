@@ -0,0 +1,144 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests QTPlan and the sharing of one reader and one plan across threads.
+ */
+public class TestQTPlan extends TestCase {
+
+    public TestQTPlan(String name) {
+        super(name);
+    }
+
+    public void testImmutablePlan() {
+        List<QTCommand> commands = QTProgCompiler.compile("step into moov\nread mvhd");
+        QTPlan plan = new QTPlan(commands);
+        commands.clear();
+        assertEquals(2, plan.size());
+        assertEquals(QTAtom.MVHD, plan.getCommand(1).getType());
+        try {
+            plan.getCommands().remove(0);
+            fail("plan modified");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(2, plan.size());
+        }
+        assertEquals(plan, QTProgCompiler.compilePlan("step into moov\n# header\nread mvhd"));
+        assertEquals(plan.hashCode(), QTProgCompiler.compilePlan("STEP INTO moov\nread mvhd").hashCode());
+        assertFalse(plan.equals(QTProgCompiler.compilePlan("step into moov\nskip mvhd")));
+    }
+
+    public void testSerializedPlan() {
+        QTPlan plan = QTProgCompiler.compilePlan("step into moov\nread mvhd\nskip trak");
+        byte[] bytes = plan.toBytes();
+        assertEquals(12 + 3 * 15, bytes.length);
+        QTPlan loaded = QTPlan.fromBytes(bytes);
+        assertEquals(plan, loaded);
+        assertEquals(QTOpCode.SKIP, loaded.getCommand(2).getCode());
+        assertEquals(QTAtom.TRAK, loaded.getCommand(2).getType());
+        try {
+            QTPlan.fromBytes(Arrays.copyOf(bytes, bytes.length - 1));
+            fail("truncated plan loaded");
+        } catch (IllegalArgumentException e) {
+            assertEquals("corrupt plan", e.getMessage());
+        }
+        bytes[12] = 7;
+        try {
+            QTPlan.fromBytes(bytes);
+            fail("corrupt plan loaded");
+        } catch (IllegalArgumentException e) {
+            assertEquals("corrupt plan", e.getMessage());
+        }
+    }
+
+    public void testOptimizedPlanSkipsContainers() throws IOException {
+        byte[] file = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                TestQTReader.trak(1, "vide", 640, 480), TestQTReader.trak(2, "soun", 0, 0)));
+        QTPlan plan = QTProgCompiler.compilePlan("step into moov\nread mvhd\nstep into trak\n" +
+                "step into mdia\nskip mdhd\nstep into trak\nstep into mdia\nread hdlr\n" +
+                "step into minf\nskip stbl");
+        QTPlan optimized = QTProgCompiler.optimize(plan);
+        assertFalse(optimized.getCommand(2).containsRead());
+        QTReader reader = new QTReader();
+
+        List<QTAtom> atoms = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file),
+                optimized.getCommands()));
+        assertEquals(2, atoms.size());
+        assertEquals(HdlrAtom.SOUN, ((HdlrAtom) atoms.get(1)).getCompSubtype());
+        List<QTAtom> unoptimized = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file),
+                plan.getCommands()));
+        assertEquals(HdlrAtom.SOUN, ((HdlrAtom) unoptimized.get(1)).getCompSubtype());
+
+        Path path = Files.createTempFile("qtplan", ".mov");
+        try {
+            Files.write(path, file);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                atoms = new ArrayList<>(reader.readChannel(ch, optimized));
+            }
+            assertEquals(HdlrAtom.SOUN, ((HdlrAtom) atoms.get(1)).getCompSubtype());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testShareReaderAcrossThreads() throws Exception {
+        byte[] head = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                TestQTReader.trak(1, "vide", 640, 480)));
+        byte[] moof1 = TestQTFragmentReader.moof1(0);
+        byte[] file = concat(head, moof1, TestQTFragmentReader.moof2(0));
+        final long moof2Offset = head.length + moof1.length;
+        final QTPlan movie = QTProgCompiler.compilePlan("step into moov\nread mvhd\nstep into trak\n" +
+                "step into mdia\nstep into minf\nstep into stbl\nread stsz");
+        final QTPlan fragment = QTProgCompiler.compilePlan("step into moof\nread mfhd\nstep into traf\nread trun");
+        final QTReader reader = new QTReader();
+
+        Path path = Files.createTempFile("qtplan", ".mp4");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Files.write(path, file);
+            try (final FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t=0; t < 16; t++) {
+                    final boolean second = t % 2 == 1;
+                    results.add(pool.submit(() -> {
+                        for (int i=0; i < 100; i++) {
+                            Collection<QTAtom> atoms = reader.readChannel(ch, movie);
+                            StszAtom stsz = (StszAtom) new ArrayList<>(atoms).get(1);
+                            List<QTAtom> frag = new ArrayList<>(second
+                                    ? reader.readChannel(ch, moof2Offset, fragment)
+                                    : reader.readChannel(ch, head.length, fragment));
+                            int sequence = ((MfhdAtom) frag.get(0)).getSequenceNumber();
+                            int samples = ((TrunAtom) frag.get(1)).getSampleCount();
+                            if (stsz.getSampleSize(2) != 30 || sequence != (second ? 2 : 1)
+                                    || samples != (second ? 2 : 3)) return false;
+                        }
+                        return true;
+                    }));
+                }
+                for (Future<Boolean> result : results) {
+                    assertTrue(result.get());
+                }
+                assertEquals(0, ch.position());
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(path);
+        }
+    }
+}
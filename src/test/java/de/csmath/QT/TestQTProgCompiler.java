@@ -105,4 +105,109 @@ public class TestQTProgCompiler extends TestCase {
         assertEquals(QTOpCode.READ, cmd2.getCode());
         assertEquals(QTAtom.STSD, cmd2.getType());
     }
+
+    public void testCachedPlans() {
+        String prog = "step into moov\nread mvhd\n";
+        QTPlan plan = compilePlan(prog);
+        assertSame(plan, compilePlan(prog));
+        List<QTCommand> cmds = compile(prog);
+        cmds.clear();
+        assertEquals(2, compile(prog).size());
+        assertEquals(2, plan.size());
+        QTPlan first = compilePlan("read moov # 0");
+        for (int i=1; i <= 2 * MAX_CACHED_PLANS; i++) {
+            compilePlan("read moov # " + i);
+            assertSame(plan, compilePlan(prog));
+        }
+        assertNotSame(first, compilePlan("read moov # 0"));
+        String late = "read moov # late";
+        assertSame(compilePlan(late), compilePlan(late));
+        try {
+            compilePlan("jump moov");
+            fail("syntax error compiled");
+        } catch (IllegalArgumentException e) {
+            assertEquals("syntax error", e.getMessage());
+        }
+    }
+
+    public void testOptimize() {
+        QTPlan plan = optimize(compilePlan("step into moov\nread mvhd\nstep into trak\nskip tkhd\n" +
+                "step into moov\nstep into trak\nstep into mdia\nread mdhd\n" +
+                "step into minf\nskip stbl"));
+        assertEquals(7, plan.size());
+        QTCommand moov = plan.getCommand(0);
+        assertEquals(6, moov.getSubtreeSize());
+        assertTrue(moov.containsRead());
+        QTCommand trak1 = plan.getCommand(2);
+        assertEquals(QTAtom.TRAK, trak1.getType());
+        assertEquals(1, trak1.getSubtreeSize());
+        assertFalse(trak1.containsRead());
+        QTCommand trak2 = plan.getCommand(4);
+        assertEquals(QTAtom.TRAK, trak2.getType());
+        assertEquals(2, trak2.getSubtreeSize());
+        assertTrue(trak2.containsRead());
+        assertEquals(QTAtom.MDHD, plan.getCommand(6).getType());
+        assertEquals(-1, compilePlan("step into moov").getCommand(0).getSubtreeSize());
+        assertEquals(0, optimize(compilePlan("step into moov\nskip mvhd")).size());
+        assertEquals("stsd", atomIntToName(QTAtom.STSD));
+
+        try {
+            optimize(compilePlan("step into moov\nread stsd"));
+            fail("impossible path accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("impossible path: read stsd outside stbl", e.getMessage());
+        }
+    }
+
+    public void testCompilePredicates() {
+        List<QTCommand> cmds = compile("Step Into trak WHERE hdlr=vide # video only\n" +
+                "read stsd where format=SVQ3\nskip traf where id=7");
+        assertEquals(3, cmds.size());
+        assertEquals(QTOpCode.STEPIN, cmds.get(0).getCode());
+        assertEquals(QTAtom.TRAK, cmds.get(0).getType());
+        assertEquals(new QTPredicate(QTPredicate.Field.HDLR, HdlrAtom.VIDE), cmds.get(0).getPredicate());
+        assertEquals(atomNameToInt("SVQ3"), cmds.get(1).getPredicate().getValue());
+        assertEquals("id=7", cmds.get(2).getPredicate().toString());
+        assertNull(compile("read mvhd #where").get(0).getPredicate());
+
+        String[][] errors = {
+                {"read mvhd where hdlr=vide", "no field hdlr of mvhd"},
+                {"read stsd where", "syntax error"},
+                {"read stsd where format", "syntax error"},
+                {"step into trak where size=3", "unknown field size"},
+                {"step into trak where id=one", "syntax error"}};
+        for (String[] error : errors) {
+            try {
+                compile(error[0]);
+                fail(error[0]);
+            } catch (IllegalArgumentException e) {
+                assertEquals(error[1], e.getMessage());
+            }
+        }
+    }
+
+    public void testCompileProjections() {
+        List<QTCommand> cmds = compile("read MVHD (timescale , duration) # header\n" +
+                "read stsd.video(width,height) where format=apch\nread tkhd");
+        assertEquals(3, cmds.size());
+        assertEquals(QTAtom.MVHD, cmds.get(0).getType());
+        assertEquals("mvhd(timescale,duration)", cmds.get(0).getProjection().toString());
+        assertEquals("stsd.video(width,height)", cmds.get(1).getProjection().toString());
+        assertEquals("format=apch", cmds.get(1).getPredicate().toString());
+        assertNull(cmds.get(2).getProjection());
+
+        String[][] errors = {
+                {"skip moov(timescale)", "syntax error"},
+                {"read mvhd(timescale", "syntax error"},
+                {"read mvhd(width)", "no field width of mvhd"},
+                {"read stts(entry_count)", "no projection of stts"}};
+        for (String[] error : errors) {
+            try {
+                compile(error[0]);
+                fail(error[0]);
+            } catch (IllegalArgumentException e) {
+                assertEquals(error[1], e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,170 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the projection of READ commands onto atom fields.
+ */
+public class TestQTProjection extends TestCase {
+
+    public TestQTProjection(String name) {
+        super(name);
+    }
+
+    /**
+     * Returns a movie with an mvhd atom of version 0, a version 1 mdhd atom
+     * and a video sample description.
+     */
+    static byte[] movie() {
+        byte[] apch = atom("apch", new byte[6], shorts(1, 0, 0), ints(0, 0, 0),
+                shorts(1280, 720), ints(72 << 16, 72 << 16, 0), shorts(1), new byte[32],
+                shorts(24, -1));
+        byte[] trak = atom("trak",
+                fullAtom("tkhd", 0, 1, ints(0, 0, 7, 0, 3000), new byte[8],
+                        shorts(0, 0, 0, 0), new byte[36], ints(1280 << 16, 720 << 16)),
+                atom("mdia",
+                        fullAtom("mdhd", 1, 0, longs(1, 2), ints(90000), longs(1L << 33), shorts(0x55C4, 0)),
+                        atom("minf", atom("stbl", fullAtom("stsd", 0, 0, ints(1), apch)))));
+        return concat(ftyp(), atom("moov",
+                fullAtom("mvhd", 0, 0, ints(1, 2, 600, 1800, 0x00010000), shorts(0x0100), new byte[70],
+                        ints(8)),
+                trak));
+    }
+
+    static final String PROG = "step into moov\n"
+            + "read mvhd(timescale, duration)\n"
+            + "step into trak\n"
+            + "read tkhd(track_id,width,height)\n"
+            + "step into mdia\n"
+            + "read mdhd(timescale,duration)\n"
+            + "step into minf\n"
+            + "step into stbl\n"
+            + "read stsd.video(width,height,depth)";
+
+    public void testParse() {
+        QTProjection p = QTProjection.parse(QTAtom.MVHD, "(timescale,duration)");
+        assertEquals(QTAtom.MVHD, p.getAtomType());
+        assertEquals(2, p.getNumFields());
+        assertEquals("duration", p.getFieldName(1));
+        assertEquals(0, p.indexOf("timescale"));
+        assertEquals(-1, p.indexOf("rate"));
+        assertEquals("mvhd(timescale,duration)", p.toString());
+        assertEquals(p, QTProjection.of(p.getView(), p.getFieldIndices()));
+        assertEquals("stsd.video(width)", QTProjection.parse(QTAtom.STSD, ".video(width)").toString());
+
+        String[][] errors = {
+                {"timescale", "syntax error"},
+                {"(timescale", "syntax error"},
+                {"x(timescale)", "syntax error"},
+                {"(timescale,depth)", "no field depth of mvhd"},
+                {".video(width)", "no projection of mvhd.video"}};
+        for (String[] error : errors) {
+            try {
+                QTProjection.parse(QTAtom.MVHD, error[0]);
+                fail(error[0] + " accepted");
+            } catch (IllegalArgumentException e) {
+                assertEquals(error[1], e.getMessage());
+            }
+        }
+        try {
+            QTProjection.parse(QTAtom.STTS, "(entry_count)");
+            fail("projection of stts accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no projection of stts", e.getMessage());
+        }
+    }
+
+    public void testReadProjections() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        List<QTAtom> atoms = new ArrayList<>(reader.readStream(new ByteArrayInputStream(movie()),
+                plan.getCommands()));
+        assertEquals(4, atoms.size());
+        ProjectedAtom mvhd = (ProjectedAtom) atoms.get(0);
+        assertEquals(QTAtom.MVHD, mvhd.getType());
+        assertEquals(600, mvhd.getValue("timescale"));
+        assertEquals(1800, mvhd.getValue(1));
+        ProjectedAtom tkhd = (ProjectedAtom) atoms.get(1);
+        assertEquals(7, tkhd.getValue("track_id"));
+        assertEquals(1280, tkhd.getValue("width"));
+        assertEquals(720, tkhd.getValue("height"));
+        ProjectedAtom mdhd = (ProjectedAtom) atoms.get(2);
+        assertEquals(90000, mdhd.getValue("timescale"));
+        assertEquals(1L << 33, mdhd.getValue("duration"));
+        ProjectedAtom stsd = (ProjectedAtom) atoms.get(3);
+        assertEquals(1280, stsd.getValue("width"));
+        assertEquals(720, stsd.getValue("height"));
+        assertEquals(24, stsd.getValue("depth"));
+        try {
+            stsd.getValue("format");
+            fail("field not projected");
+        } catch (IllegalArgumentException e) {
+            assertEquals("field not projected: format", e.getMessage());
+        }
+
+        List<QTAtom> executed = new ArrayList<>(reader.compile(QTProgCompiler.optimize(plan))
+                .execute(new ByteArrayInputStream(movie())));
+        assertEquals(4, executed.size());
+        assertEquals(1L << 33, ((ProjectedAtom) executed.get(2)).getValue("duration"));
+        assertEquals(720, ((ProjectedAtom) executed.get(3)).getValue("height"));
+    }
+
+    public void testSerializedProjections() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTPlan restored = QTPlan.fromBytes(plan.toBytes());
+        assertEquals(plan, restored);
+        assertEquals("mvhd(timescale,duration)", restored.getCommand(1).getProjection().toString());
+
+        byte[] file = movie();
+        Path path = Files.createTempFile("qtproj", ".mov");
+        try {
+            Files.write(path, file);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                QTCheckpoint checkpoint = new QTCheckpoint(QTCheckpoint.hash(plan.getCommands()),
+                        plan.size(), 2, indexOf(file, "trak") - 4, new long[] {file.length},
+                        new long[] {indexOf(file, "mvhd") - 4}, new int[] {1});
+                List<QTAtom> atoms = new ArrayList<>(new QTReader().resume(ch, plan.getCommands(),
+                        QTCheckpoint.fromBytes(checkpoint.toBytes())));
+                assertEquals(4, atoms.size());
+                assertEquals(600, ((ProjectedAtom) atoms.get(0)).getValue("timescale"));
+                assertEquals(7, ((ProjectedAtom) atoms.get(1)).getValue("track_id"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    public void testTruncatedProjection() {
+        byte[] file = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, ints(1, 2, 600))));
+        try {
+            new QTReader().readStream(new ByteArrayInputStream(file),
+                    QTProgCompiler.compile("step into moov\nread mvhd(duration)"));
+            fail("truncated mvhd accepted");
+        } catch (IOException e) {
+            assertEquals("corrupt atom size", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of an atom type in a file.
+     */
+    private static int indexOf(byte[] file, String type) {
+        byte[] t = type.getBytes();
+        for (int i=0; i + 4 <= file.length; i++) {
+            if (file[i] == t[0] && file[i + 1] == t[1] && file[i + 2] == t[2] && file[i + 3] == t[3])
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,97 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests reads with combined QTReadOptions.
+ */
+public class TestQTReadOptions extends TestCase {
+
+    public TestQTReadOptions(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd\n"
+            + "step into mdia\n"
+            + "read hdlr";
+
+    private static byte[] movie(int mediaSize) {
+        return concat(ftyp(), atom("mdat", new byte[mediaSize]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        TestQTReader.trak(2, "vide", 640, 480)));
+    }
+
+    private static void assertMovie(QTResult result) {
+        assertTrue(result.isComplete());
+        List<QTAtom> atoms = new ArrayList<>(result.getAtoms());
+        assertEquals(3, atoms.size());
+        assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+        assertEquals(HdlrAtom.VIDE, ((HdlrAtom) atoms.get(2)).getCompSubtype());
+    }
+
+    public void testCombined() throws IOException {
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        LayoutLearner learner = new LayoutLearner();
+        Prefetcher prefetcher = new Prefetcher(Runnable::run, 1 << 16, 1024);
+        QTReadOptions options = QTReadOptions.DEFAULT.withLearner(learner).withPrefetcher(prefetcher)
+                .withLimits(QTLimits.NONE.withTimeout(1, TimeUnit.MINUTES).withMaxBytes(1 << 16));
+        assertMovie(reader.readSource(new ByteArraySource(movie(1 << 20)), plan, options));
+        assertEquals(0, prefetcher.getBytesHeld());
+        assertEquals(1, learner.getNumSignatures());
+
+        QTResult result = reader.readSource(new ByteArraySource(movie(3 << 19)), plan, options);
+        assertMovie(result);
+        assertEquals(1, learner.getHits());
+        assertEquals(0, result.getBytesRead());
+
+        RandomAccessSource source = new ByteArraySource(movie(1 << 18));
+        QTExplain explain = reader.explain(source, plan);
+        ReadScheduler scheduler = new ReadScheduler();
+        options = QTReadOptions.DEFAULT.withSchedule(explain, scheduler).withPrefetcher(prefetcher);
+        assertMovie(reader.readSource(source, plan, options));
+        assertEquals(0, scheduler.getNumMisses());
+
+        options = QTReadOptions.DEFAULT.withStrategy(QTExplain.Strategy.SEQUENTIAL);
+        assertMovie(reader.readSource(source, plan, options));
+        result = reader.readSource(source, plan, options.withLimits(QTLimits.NONE.withMaxBytes(1 << 16)));
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+
+        result = reader.readSource(new ByteArraySource(movie(1 << 20)), plan,
+                QTReadOptions.DEFAULT.withPrefetcher(prefetcher).withLimits(QTLimits.NONE.withMaxBytes(16)));
+        assertEquals(QTResult.Status.BYTE_BUDGET_EXCEEDED, result.getStatus());
+        assertEquals(0, prefetcher.getBytesHeld());
+    }
+
+    public void testInvalidOptions() {
+        try {
+            QTReadOptions.DEFAULT.withStrategy(null);
+            fail("missing strategy accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no strategy", e.getMessage());
+        }
+        try {
+            QTReadOptions.DEFAULT.withSchedule(null, new ReadScheduler());
+            fail("missing explanation accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no schedule", e.getMessage());
+        }
+        try {
+            QTReadOptions.DEFAULT.withLimits(null);
+            fail("missing limits accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("no limits", e.getMessage());
+        }
+    }
+}
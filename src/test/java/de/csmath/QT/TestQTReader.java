@@ -2,12 +2,18 @@ package de.csmath.QT;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.FilterInputStream;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
 import static de.csmath.QT.QTProgCompiler.*;
+import static de.csmath.QT.QTTestFiles.*;
 
 /**
  * Created by lpfeiler on 04.12.2016.
@@ -120,4 +126,305 @@ public class TestQTReader extends TestCase {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    public void testReadSampleTablesInAllStorages() throws IOException {
+        int[] sizes = new int[5000];
+        for (int i=0; i < sizes.length; i++) sizes[i] = 1000 + i;
+        byte[] file = concat(ftyp(),
+                atom("moov", atom("trak", atom("mdia", atom("minf", atom("stbl",
+                        fullAtom("ctts", 0, 0, ints(2, 1, 0, 100, 512)),
+                        fullAtom("stsz", 0, 0, ints(0, sizes.length), ints(sizes)),
+                        fullAtom("co64", 0, 0, ints(2), longs(0x100000000L, 0x200000000L))))))));
+        String prog = "step into moov\n"
+                    + "step into trak\n"
+                    + "step into mdia\n"
+                    + "step into minf\n"
+                    + "step into stbl\n"
+                    + "read ctts\n"
+                    + "read stsz\n"
+                    + "read co64";
+        List<QTCommand> cmds = QTProgCompiler.compile(prog);
+
+        for (TableStorage storage : TableStorage.values()) {
+            QTReader reader = new QTReaderBuilder()
+                    .withTableStorage(storage)
+                    .withOffHeapThreshold(1024)
+                    .build();
+            Iterator<QTAtom> it = reader.readStream(new ByteArrayInputStream(file), cmds).iterator();
+
+            CttsAtom ctts = (CttsAtom) it.next();
+            assertEquals(2, ctts.getNumEntries());
+            assertEquals(100, ctts.getSampleCount(1));
+            assertEquals(512, ctts.getSampleOffset(1));
+            //small tables stay on the heap
+            assertEquals(TableStorage.HEAP, ctts.getTable().getStorage());
+
+            StszAtom stsz = (StszAtom) it.next();
+            assertEquals(sizes.length, stsz.getNumSamples());
+            assertEquals(storage, stsz.getTable().getStorage());
+            for (int i=0; i < sizes.length; i++) {
+                assertEquals(sizes[i], stsz.getSampleSize(i));
+            }
+
+            StcoAtom co64 = (StcoAtom) it.next();
+            assertEquals(2, co64.getNumChunks());
+            assertEquals(0x200000000L, co64.getChunkOffset(1));
+        }
+    }
+
+    /**
+     * Returns a 'trak' atom with the given ID, handler type, dimensions and
+     * a sample table of 3 samples.
+     */
+    static byte[] trak(int id, String handler, int width, int height) {
+        return atom("trak",
+                fullAtom("tkhd", 0, 1, ints(0, 0, id, 0, 3000), new byte[8],
+                        shorts(0, 0, 0, 0), new byte[36], ints(width << 16, height << 16)),
+                atom("mdia",
+                        fullAtom("mdhd", 0, 0, ints(0, 0, 600, 1800), shorts(0, 0)),
+                        fullAtom("hdlr", 0, 0, "mhlr".getBytes(), handler.getBytes(),
+                                new byte[12], bytes(4), "Test".getBytes()),
+                        atom("minf", atom("stbl",
+                                fullAtom("stts", 0, 0, ints(1, 3, 600)),
+                                fullAtom("stss", 0, 0, ints(1, 1)),
+                                fullAtom("stsc", 0, 0, ints(1, 1, 3, 1)),
+                                fullAtom("stsz", 0, 0, ints(0, 3, 10, 20, 30)),
+                                fullAtom("stco", 0, 0, ints(1, 4096))))));
+    }
+
+    public void testReadTracks() throws IOException {
+        byte[] file = concat(ftyp(), atom("wide"), atom("mdat", new byte[100]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        trak(1, "vide", 1920, 1080),
+                        trak(2, "soun", 0, 0),
+                        atom("udta")));
+        QTReader reader = new QTReader();
+
+        List<QTTrack> tracks = reader.readTracks(new ByteArrayInputStream(file));
+        assertEquals(2, tracks.size());
+        QTTrack video = tracks.get(0);
+        assertEquals(1, video.getTrackId());
+        assertEquals(HdlrAtom.VIDE, video.getHandlerType());
+        assertEquals(600, video.getTimeScale());
+        assertEquals(1800, video.getDuration());
+        assertEquals(1920, video.getWidth());
+        assertEquals(1080, video.getHeight());
+        assertEquals("Test", video.getHdlr().getCompName());
+        assertFalse(video.hasSampleTable());
+        assertEquals(HdlrAtom.SOUN, tracks.get(1).getHandlerType());
+
+        tracks = reader.readTracks(new ByteArrayInputStream(file), HdlrAtom.SOUN);
+        assertEquals(1, tracks.size());
+        QTTrack sound = tracks.get(0);
+        assertEquals(2, sound.getTrackId());
+        assertTrue(sound.hasSampleTable());
+        SampleCursor c = sound.getSampleCursor();
+        assertTrue(c.next());
+        assertTrue(c.next());
+        assertEquals(4106, c.offset());
+        assertEquals(600, c.decodeTime());
+        assertFalse(sound.getSyncSamples().isSync(1));
+    }
+
+    public void testReadSoundSampleDescriptions() throws IOException {
+        byte[] esds = fullAtom("esds", 0, 0, bytes(3, 25, 0, 1, 0,
+                4, 17, 0x40, 0x15, 0, 0x18, 0, 0, 2, 0xEE, 0, 0, 1, 0xF4, 0,
+                5, 2, 0x11, 0x90,
+                6, 1, 2));
+        byte[] mp4aV1 = atom("mp4a", new byte[6], shorts(1, 1, 0), ints(0),
+                shorts(2, 16, -2, 0), ints(48000 << 16), ints(1024, 0, 0, 2),
+                atom("wave", atom("frma", "mp4a".getBytes()), esds, ints(8, 0)));
+        byte[] sowtV0 = atom("sowt", new byte[6], shorts(1, 0, 0), ints(0),
+                shorts(2, 16, 0, 0), ints(44100 << 16));
+        byte[] lpcmV2 = atom("lpcm", new byte[6], shorts(1, 2, 0), ints(0),
+                shorts(3, 16, -2, 0), ints(65536, 72), longs(Double.doubleToLongBits(96000.0)),
+                ints(6, 0x7F000000, 24, 12, 18, 1));
+        byte[] tmcd = atom("tmcd", new byte[6], shorts(1), new byte[16]);
+        byte[] file = concat(ftyp(), atom("moov", atom("trak", atom("mdia", atom("minf",
+                atom("stbl", fullAtom("stsd", 0, 0, ints(4), mp4aV1, sowtV0, lpcmV2, tmcd)))))));
+        String prog = "step into moov\n"
+                    + "step into trak\n"
+                    + "step into mdia\n"
+                    + "step into minf\n"
+                    + "step into stbl\n"
+                    + "read stsd";
+        Collection<QTAtom> atoms = new QTReader().readStream(new ByteArrayInputStream(file),
+                QTProgCompiler.compile(prog));
+        Iterator<SampleDescription> it = ((StsdAtom) atoms.iterator().next()).getSDIterator();
+
+        SoundSampleDescription aac = (SoundSampleDescription) it.next();
+        assertEquals(1, aac.getVersion());
+        assertEquals(2, aac.getNumChannels());
+        assertEquals(48000.0, aac.getSampleRate());
+        assertEquals(1024, aac.getSamplesPerPacket());
+        EsdsAtom es = aac.getEsds();
+        assertNotNull(es);
+        assertEquals(EsdsAtom.OBJECT_TYPE_MPEG4_AUDIO, es.getObjectType());
+        assertEquals(128000, es.getAvgBitrate());
+        assertEquals(2, es.getAudioObjectType());
+        assertEquals(48000, es.getSamplingFrequency());
+        assertEquals(2, es.getChannelConfig());
+
+        SoundSampleDescription pcm = (SoundSampleDescription) it.next();
+        assertEquals(SampleDescription.SOWT, pcm.getDataFormat());
+        assertEquals(44100.0, pcm.getSampleRate());
+        assertEquals(16, pcm.getSampleSize());
+
+        SoundSampleDescription hiRes = (SoundSampleDescription) it.next();
+        assertEquals(2, hiRes.getVersion());
+        assertEquals(96000.0, hiRes.getSampleRate());
+        assertEquals(6, hiRes.getNumChannels());
+        assertEquals(24, hiRes.getSampleSize());
+
+        //unknown formats are kept as plain sample descriptions
+        SampleDescription timecode = it.next();
+        assertNotNull(timecode);
+        assertEquals(1, timecode.getRefIndex());
+        assertFalse(it.hasNext());
+    }
+
+    public void testReadVideoSampleDescriptions() throws IOException {
+        byte[] hvc1 = atom("hvc1", new byte[6], shorts(1, 0, 0), ints(0, 0, 0),
+                shorts(1920, 1080), ints(72 << 16, 72 << 16, 0), shorts(1), new byte[32],
+                shorts(24, -1),
+                atom("hvcC", new byte[23]),
+                atom("colr", "nclx".getBytes(), shorts(9, 16, 9), bytes(0x80)),
+                atom("pasp", ints(4, 3)),
+                atom("btrt", ints(0, 8000000, 5000000)));
+        byte[] apch = atom("apch", new byte[6], shorts(1, 0, 0), ints(0, 0, 0),
+                shorts(1280, 720), ints(72 << 16, 72 << 16, 0), shorts(1), new byte[32],
+                shorts(24, -1),
+                atom("fiel", bytes(2, 9)),
+                atom("clap", ints(1280, 1, 720, 1, 0, 1, 0, 1)),
+                ints(0));
+        byte[] file = concat(ftyp(), atom("moov", atom("trak", atom("mdia", atom("minf",
+                atom("stbl", fullAtom("stsd", 0, 0, ints(2), hvc1, apch)))))));
+        String prog = "step into moov\n"
+                    + "step into trak\n"
+                    + "step into mdia\n"
+                    + "step into minf\n"
+                    + "step into stbl\n"
+                    + "read stsd";
+        Collection<QTAtom> atoms = new QTReader().readStream(new ByteArrayInputStream(file),
+                QTProgCompiler.compile(prog));
+        Iterator<SampleDescription> it = ((StsdAtom) atoms.iterator().next()).getSDIterator();
+
+        VideoSampleDescription hevc = (VideoSampleDescription) it.next();
+        assertEquals(SampleDescription.HVC1, hevc.getDataFormat());
+        assertEquals(1920, hevc.getWidth());
+        assertEquals(1080, hevc.getHeight());
+        assertTrue(hevc.getExtension(QTAtom.HVCC) instanceof HvcCAtom);
+        ColrAtom colr = (ColrAtom) hevc.getExtension(QTAtom.COLR);
+        assertEquals(ColrAtom.NCLX, colr.getColParamType());
+        assertEquals(16, colr.getTransFuncIndex());
+        PaspAtom pasp = (PaspAtom) hevc.getExtension(QTAtom.PASP);
+        assertEquals(4, pasp.getHSpacing());
+        assertEquals(3, pasp.getVSpacing());
+        assertEquals(5000000, ((BtrtAtom) hevc.getExtension(QTAtom.BTRT)).getAvgBitrate());
+
+        VideoSampleDescription proRes = (VideoSampleDescription) it.next();
+        assertEquals(SampleDescription.APCH, proRes.getDataFormat());
+        assertEquals(720, proRes.getHeight());
+        assertTrue(((FielAtom) proRes.getExtension(QTAtom.FIEL)).isInterlaced());
+        assertEquals(1280.0, ((ClapAtom) proRes.getExtension(QTAtom.CLAP)).getWidth());
+        assertFalse(it.hasNext());
+    }
+
+    static byte[] trakWithStsd(int id, String handler, byte[] sampleDesc) {
+        return atom("trak",
+                fullAtom("tkhd", 0, 1, ints(0, 0, id, 0, 3000), new byte[8],
+                        shorts(0, 0, 0, 0), new byte[36], ints(0, 0)),
+                atom("mdia",
+                        fullAtom("mdhd", 0, 0, ints(0, 0, 600, 1800), shorts(0, 0)),
+                        fullAtom("hdlr", 0, 0, "mhlr".getBytes(), handler.getBytes(),
+                                new byte[12], bytes(4), "Test".getBytes()),
+                        atom("minf", atom("stbl", fullAtom("stsd", 0, 0, ints(1), sampleDesc)))));
+    }
+
+    public void testReadWithPredicates() throws IOException {
+        byte[] sowt = atom("sowt", new byte[6], shorts(1, 0, 0), ints(0),
+                shorts(2, 16, 0, 0), ints(44100 << 16));
+        byte[] apch = atom("apch", new byte[6], shorts(1, 0, 0), ints(0, 0, 0),
+                shorts(1280, 720), ints(72 << 16, 72 << 16, 0), shorts(1), new byte[32],
+                shorts(24, -1));
+        byte[] file = concat(ftyp(), atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                trakWithStsd(1, "soun", sowt), trakWithStsd(2, "vide", apch)));
+        QTPlan plan = QTProgCompiler.compilePlan("step into moov\n"
+                + "step into trak where hdlr=vide\n"
+                + "read tkhd\n"
+                + "step into mdia\n"
+                + "step into minf\n"
+                + "step into stbl\n"
+                + "read stsd where format=apch");
+        QTReader reader = new QTReader();
+        InputStream unmarkable = new FilterInputStream(new ByteArrayInputStream(file)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+        List<QTAtom> atoms = new ArrayList<>(reader.readStream(unmarkable, plan.getCommands()));
+        assertEquals(2, atoms.size());
+        assertEquals(2, ((TkhdAtom) atoms.get(0)).getTrackId());
+        SampleDescription sd = ((StsdAtom) atoms.get(1)).getSDIterator().next();
+        assertEquals(SampleDescription.APCH, sd.getDataFormat());
+
+        atoms = new ArrayList<>(reader.compile(plan).execute(new ByteArrayInputStream(file)));
+        assertEquals(2, ((TkhdAtom) atoms.get(0)).getTrackId());
+
+        plan = QTProgCompiler.compilePlan("step into moov\nread mvhd\nstep into trak where id=2\n"
+                + "step into mdia\nread hdlr where hdlr=vide");
+        atoms = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file), plan.getCommands()));
+        assertEquals(HdlrAtom.VIDE, ((HdlrAtom) atoms.get(1)).getCompSubtype());
+    }
+
+    public void testCorruptHdlrSize() throws IOException {
+        String prog = "step into moov\nstep into trak\nstep into mdia\nread hdlr";
+        byte[] shortHdlr = fullAtom("hdlr", 0, 0, "mhlr".getBytes(), "vide".getBytes());
+        byte[] longHdlr = fullAtom("hdlr", 0, 0, "mhlr".getBytes(), "vide".getBytes(),
+                new byte[12], new byte[100]);
+        for (byte[] hdlr : new byte[][] {shortHdlr, longHdlr}) {
+            byte[] file = concat(ftyp(), atom("moov", atom("trak", atom("mdia", hdlr))));
+            try {
+                new QTReaderBuilder().withMaxAtomSize(64).build()
+                        .readStream(new ByteArrayInputStream(file), compile(prog));
+                fail("corrupt hdlr accepted");
+            } catch (QTFormatException e) {
+                assertEquals("corrupt atom size", e.getMessage());
+            }
+        }
+    }
+
+    public void testCorruptHeaderSizes() throws IOException {
+        byte[] tkhd = fullAtom("tkhd", 0, 1, ints(0, 0, 2));
+        byte[] mdhd = fullAtom("mdhd", 1, 0, ints(0, 0, 600, 1800), shorts(0, 0));
+        byte[][] files = {
+                concat(ftyp(), atom("moov", atom("trak", tkhd, atom("mdia")))),
+                concat(ftyp(), atom("moov", atom("trak", atom("mdia", mdhd, atom("minf")))))
+        };
+        String[] progs = {
+                "step into moov\nstep into trak\nread tkhd",
+                "step into moov\nstep into trak\nstep into mdia\nread mdhd"
+        };
+        for (int i=0; i < files.length; i++) {
+            try {
+                new QTReader().readStream(new ByteArrayInputStream(files[i]), compile(progs[i]));
+                fail("corrupt header accepted");
+            } catch (QTFormatException e) {
+                assertEquals("corrupt atom size", e.getMessage());
+            }
+        }
+    }
+
+    public void testMissingTrackHeader() throws IOException {
+        byte[] hdlr = fullAtom("hdlr", 0, 0, "mhlr".getBytes(), "vide".getBytes(),
+                new byte[12], bytes(4), "Test".getBytes());
+        byte[] file = concat(ftyp(), atom("moov", atom("trak", atom("mdia", hdlr))));
+        try {
+            new QTReader().readTracks(new ByteArrayInputStream(file));
+            fail("track without headers accepted");
+        } catch (QTFormatException e) {
+            assertEquals("missing track header", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the QTTailReader with a fragmented file that grows between polls.
+ */
+public class TestQTTailReader extends TestCase {
+
+    public TestQTTailReader(String name) {
+        super(name);
+    }
+
+    /**
+     * Records the events of a QTTailReader.
+     */
+    static final class Recorder implements QTTailListener {
+        final List<Integer> types = new ArrayList<>();
+        final List<QTFragment> fragments = new ArrayList<>();
+        List<QTTrack> tracks;
+
+        @Override
+        public void atomCompleted(long offset, int type, long size) {
+            types.add(type);
+        }
+
+        @Override
+        public void tracksRead(List<QTTrack> tracks) {
+            this.tracks = tracks;
+        }
+
+        @Override
+        public void fragmentRead(QTFragment fragment) {
+            fragments.add(fragment);
+        }
+    }
+
+    private static void append(Path file, byte[] data, int from, int to) throws IOException {
+        Files.write(file, Arrays.copyOfRange(data, from, to), StandardOpenOption.APPEND);
+    }
+
+    public void testPollGrowingFile() throws IOException {
+        byte[] head = concat(ftyp(), atom("moov",
+                TestQTReader.trak(1, "vide", 640, 480),
+                atom("mvex", fullAtom("trex", 0, 0, ints(1, 1, 1000, 0, 0x00010000)))));
+        byte[] moof = TestQTFragmentReader.moof1(TestQTFragmentReader.moof1(0).length + 8);
+        byte[] mdat = atom("mdat", new byte[210]);
+        byte[] growing = concat(ints(0), bytes('m', 'd', 'a', 't'), new byte[30]);
+        byte[] body = concat(moof, mdat);
+
+        Path file = Files.createTempFile("qttail", ".mp4");
+        Recorder recorder = new Recorder();
+        try (QTTailReader tail = new QTReader().tail(file, recorder)) {
+            assertEquals(0, tail.poll());
+
+            Files.write(file, Arrays.copyOf(head, head.length - 5));
+            assertEquals(1, tail.poll());
+            assertFalse(tail.isMovieRead());
+            assertEquals(ftyp().length, tail.getPosition());
+
+            append(file, head, head.length - 5, head.length);
+            append(file, body, 0, 20);
+            assertEquals(1, tail.poll());
+            assertTrue(tail.isMovieRead());
+            assertEquals(1, recorder.tracks.size());
+            assertEquals(head.length, tail.getPosition());
+            assertEquals(0, recorder.fragments.size());
+
+            append(file, body, 20, moof.length + 100);
+            assertEquals(1, tail.poll());
+            assertEquals(1, recorder.fragments.size());
+            QTTrackFragment traf = recorder.fragments.get(0).getTrackFragment(1);
+            assertEquals(3, traf.getNumSamples());
+            assertEquals(head.length + moof.length + 8, traf.getSampleOffset(0));
+            assertEquals(2000, traf.getDecodeTime(2));
+
+            append(file, body, moof.length + 100, body.length);
+            append(file, growing, 0, growing.length);
+            assertEquals(1, tail.poll());
+            assertEquals(0, tail.poll());
+            assertEquals(head.length + body.length, tail.getPosition());
+            assertEquals(Arrays.asList(QTAtom.FTYP, QTAtom.MOOV, QTAtom.MOOF, QTAtom.MDAT),
+                    recorder.types);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testPollCorruptMovie() throws IOException {
+        byte[] hdlr = fullAtom("hdlr", 0, 0, "mhlr".getBytes(), "vide".getBytes(),
+                new byte[12], bytes(4), "Test".getBytes());
+        byte[] head = concat(ftyp(), atom("moov",
+                TestQTReader.trak(1, "vide", 640, 480), atom("trak", atom("mdia", hdlr))));
+
+        Path file = Files.createTempFile("qttail", ".mp4");
+        Recorder recorder = new Recorder();
+        try (QTTailReader tail = new QTReader().tail(file, recorder)) {
+            Files.write(file, head);
+            for (int i=0; i < 2; i++) {
+                try {
+                    tail.poll();
+                    fail("track without headers accepted");
+                } catch (QTFormatException e) {
+                    assertEquals("missing track header", e.getMessage());
+                }
+                assertFalse(tail.isMovieRead());
+                assertEquals(0, tail.getTracks().size());
+                assertEquals(ftyp().length, tail.getPosition());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.csmath.QT;
+
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the RandomAccessSources, the HttpRangeSource against an embedded server.
+ */
+public class TestRandomAccessSource extends TestCase {
+
+    public TestRandomAccessSource(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd\n"
+            + "step into mdia\n"
+            + "read hdlr";
+
+    /**
+     * Returns a movie, whose 'moov' atom follows 4 MiB of media data.
+     */
+    private static byte[] movie() {
+        return concat(ftyp(), atom("mdat", new byte[1 << 22]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        TestQTReader.trak(2, "vide", 640, 480)));
+    }
+
+    /**
+     * Starts a server of a file, which answers range requests iff ranges is true.
+     */
+    private static HttpServer serve(byte[] file, boolean ranges) throws IOException {
+        return serve(file, ranges, 0, new HashSet<>());
+    }
+
+    /**
+     * Starts a server of a file, which answers range requests iff ranges is true
+     * with the range shifted by shift bytes, and records the client ports.
+     */
+    private static HttpServer serve(byte[] file, boolean ranges, int shift, Set<Integer> ports)
+            throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/movie.mov", exchange -> {
+            synchronized (ports) {
+                ports.add(exchange.getRemoteAddress().getPort());
+            }
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int first = 0;
+            int last = file.length - 1;
+            int status = 200;
+            if (ranges && range != null && range.startsWith("bytes=")) {
+                String[] bounds = range.substring(6).split("-");
+                first = Integer.parseInt(bounds[0]) + shift;
+                last = Math.min(Integer.parseInt(bounds[1]), file.length - 1);
+                if (first >= file.length) {
+                    exchange.getResponseHeaders().set("Content-Range", "bytes */" + file.length);
+                    exchange.sendResponseHeaders(416, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + first + "-" + last + "/" + file.length);
+                status = 206;
+            }
+            exchange.sendResponseHeaders(status, last - first + 1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(file, first, last - first + 1);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static URL url(HttpServer server) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/movie.mov");
+    }
+
+    public void testByteArraySource() throws IOException {
+        byte[] file = movie();
+        ByteArraySource source = new ByteArraySource(file);
+        assertEquals(file.length, source.size());
+        ByteBuffer buf = ByteBuffer.allocate(16);
+        assertEquals(8, source.read(file.length - 8, 100, buf));
+        assertEquals(-1, source.read(file.length, 1, buf));
+
+        QTPlan plan = QTProgCompiler.compilePlan(PROG);
+        QTReader reader = new QTReader();
+        List<QTAtom> expected = new ArrayList<>(reader.readStream(new ByteArrayInputStream(file),
+                plan.getCommands()));
+        List<QTAtom> atoms = new ArrayList<>(reader.readSource(
+                new ByteArraySource(ByteBuffer.wrap(file).asReadOnlyBuffer()), plan));
+        assertEquals(expected.size(), atoms.size());
+        assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+    }
+
+    public void testHttpRangeSource() throws IOException {
+        byte[] file = movie();
+        HttpServer server = serve(file, true);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            QTPlan plan = QTProgCompiler.compilePlan(PROG);
+            QTReader reader = new QTReader();
+            HttpRangeSource source = new HttpRangeSource(url(server));
+            assertEquals(file.length, source.size());
+            List<QTAtom> atoms = new ArrayList<>(reader.readSource(source, plan));
+            assertEquals(3, atoms.size());
+            assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+            assertEquals(HdlrAtom.VIDE, ((HdlrAtom) atoms.get(2)).getCompSubtype());
+            assertTrue(source.getBytesTransferred() < 1 << 16);
+            assertTrue(source.getNumRequests() < 10);
+
+            source = new HttpRangeSource(url(server));
+            atoms = new ArrayList<>(reader.readSource(source, plan,
+                    QTReadOptions.DEFAULT.withPrefetcher(new Prefetcher(pool, 1 << 16, 1024))).getAtoms());
+            assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+
+            QTExplain explain = reader.explain(new HttpRangeSource(url(server)), plan);
+            assertEquals(3, explain.getNumRanges());
+
+            ByteBuffer buf = ByteBuffer.allocate(8);
+            assertEquals(-1, source.read(file.length, 8, buf));
+            assertEquals(4, source.read(file.length - 4, 8, buf));
+        } finally {
+            pool.shutdown();
+            server.stop(0);
+        }
+    }
+
+    public void testKeepAlive() throws IOException {
+        Set<Integer> ports = new HashSet<>();
+        HttpServer server = serve(movie(), true, 0, ports);
+        try {
+            HttpRangeSource source = new HttpRangeSource(url(server));
+            new QTReader().readSource(source, QTProgCompiler.compilePlan(PROG));
+            assertTrue(source.getNumRequests() >= 2);
+            assertEquals(1, ports.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    public void testWrongRange() throws IOException {
+        HttpServer server = serve(movie(), true, 4, new HashSet<>());
+        try {
+            new HttpRangeSource(url(server)).read(100, 16, ByteBuffer.allocate(16));
+            fail("wrong range accepted");
+        } catch (IOException e) {
+            assertEquals("unexpected content range", e.getMessage());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    public void testNoRangeRequests() throws IOException {
+        HttpServer server = serve(movie(), false);
+        try {
+            new QTReader().readSource(new HttpRangeSource(url(server), 1000),
+                    QTProgCompiler.compilePlan(PROG));
+            fail("no range requests accepted");
+        } catch (IOException e) {
+            assertEquals("range requests not supported", e.getMessage());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
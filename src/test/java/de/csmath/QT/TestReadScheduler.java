@@ -0,0 +1,98 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the coalescing of planned reads by the ReadScheduler.
+ */
+public class TestReadScheduler extends TestCase {
+
+    public TestReadScheduler(String name) {
+        super(name);
+    }
+
+    private static final String PROG = "step into moov\n"
+            + "read mvhd\n"
+            + "step into trak where hdlr=vide\n"
+            + "read tkhd\n"
+            + "step into mdia\n"
+            + "read mdhd\n"
+            + "read hdlr\n"
+            + "step into minf\n"
+            + "step into stbl\n"
+            + "read stsz";
+
+    /**
+     * Returns a movie, whose 'moov' atom follows the media data.
+     */
+    private static byte[] movie(int mediaSize) {
+        return concat(ftyp(), atom("mdat", new byte[mediaSize]),
+                atom("moov", fullAtom("mvhd", 0, 0, new byte[96]),
+                        TestQTReader.trak(1, "soun", 0, 0),
+                        TestQTReader.trak(2, "vide", 640, 480)));
+    }
+
+    public void testSchedule() {
+        ReadScheduler scheduler = new ReadScheduler(4096, 4096)
+                .add(200, 50).add(0, 100).add(100000, 10).add(5000, 10).add(300, 0);
+        assertEquals(2, scheduler.schedule());
+        assertEquals(0, scheduler.getReadOffset(0));
+        assertEquals(8192, scheduler.getReadLength(0));
+        assertEquals(98304, scheduler.getReadOffset(1));
+        assertEquals(4096, scheduler.getReadLength(1));
+
+        assertEquals(3, new ReadScheduler(0, 1).add(0, 10).add(10, 5).add(16, 1).add(30, 2).schedule());
+
+        try {
+            new ReadScheduler(0, 3000);
+            fail("alignment accepted");
+        } catch (IllegalArgumentException e) {
+            assertEquals("alignment no power of two", e.getMessage());
+        }
+    }
+
+    public void testCoalescedReads() throws IOException {
+        Path path = Files.createTempFile("qtsched", ".mov");
+        Path other = Files.createTempFile("qtsched", ".mov");
+        try {
+            Files.write(path, movie(1 << 20));
+            Files.write(other, movie(3 << 19));
+            QTPlan plan = QTProgCompiler.compilePlan(PROG);
+            QTReader reader = new QTReader();
+            ReadScheduler scheduler = new ReadScheduler();
+            QTExplain explain;
+            QTReadOptions options;
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                explain = reader.explain(ch, plan);
+                assertTrue(explain.getNumSeeks() > 4);
+                options = QTReadOptions.DEFAULT.withSchedule(explain, scheduler);
+                List<QTAtom> expected = new ArrayList<>(reader.readChannel(ch, plan));
+                List<QTAtom> atoms = new ArrayList<>(reader.readChannel(ch, plan, options).getAtoms());
+                assertEquals(2, scheduler.getNumReads());
+                assertEquals(0, scheduler.getNumMisses());
+                assertEquals(expected.size(), atoms.size());
+                assertEquals(2, ((TkhdAtom) atoms.get(1)).getTrackId());
+                assertEquals(30, ((StszAtom) atoms.get(4)).getSampleSize(2));
+            }
+            try (FileChannel ch = FileChannel.open(other, StandardOpenOption.READ)) {
+                List<QTAtom> atoms = new ArrayList<>(reader.readChannel(ch, plan, options).getAtoms());
+                assertTrue(scheduler.getNumMisses() > 0);
+                assertEquals(5, atoms.size());
+                assertEquals(HdlrAtom.VIDE, ((HdlrAtom) atoms.get(3)).getCompSubtype());
+            }
+        } finally {
+            Files.delete(path);
+            Files.delete(other);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+
+import static de.csmath.QT.QTTestFiles.*;
+
+/**
+ * Tests the SampleCursor with a track of 10 samples in 4 chunks.
+ */
+public class TestSampleCursor extends TestCase {
+
+    private static final long[] OFFSETS =
+            { 1000, 1010, 1021, 2000, 2013, 2027, 3000, 3016, 4000, 4018 };
+
+    private static final long[] TIMES =
+            { 0, 100, 200, 300, 400, 600, 800, 1000, 1200, 1400 };
+
+    public TestSampleCursor(String name) {
+        super(name);
+    }
+
+    private static SampleTable table(int entrySize, int... values) {
+        return new SampleTable(ByteBuffer.wrap(ints(values)),
+                values.length * 4 / entrySize, entrySize, TableStorage.HEAP);
+    }
+
+    private static SampleCursor cursor() {
+        byte[] flags = new byte[3];
+        SttsAtom stts = new SttsAtom(0, QTAtom.STTS, (byte) 0, flags, table(8, 4, 100, 6, 200));
+        StszAtom stsz = new StszAtom(0, QTAtom.STSZ, (byte) 0, flags, 0, 10,
+                table(4, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19));
+        StscAtom stsc = new StscAtom(0, QTAtom.STSC, (byte) 0, flags, table(12, 1, 3, 1, 3, 2, 1));
+        StcoAtom stco = new StcoAtom(0, QTAtom.STCO, (byte) 0, flags, table(4, 1000, 2000, 3000, 4000));
+        CttsAtom ctts = new CttsAtom(0, QTAtom.CTTS, (byte) 0, flags, table(8, 2, 50, 8, 0));
+        StssAtom stss = new StssAtom(0, QTAtom.STSS, (byte) 0, flags, table(4, 1, 7));
+        return new SampleCursor(stts, stsz, stsc, stco, ctts, stss);
+    }
+
+    public void testIterateAllSamples() {
+        SampleCursor c = cursor();
+        int n = 0;
+        while (c.next()) {
+            assertEquals(n, c.sampleIndex());
+            assertEquals(OFFSETS[n], c.offset());
+            assertEquals(10 + n, c.size());
+            assertEquals(TIMES[n], c.decodeTime());
+            assertEquals(n < 2 ? 50 : 0, c.compositionOffset());
+            assertEquals(n == 0 || n == 6, c.isSync());
+            assertEquals(n < 3 ? 0 : n < 6 ? 1 : n < 8 ? 2 : 3, c.chunkIndex());
+            n++;
+        }
+        assertEquals(10, n);
+    }
+
+    public void testSeek() {
+        SampleCursor c = cursor();
+        for (int i = 9; i >= 0; i--) {
+            assertTrue(c.seekToSample(i));
+            assertEquals(OFFSETS[i], c.offset());
+            assertEquals(TIMES[i], c.decodeTime());
+            assertEquals(i == 0 || i == 6, c.isSync());
+        }
+
+        assertTrue(c.seekTo(1250));
+        assertEquals(8, c.sampleIndex());
+        assertEquals(4000, c.offset());
+        assertTrue(c.next());
+        assertEquals(4018, c.offset());
+        assertFalse(c.next());
+
+        assertTrue(c.seekTo(350));
+        assertEquals(3, c.sampleIndex());
+        assertEquals(2000, c.offset());
+        assertEquals(0, c.compositionOffset());
+    }
+}
@@ -0,0 +1,70 @@
+package de.csmath.QT;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Tests the SyncSampleBitmap against a plain boolean array.
+ */
+public class TestSyncSampleBitmap extends TestCase {
+
+    public TestSyncSampleBitmap(String name) {
+        super(name);
+    }
+
+    private static StssAtom stss(int[] syncNumbers) {
+        ByteBuffer buf = ByteBuffer.allocate(syncNumbers.length * 4);
+        for (int n : syncNumbers) buf.putInt(n);
+        return new StssAtom(0, QTAtom.STSS, (byte) 0, new byte[3],
+                new SampleTable(buf, syncNumbers.length, 4, TableStorage.HEAP));
+    }
+
+    public void testMissingStssMeansAllSync() {
+        SyncSampleBitmap bm = new SyncSampleBitmap(null, 100);
+        assertTrue(bm.isAllSync());
+        assertTrue(bm.isSync(0));
+        assertTrue(bm.isSync(99));
+        assertFalse(bm.isSync(100));
+        assertEquals(10, bm.countSync(10, 20));
+        assertEquals(42, bm.nextSync(42));
+    }
+
+    public void testQueriesMatchBruteForce() {
+        Random rnd = new Random(4711);
+        for (int gop : new int[] { 1, 2, 12, 30, 250 }) {
+            int n = 5000;
+            boolean[] sync = new boolean[n];
+            int[] numbers = new int[n];
+            int m = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || rnd.nextInt(gop) == 0) {
+                    sync[i] = true;
+                    numbers[m++] = i + 1;
+                }
+            }
+            int[] stssNumbers = new int[m];
+            System.arraycopy(numbers, 0, stssNumbers, 0, m);
+            SyncSampleBitmap bm = new SyncSampleBitmap(stss(stssNumbers), n);
+            assertEquals(m, bm.getNumSyncSamples());
+
+            int rank = 0;
+            for (int i = 0; i < n; i++) {
+                assertEquals(sync[i], bm.isSync(i));
+                assertEquals(rank, bm.rank(i));
+                if (sync[i]) {
+                    assertEquals(i, bm.select(rank));
+                    rank++;
+                }
+                int next = i;
+                while (next < n && !sync[next]) next++;
+                assertEquals(next < n ? next : -1, bm.nextSync(i));
+                int prev = i;
+                while (prev >= 0 && !sync[prev]) prev--;
+                assertEquals(prev, bm.prevSync(i));
+            }
+            assertEquals(m, bm.countSync(0, n));
+        }
+    }
+}